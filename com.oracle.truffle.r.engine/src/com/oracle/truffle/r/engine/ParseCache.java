@@ -0,0 +1,641 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.launcher.StartupTiming;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RParserFactory;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
+import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * Persistent cache of the syntax trees of R source files, enabled by
+ * {@link FastROptions#ParseCacheDir}. Every R session parses the same base package and profile
+ * sources during startup, and the lexer and parser account for a large part of that.
+ *
+ * Instead of the trees themselves, which contain Truffle nodes, the cache stores the sequence of
+ * {@link RCodeBuilder} calls that the parser made while building them. The calls are replayed on
+ * the same kind of builder, so a cache hit produces exactly the nodes (including the source
+ * sections) that parsing would. Entries are keyed by the SHA-256 hash of the source contents and
+ * of the {@link RParserFactory.Parser#getIdentity() parser identity}; a changed file or a different
+ * FastR build simply misses the cache, and stale entries are never read.
+ */
+final class ParseCache {
+
+    private static final int MAGIC = 0x52415354;
+    /**
+     * Must be incremented whenever the format of the entries changes.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Sources shorter than this are not worth the file system access.
+     */
+    private static final int MIN_SOURCE_LENGTH = 4096;
+
+    private static final byte OP_LOOKUP = 1;
+    private static final byte OP_CONSTANT = 2;
+    private static final byte OP_CALL = 3;
+    private static final byte OP_FUNCTION = 4;
+
+    private static final byte CONST_NULL = 1;
+    private static final byte CONST_LOGICAL = 2;
+    private static final byte CONST_INTEGER = 3;
+    private static final byte CONST_DOUBLE = 4;
+    private static final byte CONST_COMPLEX = 5;
+    private static final byte CONST_STRING = 6;
+    private static final byte CONST_STRING_NA = 7;
+
+    private static final byte ASSIGNED_TO_NONE = 0;
+    private static final byte ASSIGNED_TO_NAME = 1;
+    private static final byte ASSIGNED_TO_NODE = 2;
+
+    /**
+     * Entries recorded by a parser with a different identity must not be replayed, so there is no
+     * caching if the identity is unknown. Computing the identity hashes the parser's class files, so
+     * it is only initialized once the cache is enabled.
+     */
+    private static final class ParserIdentity {
+        static final String VALUE = RParserFactory.getParser().getIdentity();
+    }
+
+    private ParseCache() {
+        // no instances
+    }
+
+    static boolean isEnabled(Source source) {
+        String dir = FastROptions.ParseCacheDir.getStringValue();
+        if (dir == null || dir.isEmpty()) {
+            return false;
+        }
+        return source.getPath() != null && !source.isInteractive() && source.getLength() >= MIN_SOURCE_LENGTH && ParserIdentity.VALUE != null;
+    }
+
+    /**
+     * Equivalent of {@link RParserFactory.Parser#script}, which replays the cached builder calls for
+     * {@code source} if there are any, and otherwise parses the source and stores the calls.
+     */
+    @TruffleBoundary
+    static List<RSyntaxNode> parse(Source source, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) throws ParseException {
+        Path file = null;
+        try {
+            file = Paths.get(FastROptions.ParseCacheDir.getStringValue()).resolve(hash(source) + ".ast");
+        } catch (RuntimeException | NoSuchAlgorithmException e) {
+            // invalid path or no SHA-256 in this VM: just parse
+        }
+        if (file != null) {
+            long start = System.nanoTime();
+            List<RSyntaxNode> result = load(file, source, builder, language);
+            if (result != null) {
+                StartupTiming.duration("Loading cached syntax trees", System.nanoTime() - start);
+                return result;
+            }
+        }
+        long start = System.nanoTime();
+        Recorder<RSyntaxNode> recorder = new Recorder<>(builder, source);
+        RParserFactory.Parser<RSyntaxNode> parser = RParserFactory.getParser();
+        List<RSyntaxNode> result = parser.script(source, recorder, language);
+        StartupTiming.duration("Parsing R sources", System.nanoTime() - start);
+        if (file != null) {
+            start = System.nanoTime();
+            recorder.store(file, result);
+            StartupTiming.duration("Storing cached syntax trees", System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private static String hash(Source source) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(ParserIdentity.VALUE.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return hex(digest.digest(source.getCharacters().toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Hash of the current contents of a file included with a {@code #line 1 "path"} marker, which
+     * the parser reads from the file system and not from the source being parsed.
+     */
+    private static String hashFile(String path) throws IOException, NoSuchAlgorithmException {
+        return hex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(Paths.get(path))));
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder str = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            str.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Replays the builder calls stored in {@code file}, returns {@code null} if there is no valid
+     * entry. Entries end with a CRC32 of their contents, so that partially written or damaged files
+     * are never replayed.
+     */
+    private static <T> List<T> load(Path file, Source source, RCodeBuilder<T> builder, TruffleRLanguage language) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (IOException e) {
+            // typically no entry yet
+            return null;
+        }
+        if (data.length < 4 || checksum(data, data.length - 4) != ByteBuffer.wrap(data, data.length - 4, 4).getInt()) {
+            // truncated or otherwise corrupted entry, it will be overwritten after parsing
+            return null;
+        }
+        try {
+            return new Replayer<>(new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4)), source, builder, language).replay();
+        } catch (IOException | RuntimeException e) {
+            // malformed entry, it will be overwritten after parsing
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static final class Replayer<T> {
+        private final DataInputStream in;
+        private final Source source;
+        private final RCodeBuilder<T> builder;
+        private final TruffleRLanguage language;
+        private Source[] sources;
+        private ArrayList<T> nodes;
+
+        Replayer(DataInputStream in, Source source, RCodeBuilder<T> builder, TruffleRLanguage language) {
+            this.in = in;
+            this.source = source;
+            this.builder = builder;
+            this.language = language;
+        }
+
+        List<T> replay() throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != source.getLength()) {
+                return null;
+            }
+            sources = new Source[readCount() + 1];
+            sources[0] = source;
+            for (int i = 1; i < sources.length; i++) {
+                String path = readString();
+                String text = readString();
+                String fileHash = readString();
+                try {
+                    if (!hashFile(path).equals(fileHash)) {
+                        // the included file has changed since the entry was recorded
+                        return null;
+                    }
+                    sources[i] = RSource.fromFileName(text, path, false);
+                } catch (URISyntaxException | NoSuchAlgorithmException e) {
+                    return null;
+                }
+            }
+            int count = readCount();
+            nodes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                nodes.add(replayOperation());
+            }
+            int resultCount = readCount();
+            ArrayList<T> result = new ArrayList<>(resultCount);
+            for (int i = 0; i < resultCount; i++) {
+                result.add(nodes.get(in.readInt()));
+            }
+            return result;
+        }
+
+        private T replayOperation() throws IOException {
+            byte op = in.readByte();
+            SourceSection section = readSection();
+            switch (op) {
+                case OP_LOOKUP: {
+                    String symbol = readString();
+                    boolean functionLookup = in.readBoolean();
+                    return builder.lookup(section, symbol, functionLookup);
+                }
+                case OP_CONSTANT:
+                    return builder.constant(section, readConstant());
+                case OP_CALL: {
+                    T lhs = nodes.get(in.readInt());
+                    List<RCodeBuilder.Argument<T>> args = readArguments();
+                    return builder.call(section, lhs, args);
+                }
+                case OP_FUNCTION: {
+                    List<RCodeBuilder.Argument<T>> params = readArguments();
+                    T body = nodes.get(in.readInt());
+                    Object assignedTo;
+                    byte kind = in.readByte();
+                    if (kind == ASSIGNED_TO_NAME) {
+                        assignedTo = readString();
+                    } else if (kind == ASSIGNED_TO_NODE) {
+                        assignedTo = nodes.get(in.readInt());
+                    } else {
+                        assignedTo = null;
+                    }
+                    return builder.function(language, section, params, body, assignedTo);
+                }
+                default:
+                    throw new IOException("invalid operation " + op);
+            }
+        }
+
+        private List<RCodeBuilder.Argument<T>> readArguments() throws IOException {
+            int length = readCount();
+            ArrayList<RCodeBuilder.Argument<T>> args = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                SourceSection section = readSection();
+                String name = readString();
+                int value = in.readInt();
+                args.add(RCodeBuilder.argument(section, name, value == -1 ? null : nodes.get(value)));
+            }
+            return args;
+        }
+
+        private Object readConstant() throws IOException {
+            byte kind = in.readByte();
+            switch (kind) {
+                case CONST_NULL:
+                    return RNull.instance;
+                case CONST_LOGICAL:
+                    return in.readByte();
+                case CONST_INTEGER:
+                    return in.readInt();
+                case CONST_DOUBLE:
+                    return Double.longBitsToDouble(in.readLong());
+                case CONST_COMPLEX: {
+                    double re = Double.longBitsToDouble(in.readLong());
+                    double im = Double.longBitsToDouble(in.readLong());
+                    return RComplex.valueOf(re, im);
+                }
+                case CONST_STRING:
+                    return readString();
+                case CONST_STRING_NA:
+                    return RRuntime.STRING_NA;
+                default:
+                    throw new IOException("invalid constant " + kind);
+            }
+        }
+
+        private SourceSection readSection() throws IOException {
+            int index = in.readInt();
+            if (index == -1) {
+                return null;
+            }
+            int charIndex = in.readInt();
+            int charLength = in.readInt();
+            return sources[index].createSection(charIndex, charLength);
+        }
+
+        /**
+         * Reads the number of elements that follow, each of which takes at least one byte, so that
+         * a corrupted entry cannot cause huge allocations.
+         */
+        private int readCount() throws IOException {
+            int count = in.readInt();
+            if (count < 0 || count > in.available()) {
+                throw new IOException("invalid count " + count);
+            }
+            return count;
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0 || length > in.available()) {
+                throw new IOException("invalid string length " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A builder that records all calls made by the parser before passing them on to the actual
+     * builder. Anything that cannot be represented in the cache disables the recording, but never
+     * the parsing itself.
+     */
+    private static final class Recorder<T> implements RCodeBuilder<T> {
+        private final RCodeBuilder<T> delegate;
+        private final Source source;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final IdentityHashMap<Object, Integer> ids = new IdentityHashMap<>();
+        private final IdentityHashMap<Source, Integer> sourceIds = new IdentityHashMap<>();
+        private final ArrayList<Source> sources = new ArrayList<>();
+        private int count;
+        private boolean failed;
+
+        Recorder(RCodeBuilder<T> delegate, Source source) {
+            this.delegate = delegate;
+            this.source = source;
+        }
+
+        @Override
+        public T call(SourceSection section, T lhs, List<Argument<T>> arguments) {
+            T result = delegate.call(section, lhs, arguments);
+            if (!failed) {
+                try {
+                    out.writeByte(OP_CALL);
+                    writeSection(section);
+                    out.writeInt(id(lhs));
+                    writeArguments(arguments);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public T constant(SourceSection section, Object value) {
+            T result = delegate.constant(section, value);
+            if (!failed) {
+                try {
+                    out.writeByte(OP_CONSTANT);
+                    writeSection(section);
+                    writeConstant(value);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public T lookup(SourceSection section, String symbol, boolean functionLookup) {
+            T result = delegate.lookup(section, symbol, functionLookup);
+            if (!failed) {
+                try {
+                    out.writeByte(OP_LOOKUP);
+                    writeSection(section);
+                    writeString(symbol);
+                    out.writeBoolean(functionLookup);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public T function(TruffleRLanguage language, SourceSection section, List<Argument<T>> arguments, T body, Object assignedTo) {
+            T result = delegate.function(language, section, arguments, body, assignedTo);
+            if (!failed) {
+                try {
+                    out.writeByte(OP_FUNCTION);
+                    writeSection(section);
+                    writeArguments(arguments);
+                    out.writeInt(id(body));
+                    if (assignedTo == null) {
+                        out.writeByte(ASSIGNED_TO_NONE);
+                    } else if (assignedTo instanceof String) {
+                        out.writeByte(ASSIGNED_TO_NAME);
+                        writeString((String) assignedTo);
+                    } else {
+                        out.writeByte(ASSIGNED_TO_NODE);
+                        out.writeInt(id(assignedTo));
+                    }
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public RootCallTarget rootFunction(TruffleRLanguage language, SourceSection section, List<Argument<T>> arguments, T body, String name) {
+            // not used when parsing scripts
+            failed = true;
+            return delegate.rootFunction(language, section, arguments, body, name);
+        }
+
+        @Override
+        public List<Argument<RSyntaxNode>> getFunctionExprArgs(Object args) {
+            return delegate.getFunctionExprArgs(args);
+        }
+
+        @Override
+        public void setContext(CodeBuilderContext context) {
+            delegate.setContext(context);
+        }
+
+        @Override
+        public CodeBuilderContext getContext() {
+            return delegate.getContext();
+        }
+
+        private T register(T result) {
+            ids.put(result, count++);
+            return result;
+        }
+
+        private int id(Object node) throws IOException {
+            Integer id = ids.get(node);
+            if (id == null) {
+                throw new IOException("node not created by this builder");
+            }
+            return id;
+        }
+
+        private void writeArguments(List<Argument<T>> arguments) throws IOException {
+            out.writeInt(arguments.size());
+            for (Argument<T> arg : arguments) {
+                writeSection(arg.source);
+                writeString(arg.name);
+                out.writeInt(arg.value == null ? -1 : id(arg.value));
+            }
+        }
+
+        private void writeConstant(Object value) throws IOException {
+            if (value == RNull.instance) {
+                out.writeByte(CONST_NULL);
+            } else if (value instanceof Byte) {
+                out.writeByte(CONST_LOGICAL);
+                out.writeByte((byte) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(CONST_INTEGER);
+                out.writeInt((int) value);
+            } else if (value instanceof Double) {
+                out.writeByte(CONST_DOUBLE);
+                out.writeLong(Double.doubleToRawLongBits((double) value));
+            } else if (value instanceof RComplex) {
+                out.writeByte(CONST_COMPLEX);
+                out.writeLong(Double.doubleToRawLongBits(((RComplex) value).getRealPart()));
+                out.writeLong(Double.doubleToRawLongBits(((RComplex) value).getImaginaryPart()));
+            } else if (value instanceof String) {
+                if (RRuntime.isNA((String) value)) {
+                    out.writeByte(CONST_STRING_NA);
+                } else {
+                    out.writeByte(CONST_STRING);
+                    writeString((String) value);
+                }
+            } else {
+                throw new IOException("unexpected constant " + value);
+            }
+        }
+
+        private void writeSection(SourceSection section) throws IOException {
+            if (section == null) {
+                out.writeInt(-1);
+                return;
+            }
+            if (!section.isAvailable()) {
+                throw new IOException("unavailable source section");
+            }
+            out.writeInt(sourceId(section.getSource()));
+            out.writeInt(section.getCharIndex());
+            out.writeInt(section.getCharLength());
+        }
+
+        /**
+         * Sections usually point into the parsed source, but files concatenated with a
+         * {@code #line 1 "path"} marker are given their own sources by the parser.
+         */
+        private int sourceId(Source sectionSource) throws IOException {
+            if (sectionSource == source) {
+                return 0;
+            }
+            Integer id = sourceIds.get(sectionSource);
+            if (id == null) {
+                if (sectionSource.getPath() == null) {
+                    throw new IOException("unexpected source " + sectionSource.getName());
+                }
+                sources.add(sectionSource);
+                id = sources.size();
+                sourceIds.put(sectionSource, id);
+            }
+            return id;
+        }
+
+        private void writeString(String str) throws IOException {
+            writeString(out, str);
+        }
+
+        private static void writeString(DataOutputStream stream, String str) throws IOException {
+            if (str == null) {
+                stream.writeInt(-1);
+                return;
+            }
+            byte[] encoded = str.getBytes(StandardCharsets.UTF_8);
+            if (!str.equals(new String(encoded, StandardCharsets.UTF_8))) {
+                // e.g., unpaired surrogates
+                throw new IOException("string cannot be encoded");
+            }
+            stream.writeInt(encoded.length);
+            stream.write(encoded);
+        }
+
+        /**
+         * Writes the recorded calls to {@code file}. Failures are ignored, the next run will simply
+         * parse the source again.
+         */
+        void store(Path file, List<T> result) {
+            if (failed) {
+                return;
+            }
+            Path tmp = null;
+            try {
+                Files.createDirectories(file.getParent());
+                tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+                try (OutputStream stream = Files.newOutputStream(tmp)) {
+                    CheckedOutputStream checked = new CheckedOutputStream(stream, new CRC32());
+                    DataOutputStream header = new DataOutputStream(checked);
+                    header.writeInt(MAGIC);
+                    header.writeInt(VERSION);
+                    header.writeInt(source.getLength());
+                    header.writeInt(sources.size());
+                    for (Source s : sources) {
+                        writeString(header, s.getPath());
+                        writeString(header, s.getCharacters().toString());
+                        writeString(header, hashFile(s.getPath()));
+                    }
+                    header.writeInt(count);
+                    bytes.writeTo(header);
+                    header.writeInt(result.size());
+                    for (T node : result) {
+                        header.writeInt(id(node));
+                    }
+                    header.flush();
+                    DataOutputStream trailer = new DataOutputStream(stream);
+                    trailer.writeInt((int) checked.getChecksum().getValue());
+                    trailer.flush();
+                }
+                // the cache directory may be populated by another user, e.g. when building an image
+                tmp.toFile().setReadable(true, false);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                tmp = null;
+            } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                // the cache is best effort only
+            } finally {
+                if (tmp != null) {
+                    try {
+                        Files.deleteIfExists(tmp);
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+}
@@ -117,6 +117,10 @@ final class REngine implements Engine, Engine.Timings {
      * The accumulated time spent by child processes on behalf of this engine.
      */
     private long[] childTimes;
+    /**
+     * Nesting depth of {@link #parseAndEval} calls, only maintained with {@link StartupTiming}.
+     */
+    private int timedEvalDepth;
     /**
      * The {@link RContext} that this engine is associated with (1-1).
      */
@@ -158,7 +162,9 @@ final class REngine implements Engine, Engine.Timings {
         MaterializedFrame baseFrame = RRuntime.createNonFunctionFrame("base");
         REnvironment.baseInitialize(baseFrame, globalFrame);
         context.getStateRFFI().initializeVariables(context);
+        StartupTiming.timestamp("Before Base Loaded");
         RBuiltinPackages.loadBase(context.getLanguage(), baseFrame);
+        StartupTiming.timestamp("After Base Loaded");
         RGraphics.initialize(context);
         if (FastROptions.LoadProfiles.getBooleanValue()) {
             StartupTiming.timestamp("Before Profiles Loaded");
@@ -257,6 +263,7 @@ final class REngine implements Engine, Engine.Timings {
     @Override
     public Object parseAndEval(Source source, MaterializedFrame frame, boolean printResult) throws ParseException {
         List<RSyntaxNode> list = parseSource(source);
+        long evalStart = StartupTiming.ENABLED && timedEvalDepth++ == 0 ? System.nanoTime() : 0L;
         try {
             Object lastValue = RNull.instance;
             for (RSyntaxNode node : list) {
@@ -281,12 +288,25 @@ final class REngine implements Engine, Engine.Timings {
             context.getConsole().printErrorln("FastR internal error: " + t.getMessage());
             RInternalError.reportError(t);
             return null;
+        } finally {
+            // nested evaluations, e.g. by source(), are part of the outermost one
+            if (StartupTiming.ENABLED && --timedEvalDepth == 0) {
+                StartupTiming.duration("Evaluating R sources", System.nanoTime() - evalStart);
+            }
         }
     }
 
     private List<RSyntaxNode> parseSource(Source source) throws ParseException {
+        if (ParseCache.isEnabled(source)) {
+            return ParseCache.parse(source, new RASTBuilder(), context.getLanguage());
+        }
+        long start = StartupTiming.ENABLED ? System.nanoTime() : 0L;
         RParserFactory.Parser<RSyntaxNode> parser = RParserFactory.getParser();
-        return parser.script(source, new RASTBuilder(), context.getLanguage());
+        List<RSyntaxNode> result = parser.script(source, new RASTBuilder(), context.getLanguage());
+        if (StartupTiming.ENABLED) {
+            StartupTiming.duration("Parsing R sources", System.nanoTime() - start);
+        }
+        return result;
     }
 
     @Override
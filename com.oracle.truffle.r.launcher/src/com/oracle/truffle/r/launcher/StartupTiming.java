@@ -25,8 +25,11 @@ package com.oracle.truffle.r.launcher;
 import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class StartupTiming {
     public static final boolean ENABLED = "true".equals(System.getProperty("StartupTiming"));
@@ -35,6 +38,12 @@ public final class StartupTiming {
 
     private final long startTime;
     private final ConcurrentLinkedDeque<Timestamp> timestamps = new ConcurrentLinkedDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * Accumulated durations of the startup phases that do not happen in one contiguous interval,
+     * e.g. parsing, which is interleaved with the evaluation of the parsed sources.
+     */
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
 
     private StartupTiming() {
         RuntimeMXBean runtimeMXBean;
@@ -65,6 +74,16 @@ public final class StartupTiming {
         }
     }
 
+    /**
+     * Adds {@code nanos} to the total time spent in the phase {@code name}.
+     */
+    public static void duration(String name, long nanos) {
+        if (ENABLED) {
+            init();
+            INSTANCE.putDuration(name, nanos);
+        }
+    }
+
     public static void printSummary() {
         if (ENABLED) {
             init();
@@ -73,7 +92,17 @@ public final class StartupTiming {
     }
 
     private void putTimestamp(String tsName) {
-        timestamps.add(new Timestamp(System.currentTimeMillis(), tsName));
+        timestamps.add(new Timestamp(System.currentTimeMillis(), sequence.getAndIncrement(), tsName));
+    }
+
+    private synchronized void putDuration(String phaseName, long nanos) {
+        Phase phase = phases.get(phaseName);
+        if (phase == null) {
+            phase = new Phase();
+            phases.put(phaseName, phase);
+        }
+        phase.nanos += nanos;
+        phase.count++;
     }
 
     private void summary(PrintStream out) {
@@ -91,20 +120,42 @@ public final class StartupTiming {
 
             prevTs = ts.timestamp;
         }
+
+        synchronized (this) {
+            if (!phases.isEmpty()) {
+                out.println("Startup time breakdown:");
+                out.println("<Phase>\t<Total>\t<Count>");
+                for (Map.Entry<String, Phase> entry : phases.entrySet()) {
+                    Phase phase = entry.getValue();
+                    out.printf("%s:\t%s ms\t(%s)\n", entry.getKey(), phase.nanos / 1000000, phase.count);
+                }
+            }
+        }
+    }
+
+    private static final class Phase {
+        private long nanos;
+        private int count;
     }
 
     private static final class Timestamp implements Comparable<Timestamp> {
         private final long timestamp;
+        private final long sequence;
         private final String name;
 
-        Timestamp(long ts, String name) {
+        Timestamp(long ts, long sequence, String name) {
             this.timestamp = ts;
+            this.sequence = sequence;
             this.name = name;
         }
 
         @Override
         public int compareTo(Timestamp other) {
-            return this.timestamp == other.timestamp ? 0 : (this.timestamp < other.timestamp ? -1 : 1);
+            // timestamps taken within the same millisecond must not be dropped by the TreeSet
+            if (this.timestamp == other.timestamp) {
+                return Long.compare(this.sequence, other.sequence);
+            }
+            return this.timestamp < other.timestamp ? -1 : 1;
         }
     }
 }
@@ -24,8 +24,13 @@ package com.oracle.truffle.r.library.parallel;
 
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
+import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LEcuyerCMRG;
 
 /**
  * The .Call support for the parallel package.
@@ -37,4 +42,31 @@ public class ParallelFunctions {
             return RRuntime.asLogical(RContext.getInstance().getParent() != null);
         }
     }
+
+    /**
+     * Implements {@code nextStream} and {@code nextSubStream} from {@code rngstream.c}, the seed is
+     * validated to be a "L'Ecuyer-CMRG" {@code .Random.seed} by the R code.
+     */
+    public abstract static class NextStream extends RExternalBuiltinNode.Arg1 {
+        private final boolean subStream;
+
+        protected NextStream(boolean subStream) {
+            this.subStream = subStream;
+        }
+
+        static {
+            Casts casts = new Casts(NextStream.class);
+            casts.arg(0).mustNotBeNull().asIntegerVector();
+        }
+
+        @Specialization
+        protected RIntVector nextStream(RAbstractIntVector seed) {
+            if (seed.getLength() < 7) {
+                throw error(Message.INVALID_ARGUMENT, "seed");
+            }
+            int[] seeds = seed.materialize().getReadonlyData();
+            // the seeds are unsigned, so any of them may coincide with NA
+            return RDataFactory.createIntVector(subStream ? LEcuyerCMRG.nextSubStream(seeds) : LEcuyerCMRG.nextStream(seeds), RDataFactory.INCOMPLETE_VECTOR);
+        }
+    }
 }
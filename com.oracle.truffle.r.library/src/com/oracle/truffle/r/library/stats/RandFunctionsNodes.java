@@ -35,6 +35,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.LoopConditionProfile;
 import com.oracle.truffle.r.library.stats.RandFunctionsNodesFactory.ConvertToLengthNodeGen;
 import com.oracle.truffle.r.library.stats.RandFunctionsNodesFactory.RandFunction1NodeGen;
@@ -238,6 +239,8 @@ public final class RandFunctionsNodes {
 
     protected abstract static class RandFunctionDoubleExecutorNode extends RandFunctionIterator {
 
+        private final ConditionProfile scalarParamsProfile = ConditionProfile.createBinaryProfile();
+
         protected RandFunctionDoubleExecutorNode(Supplier<? extends RandFunction3_Double> functionFactory) {
             super(functionFactory);
         }
@@ -257,8 +260,20 @@ public final class RandFunctionsNodes {
                     return RDataFactory.createDoubleVector(nansResult, false);
                 }
 
-                boolean nans = false;
                 double[] result = new double[length];
+                if (scalarParamsProfile.profile(aAccess.getLength(aIter) == 1 && bAccess.getLength(bIter) == 1 && cAccess.getLength(cIter) == 1)) {
+                    // all the values come from the same distribution, the function may draw the
+                    // underlying uniform values in bulk
+                    aAccess.nextWithWrap(aIter);
+                    bAccess.nextWithWrap(bIter);
+                    cAccess.nextWithWrap(cIter);
+                    if (function.executeBulk(result, aAccess.getDouble(aIter), bAccess.getDouble(bIter), cAccess.getDouble(cIter), randProvider)) {
+                        putRNGState();
+                        return RDataFactory.createDoubleVector(result, RDataFactory.COMPLETE_VECTOR);
+                    }
+                }
+
+                boolean nans = false;
                 loopConditionProfile.profileCounted(length);
                 for (int i = 0; loopConditionProfile.inject(i < length); i++) {
                     aAccess.nextWithWrap(aIter);
@@ -27,20 +27,25 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElemen
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.frame.FrameInstance.FrameAccess;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventBinding;
 import com.oracle.truffle.api.instrumentation.EventContext;
-import com.oracle.truffle.api.instrumentation.ExecutionEventListener;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
 import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
 import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.nodes.RootNode;
@@ -80,8 +85,12 @@ import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
  * and then the {@code N} is used in line number references of the form {@code N#L},which precede
  * the function name.
  *
+ * Truffle can only walk the frames of the current thread, therefore the profile thread merely
+ * counts the elapsed intervals and the stack is collected by the evaluating thread at the next
+ * statement. Between samples the only cost is the check of that counter. Every sample is written
+ * to the profile file immediately, nothing is accumulated in memory.
  */
-public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryCopyTracer.Listener {
+public abstract class Rprof extends RExternalBuiltinNode.Arg8 {
 
     static {
         Casts casts = new Casts(Rprof.class);
@@ -109,22 +118,13 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
                 endProfiling();
             }
             try {
-                PrintStream out = new PrintStream(new FileOutputStream(filename, append));
+                PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(filename, append)));
                 if (gcProfiling) {
                     warning(RError.Message.GENERIC, "Rprof: gc profiling not supported");
                 }
-                if (memProfiling) {
-                    RDataFactory.addListener(LISTENER);
-                    MemoryCopyTracer.addListener(this);
-                    MemoryCopyTracer.setTracingState(true);
-                }
                 // interval is in seconds, we convert to millis
-                long intervalInMillis = (long) (1E3 * intervalD);
-                StatementListener statementListener = new StatementListener();
-                ProfileThread profileThread = new ProfileThread(intervalInMillis, statementListener);
-                profileThread.setDaemon(true);
-                profState.initialize(out, profileThread, statementListener, intervalInMillis, lineProfiling, memProfiling);
-                profileThread.start();
+                long intervalInMillis = Math.max(1, (long) (1E3 * intervalD));
+                profState.initialize(out, intervalInMillis, lineProfiling, memProfiling);
             } catch (IOException ex) {
                 throw error(RError.Message.GENERIC, String.format("Rprof: cannot open profile file '%s'", filename));
             }
@@ -137,28 +137,33 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
         @TruffleBoundary
         public void reportAllocation(RTypedValue data) {
             RprofState profState = RprofState.get();
-            if (profState.memoryQuad == null) {
+            RprofState.MemoryQuad memoryQuad = profState.memoryQuad;
+            if (memoryQuad == null) {
                 return;
             }
             long size = RObjectSize.getObjectSize(data);
             if (data instanceof RAbstractVector) {
                 if (size >= Rprofmem.LARGE_VECTOR) {
-                    profState.memoryQuad.largeV += size;
+                    memoryQuad.largeV += size;
                 } else {
-                    profState.memoryQuad.smallV += size;
+                    memoryQuad.smallV += size;
                 }
             } else {
-                profState.memoryQuad.nodes += size;
+                memoryQuad.nodes += size;
             }
         }
     };
 
-    @Override
-    @TruffleBoundary
-    public void reportCopying(RAbstractVector source, RAbstractVector dest) {
-        RprofState profState = RprofState.get();
-        profState.memoryQuad.copied += RObjectSize.getObjectSize(source);
-    }
+    private static final MemoryCopyTracer.Listener COPY_LISTENER = new MemoryCopyTracer.Listener() {
+        @Override
+        @TruffleBoundary
+        public void reportCopying(RAbstractVector source, RAbstractVector dest) {
+            RprofState.MemoryQuad memoryQuad = RprofState.get().memoryQuad;
+            if (memoryQuad != null) {
+                memoryQuad.copied += RObjectSize.getObjectSize(source);
+            }
+        }
+    };
 
     private static void endProfiling() {
         RprofState profState = RprofState.get();
@@ -172,14 +177,19 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
         return RSource.getPath(source);
     }
 
+    /**
+     * Counts the elapsed sample intervals into {@link RprofState#pendingSamples}.
+     */
     private static final class ProfileThread extends Thread {
         private final long interval;
-        private final StatementListener statementListener;
+        private final AtomicInteger pendingSamples;
         private volatile boolean running = true;
 
-        private ProfileThread(long interval, StatementListener statementListener) {
+        private ProfileThread(long interval, AtomicInteger pendingSamples) {
+            super("Rprof");
             this.interval = interval;
-            this.statementListener = statementListener;
+            this.pendingSamples = pendingSamples;
+            setDaemon(true);
         }
 
         @Override
@@ -187,80 +197,39 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             while (running) {
                 try {
                     Thread.sleep(interval);
-                    statementListener.intervalElapsed();
+                    pendingSamples.incrementAndGet();
                 } catch (InterruptedException ex) {
-
+                    // stopped
                 }
             }
         }
+
+        private void stopProfiling() {
+            running = false;
+            interrupt();
+        }
     }
 
     /**
-     * Emulates a sampling timer by checking when the sample interval rolls over and at that point
-     * collects the stack of functions.
+     * Creates the nodes that take a sample at the next statement once an interval has elapsed.
      */
-    private final class StatementListener implements ExecutionEventListener {
-        private final ArrayList<ArrayList<RSyntaxElement>> intervalStacks = new ArrayList<>();
-        private final ArrayList<RprofState.MemoryQuad> intervalMemory = new ArrayList<>();
-        private volatile boolean newInterval;
+    private static final class SampleNodeFactory implements ExecutionEventNodeFactory {
+        private final RprofState profState;
 
-        private StatementListener() {
-            SourceSectionFilter.Builder builder = SourceSectionFilter.newBuilder();
-            builder.tagIs(StandardTags.StatementTag.class);
-            SourceSectionFilter filter = builder.build();
-            RInstrumentation.getInstrumenter().attachExecutionEventListener(filter, this);
-        }
-
-        private void intervalElapsed() {
-            newInterval = true;
+        private SampleNodeFactory(RprofState profState) {
+            this.profState = profState;
         }
 
         @Override
-        public void onEnter(EventContext context, VirtualFrame frame) {
-            if (newInterval) {
-                onEnter(context);
-                newInterval = false;
-            }
-        }
-
-        @TruffleBoundary
-        private void onEnter(EventContext context) {
-            /* context tells here we are now, frame provides callers. */
-            ArrayList<RSyntaxElement> stack = new ArrayList<>();
-            stack.add((RSyntaxElement) context.getInstrumentedNode());
-            collectStack(stack);
-            intervalStacks.add(stack);
-            RprofState profState = RprofState.get();
-            if (profState.memoryProfiling) {
-                intervalMemory.add(profState.memoryQuad.copyAndClear());
-            }
-        }
-
-        @TruffleBoundary
-        private void collectStack(final ArrayList<RSyntaxElement> stack) {
-            Utils.iterateRFrames(FrameAccess.READ_ONLY, new Function<Frame, Object>() {
-
+        public ExecutionEventNode create(EventContext context) {
+            return new ExecutionEventNode() {
                 @Override
-                public Object apply(Frame f) {
-                    RCaller call = RArguments.getCall(f);
-                    if (call != null && call.isValidCaller()) {
-                        while (call.isPromise()) {
-                            call = call.getParent();
-                        }
-                        RSyntaxElement syntaxNode = call.getSyntaxNode();
-                        stack.add(syntaxNode);
+                protected void onEnter(VirtualFrame frame) {
+                    if (CompilerDirectives.injectBranchProbability(CompilerDirectives.SLOWPATH_PROBABILITY, profState.pendingSamples.get() != 0)) {
+                        profState.takeSample(context);
                     }
-                    return null;
                 }
-            });
-        }
-
-        @Override
-        public void onReturnValue(EventContext context, VirtualFrame frame, Object result) {
-        }
-
-        @Override
-        public void onReturnExceptional(EventContext context, VirtualFrame frame, Throwable exception) {
+            };
         }
     }
 
@@ -269,12 +238,17 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
      *
      */
     private static final class RprofState extends InstrumentationState.RprofState {
+        private final AtomicInteger pendingSamples = new AtomicInteger();
         private ProfileThread profileThread;
-        private StatementListener statementListener;
+        private EventBinding<SampleNodeFactory> binding;
         private long intervalInMillis;
         private boolean lineProfiling;
         private boolean memoryProfiling;
-        private MemoryQuad memoryQuad;
+        private volatile MemoryQuad memoryQuad;
+        /**
+         * Maps the source files reported so far to their index.
+         */
+        private HashMap<String, Integer> fileMap;
 
         public static final class MemoryQuad {
             public long smallV;
@@ -305,69 +279,117 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             return state;
         }
 
-        public void initialize(PrintStream outA, ProfileThread profileThreadA, StatementListener statementListenerA, long intervalInMillisA,
-                        boolean lineProfilingA, boolean memoryProfilingA) {
+        public void initialize(PrintStream outA, long intervalInMillisA, boolean lineProfilingA, boolean memoryProfilingA) {
             setOut(outA);
-            this.profileThread = profileThreadA;
-            this.statementListener = statementListenerA;
             this.intervalInMillis = intervalInMillisA;
             this.lineProfiling = lineProfilingA;
             this.memoryProfiling = memoryProfilingA;
-            this.memoryQuad = memoryProfilingA ? new MemoryQuad() : null;
+            this.fileMap = lineProfilingA ? new HashMap<>() : null;
+            if (memoryProfilingA) {
+                this.memoryQuad = new MemoryQuad();
+                RDataFactory.addListener(LISTENER);
+                MemoryCopyTracer.addListener(COPY_LISTENER);
+                MemoryCopyTracer.setTracingState(true);
+            }
+            if (memoryProfilingA) {
+                outA.print("memory profiling: ");
+            }
+            if (lineProfilingA) {
+                outA.print("line profiling: ");
+            }
+            outA.printf("sample.interval=%d\n", intervalInMillisA * 1000);
+
+            pendingSamples.set(0);
+            SourceSectionFilter filter = SourceSectionFilter.newBuilder().tagIs(StandardTags.StatementTag.class).build();
+            binding = RInstrumentation.getInstrumenter().attachExecutionEventFactory(filter, new SampleNodeFactory(this));
+            profileThread = new ProfileThread(intervalInMillisA, pendingSamples);
+            profileThread.start();
         }
 
-        @Override
-        public void cleanup(int status) {
-            profileThread.running = false;
-            HashMap<String, Integer> fileMap = null;
-            PrintStream out = this.out();
-            if (this.memoryProfiling) {
-                out.print("memory profiling: ");
-            }
-            if (this.lineProfiling) {
-                out.print("line profiling: ");
+        /**
+         * Writes the current stack once for each interval that elapsed since the last sample.
+         */
+        @TruffleBoundary
+        private void takeSample(EventContext context) {
+            int samples = pendingSamples.getAndSet(0);
+            PrintStream out = out();
+            if (samples == 0 || out == null) {
+                return;
             }
-            out.printf("sample.interval=%d\n", this.intervalInMillis * 1000);
-            if (this.lineProfiling) {
-                // scan stacks to find files
-                fileMap = new HashMap<>();
-                int fileIndex = 0;
-                for (ArrayList<RSyntaxElement> intervalStack : statementListener.intervalStacks) {
-                    for (RSyntaxElement node : intervalStack) {
-                        String path = getPath(node);
-                        if (path != null && fileMap.get(path) == null) {
-                            fileMap.put(path, ++fileIndex);
-                            out.printf("#File %d: %s\n", fileIndex, path);
+            /* context tells here we are now, frame provides callers. */
+            ArrayList<RSyntaxElement> stack = new ArrayList<>();
+            stack.add((RSyntaxElement) context.getInstrumentedNode());
+            collectStack(stack);
+
+            StringBuilder line = new StringBuilder();
+            for (RSyntaxElement node : stack) {
+                RootNode rootNode = ((RSyntaxNode) node).asRNode().getRootNode();
+                if (rootNode instanceof FunctionDefinitionNode) {
+                    if (lineProfiling) {
+                        Integer fileIndex = getFileIndex(out, getPath(node));
+                        if (fileIndex != null) {
+                            line.append(fileIndex).append('#').append(node.getSourceSection().getStartLine()).append(' ');
                         }
                     }
+                    line.append('"').append(rootNode.getName()).append("\" ");
                 }
             }
-            int index = 0;
-            for (ArrayList<RSyntaxElement> intervalStack : statementListener.intervalStacks) {
-                if (this.memoryProfiling) {
-                    RprofState.MemoryQuad mq = statementListener.intervalMemory.get(index);
+            for (int i = 0; i < samples; i++) {
+                if (memoryProfiling) {
+                    // everything allocated in the elapsed intervals is attributed to the first one
+                    MemoryQuad mq = i == 0 ? memoryQuad.copyAndClear() : new MemoryQuad();
                     out.printf(":%d:%d:%d:%d:", mq.largeV, mq.smallV, mq.nodes, mq.copied);
                 }
-                for (RSyntaxElement node : intervalStack) {
-                    RootNode rootNode = ((RSyntaxNode) node).asRNode().getRootNode();
-                    if (rootNode instanceof FunctionDefinitionNode) {
-                        String name = rootNode.getName();
-                        if (this.lineProfiling) {
-                            Integer fileIndex = fileMap.get(getPath(node));
-                            if (fileIndex != null) {
-                                out.printf("%d#%d ", fileIndex, node.getSourceSection().getStartLine());
-                            }
+                out.println(line);
+            }
+        }
+
+        /**
+         * Returns the index of the file at {@code path}, announcing it in the output when it is
+         * seen for the first time.
+         */
+        private Integer getFileIndex(PrintStream out, String path) {
+            if (path == null) {
+                return null;
+            }
+            Integer fileIndex = fileMap.get(path);
+            if (fileIndex == null) {
+                fileIndex = fileMap.size() + 1;
+                fileMap.put(path, fileIndex);
+                out.printf("#File %d: %s\n", fileIndex, path);
+            }
+            return fileIndex;
+        }
+
+        private static void collectStack(final ArrayList<RSyntaxElement> stack) {
+            Utils.iterateRFrames(FrameAccess.READ_ONLY, new Function<Frame, Object>() {
+
+                @Override
+                public Object apply(Frame f) {
+                    RCaller call = RArguments.getCall(f);
+                    if (call != null && call.isValidCaller()) {
+                        while (call.isPromise()) {
+                            call = call.getParent();
                         }
-                        out.printf("\"%s\" ", name);
+                        RSyntaxElement syntaxNode = call.getSyntaxNode();
+                        stack.add(syntaxNode);
                     }
+                    return null;
                 }
-                out.println();
-                index++;
-            }
+            });
+        }
+
+        @Override
+        public void cleanup(int status) {
+            profileThread.stopProfiling();
+            binding.dispose();
+            PrintStream out = this.out();
             out.close();
             this.setOut(null);
             if (this.memoryProfiling) {
+                this.memoryQuad = null;
                 RDataFactory.removeListener(LISTENER);
+                MemoryCopyTracer.removeListener(COPY_LISTENER);
                 MemoryCopyTracer.setTracingState(false);
             }
         }
@@ -37,6 +37,7 @@ import static com.oracle.truffle.r.runtime.RRuntime.LOGICAL_FALSE;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -48,12 +49,16 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
 public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
 
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 13;
+
     @Child private SetFixedAttributeNode setLevelsAttrNode = SetFixedAttributeNode.create(RRuntime.LEVELS_ATTR_KEY);
 
     static {
@@ -91,50 +96,80 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
     private static RIntVector readIntVector(RAbstractStringVector x, int firstPos, int firstVal, RAbstractStringVector naStrings) {
         int[] data = new int[x.getLength()];
         Arrays.fill(data, 0, firstPos, RRuntime.INT_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            if (isNA(s, naStrings)) {
-                data[i] = RRuntime.INT_NA;
-                complete = false;
-            } else {
-                int result = RRuntime.parseInt(s);
-                if (result == RRuntime.INT_NA) {
-                    throw new NumberFormatException();
+        boolean complete = convertChunks(x, firstPos + 1, data.length, (from, to) -> {
+            boolean chunkComplete = true;
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                if (isNA(s, naStrings)) {
+                    data[i] = RRuntime.INT_NA;
+                    chunkComplete = false;
+                } else {
+                    int result = RRuntime.parseInt(s);
+                    if (result == RRuntime.INT_NA) {
+                        throw new NumberFormatException();
+                    }
+                    data[i] = result;
                 }
-                data[i] = result;
             }
-        }
-        return RDataFactory.createIntVector(data, complete);
+            return chunkComplete;
+        });
+        return RDataFactory.createIntVector(data, complete && canBeComplete(firstPos));
     }
 
     private static RDoubleVector readDoubleVector(RAbstractStringVector x, int firstPos, double firstVal, RAbstractStringVector naStrings) {
         double[] data = new double[x.getLength()];
         Arrays.fill(data, 0, firstPos, RRuntime.DOUBLE_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true);
-            complete = complete && !isNA;
-        }
-        return RDataFactory.createDoubleVector(data, complete);
+        boolean complete = convertChunks(x, firstPos + 1, data.length, (from, to) -> {
+            boolean chunkComplete = true;
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                boolean isNA = isNA(s, naStrings);
+                data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true);
+                chunkComplete = chunkComplete && !isNA;
+            }
+            return chunkComplete;
+        });
+        return RDataFactory.createDoubleVector(data, complete && canBeComplete(firstPos));
     }
 
     private static RLogicalVector readLogicalVector(RAbstractStringVector x, int firstPos, byte firstVal, RAbstractStringVector naStrings) {
         byte[] data = new byte[x.getLength()];
         Arrays.fill(data, 0, firstPos, RRuntime.LOGICAL_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
-            complete = complete && !isNA;
+        boolean complete = convertChunks(x, firstPos + 1, data.length, (from, to) -> {
+            boolean chunkComplete = true;
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                boolean isNA = isNA(s, naStrings);
+                data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
+                chunkComplete = chunkComplete && !isNA;
+            }
+            return chunkComplete;
+        });
+        return RDataFactory.createLogicalVector(data, complete && canBeComplete(firstPos));
+    }
+
+    @FunctionalInterface
+    private interface ChunkConverter {
+        /**
+         * Converts the elements in {@code [from, to)}, returns {@code false} if any of them is NA.
+         */
+        boolean convert(int from, int to);
+    }
+
+    /**
+     * Runs the converter on the range {@code [from, to)}, split into chunks converted in parallel
+     * if the range is large and the elements can be read from any thread. A
+     * {@link NumberFormatException} thrown for any chunk is propagated.
+     */
+    private static boolean convertChunks(RAbstractStringVector x, int from, int to, ChunkConverter converter) {
+        if (to - from < PARALLEL_THRESHOLD || !(x instanceof RStringVector)) {
+            return converter.convert(from, to);
         }
-        return RDataFactory.createLogicalVector(data, complete);
+        int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel().map(c -> converter.convert(from + c * CHUNK_SIZE, Math.min(to, from + (c + 1) * CHUNK_SIZE)) ? 1 : 0).min().getAsInt() == 1;
     }
 
     private static boolean canBeComplete(int firstNonNAPos) {
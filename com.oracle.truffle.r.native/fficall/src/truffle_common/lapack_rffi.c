@@ -182,3 +182,23 @@ void call_lapack_dtrsm(const char *side, const char *uplo, const char *transa, c
     dtrsm_(side, uplo, transa, diag, &m, &n, &alpha, a, &lda, b, &ldb);
 }
 
+extern void dgemm_(const char *transa, const char *transb,
+		const int *m, const int *n, const int *k,
+		const double *alpha, const double *a, const int *lda,
+		const double *b, const int *ldb,
+		const double *beta, double *c, const int *ldc);
+
+void call_lapack_dgemm(const char *transa, const char *transb, int m, int n, int k,
+		double alpha, double *a, int lda, double *b, int ldb, double beta, double *c, int ldc) {
+    dgemm_(transa, transb, &m, &n, &k, &alpha, a, &lda, b, &ldb, &beta, c, &ldc);
+}
+
+extern void dsyrk_(const char *uplo, const char *trans,
+		const int *n, const int *k,
+		const double *alpha, const double *a, const int *lda,
+		const double *beta, double *c, const int *ldc);
+
+void call_lapack_dsyrk(const char *uplo, const char *trans, int n, int k,
+		double alpha, double *a, int lda, double beta, double *c, int ldc) {
+    dsyrk_(uplo, trans, &n, &k, &alpha, a, &lda, &beta, c, &ldc);
+}
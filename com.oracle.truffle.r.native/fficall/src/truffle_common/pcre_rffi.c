@@ -51,6 +51,10 @@ int call_pcre_exec(long code, long extra, char *subject, int subjectLength, int
     return pcre_exec((void *) code, (void *) extra, (char *) subject, subjectLength, startOffset, options, ovectorElems, ovectorLen);
 }
 
+void call_pcre_free(long code) {
+    pcre_free((void *) code);
+}
+
 int call_pcre_getcapturecount(long code, long extra) {
     int captureCount;
 	int rc = pcre_fullinfo((void*) code, (void*) extra, PCRE_INFO_CAPTURECOUNT, &captureCount);
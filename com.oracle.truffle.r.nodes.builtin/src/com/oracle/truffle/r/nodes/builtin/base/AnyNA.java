@@ -41,6 +41,7 @@ import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RRaw;
 import com.oracle.truffle.r.runtime.data.model.RAbstractAtomicVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.SequentialIterator;
 
@@ -109,6 +110,10 @@ public abstract class AnyNA extends RBuiltinNode.Arg2 {
     @Specialization(guards = "xAccess.supports(x)")
     protected byte anyNACached(RAbstractAtomicVector x, @SuppressWarnings("unused") boolean recursive,
                     @Cached("x.access()") VectorAccess xAccess) {
+        if (x.getSortedness() != RAbstractVector.SORTEDNESS_UNKNOWN) {
+            // sorted vectors have neither NA nor NaN values
+            return RRuntime.LOGICAL_FALSE;
+        }
         switch (xAccess.getType()) {
             case Logical:
             case Integer:
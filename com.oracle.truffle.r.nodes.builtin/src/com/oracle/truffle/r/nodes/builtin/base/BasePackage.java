@@ -122,17 +122,29 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInterop
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInteropClearExceptionNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInteropGetExceptionNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInteropTryNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRLazyDBStats;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRLazyDBStatsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRLibPaths;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRLibPathsNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRMmap;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRMmapNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRNativeMirrorStats;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRNativeMirrorStatsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastROptionBuiltin;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRParallelApply;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRParallelApplyFactory;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRPkgSource;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRPkgSourceNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRefCountInfo;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRefCountInfoNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegExpCacheInfo;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegExpCacheInfoNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegisterFunctions;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegisterFunctionsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSetConsoleHandler;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSetConsoleHandlerNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRSortedness;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRSortednessNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSlotAssign;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSlotAssignNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSourceInfo;
@@ -454,6 +466,9 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRContext.ChannelReceive.class, FastRContextFactory.ChannelReceiveNodeGen::create);
         add(FastRContext.ChannelSelect.class, FastRContextFactory.ChannelSelectNodeGen::create);
         add(FastRContext.ChannelSend.class, FastRContextFactory.ChannelSendNodeGen::create);
+        add(FastRContext.PoolClose.class, FastRContextFactory.PoolCloseNodeGen::create);
+        add(FastRContext.PoolCreate.class, FastRContextFactory.PoolCreateNodeGen::create);
+        add(FastRContext.PoolEval.class, FastRContextFactory.PoolEvalNodeGen::create);
         add(FastRContext.Spawn.class, FastRContextFactory.SpawnNodeGen::create);
         add(FastRContext.Interrupt.class, FastRContextFactory.InterruptNodeGen::create);
         add(FastRContext.Join.class, FastRContextFactory.JoinNodeGen::create);
@@ -493,9 +508,16 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRInterop.ToLong.class, FastRInteropFactory.ToLongNodeGen::create);
         add(FastRInterop.ToShort.class, FastRInteropFactory.ToShortNodeGen::create);
         add(FastRRefCountInfo.class, FastRRefCountInfoNodeGen::create);
+        add(FastRRegExpCacheInfo.class, FastRRegExpCacheInfoNodeGen::create);
+        add(FastRLazyDBStats.class, FastRLazyDBStatsNodeGen::create);
+        add(FastRMmap.class, FastRMmapNodeGen::create);
+        add(FastRNativeMirrorStats.class, FastRNativeMirrorStatsNodeGen::create);
+        add(FastRParallelApply.ParallelApply.class, FastRParallelApplyFactory.ParallelApplyNodeGen::create);
+        add(FastRParallelApply.ParallelWorker.class, FastRParallelApplyFactory.ParallelWorkerNodeGen::create);
         add(FastRPkgSource.class, FastRPkgSourceNodeGen::create);
         add(FastRSourceInfo.class, FastRSourceInfoNodeGen::create);
         add(FastRSetConsoleHandler.class, FastRSetConsoleHandlerNodeGen::create);
+        add(FastRSortedness.class, FastRSortednessNodeGen::create);
         add(FastRStackTrace.class, FastRStackTraceNodeGen::create);
         add(FastRSlotAssign.class, FastRSlotAssignNodeGen::create);
         add(FastRSyntaxTree.class, FastRSyntaxTreeNodeGen::create);
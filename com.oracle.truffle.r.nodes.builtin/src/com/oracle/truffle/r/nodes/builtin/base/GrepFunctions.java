@@ -50,7 +50,9 @@ import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RegExp;
+import com.oracle.truffle.r.runtime.RegExpCache;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -132,6 +134,7 @@ public class GrepFunctions {
     public static class CommonCodeNode extends RBaseNode {
         @Child protected PCRERFFI.MaketablesNode maketablesNode = RFFIFactory.getPCRERFFI().createMaketablesNode();
         @Child protected PCRERFFI.CompileNode compileNode = RFFIFactory.getPCRERFFI().createCompileNode();
+        @Child protected PCRERFFI.FreeNode freeNode = RFFIFactory.getPCRERFFI().createFreeNode();
 
         /**
          * Temporary method that handles the check for the arguments that are common to the majority
@@ -216,16 +219,48 @@ public class GrepFunctions {
             return RDataFactory.createIntVector(naData, RDataFactory.INCOMPLETE_VECTOR);
         }
 
+        /**
+         * Compiles the pattern or retrieves it from the per-context {@link RegExpCache}. The result
+         * must not be freed by the caller.
+         */
         protected PCRERFFI.Result compilePerlPattern(String pattern, boolean ignoreCase) {
+            RegExpCache.ContextStateImpl cache = RContext.getInstance().stateRegExpCache;
+            int flags = RegExpCache.PERL | (ignoreCase ? RegExpCache.IGNORE_CASE : 0);
+            PCRERFFI.Result pcre = (PCRERFFI.Result) cache.get(pattern, flags);
+            if (pcre == null) {
+                pcre = compilePerlPatternUncached(pattern, ignoreCase);
+                PCRERFFI.Result[] evicted = cache.put(pattern, flags, pcre);
+                if (evicted != null) {
+                    for (PCRERFFI.Result e : evicted) {
+                        freeNode.execute(e.result);
+                    }
+                }
+            }
+            return pcre;
+        }
+
+        /**
+         * Compiles the pattern bypassing the cache, the result must be freed by the caller.
+         */
+        protected PCRERFFI.Result compilePerlPatternUncached(String pattern, boolean ignoreCase) {
             int cflags = ignoreCase ? PCRERFFI.CASELESS : 0;
-            long tables = maketablesNode.execute();
-            PCRERFFI.Result pcre = compileNode.execute(pattern, cflags, tables);
+            PCRERFFI.Result pcre = compileNode.execute(pattern, cflags, getPCRETables());
             if (pcre.result == 0) {
                 // TODO output warning if pcre.errorMessage not NULL
                 throw error(RError.Message.INVALID_REGEXP, pattern);
             }
             return pcre;
         }
+
+        protected long getPCRETables() {
+            RegExpCache.ContextStateImpl cache = RContext.getInstance().stateRegExpCache;
+            long tables = cache.getPCRETables();
+            if (tables == 0) {
+                tables = maketablesNode.execute();
+                cache.setPCRETables(tables);
+            }
+            return tables;
+        }
     }
 
     protected static final class GrepCommonCodeNode extends CommonCodeNode {
@@ -475,12 +510,17 @@ public class GrepFunctions {
                 }
 
                 PCRERFFI.Result pcre = null;
+                Pattern javaPattern = null;
                 if (fixed) {
                     // TODO case
+                    if (gsub) {
+                        javaPattern = RegExpCache.compileJavaPattern(pattern, true, false);
+                    }
                 } else if (perl) {
                     pcre = compilePerlPattern(pattern, ignoreCase);
                 } else {
                     pattern = RegExp.checkPreDefinedClasses(pattern);
+                    javaPattern = RegExpCache.compileJavaPattern(pattern, false, false);
                 }
                 String[] result = new String[len];
                 for (int i = 0; i < len; i++) {
@@ -494,7 +534,7 @@ public class GrepFunctions {
                     if (fixed) {
                         if (gsub) {
                             replacement = replacement.replace("$", "\\$");
-                            value = Pattern.compile(pattern, Pattern.LITERAL).matcher(input).replaceAll(replacement);
+                            value = javaPattern.matcher(input).replaceAll(replacement);
                         } else {
                             int ix = input.indexOf(pattern);
                             replacement = replacement.replace("\\\\", "\\");
@@ -562,7 +602,7 @@ public class GrepFunctions {
                     } else {
                         replacement = convertGroups(replacement);
 
-                        Matcher matcher = Pattern.compile(pattern, Pattern.DOTALL).matcher(input);
+                        Matcher matcher = javaPattern.matcher(input);
                         if (gsub) {
                             value = matcher.replaceAll(replacement);
                         } else {
@@ -1011,7 +1051,7 @@ public class GrepFunctions {
             if (pattern.length() > 0 && pattern.charAt(0) == '*') {
                 actualPattern = pattern.substring(1);
             }
-            return Pattern.compile(actualPattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
+            return RegExpCache.compileJavaPattern(actualPattern, false, ignoreCase).matcher(text);
         }
     }
 
@@ -1122,7 +1162,7 @@ public class GrepFunctions {
 
         @TruffleBoundary
         private static Matcher getPatternMatcher(String pattern, String text, boolean ignoreCase) {
-            return Pattern.compile(pattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
+            return RegExpCache.compileJavaPattern(pattern, false, ignoreCase).matcher(text);
         }
     }
 
@@ -1457,8 +1497,10 @@ public class GrepFunctions {
             // treat split = NULL as split = ""
             RAbstractStringVector split = splitArg.getLength() == 0 ? RDataFactory.createStringVectorFromScalar("") : splitArg;
             String[] splits = new String[split.getLength()];
-            long pcreTables = perl ? common.maketablesNode.execute() : 0;
             PCRERFFI.Result[] pcreSplits = perl ? new PCRERFFI.Result[splits.length] : null;
+            // with more than one split pattern, eviction from the cache could free a pattern that
+            // is still going to be used
+            boolean cachePCRE = splits.length == 1;
 
             na.enable(x);
             for (int i = 0; i < splits.length; i++) {
@@ -1466,11 +1508,7 @@ public class GrepFunctions {
                 splits[i] = fixed || perl ? split.getDataAt(i) : RegExp.checkPreDefinedClasses(split.getDataAt(i));
                 if (perl) {
                     if (!currentSplit.isEmpty()) {
-                        pcreSplits[i] = common.compileNode.execute(currentSplit, 0, pcreTables);
-                        if (pcreSplits[i].result == 0) {
-                            // TODO output warning if pcre.errorMessage not NULL
-                            throw error(RError.Message.INVALID_REGEXP, currentSplit);
-                        }
+                        pcreSplits[i] = cachePCRE ? common.compilePerlPattern(currentSplit, false) : common.compilePerlPatternUncached(currentSplit, false);
                         // TODO pcre_study for vectors > 10 ? (cf GnuR)
                     }
                 }
@@ -1513,6 +1551,13 @@ public class GrepFunctions {
                     throw error(Message.INVALID_REGEXP_REASON, currentSplit, e.getMessage());
                 }
             }
+            if (perl && !cachePCRE) {
+                for (PCRERFFI.Result pcre : pcreSplits) {
+                    if (pcre != null) {
+                        common.freeNode.execute(pcre.result);
+                    }
+                }
+            }
             RList ret = RDataFactory.createList(result);
             if (x.getNames() != null) {
                 ret.copyNamesFrom(x);
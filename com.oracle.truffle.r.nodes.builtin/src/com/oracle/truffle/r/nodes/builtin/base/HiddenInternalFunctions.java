@@ -50,6 +50,7 @@ import com.oracle.truffle.r.nodes.function.RCallNode;
 import com.oracle.truffle.r.nodes.function.call.CallRFunctionCachedNode;
 import com.oracle.truffle.r.nodes.function.call.CallRFunctionCachedNodeGen;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.LazyDBCache;
 import com.oracle.truffle.r.runtime.RCaller;
 import com.oracle.truffle.r.runtime.RCompression;
 import com.oracle.truffle.r.runtime.RError;
@@ -230,46 +231,21 @@ public class HiddenInternalFunctions {
             }
             String dbPath = datafile.getDataAt(0);
             String packageName = new File(dbPath).getName();
-            byte[] dbData = RContext.getInstance().stateLazyDBCache.getData(dbPath);
             int dotIndex;
             if ((dotIndex = packageName.lastIndexOf('.')) > 0) {
                 packageName = packageName.substring(0, dotIndex);
             }
             int offset = key.getDataAt(0);
             int length = key.getDataAt(1);
-            int outlen = getOutlen(dbData, offset); // length of uncompressed data
-            byte[] udata = null;
-            boolean rc = true;
-            /*
-             * compression may have value 0, 1, 2 or 3. Value 1 is gzip and the data starts at
-             * "offset + 4". Values 2 and 3 have a "type" field at "offset + 4
-             * " and the data starts at "offset + 5". The type field is 'Z' for lzma, '2' for bzip,
-             * '1' for zip and '0' for no compression. From GnuR code, the only difference between
-             * compression=2 and compression=3 is that type='Z' is only possible for the latter.
-             */
-            if (compression == 0) {
-                udata = new byte[length];
-                System.arraycopy(dbData, offset, udata, 0, length);
-            } else {
-                udata = new byte[outlen];
-                if (compression == 2 || compression == 3) {
-                    RCompression.Type type = RCompression.Type.fromTypeChar(dbData[4]);
-                    if (type == null) {
-                        warning(RError.Message.GENERIC, "unknown compression type");
-                        return RNull.instance;
-                    }
-                    byte[] data = new byte[length - 5];
-                    System.arraycopy(dbData, offset + 5, data, 0, data.length);
-                    rc = RCompression.uncompress(type, udata, data);
-                } else {
-                    // GnuR treats any other value as 1
-                    byte[] data = new byte[length - 4];
-                    System.arraycopy(dbData, offset + 4, data, 0, data.length);
-                    rc = RCompression.uncompress(RCompression.Type.GZIP, udata, data);
+            // checks the file only once for the whole fetch
+            LazyDBCache.MappedFile file = LazyDBCache.getFile(dbPath);
+            byte[] udata = LazyDBCache.getPayload(file, offset);
+            if (udata == null) {
+                udata = readEntry(file, dbPath, offset, length, compression);
+                if (udata == null) {
+                    return RNull.instance;
                 }
-            }
-            if (!rc) {
-                throw error(RError.Message.LAZY_LOAD_DB_CORRUPT, dbPath);
+                LazyDBCache.putPayload(file, offset, length, udata);
             }
             try {
                 RSerialize.CallHook callHook = new RSerialize.CallHook() {
@@ -297,6 +273,41 @@ public class HiddenInternalFunctions {
             }
         }
 
+        /**
+         * Reads and decompresses the entry, returns {@code null} if the compression type is not
+         * known.
+         */
+        private byte[] readEntry(LazyDBCache.MappedFile file, String dbPath, int offset, int length, int compression) {
+            if (compression == 0) {
+                return LazyDBCache.read(file, offset, length);
+            }
+            /*
+             * compression may have value 0, 1, 2 or 3. Value 1 is gzip and the data starts at
+             * "offset + 4". Values 2 and 3 have a "type" field at "offset + 4" and the data starts
+             * at "offset + 5". The type field is 'Z' for lzma, '2' for bzip, '1' for zip and '0'
+             * for no compression. From GnuR code, the only difference between compression=2 and
+             * compression=3 is that type='Z' is only possible for the latter.
+             */
+            byte[] header = LazyDBCache.read(file, offset, 5);
+            byte[] udata = new byte[getOutlen(header, 0)]; // length of uncompressed data
+            boolean rc;
+            if (compression == 2 || compression == 3) {
+                RCompression.Type type = RCompression.Type.fromTypeChar(header[4]);
+                if (type == null) {
+                    warning(RError.Message.GENERIC, "unknown compression type");
+                    return null;
+                }
+                rc = RCompression.uncompress(type, udata, LazyDBCache.read(file, offset + 5, length - 5));
+            } else {
+                // GnuR treats any other value as 1
+                rc = RCompression.uncompress(RCompression.Type.GZIP, udata, LazyDBCache.read(file, offset + 4, length - 4));
+            }
+            if (!rc) {
+                throw error(RError.Message.LAZY_LOAD_DB_CORRUPT, dbPath);
+            }
+            return udata;
+        }
+
         private static int getOutlen(byte[] dbData, int offset) {
             ByteBuffer dataLengthBuf = ByteBuffer.allocate(4);
             dataLengthBuf.put(dbData, offset, 4);
@@ -511,7 +522,7 @@ public class HiddenInternalFunctions {
         @Specialization
         @TruffleBoundary
         protected RNull doLazyLoadDBFlush(RAbstractStringVector dbPath) {
-            RContext.getInstance().stateLazyDBCache.remove(dbPath.getDataAt(0));
+            LazyDBCache.remove(dbPath.getDataAt(0));
             return RNull.instance;
         }
     }
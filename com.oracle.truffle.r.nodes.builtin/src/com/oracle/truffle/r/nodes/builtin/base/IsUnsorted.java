@@ -36,11 +36,13 @@ import com.oracle.truffle.r.nodes.builtin.base.Order.CmpNode;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.CmpNodeGen;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.ops.BinaryCompare;
 
 // TODO support strictly
@@ -58,11 +60,30 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
         casts.arg("strictly").asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
     }
 
+    private static boolean isKnownSorted(int sortedness, boolean strictly) {
+        return sortedness == RAbstractVector.SORTED_STRICTLY_INCREASING || (sortedness == RAbstractVector.SORTED_INCREASING && !strictly);
+    }
+
+    /**
+     * Remembers the result of a successful check on the vector, so that the next check is free
+     * (see {@link RAbstractVector#getSortedness()}).
+     */
+    private static void markSorted(RAbstractVector x, boolean hasNA, boolean strictly) {
+        if (!hasNA && x instanceof RVector) {
+            ((RVector<?>) x).setSortedness(strictly ? RAbstractVector.SORTED_STRICTLY_INCREASING : RAbstractVector.SORTED_INCREASING);
+        }
+    }
+
     @Specialization
     protected byte isUnsorted(RAbstractDoubleVector x, boolean strictly) {
+        if (isKnownSorted(x.getSortedness(), strictly)) {
+            return RRuntime.LOGICAL_FALSE;
+        }
         double last = x.getDataAt(0);
+        boolean hasNA = Double.isNaN(last);
         for (int k = 1; k < x.getLength(); k++) {
             double current = x.getDataAt(k);
+            hasNA |= Double.isNaN(current);
             if (strictlyProfile.profile(strictly)) {
                 if (ge.applyLogical(last, current) == RRuntime.LOGICAL_TRUE) {
                     return RRuntime.LOGICAL_TRUE;
@@ -74,14 +95,20 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
             }
             last = current;
         }
+        markSorted(x, hasNA, strictly);
         return RRuntime.LOGICAL_FALSE;
     }
 
     @Specialization
     protected byte isUnsorted(RAbstractIntVector x, boolean strictly) {
+        if (isKnownSorted(x.getSortedness(), strictly)) {
+            return RRuntime.LOGICAL_FALSE;
+        }
         int last = x.getDataAt(0);
+        boolean hasNA = last == RRuntime.INT_NA;
         for (int k = 1; k < x.getLength(); k++) {
             int current = x.getDataAt(k);
+            hasNA |= current == RRuntime.INT_NA;
             if (strictlyProfile.profile(strictly)) {
                 if (ge.applyLogical(last, current) == RRuntime.LOGICAL_TRUE) {
                     return RRuntime.LOGICAL_TRUE;
@@ -93,6 +120,7 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
             }
             last = current;
         }
+        markSorted(x, hasNA, strictly);
         return RRuntime.LOGICAL_FALSE;
     }
 
@@ -61,6 +61,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.data.nodes.GetReadonlyData;
+import com.oracle.truffle.r.runtime.ffi.LapackRFFI;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
@@ -73,7 +74,6 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
     @Child private BinaryMapArithmeticFunctionNode add = new BinaryMapArithmeticFunctionNode(BinaryArithmetic.ADD.createOperation());
     private final boolean promoteDimNames;
 
-    private final LoopConditionProfile mainLoopProfile = LoopConditionProfile.createCountingProfile();
     private final LoopConditionProfile remainingLoopProfile = LoopConditionProfile.createCountingProfile();
 
     private final ConditionProfile notOneRow = ConditionProfile.createBinaryProfile();
@@ -149,12 +149,14 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
         }
     }
 
-    private final ConditionProfile bigProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile nativeProfile = ConditionProfile.createBinaryProfile();
     private final BranchProfile incompleteProfile = BranchProfile.create();
     @CompilationFinal private boolean seenLargeMatrix;
 
     @Child private GetReadonlyData.Double aToArrayNode = GetReadonlyData.Double.create();
     @Child private GetReadonlyData.Double bToArrayNode = GetReadonlyData.Double.create();
+    @Child private LapackRFFI.DgemmNode dgemmNode;
+    @Child private LapackRFFI.DsyrkNode dsyrkNode;
 
     private RDoubleVector doubleMatrixMultiply(RAbstractDoubleVector a, RAbstractDoubleVector b, int aRows, int aCols, int bRows, int bCols) {
         return doubleMatrixMultiply(a, b, aRows, aCols, bRows, bCols, 1, aRows, 1, bRows, false);
@@ -191,22 +193,8 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
             seenLargeMatrix = true;
         }
         if (seenLargeMatrix) {
-            for (int row = 0; row < aRows; row += BLOCK_SIZE) {
-                for (int col = mirrored ? row : 0; col < bCols; col += BLOCK_SIZE) {
-                    for (int k = 0; k < aCols; k += BLOCK_SIZE) {
-                        int remainingCols = Math.min(BLOCK_SIZE, bCols - col);
-                        int remainingRows = Math.min(BLOCK_SIZE, aRows - row);
-                        int remainingK = BLOCK_SIZE;
-                        if (k + BLOCK_SIZE > aCols) {
-                            remainingK = aCols - k;
-                        }
-                        if (bigProfile.profile(remainingCols == BLOCK_SIZE && remainingRows == BLOCK_SIZE && remainingK == BLOCK_SIZE)) {
-                            multiplyBlock(dataA, dataB, aRows, result, row, col, k, aRowStride, aColStride, bRowStride, bColStride, BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE, mainLoopProfile);
-                        } else {
-                            multiplyBlock(dataA, dataB, aRows, result, row, col, k, aRowStride, aColStride, bRowStride, bColStride, remainingCols, remainingRows, remainingK, remainingLoopProfile);
-                        }
-                    }
-                }
+            if (!multiplyNative(dataA, dataB, result, aRows, aCols, bCols, aRowStride, aColStride, bRowStride, bColStride, mirrored)) {
+                MatMultKernel.multiply(dataA, dataB, result, aRows, aCols, bCols, aRowStride, aColStride, bRowStride, bColStride, mirrored);
             }
         } else {
             multiplyBlock(dataA, dataB, aRows, result, 0, 0, 0, aRowStride, aColStride, bRowStride, bColStride, bCols, aRows, aCols, remainingLoopProfile);
@@ -253,6 +241,39 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
         return resultVec;
     }
 
+    /**
+     * Computes the product with the native {@code dgemm}, or {@code dsyrk} if only the upper
+     * triangle is needed, if it is large enough and the matrices contain only finite values.
+     * Returns {@code false} if the product has to be computed by {@link MatMultKernel}.
+     */
+    private boolean multiplyNative(double[] dataA, double[] dataB, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride,
+                    boolean mirrored) {
+        if (!nativeProfile.profile(MatMultKernel.NATIVE_THRESHOLD > 0 && MatMultKernel.getSize(aRows, aCols, bCols) >= MatMultKernel.NATIVE_THRESHOLD)) {
+            return false;
+        }
+        String transA = MatMultKernel.getTranspose(aRows, aCols, aRowStride, aColStride);
+        String transB = MatMultKernel.getTranspose(aCols, bCols, bRowStride, bColStride);
+        if (transA == null || transB == null || !MatMultKernel.allFinite(dataA) || (dataB != dataA && !MatMultKernel.allFinite(dataB))) {
+            return false;
+        }
+        int lda = MatMultKernel.getLeadingDimension(transA, aRowStride, aColStride);
+        if (mirrored) {
+            if (dsyrkNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                dsyrkNode = insert(LapackRFFI.DsyrkNode.create());
+            }
+            dsyrkNode.execute("U", transA, aRows, aCols, 1.0, dataA, lda, 0.0, result, aRows);
+        } else {
+            if (dgemmNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                dgemmNode = insert(LapackRFFI.DgemmNode.create());
+            }
+            int ldb = MatMultKernel.getLeadingDimension(transB, bRowStride, bColStride);
+            dgemmNode.execute(transA, transB, aRows, bCols, aCols, 1.0, dataA, lda, dataB, ldb, 0.0, result, aRows);
+        }
+        return true;
+    }
+
     private static void fixNARows(double[] dataA, int aRows, int aCols, int bCols, int aRowStride, int aColStride, double[] result) {
         // NA's in a cause the whole row to be NA in the result
         outer: for (int row = 0; row < aRows; row++) {
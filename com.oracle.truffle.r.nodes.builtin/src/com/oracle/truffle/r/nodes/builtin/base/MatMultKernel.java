@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.FastRConfig;
+import com.oracle.truffle.r.runtime.FastROptions;
+
+/**
+ * The Java kernel of the double matrix product used by {@link MatMult} for large matrices when the
+ * native BLAS is not used, and the helpers that decide whether the native BLAS can be used.
+ *
+ * The kernel copies tiles of the first matrix into a contiguous buffer, so that the innermost loop
+ * runs over consecutive rows of both the buffer and the result regardless of the strides, which
+ * lets the compiler vectorize it. Each result element is accumulated in the order of increasing
+ * inner index, therefore the result does not depend on the tile sizes nor on the number of
+ * threads. The columns of the result are split into ranges processed by the common
+ * {@link ForkJoinPool}, each range is written by exactly one task.
+ *
+ * The thresholds are given by {@link FastROptions#MatMultNativeThreshold} and
+ * {@link FastROptions#MatMultParallelThreshold} as the number of multiply-adds, i.e. the product
+ * of the three dimensions.
+ */
+final class MatMultKernel {
+
+    static final long NATIVE_THRESHOLD = FastRConfig.ManagedMode ? 0 : FastROptions.MatMultNativeThreshold.getNonNegativeIntValue();
+    private static final long PARALLEL_THRESHOLD = FastROptions.MatMultParallelThreshold.getNonNegativeIntValue();
+
+    /** Number of rows of the first matrix copied into a single tile. */
+    private static final int TILE_ROWS = 128;
+    /** Number of columns of the first matrix copied into a single tile. */
+    private static final int TILE_COLS = 128;
+    /** Minimal number of result columns computed by a single task. */
+    private static final int MIN_TASK_COLUMNS = 16;
+
+    private MatMultKernel() {
+        // no instances
+    }
+
+    static long getSize(int aRows, int aCols, int bCols) {
+        return (long) aRows * aCols * bCols;
+    }
+
+    /**
+     * Returns the BLAS {@code trans} argument describing a matrix with given dimensions and
+     * strides, or {@code null} if the layout cannot be expressed with a leading dimension.
+     */
+    static String getTranspose(int rows, int cols, int rowStride, int colStride) {
+        if (rowStride == 1 && colStride >= Math.max(1, rows)) {
+            return "N";
+        } else if (colStride == 1 && rowStride >= Math.max(1, cols)) {
+            return "T";
+        }
+        return null;
+    }
+
+    static int getLeadingDimension(String transpose, int rowStride, int colStride) {
+        return "N".equals(transpose) ? colStride : rowStride;
+    }
+
+    /**
+     * Reference BLAS skips the multiplications by zero and would lose the NaNs, therefore (like GNU
+     * R) only matrices with finite values are passed to the native code.
+     */
+    static boolean allFinite(double[] data) {
+        for (int i = 0; i < data.length; i++) {
+            if (!Double.isFinite(data[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the product of {@code a} and {@code b} to {@code result}, which has {@code aRows} rows
+     * and {@code bCols} columns. If {@code mirrored} is set, only the upper right triangle
+     * (including the diagonal) is computed.
+     */
+    @TruffleBoundary
+    static void multiply(double[] a, double[] b, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride, boolean mirrored) {
+        Product product = new Product(a, b, result, aRows, aCols, aRowStride, aColStride, bRowStride, bColStride, mirrored);
+        if (PARALLEL_THRESHOLD > 0 && getSize(aRows, aCols, bCols) >= PARALLEL_THRESHOLD && bCols >= 2 * MIN_TASK_COLUMNS) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int chunk = Math.max(MIN_TASK_COLUMNS, bCols / (pool.getParallelism() * 4));
+            pool.invoke(new ColumnsTask(product, 0, bCols, chunk));
+        } else {
+            product.computeColumns(0, bCols);
+        }
+    }
+
+    private static final class Product {
+        private final double[] a;
+        private final double[] b;
+        private final double[] result;
+        private final int aRows;
+        private final int aCols;
+        private final int aRowStride;
+        private final int aColStride;
+        private final int bRowStride;
+        private final int bColStride;
+        private final boolean mirrored;
+
+        Product(double[] a, double[] b, double[] result, int aRows, int aCols, int aRowStride, int aColStride, int bRowStride, int bColStride, boolean mirrored) {
+            this.a = a;
+            this.b = b;
+            this.result = result;
+            this.aRows = aRows;
+            this.aCols = aCols;
+            this.aRowStride = aRowStride;
+            this.aColStride = aColStride;
+            this.bRowStride = bRowStride;
+            this.bColStride = bColStride;
+            this.mirrored = mirrored;
+        }
+
+        void computeColumns(int fromCol, int toCol) {
+            double[] tile = new double[TILE_ROWS * TILE_COLS];
+            // in the mirrored case the rows below the diagonal of the last column are not needed
+            int rowEnd = mirrored ? Math.min(aRows, toCol) : aRows;
+            for (int row = 0; row < rowEnd; row += TILE_ROWS) {
+                int tileRows = Math.min(TILE_ROWS, aRows - row);
+                for (int k = 0; k < aCols; k += TILE_COLS) {
+                    int tileCols = Math.min(TILE_COLS, aCols - k);
+                    pack(tile, row, tileRows, k, tileCols);
+                    for (int col = fromCol; col < toCol; col++) {
+                        int rows = mirrored ? Math.min(tileRows, col + 1 - row) : tileRows;
+                        if (rows > 0) {
+                            multiplyColumn(tile, tileRows, tileCols, rows, col * bColStride + k * bRowStride, col * aRows + row);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void pack(double[] tile, int row, int tileRows, int k, int tileCols) {
+            for (int innerK = 0; innerK < tileCols; innerK++) {
+                int aIndex = (k + innerK) * aColStride + row * aRowStride;
+                int tileIndex = innerK * tileRows;
+                if (aRowStride == 1) {
+                    System.arraycopy(a, aIndex, tile, tileIndex, tileRows);
+                } else {
+                    for (int innerRow = 0; innerRow < tileRows; innerRow++) {
+                        tile[tileIndex + innerRow] = a[aIndex];
+                        aIndex += aRowStride;
+                    }
+                }
+            }
+        }
+
+        private void multiplyColumn(double[] tile, int tileRows, int tileCols, int rows, int bStart, int resultStart) {
+            int bIndex = bStart;
+            for (int innerK = 0; innerK < tileCols; innerK++) {
+                double bValue = b[bIndex];
+                int tileIndex = innerK * tileRows;
+                for (int innerRow = 0; innerRow < rows; innerRow++) {
+                    result[resultStart + innerRow] += tile[tileIndex + innerRow] * bValue;
+                }
+                bIndex += bRowStride;
+            }
+        }
+    }
+
+    private static final class ColumnsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Product product;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        ColumnsTask(Product product, int from, int to, int chunk) {
+            this.product = product;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                product.computeColumns(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ColumnsTask(product, from, middle, chunk), new ColumnsTask(product, middle, to, chunk));
+            }
+        }
+    }
+}
@@ -26,8 +26,6 @@ import static com.oracle.truffle.r.runtime.RError.Message.INVALID_LOGICAL;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
-import java.text.CollationKey;
-import java.text.Collator;
 import java.util.Locale;
 
 import com.oracle.truffle.api.CompilerDirectives;
@@ -49,12 +47,12 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RLocale;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.StringSort;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
-import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
@@ -77,6 +75,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
     private final BranchProfile error = BranchProfile.create();
     private final ConditionProfile notRemoveNAs = ConditionProfile.createBinaryProfile();
     private final ValueProfile vectorProfile = ValueProfile.createClassProfile();
+    private final ConditionProfile knownOrderProfile = ConditionProfile.createBinaryProfile();
 
     /**
      * For use by {@link RadixSort}.
@@ -85,9 +84,13 @@ public abstract class Order extends RPrecedenceBuiltinNode {
 
     private static final int[] SINCS = {1073790977, 268460033, 67121153, 16783361, 4197377, 1050113, 262913, 65921, 16577, 4193, 1073, 281, 77, 23, 8, 1, 0};
 
-    private RIntVector executeOrderVector1(RAbstractVector vIn, byte naLast, boolean dec) {
+    private RAbstractIntVector executeOrderVector1(RAbstractVector vIn, byte naLast, boolean dec) {
         RAbstractVector v = vectorProfile.profile(vIn);
         int n = v.getLength();
+        RAbstractIntVector knownOrder = getKnownOrder(v.getSortedness(), n, dec);
+        if (knownOrderProfile.profile(knownOrder != null)) {
+            return knownOrder;
+        }
         reportWork(n);
 
         int[] indx = createIndexes(v, n, naLast);
@@ -99,6 +102,23 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         return RDataFactory.createIntVector(indx, RDataFactory.COMPLETE_VECTOR);
     }
 
+    /**
+     * Returns the order of a vector that is known to be sorted (see
+     * {@link RAbstractVector#getSortedness()}), i.e., one without NA values and whose stable order
+     * is the identity, or its reverse if it is strictly increasing and sorted decreasingly. Returns
+     * {@code null} if the order needs to be computed.
+     */
+    static RAbstractIntVector getKnownOrder(int sortedness, int n, boolean decreasing) {
+        if (sortedness == RAbstractVector.SORTEDNESS_UNKNOWN) {
+            return null;
+        } else if (!decreasing) {
+            return RDataFactory.createIntSequence(1, 1, n);
+        } else if (sortedness == RAbstractVector.SORTED_STRICTLY_INCREASING) {
+            return RDataFactory.createIntSequence(n, -1, n);
+        }
+        return null;
+    }
+
     /**
      * To exclude the possibility of the presence of NA in the vector, it is not possible to rely on
      * the value of the "complete" flag only, since this flag concerns the "pure" NA only and not
@@ -539,69 +559,9 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         }
 
         @TruffleBoundary
-        private void sort(int[] indx, RAbstractStringVector dv, int lo, int hi, boolean dec) {
-            int t = 0;
-            for (; SINCS[t] > hi - lo + 1; t++) {
-            }
-
+        private static void sort(int[] indx, RAbstractStringVector dv, int lo, int hi, boolean dec) {
             Locale locale = RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE);
-            if (locale == Locale.ROOT) {
-                // simple comparison based on numeric value of characters
-                for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                    for (int i = lo + h; i <= hi; i++) {
-                        int itmp = indx[i];
-                        int j = i;
-                        while (j >= lo + h) {
-                            int a = indx[j - h];
-                            int b = itmp;
-                            int c = dv.getDataAt(a).compareTo(dv.getDataAt(b));
-                            if (decProfile.profile(dec)) {
-                                if (!(c < 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            } else {
-                                if (!(c > 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            }
-                            indx[j] = indx[j - h];
-                            j -= h;
-                        }
-                        indx[j] = itmp;
-                    }
-                }
-            } else {
-                int length = dv.getLength();
-                Collator collator = RLocale.getOrderCollator(locale);
-                CollationKey[] entries = new CollationKey[length];
-                for (int i = 0; i < length; i++) {
-                    entries[i] = collator.getCollationKey(dv.getDataAt(i));
-                }
-
-                for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                    for (int i = lo + h; i <= hi; i++) {
-                        int itmp = indx[i];
-                        int j = i;
-                        while (j >= lo + h) {
-                            int a = indx[j - h];
-                            int b = itmp;
-                            int c = entries[a].compareTo(entries[b]);
-                            if (decProfile.profile(dec)) {
-                                if (!(c < 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            } else {
-                                if (!(c > 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            }
-                            indx[j] = indx[j - h];
-                            j -= h;
-                        }
-                        indx[j] = itmp;
-                    }
-                }
-            }
+            StringSort.order(indx, dv, lo, hi, locale, dec);
         }
 
         private static boolean lt(RComplex a, RComplex b) {
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+import com.oracle.truffle.r.runtime.RRuntime;
+
+/**
+ * Multi-key ordering used by the {@code radixsort} internal. Every key is first reduced to dense
+ * ranks (one "digit" per key), then the keys are processed from the last one to the first one by a
+ * stable counting sort, i.e., this is an LSD radix sort over the composite key. Each key may have
+ * its own sort direction. Like in GnuR, strings are ordered in the C locale (by code points) and
+ * NA and NaN are treated as equal.
+ *
+ * Long keys are ranked using parallel sorting and, if there are multiple keys, the keys are ranked
+ * in parallel.
+ */
+final class RadixOrder {
+
+    /** Keys longer than this are ranked in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    /** Integer keys whose range does not exceed this (or their length) are ranked by counting. */
+    private static final int COUNTING_RANGE = 1 << 16;
+
+    private static final int NA_RANK = -1;
+
+    private final int length;
+    /** 1 if NAs go last, -1 if they go first and 0 if they are removed. */
+    private final int naLast;
+    private final boolean sortStrings;
+
+    private final ArrayList<Object> keys = new ArrayList<>();
+    private final ArrayList<Boolean> decreasing = new ArrayList<>();
+
+    private int[][] ranks;
+    private int[] distinct;
+    private boolean[] hasNA;
+    private int maxGroupSize;
+
+    /**
+     * @param naLast {@code TRUE}, {@code FALSE} or {@code NA} as in {@code order}
+     * @param sortStrings if {@code false}, strings are ordered by their first appearance
+     */
+    RadixOrder(int length, byte naLast, boolean sortStrings) {
+        this.length = length;
+        this.naLast = RRuntime.isNA(naLast) ? 0 : naLast == RRuntime.LOGICAL_TRUE ? 1 : -1;
+        this.sortStrings = sortStrings;
+    }
+
+    /**
+     * Adds the next key, which must be {@code int[]} (with {@link RRuntime#INT_NA}),
+     * {@code double[]} or {@code String[]} of the same length as the other keys.
+     */
+    void addKey(Object data, boolean dec) {
+        assert data instanceof int[] || data instanceof double[] || data instanceof String[];
+        keys.add(data);
+        decreasing.add(dec);
+    }
+
+    /**
+     * Computes the (one-based) ordering permutation.
+     */
+    int[] order() {
+        rankKeys();
+        int[] o;
+        if (naLast == 0) {
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (!isNARow(i)) {
+                    count++;
+                }
+            }
+            o = new int[count];
+            for (int i = 0, j = 0; i < length; i++) {
+                if (!isNARow(i)) {
+                    o[j++] = i;
+                }
+            }
+        } else {
+            o = new int[length];
+            for (int i = 0; i < length; i++) {
+                o[i] = i;
+            }
+        }
+        int[] tmp = new int[o.length];
+        for (int k = keys.size() - 1; k >= 0; k--) {
+            int d = distinct[k];
+            if (d + (hasNA[k] ? 1 : 0) <= 1) {
+                // a single value, the order does not change
+                continue;
+            }
+            int[] r = ranks[k];
+            boolean dec = decreasing.get(k);
+            int[] count = new int[d + 2];
+            for (int i = 0; i < o.length; i++) {
+                count[bucket(r[o[i]], d, dec) + 1]++;
+            }
+            for (int i = 1; i < count.length; i++) {
+                count[i] += count[i - 1];
+            }
+            for (int i = 0; i < o.length; i++) {
+                int idx = o[i];
+                tmp[count[bucket(r[idx], d, dec)]++] = idx;
+            }
+            int[] swap = o;
+            o = tmp;
+            tmp = swap;
+        }
+        for (int i = 0; i < o.length; i++) {
+            o[i]++;
+        }
+        return o;
+    }
+
+    /**
+     * Returns the (one-based) positions in {@code order} at which groups of equal keys start, must
+     * be called after {@link #order()}.
+     */
+    int[] groupStarts(int[] order) {
+        int[] starts = new int[order.length];
+        int groups = 0;
+        int groupStart = 0;
+        maxGroupSize = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == 0 || differ(order[i - 1] - 1, order[i] - 1)) {
+                starts[groups++] = i + 1;
+                maxGroupSize = Math.max(maxGroupSize, i - groupStart);
+                groupStart = i;
+            }
+        }
+        maxGroupSize = Math.max(maxGroupSize, order.length - groupStart);
+        return groups == starts.length ? starts : Arrays.copyOf(starts, groups);
+    }
+
+    /**
+     * The size of the largest group found by {@link #groupStarts(int[])}.
+     */
+    int getMaxGroupSize() {
+        return maxGroupSize;
+    }
+
+    private int bucket(int rank, int d, boolean dec) {
+        if (rank == NA_RANK) {
+            return naLast > 0 ? d : 0;
+        }
+        return (dec ? d - 1 - rank : rank) + (naLast < 0 ? 1 : 0);
+    }
+
+    private boolean isNARow(int i) {
+        for (int k = 0; k < ranks.length; k++) {
+            if (ranks[k][i] == NA_RANK) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean differ(int a, int b) {
+        for (int k = 0; k < ranks.length; k++) {
+            if (ranks[k][a] != ranks[k][b]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rankKeys() {
+        int nkeys = keys.size();
+        ranks = new int[nkeys][];
+        distinct = new int[nkeys];
+        hasNA = new boolean[nkeys];
+        IntStream indexes = IntStream.range(0, nkeys);
+        if (nkeys > 1 && length >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(this::rankKey);
+    }
+
+    private void rankKey(int k) {
+        Object key = keys.get(k);
+        int[] r = new int[length];
+        if (key instanceof int[]) {
+            distinct[k] = rankInts((int[]) key, r);
+        } else if (key instanceof double[]) {
+            distinct[k] = rankDoubles((double[]) key, r);
+        } else {
+            distinct[k] = rankStrings((String[]) key, r);
+        }
+        for (int i = 0; i < length; i++) {
+            if (r[i] == NA_RANK) {
+                hasNA[k] = true;
+                break;
+            }
+        }
+        ranks[k] = r;
+    }
+
+    private IntStream range(int n) {
+        IntStream result = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? result.parallel() : result;
+    }
+
+    private int rankInts(int[] x, int[] r) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            int v = x[i];
+            if (v != RRuntime.INT_NA) {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                count++;
+            }
+        }
+        if (count == 0) {
+            Arrays.fill(r, NA_RANK);
+            return 0;
+        }
+        long range = (long) max - min + 1;
+        if (range <= Math.max(length, COUNTING_RANGE)) {
+            int[] map = new int[(int) range];
+            for (int i = 0; i < length; i++) {
+                if (x[i] != RRuntime.INT_NA) {
+                    map[x[i] - min] = 1;
+                }
+            }
+            int d = 0;
+            for (int i = 0; i < map.length; i++) {
+                if (map[i] != 0) {
+                    map[i] = ++d;
+                }
+            }
+            final int offset = min;
+            range(length).forEach(i -> r[i] = x[i] == RRuntime.INT_NA ? NA_RANK : map[x[i] - offset] - 1);
+            return d;
+        }
+        int[] sorted = new int[count];
+        for (int i = 0, j = 0; i < length; i++) {
+            if (x[i] != RRuntime.INT_NA) {
+                sorted[j++] = x[i];
+            }
+        }
+        Arrays.parallelSort(sorted);
+        int d = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sorted[i] != sorted[d - 1]) {
+                sorted[d++] = sorted[i];
+            }
+        }
+        final int u = d;
+        range(length).forEach(i -> r[i] = x[i] == RRuntime.INT_NA ? NA_RANK : Arrays.binarySearch(sorted, 0, u, x[i]));
+        return d;
+    }
+
+    private int rankDoubles(double[] x, int[] r) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (!Double.isNaN(x[i])) {
+                count++;
+            }
+        }
+        double[] sorted = new double[count];
+        for (int i = 0, j = 0; i < length; i++) {
+            double v = x[i];
+            if (!Double.isNaN(v)) {
+                // -0.0 and 0.0 are the same value
+                sorted[j++] = v == 0.0 ? 0.0 : v;
+            }
+        }
+        Arrays.parallelSort(sorted);
+        int d = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sorted[i] != sorted[d - 1]) {
+                sorted[d++] = sorted[i];
+            }
+        }
+        final int u = d;
+        range(length).forEach(i -> {
+            double v = x[i];
+            r[i] = Double.isNaN(v) ? NA_RANK : Arrays.binarySearch(sorted, 0, u, v == 0.0 ? 0.0 : v);
+        });
+        return d;
+    }
+
+    private int rankStrings(String[] x, int[] r) {
+        HashMap<String, Integer> ids = new HashMap<>();
+        ArrayList<String> unique = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            String v = x[i];
+            if (RRuntime.isNA(v)) {
+                r[i] = NA_RANK;
+            } else {
+                Integer id = ids.get(v);
+                if (id == null) {
+                    id = unique.size();
+                    ids.put(v, id);
+                    unique.add(v);
+                }
+                r[i] = id;
+            }
+        }
+        int d = unique.size();
+        if (sortStrings && d > 1) {
+            String[] sorted = unique.toArray(new String[d]);
+            Arrays.parallelSort(sorted, RadixOrder::compareCodePoints);
+            int[] idToRank = new int[d];
+            for (int i = 0; i < d; i++) {
+                idToRank[ids.get(sorted[i])] = i;
+            }
+            range(length).forEach(i -> {
+                if (r[i] != NA_RANK) {
+                    r[i] = idToRank[r[i]];
+                }
+            });
+        }
+        return d;
+    }
+
+    /**
+     * Compares strings by their code points, which is the same as comparing their UTF-8 bytes.
+     */
+    static int compareCodePoints(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int i = 0; i < n; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                return surrogateFixup(ca) - surrogateFixup(cb);
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Surrogates encode code points above {@code U+FFFF}, so they must be ordered after the
+     * characters in range {@code U+E000 - U+FFFF}.
+     */
+    private static int surrogateFixup(char c) {
+        if (c < Character.MIN_SURROGATE) {
+            return c;
+        }
+        return c > Character.MAX_SURROGATE ? c - 0x800 : c + 0x2000;
+    }
+}
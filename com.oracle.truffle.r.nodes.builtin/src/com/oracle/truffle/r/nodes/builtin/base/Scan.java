@@ -37,8 +37,11 @@ import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -51,6 +54,7 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.conn.RConnection;
 import com.oracle.truffle.r.runtime.conn.RConnection.ReadLineWarning;
@@ -64,7 +68,6 @@ import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
-import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 @RBuiltin(name = "scan", kind = INTERNAL, parameterNames = {"file", "what", "nmax", "sep", "dec", "quote", "skip", "nlines", "na.strings", "flush", "fill", "strip.white", "quiet", "blank.lines.skip",
                 "multi.line", "comment.char", "allowEscapes", "encoding", "skipNull"}, behavior = IO)
@@ -72,8 +75,14 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
     private static final int SCAN_BLOCKSIZE = 1000;
     private static final int NO_COMCHAR = 100000; /* won't occur even in Unicode */
+    /** Number of lines read at once from seekable connections. */
+    private static final int LINE_BLOCKSIZE = 8192;
+    /** Minimal number of lines in a block for splitting them into items in parallel. */
+    private static final int PARALLEL_TOKENIZE_THRESHOLD = 1024;
+    /** Number of items collected per column before they are converted. */
+    private static final int CONVERT_BLOCKSIZE = 65536;
+    private static final int PARALLEL_CONVERT_CHUNK = 8192;
 
-    private final NACheck naCheck = NACheck.create();
     @Child private ExtractNamesAttributeNode extractNames = ExtractNamesAttributeNode.create();
 
     @Child private CastToVectorNode castVector;
@@ -88,7 +97,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
     @SuppressWarnings("unused")
     private static class LocalData {
-        final HashMap<String, String> stringTable = new HashMap<>();
+        final ConcurrentHashMap<String, String> stringTable = new ConcurrentHashMap<>();
         RAbstractStringVector naStrings = null;
         boolean quiet = false;
         char sepchar = 0; // 0 means any whitespace
@@ -107,6 +116,19 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         boolean atStart = false;
         boolean embedWarn = false;
         boolean skipNull = false;
+        /*
+         * Lines are read from the connection in blocks of blockLines and each block is split into
+         * items up front. More than one line is read at a time only if the connection is seekable,
+         * i.e. it will not block waiting for more input, and if no unread lines can be left in the
+         * connection: either scan opened it and closes it again, or there is no nlines/nmax limit
+         * and so all input is consumed. The unread lines would only be pushed back, which seek,
+         * readChar and readBin ignore.
+         */
+        int blockLines = 1;
+        String[] lines;
+        String[][] tokens;
+        int linePos;
+        int lineCount;
     }
 
     static {
@@ -197,14 +219,22 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
         data.save = 0;
 
+        boolean wasOpen = data.con.isOpen();
         try (RConnection openConn = data.con.forceOpen("r")) {
             if (nskip > 0) {
                 openConn.readLines(nskip, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), skipNull);
             }
-            if (what instanceof RList) {
-                return scanFrame((RList) what, nmax, nlines, flush, fill, strip == RRuntime.LOGICAL_TRUE, blSkip, multiLine, data);
-            } else {
-                return scanVector(what, nmax, nlines, flush, strip == RRuntime.LOGICAL_TRUE, blSkip, data);
+            if (openConn.isSeekable() && (!wasOpen || (nmax <= 0 && nlines <= 0))) {
+                data.blockLines = LINE_BLOCKSIZE;
+            }
+            try {
+                if (what instanceof RList) {
+                    return scanFrame((RList) what, nmax, nlines, flush, fill, strip == RRuntime.LOGICAL_TRUE, blSkip, multiLine, data);
+                } else {
+                    return scanVector(what, nmax, nlines, flush, strip == RRuntime.LOGICAL_TRUE, blSkip, data);
+                }
+            } finally {
+                pushBackUnread(data);
             }
         } catch (IOException x) {
             throw error(RError.Message.CANNOT_READ_CONNECTION);
@@ -228,6 +258,10 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         return false;
     }
 
+    /**
+     * Splits the line into items, returns {@code null} if the line ends inside quotes. Must not
+     * have side effects, lines of a block are split in parallel.
+     */
     private static String[] getQuotedItems(LocalData data, String s) {
         ArrayList<String> items = new ArrayList<>();
 
@@ -260,7 +294,8 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                 pos++;
                 while (true) {
                     if (pos == length) {
-                        throw RError.error(RError.SHOW_CALLER, Message.INCOMPLETE_FINAL_LINE, s);
+                        // incomplete final line, reported by the caller
+                        return null;
                     }
                     ch = s.charAt(pos++);
                     if (ch == quoteStart) {
@@ -286,24 +321,60 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
     private static String[] getItems(LocalData data, boolean blSkip) throws IOException {
         while (true) {
-            String[] str = data.con.readLines(1, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), false);
-            if (str == null || str.length == 0) {
+            if (data.linePos == data.lineCount && !readBlock(data)) {
                 return null;
+            }
+            int pos = data.linePos++;
+            String[] items = data.tokens[pos];
+            if (items == null) {
+                throw RError.error(RError.SHOW_CALLER, Message.INCOMPLETE_FINAL_LINE, data.lines[pos]);
+            }
+            if (blSkip && items.length == 0) {
+                continue;
             } else {
-                String[] items = getQuotedItems(data, str[0]);
-                if (blSkip && items.length == 0) {
-                    continue;
-                } else {
-                    return items.length == 0 ? new String[]{""} : items;
-                }
+                return items.length == 0 ? new String[]{""} : items;
             }
         }
     }
 
-    private void fillEmpty(int from, int to, int records, RList list, LocalData data) {
+    /**
+     * Reads the next block of lines from the connection and splits all of them into items, in
+     * parallel if the block is large enough.
+     */
+    private static boolean readBlock(LocalData data) throws IOException {
+        String[] lines = data.con.readLines(data.blockLines, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), false);
+        if (lines == null || lines.length == 0) {
+            return false;
+        }
+        String[][] tokens = new String[lines.length][];
+        if (lines.length >= PARALLEL_TOKENIZE_THRESHOLD) {
+            IntStream.range(0, lines.length).parallel().forEach(i -> tokens[i] = getQuotedItems(data, lines[i]));
+        } else {
+            for (int i = 0; i < lines.length; i++) {
+                tokens[i] = getQuotedItems(data, lines[i]);
+            }
+        }
+        data.lines = lines;
+        data.tokens = tokens;
+        data.linePos = 0;
+        data.lineCount = lines.length;
+        return true;
+    }
+
+    /**
+     * Returns the lines that were read ahead, but not consumed, to the connection.
+     */
+    private static void pushBackUnread(LocalData data) {
+        if (data.linePos < data.lineCount) {
+            String[] unread = Arrays.copyOfRange(data.lines, data.linePos, data.lineCount);
+            data.con.pushBack(RDataFactory.createStringVector(unread, RDataFactory.COMPLETE_VECTOR), true);
+            data.linePos = data.lineCount;
+        }
+    }
+
+    private static void fillEmpty(int from, int to, ColumnBuilder[] columns) {
         for (int i = from; i < to; i++) {
-            RVector<?> vec = (RVector<?>) list.getDataAt(i);
-            vec.updateDataAtAsObject(records, extractItem(vec, "", data), naCheck);
+            columns[i].add("");
         }
     }
 
@@ -316,26 +387,23 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         }
         int blockSize = maxRecords > 0 ? maxRecords : (maxLines > 0 ? maxLines : SCAN_BLOCKSIZE);
 
-        RList list = RDataFactory.createList(nc);
+        ColumnBuilder[] columns = new ColumnBuilder[nc];
         for (int i = 0; i < nc; i++) {
             if (what.getDataAt(i) == RNull.instance) {
                 throw error(RError.Message.INVALID_ARGUMENT, "what");
             } else {
-                RAbstractVector vec = castVector(what.getDataAt(i));
-                list.updateDataAt(i, vec.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR), null);
+                columns[i] = new ColumnBuilder(castVector(what.getDataAt(i)), blockSize, data);
             }
         }
-        list.setNames(extractNames.execute(what));
-
-        naCheck.enable(true);
 
-        return scanFrameInternal(maxRecords, maxLines, flush, fill, blSkip, multiLine, data, nc, blockSize, list);
+        RList list = scanFrameInternal(maxRecords, maxLines, flush, fill, blSkip, multiLine, data, nc, columns);
+        list.setNames(extractNames.execute(what));
+        return list;
     }
 
     @TruffleBoundary
-    private RVector<?> scanFrameInternal(int maxRecords, int maxLines, boolean flush, boolean fill, boolean blSkip, boolean multiLine, LocalData data, int nc, int initialBlockSize, RList list)
+    private RList scanFrameInternal(int maxRecords, int maxLines, boolean flush, boolean fill, boolean blSkip, boolean multiLine, LocalData data, int nc, ColumnBuilder[] columns)
                     throws IOException {
-        int blockSize = initialBlockSize;
         int n = 0;
         int lines = 0;
         int records = 0;
@@ -351,7 +419,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
                 if (n == strItems.length) {
                     if (fill) {
-                        fillEmpty(n, nc, records, list, data);
+                        fillEmpty(n, nc, columns);
                         records++;
                         n = 0;
                         break;
@@ -368,20 +436,9 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                         }
                     }
                 }
-                Object item = extractItem((RAbstractVector) list.getDataAt(n), strItems[i], data);
-
-                if (records == blockSize) {
-                    // enlarge the vector
-                    blockSize = blockSize * 2;
-                    for (int j = 0; j < nc; j++) {
-                        RVector<?> vec = (RVector<?>) list.getDataAt(j);
-                        vec = vec.copyResized(blockSize, false);
-                        list.updateDataAt(j, vec, null);
-                    }
+                if (columns[n].add(strItems[i])) {
+                    ColumnBuilder.convertPending(columns);
                 }
-
-                RVector<?> vec = (RVector<?>) list.getDataAt(n);
-                vec.updateDataAtAsObject(records, item, naCheck);
                 n++;
                 if (n == nc) {
                     records++;
@@ -408,31 +465,26 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             if (!fill) {
                 warning(RError.Message.ITEMS_NOT_MULTIPLE);
             }
-            fillEmpty(n, nc, records, list, data);
+            fillEmpty(n, nc, columns);
             records++;
         }
+        ColumnBuilder.convertPending(columns);
 
         if (!data.quiet) {
             String s = String.format("Read %d record%s", records, (records == 1) ? "" : "s");
             StdConnections.getStdout().writeString(s, true);
         }
-        // trim vectors if necessary
+        Object[] result = new Object[nc];
         for (int i = 0; i < nc; i++) {
-            RVector<?> vec = (RVector<?>) list.getDataAt(i);
-            if (vec.getLength() > records) {
-                list.updateDataAt(i, vec.copyResized(records, false), null);
-            }
+            result[i] = columns[i].build(records);
         }
-
-        return list;
+        return RDataFactory.createList(result);
     }
 
     @TruffleBoundary
-    private RVector<?> scanVector(RAbstractVector what, int maxItems, int maxLines, @SuppressWarnings("unused") boolean flush, @SuppressWarnings("unused") boolean stripWhite, boolean blSkip,
+    private static RVector<?> scanVector(RAbstractVector what, int maxItems, int maxLines, @SuppressWarnings("unused") boolean flush, @SuppressWarnings("unused") boolean stripWhite, boolean blSkip,
                     LocalData data) throws IOException {
-        int blockSize = maxItems > 0 ? maxItems : SCAN_BLOCKSIZE;
-        RVector<?> vec = what.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR);
-        naCheck.enable(true);
+        ColumnBuilder[] columns = new ColumnBuilder[]{new ColumnBuilder(what, maxItems > 0 ? maxItems : SCAN_BLOCKSIZE, data)};
 
         int n = 0;
         int lines = 0;
@@ -445,16 +497,9 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
             boolean done = false;
             for (int i = 0; i < strItems.length; i++) {
-
-                Object item = extractItem(what, strItems[i], data);
-
-                if (n == blockSize) {
-                    // enlarge the vector
-                    blockSize = blockSize * 2;
-                    vec = vec.copyResized(blockSize, false);
+                if (columns[0].add(strItems[i])) {
+                    ColumnBuilder.convertPending(columns);
                 }
-
-                vec.updateDataAtAsObject(n, item, naCheck);
                 n++;
                 if (n == maxItems) {
                     done = true;
@@ -469,12 +514,12 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                 break;
             }
         }
+        ColumnBuilder.convertPending(columns);
         if (!data.quiet) {
             String s = String.format("Read %d item%s", n, (n == 1) ? "" : "s");
             StdConnections.getStdout().writeString(s, true);
         }
-        // trim vector if necessary
-        return vec.getLength() > n ? vec.copyResized(n, false) : vec;
+        return columns[0].build(n);
     }
 
     // If mode = 0 use for numeric fields where "" is NA
@@ -494,51 +539,231 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         return false;
     }
 
-    private static Object extractItem(RAbstractVector what, String buffer, LocalData data) {
-        try {
-            switch (what.getRType()) {
+    /**
+     * Collects the items of one column (or of the result vector) and converts them to the type of
+     * the template vector in blocks of {@link #CONVERT_BLOCKSIZE} items. The conversion of
+     * logical, integer, double and character items is split into chunks converted in parallel,
+     * complex and raw items are converted on the calling thread because creating their scalar
+     * values may be traced.
+     */
+    private static final class ColumnBuilder {
+        private final RAbstractVector template;
+        private final RType type;
+        private final LocalData data;
+        private final String[] pending = new String[CONVERT_BLOCKSIZE];
+        private int pendingCount;
+        private Object values;
+        private int length;
+        private boolean complete = true;
+        private final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+
+        ColumnBuilder(RAbstractVector template, int initialCapacity, LocalData data) {
+            this.template = template;
+            this.type = template.getRType();
+            this.data = data;
+            this.values = allocate(initialCapacity);
+        }
+
+        /**
+         * Adds an item, returns {@code true} if the pending items need to be converted.
+         */
+        boolean add(String item) {
+            pending[pendingCount++] = item;
+            return pendingCount == CONVERT_BLOCKSIZE;
+        }
+
+        private boolean isParallelizable() {
+            switch (type) {
                 case Logical:
-                    if (isNaString(buffer, 0, data)) {
-                        return RRuntime.LOGICAL_NA;
-                    } else {
-                        return RRuntime.string2logicalNoCheck(buffer);
+                case Integer:
+                case Double:
+                case Character:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private Object allocate(int capacity) {
+            switch (type) {
+                case Logical:
+                case Raw:
+                    return new byte[capacity];
+                case Integer:
+                    return new int[capacity];
+                case Double:
+                    return new double[capacity];
+                case Complex:
+                    return new double[capacity * 2];
+                case Character:
+                    return new String[capacity];
+                default:
+                    return null;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            switch (type) {
+                case Logical:
+                case Raw:
+                    if (((byte[]) values).length < capacity) {
+                        values = Arrays.copyOf((byte[]) values, Math.max(capacity, ((byte[]) values).length * 2));
                     }
+                    break;
                 case Integer:
-                    if (isNaString(buffer, 0, data)) {
-                        return RRuntime.INT_NA;
-                    } else {
-                        return RRuntime.parseInt(buffer);
+                    if (((int[]) values).length < capacity) {
+                        values = Arrays.copyOf((int[]) values, Math.max(capacity, ((int[]) values).length * 2));
                     }
+                    break;
                 case Double:
-                    if (isNaString(buffer, 0, data)) {
-                        return RRuntime.DOUBLE_NA;
-                    } else {
-                        return RRuntime.string2doubleNoCheck(buffer);
+                    if (((double[]) values).length < capacity) {
+                        values = Arrays.copyOf((double[]) values, Math.max(capacity, ((double[]) values).length * 2));
                     }
+                    break;
                 case Complex:
-                    if (isNaString(buffer, 0, data)) {
-                        return RComplex.createNA();
-                    } else {
-                        return RRuntime.string2complexNoCheck(buffer);
+                    if (((double[]) values).length < capacity * 2) {
+                        values = Arrays.copyOf((double[]) values, Math.max(capacity * 2, ((double[]) values).length * 2));
                     }
+                    break;
                 case Character:
-                    if (isNaString(buffer, 1, data)) {
-                        return RRuntime.STRING_NA;
-                    } else {
-                        String oldEntry = data.stringTable.putIfAbsent(buffer, buffer);
-                        return oldEntry == null ? buffer : oldEntry;
+                    if (((String[]) values).length < capacity) {
+                        values = Arrays.copyOf((String[]) values, Math.max(capacity, ((String[]) values).length * 2));
                     }
-                case Raw:
-                    if (isNaString(buffer, 0, data)) {
-                        return RDataFactory.createRaw((byte) 0);
-                    } else {
-                        return RRuntime.string2raw(buffer);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Converts the pending items in {@code [from, to)}, records the index of the first item
+         * that cannot be converted in {@link #firstFailure}.
+         */
+        private void convert(int from, int to) {
+            boolean isComplete = true;
+            int base = length;
+            for (int i = from; i < to; i++) {
+                String item = pending[i];
+                try {
+                    switch (type) {
+                        case Logical: {
+                            byte value = isNaString(item, 0, data) ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(item);
+                            ((byte[]) values)[base + i] = value;
+                            isComplete &= value != RRuntime.LOGICAL_NA;
+                            break;
+                        }
+                        case Integer: {
+                            int value = isNaString(item, 0, data) ? RRuntime.INT_NA : RRuntime.parseInt(item);
+                            ((int[]) values)[base + i] = value;
+                            isComplete &= value != RRuntime.INT_NA;
+                            break;
+                        }
+                        case Double: {
+                            double value = isNaString(item, 0, data) ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(item);
+                            ((double[]) values)[base + i] = value;
+                            isComplete &= !RRuntime.isNA(value);
+                            break;
+                        }
+                        case Complex: {
+                            RComplex value = isNaString(item, 0, data) ? RComplex.createNA() : RRuntime.string2complexNoCheck(item);
+                            ((double[]) values)[2 * (base + i)] = value.getRealPart();
+                            ((double[]) values)[2 * (base + i) + 1] = value.getImaginaryPart();
+                            isComplete &= !RRuntime.isNA(value);
+                            break;
+                        }
+                        case Character: {
+                            String value;
+                            if (isNaString(item, 1, data)) {
+                                value = RRuntime.STRING_NA;
+                                isComplete = false;
+                            } else {
+                                String oldEntry = data.stringTable.putIfAbsent(item, item);
+                                value = oldEntry == null ? item : oldEntry;
+                            }
+                            ((String[]) values)[base + i] = value;
+                            break;
+                        }
+                        case Raw:
+                            ((byte[]) values)[base + i] = isNaString(item, 0, data) ? 0 : RRuntime.string2raw(item).getValue();
+                            break;
+                        default:
+                            throw RInternalError.shouldNotReachHere();
                     }
+                } catch (NumberFormatException e) {
+                    firstFailure.accumulateAndGet(i, Math::min);
+                    break;
+                }
+            }
+            if (!isComplete) {
+                complete = false;
+            }
+        }
+
+        private void checkFailure() {
+            int failure = firstFailure.get();
+            if (failure != Integer.MAX_VALUE) {
+                throw RError.error(RError.SHOW_CALLER, Message.SCAN_UNEXPECTED, type.getName(), pending[failure]);
+            }
+        }
+
+        /**
+         * Converts the pending items of all given columns.
+         */
+        static void convertPending(ColumnBuilder[] columns) {
+            int total = 0;
+            for (ColumnBuilder column : columns) {
+                column.ensureCapacity(column.length + column.pendingCount);
+                total += column.pendingCount;
+            }
+            if (total >= PARALLEL_CONVERT_CHUNK) {
+                ArrayList<int[]> chunks = new ArrayList<>();
+                for (int c = 0; c < columns.length; c++) {
+                    if (columns[c].isParallelizable()) {
+                        for (int from = 0; from < columns[c].pendingCount; from += PARALLEL_CONVERT_CHUNK) {
+                            chunks.add(new int[]{c, from, Math.min(columns[c].pendingCount, from + PARALLEL_CONVERT_CHUNK)});
+                        }
+                    }
+                }
+                chunks.parallelStream().forEach(chunk -> columns[chunk[0]].convert(chunk[1], chunk[2]));
+                for (ColumnBuilder column : columns) {
+                    if (!column.isParallelizable()) {
+                        column.convert(0, column.pendingCount);
+                    }
+                }
+            } else {
+                for (ColumnBuilder column : columns) {
+                    column.convert(0, column.pendingCount);
+                }
+            }
+            for (ColumnBuilder column : columns) {
+                column.checkFailure();
+                column.length += column.pendingCount;
+                Arrays.fill(column.pending, 0, column.pendingCount, null);
+                column.pendingCount = 0;
+            }
+        }
+
+        /**
+         * Creates the result vector from the first {@code n} converted items.
+         */
+        RVector<?> build(int n) {
+            assert pendingCount == 0 && n <= length;
+            switch (type) {
+                case Logical:
+                    return RDataFactory.createLogicalVector(Arrays.copyOf((byte[]) values, n), complete);
+                case Integer:
+                    return RDataFactory.createIntVector(Arrays.copyOf((int[]) values, n), complete);
+                case Double:
+                    return RDataFactory.createDoubleVector(Arrays.copyOf((double[]) values, n), complete);
+                case Complex:
+                    return RDataFactory.createComplexVector(Arrays.copyOf((double[]) values, 2 * n), complete);
+                case Character:
+                    return RDataFactory.createStringVector(Arrays.copyOf((String[]) values, n), complete);
+                case Raw:
+                    return RDataFactory.createRawVector(Arrays.copyOf((byte[]) values, n));
                 default:
-                    throw RInternalError.shouldNotReachHere();
+                    return template.createEmptySameType(n, RDataFactory.COMPLETE_VECTOR);
             }
-        } catch (NumberFormatException e) {
-            throw RError.error(RError.SHOW_CALLER, Message.SCAN_UNEXPECTED, what.getRType().getName(), buffer);
         }
     }
 }
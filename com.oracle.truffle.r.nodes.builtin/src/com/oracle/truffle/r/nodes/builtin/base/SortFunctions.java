@@ -30,6 +30,7 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.integerValue
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.numericValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.rawValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.typeName;
 import static com.oracle.truffle.r.runtime.RError.Message.INVALID_LOGICAL;
 import static com.oracle.truffle.r.runtime.RError.Message.NOT_NUMERIC_VECTOR;
 import static com.oracle.truffle.r.runtime.RError.Message.ONLY_ATOMIC_CAN_BE_SORTED;
@@ -37,16 +38,20 @@ import static com.oracle.truffle.r.runtime.RError.Message.RAW_SORT;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import java.lang.reflect.Array;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Locale;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.builtin.NodeWithArgumentCasts.Casts;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RLocale;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.StringSort;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
@@ -60,6 +65,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
 /**
  * The internal functions mandated by {@code base/sort.R}. N.B. We use the standard JDK sorting
@@ -119,29 +125,42 @@ public class SortFunctions {
         return data;
     }
 
-    @TruffleBoundary
-    private static String[] sort(String[] data, boolean decreasing) {
-        if (decreasing) {
-            Arrays.parallelSort(data, Collections.reverseOrder());
-        } else {
-            Arrays.parallelSort(data);
-        }
-        return data;
-    }
-
+    /**
+     * Vectors that are known to be sorted are just copied, the increasing results of integer and
+     * double sorts are marked as sorted (see {@link RAbstractVector#getSortedness()}).
+     */
     protected static RDoubleVector jdkSort(RAbstractDoubleVector vec, boolean decreasing) {
+        int sortedness = vec.getSortedness();
         double[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createDoubleVector(sort(data, decreasing), vec.isComplete());
+        if (decreasing || sortedness == RAbstractVector.SORTEDNESS_UNKNOWN) {
+            sort(data, decreasing);
+        }
+        RDoubleVector result = RDataFactory.createDoubleVector(data, vec.isComplete());
+        // NA and NaN values end up at the end
+        if (!decreasing && (data.length == 0 || !Double.isNaN(data[data.length - 1]))) {
+            result.setSortedness(sortedness == RAbstractVector.SORTED_STRICTLY_INCREASING ? sortedness : RAbstractVector.SORTED_INCREASING);
+        }
+        return result;
     }
 
     protected static RIntVector jdkSort(RAbstractIntVector vec, boolean decreasing) {
+        int sortedness = vec.getSortedness();
         int[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createIntVector(sort(data, decreasing), vec.isComplete());
+        if (decreasing || sortedness == RAbstractVector.SORTEDNESS_UNKNOWN) {
+            sort(data, decreasing);
+        }
+        RIntVector result = RDataFactory.createIntVector(data, vec.isComplete());
+        // NA is the smallest int value and ends up at the beginning
+        if (!decreasing && (data.length == 0 || data[0] != RRuntime.INT_NA)) {
+            result.setSortedness(sortedness == RAbstractVector.SORTED_STRICTLY_INCREASING ? sortedness : RAbstractVector.SORTED_INCREASING);
+        }
+        return result;
     }
 
+    @TruffleBoundary
     protected static RStringVector jdkSort(RAbstractStringVector vec, boolean decreasing) {
-        String[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createStringVector(sort(data, decreasing), vec.isComplete());
+        Locale locale = RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE);
+        return RDataFactory.createStringVector(StringSort.sort(vec, locale, decreasing), vec.isComplete());
     }
 
     protected static RLogicalVector jdkSort(RAbstractLogicalVector vec, boolean decreasing) {
@@ -264,8 +283,10 @@ public class SortFunctions {
     /**
      * This a helper function for the code in sort.R. It does NOT return the input vectors sorted,
      * but returns an {@link RIntVector} of indices (positions) indicating the sort order (Or
-     * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order}. For
-     * now we delegate to {@code order} and do not implement the {@code retgrp} argument.
+     * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order} that
+     * supports a different {@code decreasing} value per key and, if {@code retgrp} is {@code TRUE},
+     * also returns the group boundaries as attributes {@code starts} and {@code maxgrpn}. The actual
+     * work is done by {@link RadixOrder}.
      */
     @RBuiltin(name = "radixsort", kind = INTERNAL, parameterNames = {"na.last", "decreasing", "retgrp", "sortstr", "..."}, behavior = PURE)
     public abstract static class RadixSort extends RBuiltinNode.Arg5 {
@@ -279,14 +300,8 @@ public class SortFunctions {
             casts.arg("sortstr").asLogicalVector().findFirst().map(toBoolean());
         }
 
-        @SuppressWarnings("unused")
         @Specialization
         protected Object radixSort(byte naLast, RAbstractLogicalVector decreasingVec, boolean retgrp, boolean sortstr, RArgsValuesAndNames zz) {
-            // Partial implementation just to get startup to work
-            if (retgrp) {
-                // sortstr only has an effect when retrgrp == true
-                throw RError.nyi(this, "radixsort: retgrp == TRUE not implemented");
-            }
             int nargs = zz.getLength();
             if (nargs == 0) {
                 return RNull.instance;
@@ -294,26 +309,106 @@ public class SortFunctions {
             if (nargs != decreasingVec.getLength()) {
                 throw error(RError.Message.RADIX_SORT_DEC_MATCH);
             }
-            /*
-             * Order takes a single decreasing argument that applies to all the vectors. We
-             * potentially have a different value for each vector, so we have to process one by one.
-             * However, OrderNode can't yet handle that, so we abort if nargs > 1 and the decreasing
-             * values don't match.
-             */
-            byte lastdb = RRuntime.LOGICAL_NA;
+            boolean[] decreasing = new boolean[nargs];
+            boolean sameDecreasing = true;
             for (int i = 0; i < nargs; i++) {
                 byte db = decreasingVec.getDataAt(i);
                 if (RRuntime.isNA(db)) {
                     throw error(RError.Message.RADIX_SORT_DEC_NOT_LOGICAL);
                 }
-                if (lastdb != RRuntime.LOGICAL_NA && db != lastdb) {
-                    throw RError.nyi(this, "radixsort: args > 1 with differing 'decreasing' values not implemented");
+                decreasing[i] = RRuntime.fromLogical(db);
+                sameDecreasing &= decreasing[i] == decreasing[0];
+            }
+            if (nargs == 1 && !retgrp && zz.getArgument(0) instanceof RAbstractVector) {
+                RAbstractVector key = (RAbstractVector) zz.getArgument(0);
+                RAbstractIntVector knownOrder = Order.getKnownOrder(key.getSortedness(), key.getLength(), decreasing[0]);
+                if (knownOrder != null) {
+                    return knownOrder;
                 }
-                lastdb = db;
             }
-            boolean decreasing = RRuntime.fromLogical(decreasingVec.getDataAt(0));
-            Object result = orderNode.execute(naLast, decreasing, zz);
+            Object[] keys = new Object[nargs];
+            int length = -1;
+            for (int i = 0; i < nargs; i++) {
+                Object arg = zz.getArgument(i);
+                keys[i] = toKey(arg);
+                if (keys[i] == null) {
+                    if (!retgrp && sameDecreasing) {
+                        // e.g. complex vectors are still handled by order
+                        return orderNode.execute(naLast, decreasing[0], zz);
+                    }
+                    throw error(RError.Message.UNIMPLEMENTED_TYPE_IN_FUNCTION, typeName().apply(arg), "radixsort");
+                }
+                int keyLength = Array.getLength(keys[i]);
+                if (length != -1 && keyLength != length) {
+                    throw error(RError.Message.ARGUMENT_LENGTHS_DIFFER);
+                }
+                length = keyLength;
+            }
+            return radixOrder(length, naLast, decreasing, retgrp, sortstr, keys);
+        }
+
+        @TruffleBoundary
+        private static RIntVector radixOrder(int length, byte naLast, boolean[] decreasing, boolean retgrp, boolean sortstr, Object[] keys) {
+            // without retgrp the result is a proper ordering, so strings are always sorted
+            RadixOrder radixOrder = new RadixOrder(length, naLast, sortstr || !retgrp);
+            for (int i = 0; i < keys.length; i++) {
+                radixOrder.addKey(keys[i], decreasing[i]);
+            }
+            int[] order = radixOrder.order();
+            RIntVector result = RDataFactory.createIntVector(order, RDataFactory.COMPLETE_VECTOR);
+            if (retgrp) {
+                int[] starts = radixOrder.groupStarts(order);
+                result.setAttr("starts", RDataFactory.createIntVector(starts, RDataFactory.COMPLETE_VECTOR));
+                result.setAttr("maxgrpn", radixOrder.getMaxGroupSize());
+            }
             return result;
         }
+
+        /**
+         * Converts an argument to the primitive key representation understood by
+         * {@link RadixOrder}, returns {@code null} for unsupported types.
+         */
+        @TruffleBoundary
+        private static Object toKey(Object arg) {
+            if (arg instanceof Integer) {
+                return new int[]{(int) arg};
+            } else if (arg instanceof Double) {
+                return new double[]{(double) arg};
+            } else if (arg instanceof Byte) {
+                return new int[]{RRuntime.isNA((byte) arg) ? RRuntime.INT_NA : (byte) arg};
+            } else if (arg instanceof String) {
+                return new String[]{(String) arg};
+            } else if (arg instanceof RAbstractIntVector) {
+                RAbstractIntVector v = (RAbstractIntVector) arg;
+                int[] key = new int[v.getLength()];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = v.getDataAt(i);
+                }
+                return key;
+            } else if (arg instanceof RAbstractLogicalVector) {
+                RAbstractLogicalVector v = (RAbstractLogicalVector) arg;
+                int[] key = new int[v.getLength()];
+                for (int i = 0; i < key.length; i++) {
+                    byte b = v.getDataAt(i);
+                    key[i] = RRuntime.isNA(b) ? RRuntime.INT_NA : b;
+                }
+                return key;
+            } else if (arg instanceof RAbstractDoubleVector) {
+                RAbstractDoubleVector v = (RAbstractDoubleVector) arg;
+                double[] key = new double[v.getLength()];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = v.getDataAt(i);
+                }
+                return key;
+            } else if (arg instanceof RAbstractStringVector) {
+                RAbstractStringVector v = (RAbstractStringVector) arg;
+                String[] key = new String[v.getLength()];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = v.getDataAt(i);
+                }
+                return key;
+            }
+            return null;
+        }
     }
 }
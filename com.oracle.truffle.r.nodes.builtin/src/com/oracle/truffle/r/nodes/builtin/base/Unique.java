@@ -30,16 +30,12 @@ import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
-import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
-import com.oracle.truffle.r.runtime.Collections.NonRecursiveHashSet;
-import com.oracle.truffle.r.runtime.Collections.NonRecursiveHashSetDouble;
+import com.oracle.truffle.r.runtime.HashIndex;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RRuntime;
@@ -60,17 +56,15 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
+/**
+ * Atomic vectors are handled by {@link HashIndex}, which also takes care of {@code fromLast}.
+ * Integer and double vectors that are known to be sorted only need a linear scan.
+ */
 @RBuiltin(name = "unique", kind = INTERNAL, parameterNames = {"x", "incomparables", "fromLast", "nmax"}, behavior = PURE)
-// TODO A more efficient implementation is in order; GNU R uses hash tables so perhaps we should
-// consider using one of the existing libraries that offer hash table implementations for primitive
-// types
 public abstract class Unique extends RBuiltinNode.Arg4 {
 
-    private static final long BIG_THRESHOLD = 100;
-
-    private final ConditionProfile bigProfile = ConditionProfile.createBinaryProfile();
-
     static {
         Casts casts = new Casts(Unique.class);
         // these are similar to those in DuplicatedFunctions.java
@@ -93,206 +87,56 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
     }
 
     @SuppressWarnings("unused")
-    @Specialization(guards = "vecIn.getClass() == vecClass")
-    protected RStringVector doUniqueCachedString(RAbstractStringVector vecIn, byte incomparables, byte fromLast, int nmax,
-                    @Cached("vecIn.getClass()") Class<? extends RAbstractStringVector> vecClass) {
-        RAbstractStringVector vec = vecClass.cast(vecIn);
-        reportWork(vec.getLength());
-        if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
-            NonRecursiveHashSet<String> set = new NonRecursiveHashSet<>(vec.getLength());
-            String[] data = new String[vec.getLength()];
-            int ind = 0;
-            for (int i = 0; i < vec.getLength(); i++) {
-                String val = vec.getDataAt(i);
-                if (!set.add(val)) {
-                    data[ind++] = val;
-                }
-            }
-            return RDataFactory.createStringVector(Arrays.copyOf(data, ind), vec.isComplete());
-        } else {
-            ArrayList<String> dataList = new ArrayList<>(vec.getLength());
-            for (int i = 0; i < vec.getLength(); i++) {
-                String s = vec.getDataAt(i);
-                if (!dataList.contains(s)) {
-                    dataList.add(s);
-                }
-            }
-            String[] data = new String[dataList.size()];
-            dataList.toArray(data);
-            return RDataFactory.createStringVector(data, vec.isComplete());
-        }
-    }
-
-    @Specialization(replaces = "doUniqueCachedString")
+    @Specialization
+    @TruffleBoundary
     protected RStringVector doUnique(RAbstractStringVector vec, byte incomparables, byte fromLast, int nmax) {
-        return doUniqueCachedString(vec, incomparables, fromLast, nmax, RAbstractStringVector.class);
-    }
-
-    // these are intended to stay private as they will go away once we figure out which external
-    // library to use
-
-    private static class IntArray {
-        int[] backingArray;
-        int index;
-
-        IntArray(int len) {
-            this.backingArray = new int[len];
-            index = 0;
-        }
-
-        public boolean contains(int val) {
-            for (int i = 0; i < index; i++) {
-                if (backingArray[i] == val) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        public void add(int val) {
-            backingArray[index++] = val;
-        }
-
-        public int[] toArray() {
-            int[] newArray = new int[index];
-            System.arraycopy(backingArray, 0, newArray, 0, index);
-            return newArray;
-        }
-    }
-
-    private static class DoubleArray {
-        double[] backingArray;
-        int index;
-
-        DoubleArray(int len) {
-            this.backingArray = new double[len];
-            index = 0;
-        }
-
-        public boolean contains(double val) {
-            for (int i = 0; i < index; i++) {
-                if (areEqual(backingArray[i], val)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        public void add(double val) {
-            backingArray[index++] = val;
-        }
-
-        public double[] toArray() {
-            double[] newArray = new double[index];
-            System.arraycopy(backingArray, 0, newArray, 0, index);
-            return newArray;
-        }
-
-        private static boolean areEqual(double a, double b) {
-            return a == b || (RRuntime.isNA(a) && RRuntime.isNA(b));
-        }
-    }
-
-    private static class DoubleArrayForComplex {
-        double[] backingArray;
-        int index;
-
-        DoubleArrayForComplex(int len) {
-            this.backingArray = new double[len << 1];
-            index = 0;
-        }
-
-        public boolean contains(RComplex val) {
-            for (int i = 0; i < index; i++) {
-                if (areEqual(backingArray[i << 1], backingArray[(i << 1) + 1], val.getRealPart(), val.getImaginaryPart())) {
-                    return true;
-                }
+        reportWork(vec.getLength());
+        HashIndex index = HashIndex.create(vec, RRuntime.fromLogical(fromLast), true);
+        String[] data = new String[index.getDistinctCount()];
+        int ind = 0;
+        for (int i = 0; i < vec.getLength(); i++) {
+            if (!index.isDuplicate(i)) {
+                data[ind++] = vec.getDataAt(i);
             }
-            return false;
-        }
-
-        public void add(RComplex val) {
-            backingArray[index << 1] = val.getRealPart();
-            backingArray[(index << 1) + 1] = val.getImaginaryPart();
-            index++;
-        }
-
-        public double[] toArray() {
-            int size = index << 1;
-            double[] newArray = new double[size];
-            System.arraycopy(backingArray, 0, newArray, 0, size);
-            return newArray;
-        }
-
-        private static boolean areEqual(double ar, double ai, double br, double bi) {
-            return (ar == br && ai == bi) || (RRuntime.isNA(ar, ai) && RRuntime.isNA(br, bi));
         }
+        return RDataFactory.createStringVector(data, vec.isComplete());
     }
 
-    private static class ByteArray {
-        byte[] backingArray;
-        int index;
-
-        ByteArray(int len) {
-            this.backingArray = new byte[len];
-            index = 0;
+    @SuppressWarnings("unused")
+    @Specialization
+    @TruffleBoundary
+    protected RIntVector doUnique(RAbstractIntVector vec, byte incomparables, byte fromLast, int nmax) {
+        reportWork(vec.getLength());
+        if (vec.getSortedness() != RAbstractVector.SORTEDNESS_UNKNOWN) {
+            return uniqueSorted(vec);
         }
-
-        public boolean contains(byte val) {
-            for (int i = 0; i < index; i++) {
-                if (backingArray[i] == val) {
-                    return true;
-                }
+        HashIndex index = HashIndex.create(vec, RRuntime.fromLogical(fromLast), true);
+        int[] data = new int[index.getDistinctCount()];
+        int ind = 0;
+        for (int i = 0; i < vec.getLength(); i++) {
+            if (!index.isDuplicate(i)) {
+                data[ind++] = vec.getDataAt(i);
             }
-            return false;
-        }
-
-        public void add(byte val) {
-            backingArray[index++] = val;
-        }
-
-        public byte[] toArray() {
-            byte[] newArray = new byte[index];
-            System.arraycopy(backingArray, 0, newArray, 0, index);
-            return newArray;
         }
+        return RDataFactory.createIntVector(data, vec.isComplete());
     }
 
-    @SuppressWarnings("unused")
-    @Specialization(guards = "vecIn.getClass() == vecClass")
-    protected RIntVector doUniqueCached(RAbstractIntVector vecIn, byte incomparables, byte fromLast, int nmax,
-                    @Cached("vecIn.getClass()") Class<? extends RAbstractIntVector> vecClass) {
-        RAbstractIntVector vec = vecClass.cast(vecIn);
-        reportWork(vec.getLength());
-        if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
-            NonRecursiveHashSetInt set = new NonRecursiveHashSetInt();
-            int[] data = new int[16];
-            int ind = 0;
-            for (int i = 0; i < vec.getLength(); i++) {
-                int val = vec.getDataAt(i);
-                if (!set.add(val)) {
-                    if (ind == data.length) {
-                        data = Arrays.copyOf(data, data.length << 1);
-                    }
-                    data[ind++] = val;
-                }
-            }
-            return RDataFactory.createIntVector(Arrays.copyOf(data, ind), vec.isComplete());
-        } else {
-            IntArray dataList = new IntArray(vec.getLength());
-            for (int i = 0; i < vec.getLength(); i++) {
-                int val = vec.getDataAt(i);
-                if (!dataList.contains(val)) {
-                    dataList.add(val);
-                }
+    /**
+     * The unique values of a vector that is known to be sorted are the first (or last) elements of
+     * the runs of equal values and they are strictly increasing.
+     */
+    private static RIntVector uniqueSorted(RAbstractIntVector vec) {
+        int[] data = new int[vec.getLength()];
+        int ind = 0;
+        for (int i = 0; i < data.length; i++) {
+            int current = vec.getDataAt(i);
+            if (ind == 0 || current != data[ind - 1]) {
+                data[ind++] = current;
             }
-            return RDataFactory.createIntVector(dataList.toArray(), vec.isComplete());
         }
-    }
-
-    @Specialization(replaces = "doUniqueCached")
-    protected RIntVector doUnique(RAbstractIntVector vec, byte incomparables, byte fromLast, int nmax) {
-        return doUniqueCached(vec, incomparables, fromLast, nmax, RAbstractIntVector.class);
+        RIntVector result = RDataFactory.createIntVector(Arrays.copyOf(data, ind), RDataFactory.COMPLETE_VECTOR);
+        result.setSortedness(RAbstractVector.SORTED_STRICTLY_INCREASING);
+        return result;
     }
 
     @SuppressWarnings("unused")
@@ -343,139 +187,89 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
         return list.getLength() == 1;
     }
 
-    private static final class NonRecursiveHashSetInt {
-
-        private int[] keys;
-        private int size;
-        private boolean containsZero;
-
-        NonRecursiveHashSetInt() {
-            keys = new int[64];
-        }
-
-        public boolean add(int key) {
-            if (key == 0) {
-                if (containsZero) {
-                    return true;
-                } else {
-                    containsZero = true;
-                    return false;
-                }
-            }
-            int ind = Math.abs(Integer.hashCode(key)) & (keys.length - 1);
-            while (true) {
-                if (keys[ind] == 0) {
-                    keys[ind] = key;
-                    size++;
-                    if (size << 1 == keys.length) {
-                        int[] newKeys = new int[keys.length << 1];
-                        for (int rehashKey : keys) {
-                            if (rehashKey != 0) {
-                                int tmpInd = Math.abs(Integer.hashCode(rehashKey)) & (newKeys.length - 1);
-                                while (newKeys[tmpInd] != 0) {
-                                    assert newKeys[tmpInd] != rehashKey;
-                                    tmpInd = (tmpInd + 1) & (newKeys.length - 1);
-                                }
-                                newKeys[tmpInd] = rehashKey;
-                            }
-                        }
-
-                        keys = newKeys;
-                    }
-                    return false;
-                } else if (key == keys[ind]) {
-                    return true;
-                } else {
-                    ind = (ind + 1) & (keys.length - 1);
-                }
-            }
-        }
-    }
-
     @SuppressWarnings("unused")
     @Specialization
+    @TruffleBoundary
     protected RDoubleVector doUnique(RAbstractDoubleVector vec, byte incomparables, byte fromLast, int nmax) {
         reportWork(vec.getLength());
-        if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
-            NonRecursiveHashSetDouble set = new NonRecursiveHashSetDouble(vec.getLength());
-            double[] data = new double[vec.getLength()];
-            int ind = 0;
-            for (int i = 0; i < vec.getLength(); i++) {
-                double val = vec.getDataAt(i);
-                if (!set.add(val)) {
-                    data[ind++] = val;
-                }
+        if (vec.getSortedness() != RAbstractVector.SORTEDNESS_UNKNOWN) {
+            return uniqueSorted(vec, RRuntime.fromLogical(fromLast));
+        }
+        HashIndex index = HashIndex.create(vec, RRuntime.fromLogical(fromLast), true);
+        double[] data = new double[index.getDistinctCount()];
+        int ind = 0;
+        for (int i = 0; i < vec.getLength(); i++) {
+            if (!index.isDuplicate(i)) {
+                data[ind++] = vec.getDataAt(i);
             }
-            return RDataFactory.createDoubleVector(Arrays.copyOf(data, ind), vec.isComplete());
-        } else {
-            DoubleArray dataList = new DoubleArray(vec.getLength());
-            for (int i = 0; i < vec.getLength(); i++) {
-                double val = vec.getDataAt(i);
-                if (!dataList.contains(val)) {
-                    dataList.add(val);
-                }
+        }
+        return RDataFactory.createDoubleVector(data, vec.isComplete());
+    }
+
+    private static RDoubleVector uniqueSorted(RAbstractDoubleVector vec, boolean fromLast) {
+        double[] data = new double[vec.getLength()];
+        int ind = 0;
+        for (int i = 0; i < data.length; i++) {
+            double current = vec.getDataAt(i);
+            if (ind == 0 || current != data[ind - 1]) {
+                data[ind++] = current;
+            } else if (fromLast) {
+                // 0 and -0 are the same value
+                data[ind - 1] = current;
             }
-            return RDataFactory.createDoubleVector(dataList.toArray(), vec.isComplete());
         }
+        RDoubleVector result = RDataFactory.createDoubleVector(Arrays.copyOf(data, ind), RDataFactory.COMPLETE_VECTOR);
+        result.setSortedness(RAbstractVector.SORTED_STRICTLY_INCREASING);
+        return result;
     }
 
     @SuppressWarnings("unused")
     @Specialization
+    @TruffleBoundary
     protected RLogicalVector doUnique(RAbstractLogicalVector vec, byte incomparables, byte fromLast, int nmax) {
         reportWork(vec.getLength());
-        ByteArray dataList = new ByteArray(vec.getLength());
+        HashIndex index = HashIndex.create(vec, RRuntime.fromLogical(fromLast), true);
+        byte[] data = new byte[index.getDistinctCount()];
+        int ind = 0;
         for (int i = 0; i < vec.getLength(); i++) {
-            byte val = vec.getDataAt(i);
-            if (!dataList.contains(val)) {
-                dataList.add(val);
+            if (!index.isDuplicate(i)) {
+                data[ind++] = vec.getDataAt(i);
             }
         }
-        return RDataFactory.createLogicalVector(dataList.toArray(), vec.isComplete());
+        return RDataFactory.createLogicalVector(data, vec.isComplete());
     }
 
     @SuppressWarnings("unused")
     @Specialization
+    @TruffleBoundary
     protected RComplexVector doUnique(RAbstractComplexVector vec, byte incomparables, byte fromLast, int nmax) {
         reportWork(vec.getLength());
-        if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
-            NonRecursiveHashSet<RComplex> set = new NonRecursiveHashSet<>(vec.getLength());
-            double[] data = new double[vec.getLength() * 2];
-            int ind = 0;
-            for (int i = 0; i < vec.getLength(); i++) {
+        HashIndex index = HashIndex.create(vec, RRuntime.fromLogical(fromLast), true);
+        double[] data = new double[index.getDistinctCount() * 2];
+        int ind = 0;
+        for (int i = 0; i < vec.getLength(); i++) {
+            if (!index.isDuplicate(i)) {
                 RComplex val = vec.getDataAt(i);
-                if (!set.add(val)) {
-                    data[ind++] = val.getRealPart();
-                    data[ind++] = val.getImaginaryPart();
-                }
+                data[ind++] = val.getRealPart();
+                data[ind++] = val.getImaginaryPart();
             }
-            return RDataFactory.createComplexVector(Arrays.copyOf(data, ind), vec.isComplete());
-        } else {
-            DoubleArrayForComplex dataList = new DoubleArrayForComplex(vec.getLength());
-            for (int i = 0; i < vec.getLength(); i++) {
-                RComplex s = vec.getDataAt(i);
-                if (!dataList.contains(s)) {
-                    dataList.add(s);
-                }
-            }
-            return RDataFactory.createComplexVector(dataList.toArray(), vec.isComplete());
         }
+        return RDataFactory.createComplexVector(data, vec.isComplete());
     }
 
     @SuppressWarnings("unused")
     @Specialization
-    protected RRawVector doUnique(RAbstractRawVector vec, byte incomparables, byte fromLast, int nmax,
-                    @Cached("createBinaryProfile()") ConditionProfile needsCopyProfile) {
+    @TruffleBoundary
+    protected RRawVector doUnique(RAbstractRawVector vec, byte incomparables, byte fromLast, int nmax) {
         reportWork(vec.getLength());
-        BitSet bitset = new BitSet(256);
-        byte[] data = new byte[vec.getLength()];
+        HashIndex index = HashIndex.create(vec, RRuntime.fromLogical(fromLast), true);
+        byte[] data = new byte[index.getDistinctCount()];
         int ind = 0;
         for (int i = 0; i < vec.getLength(); i++) {
-            byte val = vec.getRawDataAt(i);
-            if (!bitset.get(val)) {
-                bitset.set(val);
-                data[ind++] = val;
+            if (!index.isDuplicate(i)) {
+                data[ind++] = vec.getRawDataAt(i);
             }
         }
-        return RDataFactory.createRawVector(needsCopyProfile.profile(ind == vec.getLength()) ? data : Arrays.copyOf(data, ind));
+        return RDataFactory.createRawVector(data);
     }
 }
@@ -47,6 +47,7 @@ import com.oracle.truffle.r.library.methods.SlotFactory.R_hasSlotNodeGen;
 import com.oracle.truffle.r.library.methods.SlotFactory.R_setSlotNodeGen;
 import com.oracle.truffle.r.library.methods.SubstituteDirectNodeGen;
 import com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.MCIsChildNodeGen;
+import com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.NextStreamNodeGen;
 import com.oracle.truffle.r.library.stats.BinDist;
 import com.oracle.truffle.r.library.stats.CdistNodeGen;
 import com.oracle.truffle.r.library.stats.CompleteCases;
@@ -627,6 +628,10 @@ public class CallAndExternalFunctions {
                 // parallel
                 case "mc_is_child":
                     return MCIsChildNodeGen.create();
+                case "nextStream":
+                    return NextStreamNodeGen.create(false);
+                case "nextSubStream":
+                    return NextStreamNodeGen.create(true);
                 default:
                     return null;
             }
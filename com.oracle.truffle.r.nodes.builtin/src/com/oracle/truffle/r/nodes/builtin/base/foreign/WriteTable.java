@@ -24,6 +24,8 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -80,6 +82,9 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
         casts.arg(10).mustNotBeNull().asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
     }
 
+    /** Number of rows formatted into a single string. */
+    private static final int CHUNK_ROWS = 8192;
+
     // Transcribed from GnuR, library/utils/src/io.c
 
     @Specialization
@@ -98,8 +103,9 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
             }
         }
         try (RConnection con = RConnection.fromIndex(file).forceOpen("wt")) {
+            ColumnFormatter[] columns = new ColumnFormatter[nc];
             if (xx instanceof RAttributable && ClassHierarchyNode.hasClass((RAttributable) xx, RRuntime.CLASS_DATA_FRAME)) {
-                executeDataFrame(con, (RVector<?>) xx, nr, nc, rnames, csep, ceol, cna, cdec, qmethod, quoteCol, quoteRn);
+                createDataFrameFormatters(columns, (RVector<?>) xx, nr, nc, cna, cdec, qmethod, quoteCol, quoteRn);
             } else { /* A matrix */
 
                 // if (!isVectorAtomic(x))
@@ -109,41 +115,74 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
                 if (x.getLength() != nr * nc) {
                     throw new IllegalArgumentException("corrupt matrix -- dims not not match length");
                 }
-
-                StringBuilder tmp = new StringBuilder();
-                for (int i = 0; i < nr; i++) {
-                    if (!(rnames instanceof RNull)) {
-                        tmp.append(encodeElement2((RAbstractStringVector) rnames, i, quoteRn, qmethod, cdec));
-                        tmp.append(csep);
-                    }
-                    for (int j = 0; j < nc; j++) {
-                        if (j > 0) {
-                            tmp.append(csep);
-                        }
-                        if (isna(x, i + j * nr)) {
-                            tmp.append(cna);
-                        } else {
-                            tmp.append(encodeElement2(x, i + j * nr, quoteCol[j], qmethod, cdec));
-                            /* if(cdec) change_dec(tmp, cdec, TYPEOF(x)); */
-                        }
-                    }
-                    tmp.append(ceol);
-                    con.writeString(tmp.toString(), false);
-                    tmp.setLength(0);
+                for (int j = 0; j < nc; j++) {
+                    columns[j] = createFormatter(x, j * nr, null, cna, cdec, quoteCol[j], qmethod);
                 }
             }
+            ColumnFormatter rowNames = null;
+            if (!(rnames instanceof RNull)) {
+                RAbstractStringVector names = (RAbstractStringVector) rnames;
+                boolean quoteNames = quoteRn;
+                rowNames = (sb, i) -> sb.append(encodeElement2(names, i, quoteNames, qmethod, cdec));
+            }
+            writeRows(con, nr, rowNames, columns, csep, ceol);
         } catch (IOException | IllegalArgumentException ex) {
             throw RError.error(RError.SHOW_CALLER, RError.Message.GENERIC, ex.getMessage());
         }
         return RNull.instance;
     }
 
-    private static void executeDataFrame(RConnection con, RVector<?> x, int nr, int nc, Object rnames, String csep, String ceol, String cna, char cdec, boolean qmethod, boolean[] quoteCol,
-                    boolean quoteRn)
-                    throws IOException {
+    /**
+     * Formats the rows in chunks of {@link #CHUNK_ROWS}. Groups of chunks are formatted in parallel
+     * and then written in order, each chunk with a single {@link RConnection#writeString} call, so
+     * that the connection encodes and writes one large buffer instead of one buffer per row.
+     */
+    private static void writeRows(RConnection con, int nr, ColumnFormatter rowNames, ColumnFormatter[] columns, String csep, String ceol) throws IOException {
+        int chunks = (nr + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        int group = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        for (int first = 0; first < chunks; first += group) {
+            int last = Math.min(chunks, first + group);
+            IntStream indices = IntStream.range(first, last);
+            if (last - first > 1) {
+                indices = indices.parallel();
+            }
+            Object[] text = indices.mapToObj(chunk -> {
+                try {
+                    return formatRows(chunk * CHUNK_ROWS, Math.min(nr, (chunk + 1) * CHUNK_ROWS), rowNames, columns, csep, ceol);
+                } catch (RuntimeException e) {
+                    // rethrown below, in the order of the rows, from the calling thread
+                    return e;
+                }
+            }).toArray();
+            for (Object t : text) {
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                }
+                con.writeString((String) t, false);
+            }
+        }
+    }
+
+    private static String formatRows(int from, int to, ColumnFormatter rowNames, ColumnFormatter[] columns, String csep, String ceol) {
+        StringBuilder tmp = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (rowNames != null) {
+                rowNames.append(tmp, i);
+                tmp.append(csep);
+            }
+            for (int j = 0; j < columns.length; j++) {
+                if (j > 0) {
+                    tmp.append(csep);
+                }
+                columns[j].append(tmp, i);
+            }
+            tmp.append(ceol);
+        }
+        return tmp.toString();
+    }
 
+    private static void createDataFrameFormatters(ColumnFormatter[] columns, RVector<?> x, int nr, int nc, String cna, char cdec, boolean qmethod, boolean[] quoteCol, boolean quoteRn) {
         /* handle factors internally, check integrity */
-        RStringVector[] levels = new RStringVector[nc];
         for (int j = 0; j < nc; j++) {
             Object xjObj = x.getDataAtAsObject(j);
             if (xjObj instanceof RAbstractContainer) {
@@ -151,49 +190,114 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
                 if (xj.getLength() != nr) {
                     throw new IllegalArgumentException("corrupt data frame -- length of column " + (j + 1) + " does not not match nrows");
                 }
-                if (isFactor(xj)) {
-                    levels[j] = (RStringVector) xj.getAttributes().get("levels");
-                }
+                RStringVector levels = isFactor(xj) ? (RStringVector) xj.getAttributes().get("levels") : null;
+                columns[j] = createFormatter(xj, 0, levels, cna, cdec, quoteCol[j], qmethod);
             } else {
                 if (nr != 1) {
                     throw new IllegalArgumentException("corrupt data frame -- length of column " + (j + 1) + " does not not match nrows");
                 }
+                String value = encodePrimitiveElement(xjObj, cna, quoteRn, qmethod);
+                columns[j] = (sb, i) -> sb.append(value);
             }
         }
+    }
 
-        StringBuilder tmp = new StringBuilder();
-        for (int i = 0; i < nr; i++) {
-            // if (i % 1000 == 999)
-            // R_CheckUserInterrupt();
-            if (!(rnames instanceof RNull)) {
-                tmp.append(encodeElement2((RAbstractStringVector) rnames, i, quoteRn, qmethod, cdec)).append(csep);
-            }
-            for (int j = 0; j < nc; j++) {
-                Object xjObj = x.getDataAtAsObject(j);
-                if (j > 0) {
-                    tmp.append(csep);
+    /**
+     * Appends the element of one column in row {@code i}, with the NA string, quoting and escaping
+     * already resolved.
+     */
+    @FunctionalInterface
+    private interface ColumnFormatter {
+        void append(StringBuilder sb, int i);
+    }
+
+    /**
+     * Creates a formatter for the elements {@code [offset, offset + nr)} of {@code x}, which is a
+     * data frame column ({@code offset == 0}) or a matrix.
+     */
+    private static ColumnFormatter createFormatter(RAbstractContainer x, int offset, RStringVector levels, String cna, char cdec, boolean quote, boolean qmethod) {
+        if (levels != null) {
+            RAbstractIntVector codes = (RAbstractIntVector) x;
+            return (sb, i) -> {
+                int code = codes.getDataAt(offset + i);
+                if (RRuntime.isNA(code)) {
+                    sb.append(cna);
+                } else {
+                    sb.append(encodeElement2(levels, code - 1, quote, qmethod, cdec));
                 }
-                if (xjObj instanceof RAbstractContainer) {
-                    RAbstractContainer xj = (RAbstractContainer) xjObj;
-                    if (isna(xj, i)) {
-                        tmp.append(cna);
-                    } else {
-                        if (levels[j] != null) {
-                            tmp.append(encodeElement2(levels[j], (int) xj.getDataAtAsObject(i) - 1, quoteCol[j], qmethod, cdec));
-                        } else {
-                            tmp.append(encodeElement2((RAbstractVector) xj, i, quoteCol[j], qmethod, cdec));
-                        }
-                        /* if(cdec) change_dec(tmp, cdec, TYPEOF(xj)); */
-                    }
+            };
+        } else if (x instanceof RAbstractStringVector) {
+            RAbstractStringVector v = (RAbstractStringVector) x;
+            return (sb, i) -> {
+                String value = v.getDataAt(offset + i);
+                sb.append(RRuntime.isNA(value) ? cna : encodeStringElement(value, quote, qmethod));
+            };
+        } else if (x instanceof RAbstractDoubleVector) {
+            RAbstractDoubleVector v = (RAbstractDoubleVector) x;
+            return (sb, i) -> {
+                double value = v.getDataAt(offset + i);
+                if (RRuntime.isNA(value)) {
+                    sb.append(cna);
                 } else {
-                    tmp.append(encodePrimitiveElement(xjObj, cna, quoteRn, qmethod));
-                    /* if(cdec) change_dec(tmp, cdec, TYPEOF(xj)); */
+                    appendReal(sb, value);
+                }
+            };
+        } else if (x instanceof RAbstractIntVector) {
+            RAbstractIntVector v = (RAbstractIntVector) x;
+            return (sb, i) -> {
+                int value = v.getDataAt(offset + i);
+                if (RRuntime.isNA(value)) {
+                    sb.append(cna);
+                } else {
+                    sb.append(value);
+                }
+            };
+        } else if (x instanceof RAbstractLogicalVector) {
+            RAbstractLogicalVector v = (RAbstractLogicalVector) x;
+            return (sb, i) -> {
+                byte value = v.getDataAt(offset + i);
+                sb.append(RRuntime.isNA(value) ? cna : RRuntime.logicalToStringNoCheck(value));
+            };
+        } else {
+            RAbstractVector v = (RAbstractVector) x;
+            return (sb, i) -> sb.append(isna(v, offset + i) ? cna : encodeElement2(v, offset + i, quote, qmethod, cdec));
+        }
+    }
+
+    /**
+     * Appends {@code x} as {@link DoubleVectorPrinter#encodeReal(double)} does. Whole numbers below
+     * 1e15 are formatted directly: they have no fractional digits, and the fixed notation is used
+     * unless it is wider than the scientific one (as in {@code formatReal} with
+     * {@code scipen = 0}).
+     */
+    private static void appendReal(StringBuilder sb, double x) {
+        if (x == 0) {
+            sb.append('0');
+            return;
+        }
+        if (Math.abs(x) < 1e15 && x == Math.rint(x)) {
+            long value = (long) x;
+            long abs = Math.abs(value);
+            int digits = 0;
+            int trailingZeros = 0;
+            boolean significant = false;
+            for (long rest = abs; rest != 0; rest /= 10) {
+                digits++;
+                if (!significant && rest % 10 == 0) {
+                    trailingZeros++;
+                } else {
+                    significant = true;
                 }
             }
-            tmp.append(ceol);
-            con.writeString(tmp.toString(), false);
-            tmp.setLength(0);
+            int sig = digits - trailingZeros;
+            // mantissa (with the decimal point if there is more than one digit) and "e+XX"
+            int sciWidth = (sig > 1 ? sig + 1 : 1) + 4;
+            if (digits <= sciWidth) {
+                sb.append(value);
+                return;
+            }
         }
+        sb.append(DoubleVectorPrinter.encodeReal(x));
     }
 
     private static String encodeStringElement(String p0, boolean quote, boolean qmethod) {
@@ -23,6 +23,7 @@
 package com.oracle.truffle.r.nodes.builtin.fastr;
 
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.equalTo;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.instanceOf;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.notEmpty;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
@@ -38,6 +39,7 @@ import com.oracle.truffle.api.TruffleContext;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.r.launcher.RCmdOptions.Client;
 import com.oracle.truffle.r.nodes.builtin.NodeWithArgumentCasts.Casts;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
@@ -48,6 +50,7 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSource;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.context.ChildContextInfo;
+import com.oracle.truffle.r.runtime.context.ContextPool;
 import com.oracle.truffle.r.runtime.context.EvalThread;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.context.RContext.ConsoleIO;
@@ -77,6 +80,10 @@ public class FastRContext {
                                             equalTo(RContext.ContextKind.SHARE_PARENT_RO.name()).or(equalTo(RContext.ContextKind.SHARE_ALL.name())))));
         }
 
+        private static void pool(Casts casts) {
+            casts.arg("pool").asIntegerVector().mustBe(notEmpty()).findFirst().mustNotBeNA();
+        }
+
         private static void key(Casts casts) {
             casts.arg("key").asIntegerVector().mustBe(notEmpty()).findFirst();
         }
@@ -96,7 +103,7 @@ public class FastRContext {
         }
     }
 
-    private static void handleSharedContexts(ContextKind contextKind) {
+    static void handleSharedContexts(ContextKind contextKind) {
         if (contextKind == ContextKind.SHARE_ALL && EvalThread.threadCnt.get() == 0) {
             RContext current = RContext.getInstance();
             if (EvalThread.threadCnt.get() == 0 && (current.isInitial() || current.getKind() == ContextKind.SHARE_PARENT_RW)) {
@@ -303,6 +310,95 @@ public class FastRContext {
         }
     }
 
+    /**
+     * Creates a pool of {@code size} initialized contexts (see {@link ContextPool}), the result is
+     * an id that should be passed to {@code .fastr.context.pool.eval} and
+     * {@code .fastr.context.pool.close}.
+     */
+    @RBuiltin(name = ".fastr.context.pool.create", kind = PRIMITIVE, parameterNames = {"size"}, behavior = COMPLEX)
+    public abstract static class PoolCreate extends RBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(PoolCreate.class);
+            casts.arg("size").asIntegerVector().mustBe(notEmpty()).findFirst().mustNotBeNA().mustBe(gte(1));
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected int create(int size) {
+            return ContextPool.create(size).getId();
+        }
+    }
+
+    /**
+     * Evaluates the expressions in contexts taken from the given pool, in parallel if there is more
+     * than one expression. The result has the same format as the result of
+     * {@code .fastr.context.eval}.
+     */
+    @RBuiltin(name = ".fastr.context.pool.eval", kind = PRIMITIVE, parameterNames = {"pool", "exprs"}, behavior = COMPLEX)
+    public abstract static class PoolEval extends RBuiltinNode.Arg2 {
+
+        static {
+            Casts casts = new Casts(PoolEval.class);
+            CastsHelper.pool(casts);
+            CastsHelper.exprs(casts);
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected Object eval(int poolId, RAbstractStringVector exprs) {
+            ContextPool pool = getPool(poolId);
+            int length = exprs.getLength();
+            Object[] results = new Object[length];
+            if (length == 1) {
+                results[0] = pool.eval(RSource.fromTextInternalInvisible(exprs.getDataAt(0), RSource.Internal.CONTEXT_EVAL));
+            } else {
+                // separate threads that wait for a pooled context; invoking thread waits for
+                // completion
+                Thread[] threads = new Thread[length];
+                for (int i = 0; i < length; i++) {
+                    int index = i;
+                    Source source = RSource.fromTextInternalInvisible(exprs.getDataAt(i), RSource.Internal.CONTEXT_EVAL);
+                    threads[i] = new Thread(() -> results[index] = pool.eval(source));
+                    threads[i].start();
+                }
+                try {
+                    for (int i = 0; i < length; i++) {
+                        threads[i].join();
+                    }
+                } catch (InterruptedException ex) {
+                    throw error(RError.Message.GENERIC, "error finishing eval thread");
+                }
+            }
+            return RDataFactory.createList(results);
+        }
+    }
+
+    @RBuiltin(name = ".fastr.context.pool.close", visibility = OFF, kind = PRIMITIVE, parameterNames = {"pool"}, behavior = COMPLEX)
+    public abstract static class PoolClose extends RBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(PoolClose.class);
+            CastsHelper.pool(casts);
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull close(int poolId) {
+            getPool(poolId).close();
+            RContext.getInstance().contextPools.remove(poolId);
+            return RNull.instance;
+        }
+    }
+
+    private static ContextPool getPool(int poolId) {
+        ContextPool pool = RContext.getInstance().contextPools.get(poolId);
+        if (pool == null) {
+            throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "invalid context pool " + poolId);
+        }
+        return pool;
+    }
+
     @RBuiltin(name = ".fastr.context.r", kind = PRIMITIVE, visibility = OFF, parameterNames = {"args", "env", "intern"}, behavior = COMPLEX)
     public abstract static class R extends RBuiltinNode.Arg3 {
         @Override
@@ -376,24 +472,35 @@ public class FastRContext {
         return result;
     }
 
-    private static ChildContextInfo createContextInfo(RContext.ContextKind contextKind) {
+    static ChildContextInfo createContextInfo(RContext.ContextKind contextKind) {
         RContext context = RContext.getInstance();
         ConsoleIO console = context.getConsole();
         return ChildContextInfo.createNoRestore(Client.RSCRIPT, null, contextKind, context, console.getStdin(), console.getStdout(), console.getStderr());
     }
 
-    @RBuiltin(name = ".fastr.channel.create", kind = PRIMITIVE, parameterNames = {"key"}, behavior = COMPLEX)
-    public abstract static class CreateChannel extends RBuiltinNode.Arg1 {
+    /**
+     * Creates a channel identified by {@code key}. The optional {@code capacity} argument specifies
+     * how many messages can be pending in each direction before the sender blocks (defaults to the
+     * value of the {@code ChannelQueueCapacity} option).
+     */
+    @RBuiltin(name = ".fastr.channel.create", kind = PRIMITIVE, parameterNames = {"key", "capacity"}, behavior = COMPLEX)
+    public abstract static class CreateChannel extends RBuiltinNode.Arg2 {
+
+        @Override
+        public Object[] getDefaultParameterValues() {
+            return new Object[]{RMissing.instance, RChannel.getDefaultCapacity()};
+        }
 
         static {
             Casts casts = new Casts(CreateChannel.class);
             CastsHelper.key(casts);
+            casts.arg("capacity").asIntegerVector().mustBe(notEmpty()).findFirst().mustNotBeNA().mustBe(gte(1));
         }
 
         @Specialization
         @TruffleBoundary
-        protected int createChannel(int key) {
-            return RChannel.createChannel(key);
+        protected int createChannel(int key, int capacity) {
+            return RChannel.createChannel(key, capacity);
         }
     }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.READS_STATE;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.io.File;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.LazyDBCache;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+
+/**
+ * Returns the number of bytes read from and decompressed for every lazy loading DB file used so
+ * far in this process (see {@link LazyDBCache}), the result can be turned into a data frame with
+ * {@code as.data.frame}.
+ */
+@RBuiltin(name = ".fastr.lazydb.stats", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+public abstract class FastRLazyDBStats extends RBuiltinNode.Arg0 {
+
+    private static final RStringVector NAMES = RDataFactory.createStringVector(new String[]{"package", "path", "fetches", "cacheHits", "bytesRead", "bytesDecompressed"},
+                    RDataFactory.COMPLETE_VECTOR);
+
+    @Specialization
+    @TruffleBoundary
+    protected RList stats() {
+        Map<String, LazyDBCache.Statistics> stats = LazyDBCache.getStatistics();
+        int n = stats.size();
+        String[] packages = new String[n];
+        String[] paths = new String[n];
+        double[] fetches = new double[n];
+        double[] cacheHits = new double[n];
+        double[] bytesRead = new double[n];
+        double[] bytesDecompressed = new double[n];
+        int i = 0;
+        for (Map.Entry<String, LazyDBCache.Statistics> entry : stats.entrySet()) {
+            String path = entry.getKey();
+            String name = new File(path).getName();
+            int dotIndex = name.lastIndexOf('.');
+            packages[i] = dotIndex > 0 ? name.substring(0, dotIndex) : name;
+            paths[i] = path;
+            LazyDBCache.Statistics s = entry.getValue();
+            fetches[i] = s.getFetches();
+            cacheHits[i] = s.getCacheHits();
+            bytesRead[i] = s.getBytesRead();
+            bytesDecompressed[i] = s.getBytesDecompressed();
+            i++;
+        }
+        return RDataFactory.createList(new Object[]{RDataFactory.createStringVector(packages, RDataFactory.COMPLETE_VECTOR), RDataFactory.createStringVector(paths, RDataFactory.COMPLETE_VECTOR),
+                        RDataFactory.createDoubleVector(fetches, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(cacheHits, RDataFactory.COMPLETE_VECTOR),
+                        RDataFactory.createDoubleVector(bytesRead, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(bytesDecompressed, RDataFactory.COMPLETE_VECTOR)}, NAMES);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.io.IOException;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RError.Message;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RMappedVector;
+import com.oracle.truffle.r.runtime.data.RMissing;
+
+/**
+ * Maps {@code length} elements of type {@code type} ("double", "integer" or "raw") stored in the
+ * native byte order at byte {@code offset} of the file {@code path} into a read-only vector (see
+ * {@link RMappedVector}). A negative {@code length} maps the rest of the file.
+ *
+ * The file must not be truncated or rewritten while the vector is in use: the vector always shows
+ * the current content of the file and reading beyond a new end of the file raises an error.
+ */
+@RBuiltin(name = ".fastr.mmap", kind = PRIMITIVE, parameterNames = {"path", "type", "length", "offset"}, behavior = IO)
+public abstract class FastRMmap extends RBuiltinNode.Arg4 {
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{RMissing.instance, "double", -1, 0};
+    }
+
+    static {
+        Casts casts = new Casts(FastRMmap.class);
+        casts.arg("path").mustBe(stringValue()).asStringVector().findFirst().mustNotBeNA();
+        casts.arg("type").mustBe(stringValue()).asStringVector().findFirst().mustNotBeNA();
+        casts.arg("length").asDoubleVector().findFirst().mustNotBeNA();
+        casts.arg("offset").asDoubleVector().findFirst().mustNotBeNA();
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected RMappedVector mmap(String path, String type, double length, double offset) {
+        RType rType = RType.fromMode(type);
+        if (rType != RType.Double && rType != RType.Integer && rType != RType.Raw) {
+            throw error(Message.INVALID_ARGUMENT, "type");
+        }
+        try {
+            return RMappedVector.map(Utils.tildeExpand(path), rType, (long) offset, (long) length);
+        } catch (IllegalArgumentException | IOException e) {
+            throw error(Message.GENERIC, "cannot map file '" + path + "': " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.READS_STATE;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+
+/**
+ * Returns the number of native mirrors created and reclaimed on behalf of the current context and
+ * the number of live mirrors and allocated handle table slots in the whole process (see
+ * {@link NativeDataAccess}).
+ */
+@RBuiltin(name = ".fastr.native.mirrors", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+public abstract class FastRNativeMirrorStats extends RBuiltinNode.Arg0 {
+
+    private static final RStringVector NAMES = RDataFactory.createStringVector(new String[]{"created", "reclaimed", "live", "totalLive", "tableCapacity"}, RDataFactory.COMPLETE_VECTOR);
+
+    @Specialization
+    @TruffleBoundary
+    protected RList stats() {
+        // counting the live mirrors first releases the slots of collected owners
+        int totalLive = NativeDataAccess.getLiveMirrorCount();
+        NativeDataAccess.MirrorStatistics stats = RContext.getInstance().nativeMirrorStatistics;
+        return RDataFactory.createList(new Object[]{(double) stats.getCreated(), (double) stats.getReclaimed(), (double) stats.getLive(), totalLive,
+                        NativeDataAccess.getHandleTableCapacity()}, NAMES);
+    }
+}
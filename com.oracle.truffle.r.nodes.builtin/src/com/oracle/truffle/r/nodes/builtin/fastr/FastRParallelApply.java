@@ -0,0 +1,636 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.instanceOf;
+import static com.oracle.truffle.r.runtime.RVisibility.OFF;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.COMPLEX;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RErrorHandling;
+import com.oracle.truffle.r.runtime.RErrorHandling.HandlerStacks;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.ChildContextInfo;
+import com.oracle.truffle.r.runtime.context.EvalThread;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.data.RAttributable;
+import com.oracle.truffle.r.runtime.data.RAttributesLayout;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RListBase;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.RPromise;
+import com.oracle.truffle.r.runtime.data.RShareable;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxConstant;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxFunction;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxLookup;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxVisitor;
+
+/**
+ * The builtins behind {@code .fastr.parallel.lapply}, {@code .fastr.parallel.vapply} and
+ * {@code .fastr.parallel.Map} (defined in R in the base package), which apply a side-effect free
+ * function to the elements of lists on multiple threads.
+ *
+ * The calling thread and {@code threads - 1} {@link ContextKind#SHARE_ALL} child contexts take
+ * contiguous chunks of the indices from a shared counter until all are processed, each result is
+ * stored at its index, so the order of the results does not depend on the scheduling. The child
+ * contexts find the work by evaluating {@code .fastr.parallel.worker(id)}. If other child contexts
+ * exist (e.g. when called from a worker), the elements are processed sequentially.
+ *
+ * Assignments to the search path (including the global environment) made by a child context are
+ * not visible to the parent, and the output of the workers would interleave. Therefore, before
+ * starting, the function and the closures it calls by name are checked for super-assignments,
+ * replacements (e.g. {@code x$a <- v}) of variables that are not local to the function, calls of
+ * known functions with side effects (I/O, {@code assign}, {@code options}, random number
+ * generation, {@code eval}, ...) and of functions that give access to environments or to other
+ * functions by name ({@code environment}, {@code get}, {@code match.fun}, ...), and the parallel
+ * evaluation is refused if any is found. The check is syntactic, it cannot see side effects hidden
+ * behind e.g. functions passed as arguments.
+ *
+ * The values that the threads read concurrently, i.e., the arguments and the values of the free
+ * variables of the checked functions, including nested list elements and attributes, are made
+ * shared permanent, so that their reference counts are not updated concurrently. Since such a
+ * value could be updated in place through a local alias, the parallel evaluation is also refused
+ * if any of them is an environment.
+ */
+public class FastRParallelApply {
+
+    /**
+     * Functions whose call, or use as a value, makes a function not eligible for the parallel
+     * evaluation.
+     */
+    private static final Set<String> SIDE_EFFECTS = new HashSet<>(Arrays.asList(
+                    // assignments outside of the function's frame
+                    "<<-", "->>", "assign", "delayedAssign", "makeActiveBinding", "rm", "remove", "lockBinding", "unlockBinding", "environment<-", "parent.env<-", "body<-", "formals<-",
+                    "reg.finalizer",
+                    // evaluation of code that is not visible to the check
+                    "eval", "evalq", "local", "parse", "do.call", "source", "sys.source", ".Internal", ".Call", ".External", ".External2", ".C", ".Fortran", "get", "get0", "mget",
+                    "match.fun", "sys.function", "Recall",
+                    // access to environments, whose bindings could be replaced
+                    "environment", "globalenv", ".GlobalEnv", "parent.frame", "parent.env", "sys.frame", "sys.frames", "as.environment", "topenv", "pos.to.env",
+                    // global state
+                    "attach", "detach", "library", "require", "requireNamespace", "loadNamespace", "setwd", "Sys.setenv", "Sys.unsetenv", "Sys.setlocale", "options", "par",
+                    // random numbers
+                    "set.seed", "RNGkind", "sample", "sample.int", "runif", "rnorm", "rbinom", "rpois", "rexp", "rgamma", "rbeta", "rt", "rchisq", "rcauchy", "rlogis", "rlnorm", "rweibull",
+                    "rgeom", "rhyper", "rnbinom", "rmultinom", "rf", "rsignrank", "rwilcox",
+                    // I/O
+                    "cat", "print", "message", "warning", "sink", "writeLines", "writeBin", "writeChar", "write", "write.table", "write.csv", "save", "saveRDS", "load", "readRDS", "readLines",
+                    "readBin", "readChar", "readline", "scan", "read.table", "read.csv", "file", "url", "gzfile", "bzfile", "xzfile", "socketConnection", "pipe", "fifo", "open", "close",
+                    "flush", "unlink", "file.create", "file.remove", "file.rename", "file.copy", "file.append", "dir.create", "system", "system2", "download.file"));
+
+    private static final AtomicInteger jobIds = new AtomicInteger();
+    private static final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * The state of one {@code .fastr.parallel.apply} call shared by the participating threads.
+     */
+    private static final class Job {
+        private final RFunction function;
+        private final RList args;
+        private final RList moreArgs;
+        private final ArgumentsSignature signature;
+        private final int length;
+        private final int chunk;
+        private final Object[] results;
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile String failure;
+        private int failedIndex;
+
+        Job(RFunction function, RList args, RList moreArgs, int length, int threads) {
+            this.function = function;
+            this.args = args;
+            this.moreArgs = moreArgs;
+            this.signature = createSignature(args, moreArgs);
+            this.length = length;
+            // several chunks per thread balance uneven costs of the elements
+            this.chunk = Math.max(1, length / (threads * 4));
+            this.results = new Object[length];
+        }
+
+        private static ArgumentsSignature createSignature(RList args, RList moreArgs) {
+            String[] names = new String[args.getLength() + moreArgs.getLength()];
+            RStringVector argNames = args.getNames();
+            RStringVector moreArgNames = moreArgs.getNames();
+            for (int i = 0; i < args.getLength(); i++) {
+                names[i] = argNames == null || argNames.getDataAt(i).isEmpty() ? null : argNames.getDataAt(i);
+            }
+            for (int i = 0; i < moreArgs.getLength(); i++) {
+                names[args.getLength() + i] = moreArgNames == null || moreArgNames.getDataAt(i).isEmpty() ? null : moreArgNames.getDataAt(i);
+            }
+            return ArgumentsSignature.get(names);
+        }
+
+        /**
+         * Processes chunks until all elements are taken or some evaluation fails. May be invoked
+         * concurrently from any context that shares the parent's environments. Any failure, not
+         * only an {@link RError}, is recorded and stops the processing, so that it is reported in
+         * the same way regardless of the thread that evaluated the element.
+         */
+        void run() {
+            int from;
+            while (failure == null && (from = next.getAndAdd(chunk)) < length) {
+                int to = Math.min(length, from + chunk);
+                for (int i = from; i < to; i++) {
+                    try {
+                        results[i] = call(i);
+                    } catch (RError e) {
+                        fail(i, e.getMessage());
+                        return;
+                    } catch (Throwable t) {
+                        fail(i, t.getClass().getSimpleName());
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Like {@link #run()}, but without the condition handlers of the calling thread, which the
+         * worker contexts do not see either. Otherwise an error in an element evaluated by the
+         * calling thread could unwind to a {@code tryCatch} around the whole apply while the
+         * workers are still running.
+         */
+        void runOnCallingThread() {
+            HandlerStacks handlerStacks = RErrorHandling.resetAndGetHandlerStacks();
+            try {
+                run();
+            } finally {
+                RErrorHandling.restoreHandlerStacks(handlerStacks);
+            }
+        }
+
+        private Object call(int index) {
+            int argsLength = args.getLength();
+            Object[] values = new Object[argsLength + moreArgs.getLength()];
+            for (int i = 0; i < argsLength; i++) {
+                RList arg = (RList) args.getDataAt(i);
+                values[i] = arg.getDataAt(index % arg.getLength());
+            }
+            for (int i = 0; i < moreArgs.getLength(); i++) {
+                values[argsLength + i] = moreArgs.getDataAt(i);
+            }
+            return RContext.getEngine().evalFunction(function, null, null, true, signature, values);
+        }
+
+        private synchronized void fail(int index, String message) {
+            if (failure == null) {
+                failedIndex = index;
+                failure = message;
+            }
+        }
+    }
+
+    /**
+     * Returns a list with the results of {@code FUN} applied to the elements of the lists in
+     * {@code args} (recycled to the length of the longest one) and all of {@code moreArgs}. The
+     * names of {@code args} and {@code moreArgs} are used as argument names.
+     */
+    @RBuiltin(name = ".fastr.parallel.apply", kind = PRIMITIVE, parameterNames = {"FUN", "args", "moreArgs", "threads"}, behavior = COMPLEX)
+    public abstract static class ParallelApply extends RBuiltinNode.Arg4 {
+
+        static {
+            Casts casts = new Casts(ParallelApply.class);
+            casts.arg("FUN").mustBe(instanceOf(RFunction.class));
+            casts.arg("args").mustBe(instanceOf(RList.class));
+            casts.arg("moreArgs").mustBe(instanceOf(RList.class));
+            casts.arg("threads").asIntegerVector().findFirst().mustNotBeNA().mustBe(gte(1));
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RList apply(RFunction fun, RList args, RList moreArgs, int threads) {
+            int length = 0;
+            for (int i = 0; i < args.getLength(); i++) {
+                Object arg = args.getDataAt(i);
+                if (!(arg instanceof RList)) {
+                    throw error(RError.Message.GENERIC, "all elements of 'args' must be lists");
+                }
+                int argLength = ((RList) arg).getLength();
+                if (argLength == 0) {
+                    return RDataFactory.createList();
+                }
+                length = Math.max(length, argLength);
+            }
+            SideEffectsCheck check = new SideEffectsCheck();
+            String sideEffect = check.check(fun);
+            if (sideEffect != null) {
+                throw error(RError.Message.GENERIC, "'FUN' may have side effects ('" + sideEffect + "'), it cannot be evaluated in parallel");
+            }
+
+            // the values are read by several threads, which must not update the reference counts
+            Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < args.getLength(); i++) {
+                RList arg = (RList) args.getDataAt(i);
+                for (int j = 0; j < arg.getLength(); j++) {
+                    makeSharedPermanent(arg.getDataAt(j), seen, "'args'");
+                }
+            }
+            for (int i = 0; i < moreArgs.getLength(); i++) {
+                makeSharedPermanent(moreArgs.getDataAt(i), seen, "'moreArgs'");
+            }
+            for (Map.Entry<String, Object> entry : check.freeValues.entrySet()) {
+                makeSharedPermanent(entry.getValue(), seen, "variable '" + entry.getKey() + "'");
+            }
+
+            int workers = Math.min(threads, length) - 1;
+            Job job = new Job(fun, args, moreArgs, length, workers + 1);
+            if (workers == 0 || EvalThread.threadCnt.get() != 0) {
+                job.runOnCallingThread();
+            } else {
+                runParallel(job, workers);
+            }
+            if (job.failure != null) {
+                throw error(RError.Message.GENERIC, "evaluation of element " + (job.failedIndex + 1) + " failed: " + job.failure);
+            }
+            return RDataFactory.createList(job.results);
+        }
+
+        /**
+         * Makes the value, the elements of lists and the attributes shared permanent, raises an
+         * error if an environment is reached.
+         */
+        private void makeSharedPermanent(Object value, Set<Object> seen, String where) {
+            if (!seen.add(value)) {
+                return;
+            }
+            if (value instanceof REnvironment) {
+                throw error(RError.Message.GENERIC, "the values of " + where + " must not contain environments, which could be modified in parallel");
+            }
+            if (value instanceof RShareable && !((RShareable) value).isSharedPermanent()) {
+                ((RShareable) value).makeSharedPermanent();
+            }
+            if (value instanceof RListBase) {
+                RListBase list = (RListBase) value;
+                for (int i = 0; i < list.getLength(); i++) {
+                    makeSharedPermanent(list.getDataAt(i), seen, where);
+                }
+            }
+            if (value instanceof RAttributable) {
+                DynamicObject attributes = ((RAttributable) value).getAttributes();
+                if (attributes != null) {
+                    for (RAttributesLayout.RAttribute attribute : RAttributesLayout.asIterable(attributes)) {
+                        makeSharedPermanent(attribute.getValue(), seen, where);
+                    }
+                }
+            }
+        }
+
+        private void runParallel(Job job, int workers) {
+            FastRContext.handleSharedContexts(ContextKind.SHARE_ALL);
+            int id = jobIds.incrementAndGet();
+            jobs.put(id, job);
+            EvalThread[] threads = new EvalThread[workers];
+            int[] multiSlotIndices = new int[workers];
+            try {
+                ChildContextInfo[] infos = new ChildContextInfo[workers];
+                for (int i = 0; i < workers; i++) {
+                    infos[i] = FastRContext.createContextInfo(ContextKind.SHARE_ALL);
+                    multiSlotIndices[i] = infos[i].getMultiSlotInd();
+                }
+                REnvironment.convertSearchpathToMultiSlot(multiSlotIndices);
+                for (int i = 0; i < workers; i++) {
+                    threads[i] = new EvalThread(RContext.getInstance().threads, infos[i], RSource.fromTextInternalInvisible(".fastr.parallel.worker(" + id + "L)", RSource.Internal.CONTEXT_EVAL));
+                }
+                for (int i = 0; i < workers; i++) {
+                    threads[i].start();
+                }
+                for (int i = 0; i < workers; i++) {
+                    threads[i].waitForInit();
+                }
+                job.runOnCallingThread();
+            } finally {
+                // the workers use the multi-slots of the search path until they finish
+                boolean interrupted = false;
+                for (int i = 0; i < workers; i++) {
+                    while (threads[i] != null && threads[i].isAlive()) {
+                        try {
+                            threads[i].join();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                jobs.remove(id);
+                for (int i = 0; i < workers; i++) {
+                    if (threads[i] != null) {
+                        EvalThread.idToMultiSlotTable.remove(threads[i].getContextInfo().getId());
+                    }
+                }
+                if (EvalThread.threadCnt.get() == 0) {
+                    REnvironment.cleanupSearchpathFromMultiSlot();
+                } else {
+                    REnvironment.cleanupSearchpathFromMultiSlot(multiSlotIndices);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the chunks of the given job in a worker context.
+     */
+    @RBuiltin(name = ".fastr.parallel.worker", visibility = OFF, kind = PRIMITIVE, parameterNames = {"job"}, behavior = COMPLEX)
+    public abstract static class ParallelWorker extends RBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(ParallelWorker.class);
+            casts.arg("job").asIntegerVector().findFirst().mustNotBeNA();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull work(int id) {
+            Job job = jobs.get(id);
+            if (job != null) {
+                job.run();
+            }
+            return RNull.instance;
+        }
+    }
+
+    /**
+     * Finds the first call of a function with side effects in the body of a closure, including the
+     * closures defined outside of packages that it calls by name. Returns {@code null} if there is
+     * none. Also collects the values of the free variables of the checked closures that are bound
+     * outside of packages, see {@link #freeValues}.
+     */
+    private static final class SideEffectsCheck extends RSyntaxVisitor<String> {
+
+        /**
+         * The functions whose replacement calls update their first argument in place if it is an
+         * environment.
+         */
+        private static final Set<String> EXTRACTIONS = new HashSet<>(Arrays.asList("$", "[[", "[", "@"));
+
+        private final Set<RFunction> visited = new HashSet<>();
+        /** The values of free variables by name, in the order of their first use. */
+        final Map<String, Object> freeValues = new LinkedHashMap<>();
+        private REnvironment env;
+        /** The local variables of the function being checked and of the enclosing function expressions. */
+        private Deque<Set<String>> locals = new ArrayDeque<>();
+
+        String check(RFunction function) {
+            if (!visited.add(function)) {
+                return null;
+            }
+            if (!isUserFunction(function)) {
+                return SIDE_EFFECTS.contains(function.getName()) ? function.getName() : null;
+            }
+            REnvironment prevEnv = env;
+            Deque<Set<String>> prevLocals = locals;
+            env = REnvironment.frameToEnvironment(function.getEnclosingFrame());
+            locals = new ArrayDeque<>();
+            try {
+                return visitFunction((RSyntaxFunction) function.getRootNode());
+            } finally {
+                env = prevEnv;
+                locals = prevLocals;
+            }
+        }
+
+        private String visitFunction(RSyntaxFunction function) {
+            Set<String> names = new HashSet<>();
+            for (int i = 0; i < function.getSyntaxSignature().getLength(); i++) {
+                names.add(function.getSyntaxSignature().getName(i));
+            }
+            collectAssigned(function.getSyntaxBody(), names);
+            locals.push(names);
+            try {
+                for (RSyntaxElement value : function.getSyntaxArgumentDefaults()) {
+                    String result = value == null ? null : accept(value);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return accept(function.getSyntaxBody());
+            } finally {
+                locals.pop();
+            }
+        }
+
+        /**
+         * Collects the variables assigned with {@code <-} or {@code =} and the loop variables, but
+         * not those of nested function expressions.
+         */
+        private static void collectAssigned(RSyntaxElement element, Set<String> names) {
+            if (!(element instanceof RSyntaxCall)) {
+                return;
+            }
+            RSyntaxCall call = (RSyntaxCall) element;
+            RSyntaxElement[] args = call.getSyntaxArguments();
+            if (call.getSyntaxLHS() instanceof RSyntaxLookup && args.length > 0 && args[0] instanceof RSyntaxLookup) {
+                String name = ((RSyntaxLookup) call.getSyntaxLHS()).getIdentifier();
+                if (name.equals("<-") || name.equals("=") || name.equals("for")) {
+                    names.add(((RSyntaxLookup) args[0]).getIdentifier());
+                }
+            }
+            collectAssigned(call.getSyntaxLHS(), names);
+            for (RSyntaxElement arg : args) {
+                collectAssigned(arg, names);
+            }
+        }
+
+        private boolean isLocal(String name) {
+            for (Set<String> names : locals) {
+                if (names.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Closures whose environment reaches the global environment before any namespace or
+         * package environment are not part of a package and are checked as well.
+         */
+        private static boolean isUserFunction(RFunction function) {
+            if (function.isBuiltin()) {
+                return false;
+            }
+            return isUserEnvironment(REnvironment.frameToEnvironment(function.getEnclosingFrame()));
+        }
+
+        private static boolean isUserEnvironment(REnvironment environment) {
+            REnvironment e = environment;
+            while (e != null && e != REnvironment.emptyEnv()) {
+                if (e == REnvironment.globalEnv()) {
+                    return true;
+                } else if (e == REnvironment.baseEnv() || e.isNamespaceEnv() || e.isPackageEnv() != null) {
+                    return false;
+                }
+                e = e.getParent();
+            }
+            return true;
+        }
+
+        private RFunction lookupFunction(String name) {
+            REnvironment e = env;
+            while (e != null && e != REnvironment.emptyEnv()) {
+                Object value = e.get(name);
+                if (value instanceof RFunction) {
+                    return (RFunction) value;
+                }
+                e = e.getParent();
+            }
+            return null;
+        }
+
+        /**
+         * Records the value of a free variable if it is bound outside of packages.
+         */
+        private void recordFreeVariable(String name) {
+            REnvironment e = env;
+            while (e != null && isUserEnvironment(e)) {
+                Object value = e.get(name);
+                if (value != null) {
+                    if (value instanceof RPromise) {
+                        value = ((RPromise) value).isEvaluated() ? ((RPromise) value).getValue() : null;
+                    }
+                    if (value != null && !(value instanceof RFunction)) {
+                        freeValues.putIfAbsent(name, value);
+                    }
+                    return;
+                }
+                e = e.getParent();
+            }
+        }
+
+        /**
+         * Checks the target of a replacement, e.g. {@code x} in {@code x$a[[1]] <- v}, which must
+         * be a local variable, and which must be reached only through extractions if the target is
+         * updated by one of them.
+         */
+        private String checkReplacement(RSyntaxCall target) {
+            String replacement = null;
+            RSyntaxElement current = target;
+            while (current instanceof RSyntaxCall) {
+                RSyntaxCall call = (RSyntaxCall) current;
+                RSyntaxElement[] args = call.getSyntaxArguments();
+                if (!(call.getSyntaxLHS() instanceof RSyntaxLookup) || args.length == 0) {
+                    return "<-";
+                }
+                String name = ((RSyntaxLookup) call.getSyntaxLHS()).getIdentifier();
+                if (replacement == null) {
+                    replacement = name + "<-";
+                }
+                current = args[0];
+                if (EXTRACTIONS.contains(name) && !(current instanceof RSyntaxLookup || isExtraction(current))) {
+                    return name + "<-";
+                }
+            }
+            if (current instanceof RSyntaxLookup && isLocal(((RSyntaxLookup) current).getIdentifier())) {
+                return null;
+            }
+            return replacement;
+        }
+
+        private static boolean isExtraction(RSyntaxElement element) {
+            return element instanceof RSyntaxCall && ((RSyntaxCall) element).getSyntaxLHS() instanceof RSyntaxLookup &&
+                            EXTRACTIONS.contains(((RSyntaxLookup) ((RSyntaxCall) element).getSyntaxLHS()).getIdentifier());
+        }
+
+        @Override
+        protected String visit(RSyntaxCall element) {
+            RSyntaxElement lhs = element.getSyntaxLHS();
+            RSyntaxElement[] args = element.getSyntaxArguments();
+            String result;
+            if (lhs instanceof RSyntaxLookup) {
+                String name = ((RSyntaxLookup) lhs).getIdentifier();
+                if (SIDE_EFFECTS.contains(name)) {
+                    return name;
+                }
+                if ((name.equals("<-") || name.equals("=")) && args.length == 2 && args[0] instanceof RSyntaxCall) {
+                    String replacement = checkReplacement((RSyntaxCall) args[0]);
+                    if (replacement != null) {
+                        return replacement;
+                    }
+                }
+                RFunction callee = isLocal(name) ? null : lookupFunction(name);
+                result = callee == null ? null : check(callee);
+            } else {
+                result = accept(lhs);
+            }
+            for (RSyntaxElement arg : args) {
+                if (result != null) {
+                    return result;
+                }
+                // unmatched arguments may still be null
+                if (arg != null) {
+                    result = accept(arg);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        protected String visit(RSyntaxConstant element) {
+            return null;
+        }
+
+        @Override
+        protected String visit(RSyntaxLookup element) {
+            // catches functions with side effects passed as values, e.g. to sapply
+            String name = element.getIdentifier();
+            if (SIDE_EFFECTS.contains(name)) {
+                return name;
+            }
+            if (!isLocal(name)) {
+                recordFreeVariable(name);
+            }
+            return null;
+        }
+
+        @Override
+        protected String visit(RSyntaxFunction element) {
+            return visitFunction(element);
+        }
+    }
+}
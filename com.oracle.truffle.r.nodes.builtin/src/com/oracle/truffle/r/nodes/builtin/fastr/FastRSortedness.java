@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.COMPLEX;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Created as primitive function to avoid any access to the argument.
+ *
+ * returns the sortedness hint of a vector, i.e. 0 for unknown, 1 for increasing and 2 for strictly
+ * increasing (see {@link RAbstractVector#getSortedness()}), and -1 for anything else
+ */
+@RBuiltin(name = ".fastr.sortedness", kind = PRIMITIVE, parameterNames = {""}, behavior = COMPLEX)
+public abstract class FastRSortedness extends RBuiltinNode.Arg1 {
+
+    static {
+        Casts.noCasts(FastRSortedness.class);
+    }
+
+    @Specialization
+    protected int sortedness(Object x) {
+        return x instanceof RAbstractVector ? ((RAbstractVector) x).getSortedness() : -1;
+    }
+}
@@ -38,6 +38,7 @@ import com.oracle.truffle.r.runtime.ArgumentsSignature;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RShareable;
+import com.oracle.truffle.r.runtime.data.closures.RFusedDoubleVector;
 import com.oracle.truffle.r.runtime.env.frame.ActiveBinding;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.nodes.RNode;
@@ -62,6 +63,7 @@ abstract class BaseWriteVariableNode extends WriteVariableNode {
     private final ConditionProfile isShareableProfile = ConditionProfile.createBinaryProfile();
     private final ConditionProfile isSharedProfile = ConditionProfile.createBinaryProfile();
     private final ConditionProfile isSharedPermanent = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile isFusedProfile = ConditionProfile.createBinaryProfile();
 
     private final BranchProfile initialSetKindProfile = BranchProfile.create();
 
@@ -87,6 +89,10 @@ abstract class BaseWriteVariableNode extends WriteVariableNode {
     protected final Object shareObjectValue(Frame frame, FrameSlot frameSlot, Object value, Mode mode, boolean isSuper) {
         CompilerAsserts.compilationConstant(mode);
         CompilerAsserts.compilationConstant(isSuper);
+        if (isFusedProfile.profile(value instanceof RFusedDoubleVector)) {
+            // a deferred expression must not keep its operands shared while bound to a variable
+            ((RFusedDoubleVector) value).evaluateNow();
+        }
         // for the meaning of INVISIBLE mode see the comment preceding the current method;
         // also change state when assigning to the enclosing frame as there must
         // be a distinction between variables with the same name defined in
@@ -46,6 +46,7 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RAttributesLayout;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RIntSequence;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RLogical;
 import com.oracle.truffle.r.runtime.data.RNull;
@@ -156,10 +157,15 @@ final class CachedExtractVectorNode extends CachedVectorNode {
         }
 
         if (mode.isSubset()) {
+            // must be queried before the elements are read
+            int sortedness = numberOfDimensions == 1 ? getSubsetSortedness(vector, positions[0], vectorLength) : RAbstractVector.SORTEDNESS_UNKNOWN;
             if (extractedLengthGTZeroProfile.profile(extractedVectorLength > 0)) {
                 writeVectorNode.execute(extractedVector, positions, vector, dimensions);
                 RBaseNode.reportWork(this, extractedVectorLength);
             }
+            if (sortedness != RAbstractVector.SORTEDNESS_UNKNOWN) {
+                extractedVector.setSortedness(sortedness);
+            }
             if (oneDimensionProfile.profile(numberOfDimensions == 1)) {
                 // names only need to be considered for single dimensional accesses
                 if (getNamesNode == null) {
@@ -191,6 +197,20 @@ final class CachedExtractVectorNode extends CachedVectorNode {
         }
     }
 
+    /**
+     * Selecting increasing positions of a vector that is known to be sorted keeps it sorted, this is
+     * e.g. the case for {@code x[order(x)]} if {@code x} is already sorted.
+     */
+    private static int getSubsetSortedness(RAbstractContainer vector, Object position, int vectorLength) {
+        if (vector instanceof RAbstractVector && position instanceof RIntSequence) {
+            RIntSequence sequence = (RIntSequence) position;
+            if (sequence.getLength() > 0 && sequence.getStride() > 0 && sequence.getStart() >= 1 && sequence.getEnd() <= vectorLength) {
+                return ((RAbstractVector) vector).getSortedness();
+            }
+        }
+        return RAbstractVector.SORTEDNESS_UNKNOWN;
+    }
+
     private int[] getDimensions(final RAbstractContainer vector) {
         int[] dimensions;
         if (numberOfDimensions == 1) {
@@ -40,6 +40,7 @@ import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.closures.RFusedDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -64,6 +65,9 @@ public abstract class BinaryArithmeticNode extends RBuiltinNode.Arg2 {
 
     @Child private BinaryArithmetic operation;
 
+    /** The deferred operation kind, non-null if {@link RFusedDoubleVector}s are to be built. */
+    protected final RFusedDoubleVector.Kind fusedKind;
+
     static {
         Casts casts = new Casts(BinaryArithmeticNode.class);
         casts.arg(0).boxPrimitive();
@@ -74,6 +78,7 @@ public abstract class BinaryArithmeticNode extends RBuiltinNode.Arg2 {
         this.binary = binaryFactory;
         this.operation = binaryFactory.createOperation();
         this.unary = unaryFactory;
+        this.fusedKind = RFusedDoubleVector.isEnabled() ? RFusedDoubleVector.getKind(operation) : null;
     }
 
     public abstract Object execute(Object left, Object right);
@@ -87,6 +92,15 @@ public abstract class BinaryArithmeticNode extends RBuiltinNode.Arg2 {
         return BinaryArithmeticNodeGen.create(binary, unary);
     }
 
+    @Specialization(guards = {"fusedKind != null", "isFusable(left, right)"})
+    protected Object doFused(RAbstractDoubleVector left, RAbstractDoubleVector right) {
+        return RFusedDoubleVector.createBinary(fusedKind, left, right);
+    }
+
+    protected static boolean isFusable(RAbstractDoubleVector left, RAbstractDoubleVector right) {
+        return RFusedDoubleVector.isFusable(left, right);
+    }
+
     @Specialization(limit = "CACHE_LIMIT", guards = {"cached != null", "cached.isSupported(left, right)"})
     protected Object doNumericVectorCached(RAbstractVector left, RAbstractVector right,
                     @Cached("createFastCached(left, right)") BinaryMapNode cached) {
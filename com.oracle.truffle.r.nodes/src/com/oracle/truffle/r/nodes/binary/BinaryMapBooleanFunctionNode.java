@@ -41,6 +41,11 @@ public final class BinaryMapBooleanFunctionNode extends BinaryMapNAFunctionNode
         this.operation = arithmetic;
     }
 
+    @Override
+    public boolean isParallelizable() {
+        return true;
+    }
+
     @Override
     public boolean mayFoldConstantTime(Class<? extends RAbstractVector> left, Class<? extends RAbstractVector> right) {
         return false;
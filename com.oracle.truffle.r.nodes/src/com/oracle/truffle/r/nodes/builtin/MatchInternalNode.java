@@ -30,6 +30,7 @@ import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.unary.CastStringNode;
 import com.oracle.truffle.r.nodes.unary.CastStringNodeGen;
+import com.oracle.truffle.r.runtime.HashIndex;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RComplex;
@@ -51,14 +52,10 @@ import java.util.Arrays;
 
 public abstract class MatchInternalNode extends RBaseNode {
 
-    private static final int TABLE_SIZE_FACTOR = 10;
-
     public abstract Object execute(RAbstractVector x, RAbstractVector table, int noMatch);
 
     @Node.Child private CastStringNode castString;
 
-    private final ConditionProfile bigTableProfile = ConditionProfile.createBinaryProfile();
-
     private RAbstractStringVector castString(RAbstractVector operand) {
         if (castString == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -97,7 +94,10 @@ public abstract class MatchInternalNode extends RBaseNode {
                     @Cached("create()") BranchProfile notFoundProfile) {
         int element = x.getDataAt(0);
         int length = table.getLength();
-        if (naProfile.isNA(element)) {
+        if (table.getSortedness() != RAbstractVector.SORTEDNESS_UNKNOWN) {
+            int index = naProfile.isNA(element) ? -1 : findSorted(table, element);
+            return index == -1 ? nomatch : index + 1;
+        } else if (naProfile.isNA(element)) {
             for (int i = 0; i < length; i++) {
                 if (RRuntime.isNA(table.getDataAt(i))) {
                     foundProfile.enter();
@@ -119,116 +119,19 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization(guards = {"x.getLength() != 1", "!isSequence(table)"})
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractIntVector x, RAbstractIntVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        NonRecursiveHashMapInt hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapInt(x.getLength());
-            NonRecursiveHashSetInt hashSet = new NonRecursiveHashSetInt(x.getLength());
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                int val = table.getDataAt(i);
-                if (hashSet.contains(val)) {
-                    hashTable.put(val, i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapInt(table.getLength());
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                hashTable.put(table.getDataAt(i), i);
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            int xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, table, nomatch);
     }
 
     @Specialization
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractDoubleVector x, RAbstractIntVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        NonRecursiveHashMapDouble hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapDouble(x.getLength());
-            NonRecursiveHashSetDouble hashSet = new NonRecursiveHashSetDouble(x.getLength());
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                int val = table.getDataAt(i);
-                if (hashSet.contains(RRuntime.int2double(val))) {
-                    hashTable.put(RRuntime.int2double(val), i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapDouble(table.getLength());
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                hashTable.put(RRuntime.int2double(table.getDataAt(i)), i);
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            double xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, table, nomatch);
     }
 
     @Specialization
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractIntVector x, RAbstractDoubleVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        NonRecursiveHashMapInt hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapInt(x.getLength());
-            NonRecursiveHashSetInt hashSet = new NonRecursiveHashSetInt(x.getLength());
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                double val = table.getDataAt(i);
-                if (RRuntime.isNA(val) && hashSet.contains(RRuntime.INT_NA)) {
-                    hashTable.put(RRuntime.INT_NA, i);
-                } else if (val == (int) val && hashSet.contains((int) val)) {
-                    hashTable.put((int) val, i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapInt(table.getLength());
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                double xx = table.getDataAt(i);
-                if (RRuntime.isNA(xx)) {
-                    hashTable.put(RRuntime.INT_NA, i);
-                } else if (xx == (int) xx) {
-                    hashTable.put((int) xx, i);
-                }
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            int xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, table, nomatch);
     }
 
     @Specialization(guards = "x.getLength() == 1")
@@ -239,7 +142,10 @@ public abstract class MatchInternalNode extends RBaseNode {
                     @Cached("create()") BranchProfile notFoundProfile) {
         double element = x.getDataAt(0);
         int length = table.getLength();
-        if (naProfile.isNA(element)) {
+        if (table.getSortedness() != RAbstractVector.SORTEDNESS_UNKNOWN) {
+            int index = naProfile.isNA(element) ? -1 : findSorted(table, element);
+            return index == -1 ? nomatch : index + 1;
+        } else if (naProfile.isNA(element)) {
             for (int i = 0; i < length; i++) {
                 if (RRuntime.isNA(table.getDataAt(i))) {
                     foundProfile.enter();
@@ -261,37 +167,7 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization(guards = "x.getLength() != 1")
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractDoubleVector x, RAbstractDoubleVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        NonRecursiveHashMapDouble hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapDouble(x.getLength());
-            NonRecursiveHashSetDouble hashSet = new NonRecursiveHashSetDouble(x.getLength());
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                double val = table.getDataAt(i);
-                if (hashSet.contains(val)) {
-                    hashTable.put(val, i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapDouble(table.getLength());
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                hashTable.put(table.getDataAt(i), i);
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            double xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, table, nomatch);
     }
 
     @Specialization
@@ -406,37 +282,7 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization(guards = {"x.getLength() != 1", "!isSequence(table)"})
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractStringVector x, RAbstractStringVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        NonRecursiveHashMapCharacter hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapCharacter(x.getLength());
-            NonRecursiveHashSetCharacter hashSet = new NonRecursiveHashSetCharacter(x.getLength());
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                String val = table.getDataAt(i);
-                if (hashSet.contains(val)) {
-                    hashTable.put(val, i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapCharacter(table.getLength());
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                hashTable.put(table.getDataAt(i), i);
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            String xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, table, nomatch);
     }
 
     @Specialization
@@ -494,38 +340,7 @@ public abstract class MatchInternalNode extends RBaseNode {
 
     @Specialization(guards = "x.getLength() != 1")
     protected RIntVector match(RAbstractRawVector x, RAbstractRawVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        NonRecursiveHashMapRaw hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapRaw();
-            NonRecursiveHashSetRaw hashSet = new NonRecursiveHashSetRaw();
-
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getRawDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                byte val = table.getRawDataAt(i);
-                if (hashSet.contains(val)) {
-                    hashTable.put(val, i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapRaw();
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                hashTable.put(table.getRawDataAt(i), i);
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            byte xx = x.getRawDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, table, nomatch);
     }
 
     @Specialization
@@ -649,23 +464,7 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization(guards = "!isRAbstractStringVector(table)")
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractStringVector x, RAbstractVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
-        boolean matchAll = true;
-        RAbstractStringVector stringTable = castString(table);
-        NonRecursiveHashMapCharacter hashTable = new NonRecursiveHashMapCharacter(table.getLength());
-        for (int i = table.getLength() - 1; i >= 0; i--) {
-            hashTable.put(stringTable.getDataAt(i), i);
-        }
-        for (int i = 0; i < result.length; i++) {
-            String xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
-            }
-        }
-        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        return matchHashed(x, castString(table), nomatch);
     }
 
     @Specialization(guards = "x.getLength() == 1")
@@ -698,449 +497,81 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractComplexVector x, RAbstractComplexVector table, int nomatch) {
-        int[] result = initResult(x.getLength(), nomatch);
+        return matchHashed(x, table, nomatch);
+    }
+
+    private static RIntVector matchHashed(RAbstractVector x, RAbstractVector table, int nomatch) {
+        int[] result = useBinarySearch(x, table) ? matchSorted(x, table, nomatch) : HashIndex.match(x, table, nomatch);
         boolean matchAll = true;
-        NonRecursiveHashMapComplex hashTable;
-        if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
-            hashTable = new NonRecursiveHashMapComplex(x.getLength());
-            NonRecursiveHashSetComplex hashSet = new NonRecursiveHashSetComplex(x.getLength());
-            for (int i = 0; i < result.length; i++) {
-                hashSet.add(x.getDataAt(i));
-            }
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                RComplex val = table.getDataAt(i);
-                if (hashSet.contains(val)) {
-                    hashTable.put(val, i);
-                }
-            }
-        } else {
-            hashTable = new NonRecursiveHashMapComplex(table.getLength());
-            for (int i = table.getLength() - 1; i >= 0; i--) {
-                hashTable.put(table.getDataAt(i), i);
-            }
-        }
-        for (int i = 0; i < result.length; i++) {
-            RComplex xx = x.getDataAt(i);
-            int index = hashTable.get(xx);
-            if (index != -1) {
-                result[i] = index + 1;
-            } else {
-                matchAll = false;
+        if (nomatch == RRuntime.INT_NA) {
+            for (int i = 0; i < result.length && matchAll; i++) {
+                matchAll = result[i] != RRuntime.INT_NA;
             }
         }
         return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
     }
 
-    private static int[] initResult(int length, int nomatch) {
-        int[] result = new int[length];
-        Arrays.fill(result, nomatch);
-        return result;
-    }
-
     /**
-     * Set the "complete" status. If {@code nomatch} is not NA (uncommon), then the result vector is
-     * always COMPLETE, otherwise it is INCOMPLETE unless everything matched.
+     * Looking up the elements one by one with a binary search pays off if the table is known to be
+     * sorted (see {@link RAbstractVector#getSortedness()}) and there are few elements to look up
+     * compared to the size of the table.
      */
-    private static boolean setCompleteState(boolean matchAll, int nomatch) {
-        return nomatch != RRuntime.INT_NA || matchAll ? RDataFactory.COMPLETE_VECTOR : RDataFactory.INCOMPLETE_VECTOR;
-    }
-
-    // simple implementations of non-recursive hash-maps to enable compilation
-    // TODO: consider replacing with a more efficient library implementation
-
-    private abstract static class NonRecursiveHashMap {
-
-        protected final int[] values;
-        protected int naValue;
-
-        protected NonRecursiveHashMap(int entryCount) {
-            int capacity = Math.max(entryCount * 3 / 2, 1);
-            values = new int[Integer.highestOneBit(capacity) << 2];
-        }
-
-        protected int index(int hash) {
-            // Multiply by -127
-            return ((hash << 1) - (hash << 8)) & (values.length - 1);
-        }
-    }
-
-    private static final class NonRecursiveHashMapCharacter extends NonRecursiveHashMap {
-
-        private final String[] keys;
-
-        NonRecursiveHashMapCharacter(int approxCapacity) {
-            super(approxCapacity);
-            keys = new String[values.length];
-        }
-
-        public boolean put(String key, int value) {
-            assert value >= 0;
-            if (RRuntime.isNA(key)) {
-                boolean ret = naValue == 0;
-                naValue = value + 1;
-                return ret;
-            } else {
-                int ind = index(key.hashCode());
-                while (true) {
-                    if (values[ind] == 0) {
-                        keys[ind] = key;
-                        values[ind] = value + 1;
-                        return false;
-                    } else if (key.equals(keys[ind])) {
-                        values[ind] = value + 1;
-                        return true;
-                    } else {
-                        ind++;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                    }
-                }
-            }
-        }
-
-        public int get(String key) {
-            if (RRuntime.isNA(key)) {
-                return naValue - 1;
-            } else {
-                int ind = index(key.hashCode());
-                int firstInd = ind;
-                while (true) {
-                    if (key.equals(keys[ind])) {
-                        return values[ind] - 1;
-                    } else {
-                        ind++;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                        if (ind == firstInd || values[ind] == 0) {
-                            return -1;
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    private static final class NonRecursiveHashMapComplex extends NonRecursiveHashMap {
-
-        private final RComplex[] keys;
-        private final int m;
-        private final int k;
-
-        NonRecursiveHashMapComplex(int entryCount) {
-            super(entryCount);
-            keys = new RComplex[values.length];
-
-            int m1 = 2;
-            int k1 = 1;
-            int n = 2 * entryCount;
-            while (m1 < n) {
-                m1 *= 2;
-                k1++;
-            }
-            m = m1;
-            k = k1;
-        }
-
-        public boolean put(RComplex key, int value) {
-            assert value >= 0;
-            if (RRuntime.isNA(key)) {
-                boolean ret = naValue == 0;
-                naValue = value + 1;
-                return ret;
-            } else {
-                int ind = index(key.hashCode());
-                while (true) {
-                    if (values[ind] == 0) {
-                        keys[ind] = key;
-                        values[ind] = value + 1;
-                        return false;
-                    } else if (key.equals(keys[ind])) {
-                        values[ind] = value + 1;
-                        return true;
-                    } else {
-                        ind = (ind + 1) % m;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                    }
-                }
-            }
-        }
-
-        public int get(RComplex key) {
-            if (RRuntime.isNA(key)) {
-                return naValue - 1;
-            } else {
-                int ind = index(key.hashCode());
-                int firstInd = ind;
-                while (true) {
-                    if (key.equals(keys[ind])) {
-                        return values[ind] - 1;
-                    } else {
-                        ind = (ind + 1) % m;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                        if (ind == firstInd || values[ind] == 0) {
-                            return -1;
-                        }
-                    }
-                }
-            }
-        }
-
-        private static final int u = new Long(3141592653L).intValue();
-
-        @Override
-        protected int index(int key) {
-            return u * key >>> (32 - k);
-        }
+    private static boolean useBinarySearch(RAbstractVector x, RAbstractVector table) {
+        int n = table.getLength();
+        return table.getSortedness() != RAbstractVector.SORTEDNESS_UNKNOWN && (x instanceof RAbstractIntVector || x instanceof RAbstractDoubleVector) &&
+                        (long) x.getLength() * (32 - Integer.numberOfLeadingZeros(n)) <= n;
     }
 
-    private static final class NonRecursiveHashMapDouble extends NonRecursiveHashMap {
-
-        private final double[] keys;
-        private int nanValue;
-
-        NonRecursiveHashMapDouble(int approxCapacity) {
-            super(approxCapacity);
-            keys = new double[values.length];
-            Arrays.fill(keys, RRuntime.DOUBLE_NA);
-        }
-
-        public boolean put(double key, int value) {
-            assert value >= 0;
-            if (RRuntime.isNA(key)) {
-                boolean ret = naValue == 0;
-                naValue = value + 1;
-                return ret;
-            } else if (Double.isNaN(key)) {
-                boolean ret = nanValue == 0;
-                nanValue = value + 1;
-                return ret;
-            } else {
-                int ind = index(Double.hashCode(key));
-                while (true) {
-                    if (values[ind] == 0) {
-                        keys[ind] = key;
-                        values[ind] = value + 1;
-                        return false;
-                    } else if (key == keys[ind]) {
-                        values[ind] = value + 1;
-                        return true;
-                    } else {
-                        ind++;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                    }
-                }
-            }
-        }
-
-        public int get(double key) {
-            if (RRuntime.isNA(key)) {
-                return naValue - 1;
-            } else if (Double.isNaN(key)) {
-                return nanValue - 1;
-            } else {
-                int ind = index(Double.hashCode(key));
-                int firstInd = ind;
-                while (true) {
-                    if (key == keys[ind]) {
-                        return values[ind] - 1;
-                    } else {
-                        ind++;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                        if (ind == firstInd || values[ind] == 0) {
-                            return -1;
-                        }
-                    }
-                }
+    private static int[] matchSorted(RAbstractVector x, RAbstractVector table, int nomatch) {
+        int[] result = initResult(x.getLength(), nomatch);
+        for (int i = 0; i < result.length; i++) {
+            double value = getNumber(x, i);
+            // a sorted table has no NA or NaN values
+            int index = Double.isNaN(value) ? -1 : findSorted(table, value);
+            if (index != -1) {
+                result[i] = index + 1;
             }
         }
+        return result;
     }
 
-    private static final class NonRecursiveHashMapInt extends NonRecursiveHashMap {
-
-        private final int[] keys;
-
-        NonRecursiveHashMapInt(int approxCapacity) {
-            super(approxCapacity);
-            keys = new int[values.length];
-            Arrays.fill(keys, RRuntime.INT_NA);
-        }
-
-        public boolean put(int key, int value) {
-            assert value >= 0;
-            if (RRuntime.isNA(key)) {
-                boolean ret = naValue == 0;
-                naValue = value + 1;
-                return ret;
-            } else {
-                int ind = index(Integer.hashCode(key));
-                while (true) {
-                    if (values[ind] == 0) {
-                        keys[ind] = key;
-                        values[ind] = value + 1;
-                        return false;
-                    } else if (key == keys[ind]) {
-                        values[ind] = value + 1;
-                        return true;
-                    } else {
-                        ind++;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                    }
-                }
-            }
-        }
-
-        public int get(int key) {
-            if (RRuntime.isNA(key)) {
-                return naValue - 1;
+    /**
+     * Returns the index of the first occurrence of {@code value} in a sorted integer or double
+     * vector or {@code -1}.
+     */
+    private static int findSorted(RAbstractVector table, double value) {
+        int lo = 0;
+        int hi = table.getLength();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getNumber(table, mid) < value) {
+                lo = mid + 1;
             } else {
-                int ind = index(Integer.hashCode(key));
-                int firstInd = ind;
-                while (true) {
-                    if (key == keys[ind]) {
-                        return values[ind] - 1;
-                    } else {
-                        ind++;
-                        if (ind == values.length) {
-                            ind = 0;
-                        }
-                        if (ind == firstInd || values[ind] == 0) {
-                            return -1;
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    private static final class NonRecursiveHashMapRaw {
-
-        private final int[] keys;
-        protected final int[] values;
-
-        NonRecursiveHashMapRaw() {
-            values = new int[256];
-            keys = new int[256];
-            Arrays.fill(keys, -1);
-        }
-
-        public boolean put(byte key, int value) {
-            assert value >= 0;
-            int ind = key & 0xFF;
-            while (true) {
-                if (values[ind] == 0) {
-                    keys[ind] = key;
-                    values[ind] = value + 1;
-                    return false;
-                } else if (key == keys[ind]) {
-                    values[ind] = value + 1;
-                    return true;
-                } else {
-                    assert false;
-                }
-            }
-        }
-
-        public int get(byte key) {
-            int ind = key & 0xFF;
-            while (true) {
-                if (key == keys[ind]) {
-                    return values[ind] - 1;
-                } else {
-                    return -1;
-                }
+                hi = mid;
             }
         }
+        return lo < table.getLength() && getNumber(table, lo) == value ? lo : -1;
     }
 
-    private static class NonRecursiveHashSetInt {
-        private final NonRecursiveHashMapInt map;
-
-        NonRecursiveHashSetInt(int approxCapacity) {
-            map = new NonRecursiveHashMapInt(approxCapacity);
-        }
-
-        public boolean add(int value) {
-            return map.put(value, 1);
-        }
-
-        public boolean contains(int value) {
-            return map.get(value) == 1;
+    private static double getNumber(RAbstractVector vector, int index) {
+        if (vector instanceof RAbstractIntVector) {
+            int value = ((RAbstractIntVector) vector).getDataAt(index);
+            return RRuntime.isNA(value) ? RRuntime.DOUBLE_NA : value;
         }
+        return ((RAbstractDoubleVector) vector).getDataAt(index);
     }
 
-    private static class NonRecursiveHashSetRaw {
-        private final NonRecursiveHashMapRaw map;
-
-        NonRecursiveHashSetRaw() {
-            map = new NonRecursiveHashMapRaw();
-        }
-
-        public boolean add(byte value) {
-            return map.put(value, 1);
-        }
-
-        public boolean contains(byte value) {
-            return map.get(value) == 1;
-        }
-    }
-
-    private static class NonRecursiveHashSetDouble {
-        private final NonRecursiveHashMapDouble map;
-
-        NonRecursiveHashSetDouble(int approxCapacity) {
-            map = new NonRecursiveHashMapDouble(approxCapacity);
-        }
-
-        public boolean add(double value) {
-            return map.put(value, 1);
-        }
-
-        public boolean contains(double value) {
-            return map.get(value) == 1;
-        }
-    }
-
-    private static class NonRecursiveHashSetCharacter {
-        private final NonRecursiveHashMapCharacter map;
-
-        NonRecursiveHashSetCharacter(int approxCapacity) {
-            map = new NonRecursiveHashMapCharacter(approxCapacity);
-        }
-
-        public boolean add(String value) {
-            return map.put(value, 1);
-        }
-
-        public boolean contains(String value) {
-            return map.get(value) == 1;
-        }
+    private static int[] initResult(int length, int nomatch) {
+        int[] result = new int[length];
+        Arrays.fill(result, nomatch);
+        return result;
     }
 
-    private static class NonRecursiveHashSetComplex {
-        private final NonRecursiveHashMapComplex map;
-
-        NonRecursiveHashSetComplex(int approxCapacity) {
-            map = new NonRecursiveHashMapComplex(approxCapacity);
-        }
-
-        public boolean add(RComplex value) {
-            return map.put(value, 1);
-        }
-
-        public boolean contains(RComplex value) {
-            return map.get(value) == 1;
-        }
+    /**
+     * Set the "complete" status. If {@code nomatch} is not NA (uncommon), then the result vector is
+     * always COMPLETE, otherwise it is INCOMPLETE unless everything matched.
+     */
+    private static boolean setCompleteState(boolean matchAll, int nomatch) {
+        return nomatch != RRuntime.INT_NA || matchAll ? RDataFactory.COMPLETE_VECTOR : RDataFactory.INCOMPLETE_VECTOR;
     }
 }
@@ -32,11 +32,12 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.runtime.data.RShareable;
 import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
+import com.oracle.truffle.r.runtime.data.closures.RFusedDoubleVector;
 
 /**
  * Internal node that should be used whenever you need to increment reference count of some object.
  * If the object is not instance of {@link RShareable} or if it is shared permanent, then does
- * nothing.
+ * nothing. A deferred {@link RFusedDoubleVector} is evaluated, which releases its operands.
  *
  * This class relies (and asserts) that all RShareable objects are subclasses of
  * RSharingAttributeStorage.
@@ -59,6 +60,12 @@ public abstract class ShareObjectNode extends Node {
         return obj;
     }
 
+    @Specialization
+    protected Object doFused(RFusedDoubleVector obj) {
+        obj.evaluateNow();
+        return obj;
+    }
+
     @Fallback
     protected Object doNonShareable(Object obj) {
         RSharingAttributeStorage.verify(obj);
@@ -72,6 +79,8 @@ public abstract class ShareObjectNode extends Node {
             if (!shareable.isSharedPermanent()) {
                 shareable.incRefCount();
             }
+        } else if (value instanceof RFusedDoubleVector) {
+            ((RFusedDoubleVector) value).evaluateNow();
         }
         return value;
     }
@@ -166,12 +166,15 @@ final class BinaryMapVectorNode extends BinaryMapNode {
     private final ConditionProfile shareRight;
     private final ConditionProfile leftIsNAProfile;
     private final ConditionProfile rightIsNAProfile;
+    private final ConditionProfile parallelProfile;
+    private final ConditionProfile parallelSkippedProfile;
 
     // compile-time optimization flags
     private final boolean mayContainMetadata;
     private final boolean mayFoldConstantTime;
     private final boolean mayShareLeft;
     private final boolean mayShareRight;
+    private final boolean mayRunParallel;
     private final boolean isGeneric;
 
     BinaryMapVectorNode(BinaryMapFunctionNode function, RAbstractVector left, RAbstractVector right, RType argumentType, RType resultType, boolean copyAttributes, boolean isGeneric) {
@@ -197,6 +200,9 @@ final class BinaryMapVectorNode extends BinaryMapNode {
 
         this.copyAttributes = mayContainMetadata ? CopyAttributesNodeGen.create(copyAttributes) : null;
         this.maxLengthProfile = ConditionProfile.createBinaryProfile();
+        this.mayRunParallel = ParallelMap.supportsBinary(function, argumentType, resultType);
+        this.parallelProfile = mayRunParallel ? ConditionProfile.createBinaryProfile() : null;
+        this.parallelSkippedProfile = mayRunParallel ? ConditionProfile.createBinaryProfile() : null;
         this.isGeneric = isGeneric;
     }
 
@@ -241,20 +247,32 @@ final class BinaryMapVectorNode extends BinaryMapNode {
 
                 assert left.getLength() == leftLength;
                 assert right.getLength() == rightLength;
-                if (mayShareLeft && left.getRType() == resultType && shareLeft.profile(leftLength == maxLength && ((RShareable) left).isTemporary())) {
-                    target = left;
-                    vectorNode.execute(function, leftLength, rightLength, leftAccess, leftIter, leftAccess, leftIter, rightAccess, rightIter);
-                } else if (mayShareRight && right.getRType() == resultType && shareRight.profile(rightLength == maxLength && ((RShareable) right).isTemporary())) {
-                    target = right;
-                    vectorNode.execute(function, leftLength, rightLength, rightAccess, rightIter, leftAccess, leftIter, rightAccess, rightIter);
-                } else {
-                    if (resultAccess == null) {
-                        CompilerDirectives.transferToInterpreterAndInvalidate();
-                        resultAccess = insert(VectorAccess.createNew(resultType));
+                if (mayRunParallel && parallelProfile.profile(maxLength >= ParallelMap.THRESHOLD)) {
+                    ParallelMap.BinaryResult parallel = ParallelMap.applyBinary(function, argumentType, resultType, left, leftLength, right, rightLength);
+                    if (parallel != null) {
+                        if (parallelSkippedProfile.profile(parallel.hasSkipped())) {
+                            // updates the NA checks on this thread
+                            parallel.complete(function);
+                        }
+                        target = parallel.target;
                     }
-                    target = resultType.create(maxLength, false);
-                    try (SequentialIterator resultIter = resultAccess.access(target)) {
-                        vectorNode.execute(function, leftLength, rightLength, resultAccess, resultIter, leftAccess, leftIter, rightAccess, rightIter);
+                }
+                if (target == null) {
+                    if (mayShareLeft && left.getRType() == resultType && shareLeft.profile(leftLength == maxLength && ((RShareable) left).isTemporary())) {
+                        target = left;
+                        vectorNode.execute(function, leftLength, rightLength, leftAccess, leftIter, leftAccess, leftIter, rightAccess, rightIter);
+                    } else if (mayShareRight && right.getRType() == resultType && shareRight.profile(rightLength == maxLength && ((RShareable) right).isTemporary())) {
+                        target = right;
+                        vectorNode.execute(function, leftLength, rightLength, rightAccess, rightIter, leftAccess, leftIter, rightAccess, rightIter);
+                    } else {
+                        if (resultAccess == null) {
+                            CompilerDirectives.transferToInterpreterAndInvalidate();
+                            resultAccess = insert(VectorAccess.createNew(resultType));
+                        }
+                        target = resultType.create(maxLength, false);
+                        try (SequentialIterator resultIter = resultAccess.access(target)) {
+                            vectorNode.execute(function, leftLength, rightLength, resultAccess, resultIter, leftAccess, leftIter, rightAccess, rightIter);
+                        }
                     }
                 }
                 RBaseNode.reportWork(this, maxLength);
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.primitive;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Multi-threaded execution of the element-wise loops of {@link BinaryMapNode} and
+ * {@link UnaryMapNode} for long vectors. The index space is split into contiguous ranges that are
+ * processed by a shared {@link ForkJoinPool}, each element is written by exactly one task, so the
+ * result does not depend on the scheduling.
+ *
+ * Only function nodes that declare themselves parallelizable take part, only managed int/double
+ * data is read and only double/logical results are written. The recycling is limited to equal
+ * lengths and scalars, so the {@code LENGTH_NOT_MULTI} warning is never involved. If a worker
+ * fails, the caller falls back to the sequential loop, which reports the error on the R thread.
+ *
+ * The workers must not update the NA checks of the function node, which are compilation final
+ * state of the R thread. They only apply the function to elements whose operands are neither NA
+ * nor NaN, for which the NA checks are only read, and remember the ranges that contain other
+ * elements. The caller completes these on the R thread after the join and outside of any
+ * boundary, so that the NA checks are updated (and compiled code invalidated) like in the
+ * sequential loop before the completeness of the result is queried.
+ *
+ * The threshold and the number of threads are set by {@link FastROptions#ParallelMapThreshold}
+ * (zero disables the parallel path) and {@link FastROptions#ParallelMapThreads} (zero uses the
+ * common pool).
+ */
+final class ParallelMap {
+
+    static final int THRESHOLD = FastROptions.ParallelMapThreshold.getNonNegativeIntValue();
+    private static final int THREADS = FastROptions.ParallelMapThreads.getNonNegativeIntValue();
+
+    /** Minimal number of elements processed by a single task. */
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private static volatile ForkJoinPool pool;
+
+    private ParallelMap() {
+        // no instances
+    }
+
+    private static ForkJoinPool getPool() {
+        ForkJoinPool result = pool;
+        if (result == null) {
+            synchronized (ParallelMap.class) {
+                result = pool;
+                if (result == null) {
+                    pool = result = THREADS == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(THREADS);
+                }
+            }
+        }
+        return result;
+    }
+
+    static boolean supportsBinary(BinaryMapFunctionNode function, RType argumentType, RType resultType) {
+        return THRESHOLD > 0 && function.isParallelizable() && (argumentType == RType.Double || argumentType == RType.Integer) && (resultType == RType.Double || resultType == RType.Logical);
+    }
+
+    static boolean supportsUnary(UnaryMapFunctionNode function, RType argumentType, RType resultType) {
+        return THRESHOLD > 0 && function.isParallelizable() && argumentType == RType.Double && resultType == RType.Double;
+    }
+
+    private interface RangeAction {
+        /**
+         * Processes the elements in {@code [from, to)}, returns {@code true} if some of them were
+         * skipped because of an NA or NaN operand.
+         */
+        boolean run(int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final ConcurrentLinkedQueue<int[]> skipped;
+
+        RangeTask(RangeAction action, int from, int to, int chunk, ConcurrentLinkedQueue<int[]> skipped) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                if (action.run(from, to)) {
+                    skipped.add(new int[]{from, to});
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(action, from, middle, chunk, skipped), new RangeTask(action, middle, to, chunk, skipped));
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} over {@code [0, length)}, returns the ranges in which elements were
+     * skipped or {@code null} if any of the tasks failed.
+     */
+    private static int[][] run(int length, RangeAction action) {
+        ForkJoinPool p = getPool();
+        int chunk = Math.max(MIN_CHUNK, length / (p.getParallelism() * 4));
+        ConcurrentLinkedQueue<int[]> skipped = new ConcurrentLinkedQueue<>();
+        try {
+            p.invoke(new RangeTask(action, 0, length, chunk, skipped));
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return skipped.toArray(new int[skipped.size()][]);
+    }
+
+    /**
+     * The result of a parallel map. If {@link #hasSkipped()}, {@code complete} must be called on
+     * the R thread, outside of any boundary and with the function node of the caller, before the
+     * completeness of the function is queried.
+     */
+    abstract static class Result {
+
+        final RAbstractVector target;
+        final int[][] skipped;
+
+        Result(RAbstractVector target, int[][] skipped) {
+            this.target = target;
+            this.skipped = skipped;
+        }
+
+        final boolean hasSkipped() {
+            return skipped.length > 0;
+        }
+    }
+
+    static final class BinaryResult extends Result {
+
+        private final Object left;
+        private final int leftStride;
+        private final Object right;
+        private final int rightStride;
+
+        BinaryResult(RAbstractVector target, int[][] skipped, Object left, int leftStride, Object right, int rightStride) {
+            super(target, skipped);
+            this.left = left;
+            this.leftStride = leftStride;
+            this.right = right;
+            this.rightStride = rightStride;
+        }
+
+        /**
+         * Computes the elements skipped by the workers.
+         */
+        void complete(BinaryMapFunctionNode function) {
+            for (int[] range : skipped) {
+                if (left instanceof double[]) {
+                    double[] l = (double[]) left;
+                    double[] r = (double[]) right;
+                    if (target instanceof RDoubleVector) {
+                        double[] result = ((RDoubleVector) target).getInternalManagedData();
+                        for (int i = range[0]; i < range[1]; i++) {
+                            if (Double.isNaN(l[i * leftStride]) || Double.isNaN(r[i * rightStride])) {
+                                result[i] = function.applyDouble(l[i * leftStride], r[i * rightStride]);
+                            }
+                        }
+                    } else {
+                        byte[] result = ((RLogicalVector) target).getInternalManagedData();
+                        for (int i = range[0]; i < range[1]; i++) {
+                            if (Double.isNaN(l[i * leftStride]) || Double.isNaN(r[i * rightStride])) {
+                                result[i] = function.applyLogical(l[i * leftStride], r[i * rightStride]);
+                            }
+                        }
+                    }
+                } else {
+                    int[] l = (int[]) left;
+                    int[] r = (int[]) right;
+                    if (target instanceof RDoubleVector) {
+                        double[] result = ((RDoubleVector) target).getInternalManagedData();
+                        for (int i = range[0]; i < range[1]; i++) {
+                            if (l[i * leftStride] == RRuntime.INT_NA || r[i * rightStride] == RRuntime.INT_NA) {
+                                result[i] = function.applyDouble(l[i * leftStride], r[i * rightStride]);
+                            }
+                        }
+                    } else {
+                        byte[] result = ((RLogicalVector) target).getInternalManagedData();
+                        for (int i = range[0]; i < range[1]; i++) {
+                            if (l[i * leftStride] == RRuntime.INT_NA || r[i * rightStride] == RRuntime.INT_NA) {
+                                result[i] = function.applyLogical(l[i * leftStride], r[i * rightStride]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static final class UnaryResult extends Result {
+
+        private final double[] operand;
+
+        UnaryResult(RAbstractVector target, int[][] skipped, double[] operand) {
+            super(target, skipped);
+            this.operand = operand;
+        }
+
+        /**
+         * Computes the elements skipped by the workers.
+         */
+        void complete(UnaryMapFunctionNode function) {
+            double[] result = ((RDoubleVector) target).getInternalManagedData();
+            for (int[] range : skipped) {
+                for (int i = range[0]; i < range[1]; i++) {
+                    if (Double.isNaN(operand[i])) {
+                        result[i] = function.applyDouble(operand[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the data of an operand as an array (of length one for scalars) or {@code null} if
+     * the operand cannot be read from worker threads.
+     */
+    private static double[] getDoubles(RAbstractVector operand, int length) {
+        if (length == 1) {
+            if (operand instanceof RAbstractDoubleVector) {
+                return new double[]{((RAbstractDoubleVector) operand).getDataAt(0)};
+            } else if (operand instanceof RAbstractIntVector) {
+                return new double[]{RRuntime.int2double(((RAbstractIntVector) operand).getDataAt(0))};
+            }
+            return null;
+        }
+        return operand instanceof RDoubleVector ? ((RDoubleVector) operand).getInternalManagedData() : null;
+    }
+
+    private static int[] getInts(RAbstractVector operand, int length) {
+        if (length == 1) {
+            return operand instanceof RAbstractIntVector ? new int[]{((RAbstractIntVector) operand).getDataAt(0)} : null;
+        }
+        return operand instanceof RIntVector ? ((RIntVector) operand).getInternalManagedData() : null;
+    }
+
+    /**
+     * Computes {@code function(left, right)} into a new vector of {@code resultType}, except for
+     * the elements with NA or NaN operands (see {@link BinaryResult#complete}). Returns
+     * {@code null} if the operands are not supported or the parallel execution failed, the caller
+     * then runs the sequential loop.
+     */
+    @TruffleBoundary
+    static BinaryResult applyBinary(BinaryMapFunctionNode function, RType argumentType, RType resultType, RAbstractVector left, int leftLength, RAbstractVector right, int rightLength) {
+        int length = Math.max(leftLength, rightLength);
+        if (leftLength != rightLength && leftLength != 1 && rightLength != 1) {
+            return null;
+        }
+        int leftStride = leftLength == 1 ? 0 : 1;
+        int rightStride = rightLength == 1 ? 0 : 1;
+        RAbstractVector target = resultType.create(length, false);
+        RangeAction action;
+        Object leftData;
+        Object rightData;
+        if (argumentType == RType.Double) {
+            double[] l = getDoubles(left, leftLength);
+            double[] r = getDoubles(right, rightLength);
+            if (l == null || r == null) {
+                return null;
+            }
+            leftData = l;
+            rightData = r;
+            if (resultType == RType.Double) {
+                double[] result = ((RDoubleVector) target).getInternalManagedData();
+                action = (from, to) -> {
+                    boolean sawNA = false;
+                    for (int i = from; i < to; i++) {
+                        double a = l[i * leftStride];
+                        double b = r[i * rightStride];
+                        if (Double.isNaN(a) || Double.isNaN(b)) {
+                            sawNA = true;
+                        } else {
+                            result[i] = function.applyDouble(a, b);
+                        }
+                    }
+                    return sawNA;
+                };
+            } else {
+                byte[] result = ((RLogicalVector) target).getInternalManagedData();
+                action = (from, to) -> {
+                    boolean sawNA = false;
+                    for (int i = from; i < to; i++) {
+                        double a = l[i * leftStride];
+                        double b = r[i * rightStride];
+                        if (Double.isNaN(a) || Double.isNaN(b)) {
+                            sawNA = true;
+                        } else {
+                            result[i] = function.applyLogical(a, b);
+                        }
+                    }
+                    return sawNA;
+                };
+            }
+        } else {
+            int[] l = getInts(left, leftLength);
+            int[] r = getInts(right, rightLength);
+            if (l == null || r == null) {
+                return null;
+            }
+            leftData = l;
+            rightData = r;
+            if (resultType == RType.Double) {
+                double[] result = ((RDoubleVector) target).getInternalManagedData();
+                action = (from, to) -> {
+                    boolean sawNA = false;
+                    for (int i = from; i < to; i++) {
+                        int a = l[i * leftStride];
+                        int b = r[i * rightStride];
+                        if (a == RRuntime.INT_NA || b == RRuntime.INT_NA) {
+                            sawNA = true;
+                        } else {
+                            result[i] = function.applyDouble(a, b);
+                        }
+                    }
+                    return sawNA;
+                };
+            } else {
+                byte[] result = ((RLogicalVector) target).getInternalManagedData();
+                action = (from, to) -> {
+                    boolean sawNA = false;
+                    for (int i = from; i < to; i++) {
+                        int a = l[i * leftStride];
+                        int b = r[i * rightStride];
+                        if (a == RRuntime.INT_NA || b == RRuntime.INT_NA) {
+                            sawNA = true;
+                        } else {
+                            result[i] = function.applyLogical(a, b);
+                        }
+                    }
+                    return sawNA;
+                };
+            }
+        }
+        int[][] skipped = run(length, action);
+        return skipped == null ? null : new BinaryResult(target, skipped, leftData, leftStride, rightData, rightStride);
+    }
+
+    /**
+     * Computes {@code function(operand)} into a new double vector, see
+     * {@link #applyBinary(BinaryMapFunctionNode, RType, RType, RAbstractVector, int, RAbstractVector, int)}.
+     */
+    @TruffleBoundary
+    static UnaryResult applyUnary(UnaryMapFunctionNode function, RAbstractVector operand, int length) {
+        double[] values = getDoubles(operand, length);
+        if (values == null) {
+            return null;
+        }
+        RDoubleVector target = (RDoubleVector) RType.Double.create(length, false);
+        double[] result = target.getInternalManagedData();
+        int[][] skipped = run(length, (from, to) -> {
+            boolean sawNA = false;
+            for (int i = from; i < to; i++) {
+                if (Double.isNaN(values[i])) {
+                    sawNA = true;
+                } else {
+                    result[i] = function.applyDouble(values[i]);
+                }
+            }
+            return sawNA;
+        });
+        return skipped == null ? null : new UnaryResult(target, skipped, values);
+    }
+}
@@ -48,6 +48,16 @@ public abstract class UnaryMapFunctionNode extends RBaseNode {
         return false;
     }
 
+    /**
+     * Returns <code>true</code> if the apply methods can be invoked concurrently for different
+     * elements whose operands are neither NA nor NaN. For such operands they must not have side
+     * effects, in particular they must not update the NA checks, which are only updated on the R
+     * thread (see {@link ParallelMap}).
+     */
+    public boolean isParallelizable() {
+        return false;
+    }
+
     public byte applyLogical(byte operand) {
         throw RInternalError.shouldNotReachHere();
     }
@@ -105,11 +105,14 @@ final class UnaryMapVectorNode extends UnaryMapNode {
     private final VectorLengthProfile operandLengthProfile = VectorLengthProfile.create();
     private final BranchProfile hasAttributesProfile;
     private final ConditionProfile shareOperand;
+    private final ConditionProfile parallelProfile;
+    private final ConditionProfile parallelSkippedProfile;
 
     // compile-time optimization flags
     private final boolean mayContainMetadata;
     private final boolean mayFoldConstantTime;
     private final boolean mayShareOperand;
+    private final boolean mayRunParallel;
     private final boolean isGeneric;
 
     UnaryMapVectorNode(UnaryMapFunctionNode scalarNode, RAbstractVector operand, RType argumentType, RType resultType, boolean isGeneric) {
@@ -120,11 +123,14 @@ final class UnaryMapVectorNode extends UnaryMapNode {
         this.mayContainMetadata = operandVector;
         this.mayFoldConstantTime = argumentType == operand.getRType() && scalarNode.mayFoldConstantTime(operandClass);
         this.mayShareOperand = operandVector;
+        this.mayRunParallel = ParallelMap.supportsUnary(scalarNode, argumentType, resultType);
         this.isGeneric = isGeneric;
 
         // lazily create profiles only if needed to avoid unnecessary allocations
         this.shareOperand = mayShareOperand ? ConditionProfile.createBinaryProfile() : null;
         this.hasAttributesProfile = mayContainMetadata ? BranchProfile.create() : null;
+        this.parallelProfile = mayRunParallel ? ConditionProfile.createBinaryProfile() : null;
+        this.parallelSkippedProfile = mayRunParallel ? ConditionProfile.createBinaryProfile() : null;
 
     }
 
@@ -144,6 +150,18 @@ final class UnaryMapVectorNode extends UnaryMapNode {
         if (mayFoldConstantTime) {
             target = function.tryFoldConstantTime(operand, operandLength);
         }
+        if (target == null && mayRunParallel && parallelProfile.profile(operandLength >= ParallelMap.THRESHOLD)) {
+            ParallelMap.UnaryResult parallel = ParallelMap.applyUnary(function, operand, operandLength);
+            if (parallel != null) {
+                if (parallelSkippedProfile.profile(parallel.hasSkipped())) {
+                    // updates the NA checks on this thread
+                    parallel.complete(function);
+                }
+                target = parallel.target;
+                RBaseNode.reportWork(this, operandLength);
+                target.setComplete(function.isComplete());
+            }
+        }
         if (target == null) {
             VectorAccess operandAccess = isGeneric ? operand.slowPathAccess() : fastOperandAccess;
             try (SequentialIterator operandIter = operandAccess.access(operand)) {
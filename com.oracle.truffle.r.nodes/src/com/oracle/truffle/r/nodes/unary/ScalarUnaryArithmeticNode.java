@@ -62,6 +62,11 @@ public class ScalarUnaryArithmeticNode extends UnaryMapNAFunctionNode {
         return null;
     }
 
+    @Override
+    public boolean isParallelizable() {
+        return true;
+    }
+
     @Override
     public boolean mayFoldConstantTime(Class<? extends RAbstractVector> operandClass) {
         if (arithmetic instanceof Plus) {
@@ -32,6 +32,7 @@ import com.oracle.truffle.r.nodes.profile.TruffleBoundaryNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RMissing;
+import com.oracle.truffle.r.runtime.data.closures.RFusedDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -45,12 +46,25 @@ public abstract class UnaryArithmeticNode extends UnaryNode {
 
     protected final UnaryArithmeticFactory unary;
 
+    /** The deferred operation kind, non-null if {@link RFusedDoubleVector}s are to be built. */
+    protected final RFusedDoubleVector.Kind fusedKind;
+
     public UnaryArithmeticNode(UnaryArithmeticFactory factory) {
         this.unary = factory;
+        this.fusedKind = RFusedDoubleVector.isEnabled() ? RFusedDoubleVector.getKind(factory.createOperation()) : null;
     }
 
     public abstract Object execute(Object value);
 
+    @Specialization(guards = {"fusedKind != null", "isFusable(operand)"})
+    protected Object doFused(RAbstractDoubleVector operand) {
+        return RFusedDoubleVector.createNegate(operand);
+    }
+
+    protected static boolean isFusable(RAbstractDoubleVector operand) {
+        return RFusedDoubleVector.isFusable(operand);
+    }
+
     @Specialization(guards = {"cachedNode != null", "cachedNode.isSupported(operand)"})
     protected Object doCached(RAbstractVector operand,
                     @Cached("createCachedFast(operand)") UnaryMapNode cachedNode) {
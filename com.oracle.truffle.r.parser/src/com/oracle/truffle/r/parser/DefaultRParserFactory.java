@@ -22,6 +22,11 @@
  */
 package com.oracle.truffle.r.parser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 import org.antlr.runtime.MismatchedTokenException;
@@ -40,6 +45,37 @@ import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
 
 public class DefaultRParserFactory extends RParserFactory {
 
+    /**
+     * The generated parser and lexer determine which builder calls are made for a given source, so
+     * the hash of their class files identifies the parser. Computed lazily, only the parse cache
+     * needs it.
+     */
+    private static final class Identity {
+        static final String VALUE = computeIdentity(RParser.class, RLexer.class, DefaultRParserFactory.class);
+    }
+
+    private static String computeIdentity(Class<?>... classes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            for (Class<?> clazz : classes) {
+                try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+                    if (in == null) {
+                        // e.g., in a native image
+                        return null;
+                    }
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, n);
+                    }
+                }
+            }
+            return new BigInteger(1, digest.digest()).toString(16);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
     private static class DefaultParser<T> implements Parser<T> {
 
         @Override
@@ -110,6 +146,11 @@ public class DefaultRParserFactory extends RParserFactory {
             return ((RecognitionException) t).charPositionInLine;
         }
 
+        @Override
+        public String getIdentity() {
+            return Identity.VALUE;
+        }
+
         private static ParseException handleRecognitionException(Source source, RecognitionException e) throws IncompleteSourceException, ParseException {
             CharSequence line = e.line <= source.getLineCount() ? source.getCharacters(e.line) : "";
             String substring = line.subSequence(0, Math.min(line.length(), e.charPositionInLine + 1)).toString();
@@ -49,6 +49,7 @@ public enum FastROptions {
     LoadProfiles("Load the system, site and user profile scripts.", !FastRConfig.ManagedMode),
     PrintComplexLookups("Print a message for each non-trivial variable lookup", false),
     FullPrecisionSum("Use 128 bit arithmetic in sum builtin", false),
+    FusedArithmetic("Defer element-wise double arithmetic on long vectors and evaluate whole expressions in a single loop", false),
     InvisibleArgs("Argument writes do not trigger state transitions", true),
     RefCountIncrementOnly("Disable reference count decrements for experimental state transition implementation", false),
     UseInternalGridGraphics("Whether the internal (Java) grid graphics implementation should be used", true),
@@ -59,6 +60,15 @@ public enum FastROptions {
     LoadPackagesNativeCode("Load native code of packages, including builtin packages.", !FastRConfig.ManagedMode),
     SynchronizeNativeCode("allow only one thread to enter packages' native code", false),
     ForeignObjectWrappers("use wrappers for foreign objects (as opposed to full conversion)", false),
+    RegExpCacheSize("Maximal number of compiled regular expressions cached per context", "64", true),
+    ChannelQueueCapacity("Default number of messages that can be pending in each direction of a channel created by .fastr.channel.create", "1", true),
+    MatchTableCacheSize("Maximal total length of the match() tables whose hash index is cached per context, 0 disables the cache", "4000000", true),
+    ParallelMapThreshold("Minimal length of the vectors for which element-wise arithmetic, comparisons and math functions run on multiple threads, 0 disables it", "1000000", true),
+    ParallelMapThreads("Number of threads used for parallel element-wise operations, 0 uses the common fork-join pool", "0", true),
+    MatMultNativeThreshold("Minimal number of multiply-adds of a double %*%, crossprod or tcrossprod for which the native BLAS is called, 0 disables it", "1000000", true),
+    MatMultParallelThreshold("Minimal number of multiply-adds of a double %*%, crossprod or tcrossprod for which the Java kernel runs on multiple threads, 0 disables it", "4000000", true),
+    LazyDBPayloadCacheSize("Maximal total size in bytes of the decompressed lazy loading DB entries cached per process", "67108864", true),
+    ParseCacheDir("Directory in which the syntax trees of parsed R source files are cached across runs, keyed by the hash of the file contents and of the parser, empty disables the cache", "", true),
 
     // Promises optimizations
     EagerEval("If enabled, overrides all other EagerEval switches (see EagerEvalHelper)", false),
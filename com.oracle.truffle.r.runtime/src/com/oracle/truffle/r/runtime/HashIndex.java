@@ -0,0 +1,639 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RComplexVector;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+
+/**
+ * Open addressing hash index over the elements of an atomic vector, shared by {@code unique},
+ * {@code duplicated}, {@code anyDuplicated} and {@code match} (and thus {@code %in%}). The index
+ * works directly on primitive arrays of keys: logical, integer and raw vectors are indexed as
+ * {@code int} keys, double vectors as {@code double} keys (with {@code -0} equal to {@code 0},
+ * all {@code NaN}s equal and {@code NA} distinct from {@code NaN}), complex vectors as pairs of
+ * doubles with the same canonicalization as in GnuR, and character vectors as Strings, which are
+ * first compared by identity since most of them are shared instances.
+ *
+ * The index stores for every distinct key the position of its first element in the scan order,
+ * which is backwards if {@code fromLast} was requested. Long vectors are indexed in parallel: the
+ * keys are split into partitions by the high bits of their hash and every partition is built
+ * independently, which keeps the result deterministic. Once built, the index is immutable and can
+ * be queried from multiple threads.
+ */
+public abstract class HashIndex {
+
+    /** Vectors with at least this many elements are hashed and searched in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int MAX_PARTITION_BITS = 6;
+    /** If the table is this much longer than the searched vector, index the vector instead. */
+    private static final int TABLE_SIZE_FACTOR = 10;
+
+    private static final int EMPTY = -1;
+    private static final long NA_BITS = Double.doubleToRawLongBits(RRuntime.DOUBLE_NA);
+    private static final long NAN_BITS = Double.doubleToRawLongBits(Double.NaN);
+
+    protected final int length;
+    private int partitionBits;
+    /** Open addressing table of element positions for every partition. */
+    private int[][] tables;
+    private boolean[] duplicates;
+    private int distinct;
+    private int firstDuplicate = -1;
+
+    protected HashIndex(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Creates an index over the elements of {@code vector}, which must be a logical, integer,
+     * raw, double, complex or character vector.
+     *
+     * @param fromLast if {@code true}, the elements are scanned from the last one, i.e. the last
+     *            element of every group of equal elements is its representative
+     * @param trackDuplicates whether to remember the elements that are not representatives, see
+     *            {@link #isDuplicate(int)}
+     */
+    @TruffleBoundary
+    public static HashIndex create(RAbstractContainer vector, boolean fromLast, boolean trackDuplicates) {
+        HashIndex index;
+        if (vector instanceof RAbstractDoubleVector) {
+            index = new Doubles(doubleKeys(vector));
+        } else if (vector instanceof RAbstractStringVector) {
+            index = new Strings(stringKeys((RAbstractStringVector) vector));
+        } else if (vector instanceof RAbstractComplexVector) {
+            index = new Complexes(complexKeys((RAbstractComplexVector) vector));
+        } else {
+            index = new Ints(intKeys(vector));
+        }
+        index.build(fromLast, trackDuplicates);
+        return index;
+    }
+
+    /**
+     * Tells whether {@link #create} can index the given vector.
+     */
+    public static boolean isSupported(Object vector) {
+        return vector instanceof RAbstractIntVector || vector instanceof RAbstractLogicalVector || vector instanceof RAbstractRawVector || vector instanceof RAbstractDoubleVector ||
+                        vector instanceof RAbstractStringVector || vector instanceof RAbstractComplexVector;
+    }
+
+    /**
+     * Tells whether the elements of the two vectors are indexed as the same kind of keys, i.e.,
+     * whether they can be compared by the index.
+     */
+    public static boolean haveSameKeys(Object a, Object b) {
+        return keyKind(a) == keyKind(b) && keyKind(a) != 0;
+    }
+
+    private static int keyKind(Object vector) {
+        if (vector instanceof RAbstractIntVector || vector instanceof RAbstractLogicalVector || vector instanceof RAbstractRawVector) {
+            return 1;
+        } else if (vector instanceof RAbstractDoubleVector) {
+            return 2;
+        } else if (vector instanceof RAbstractStringVector) {
+            return 3;
+        } else if (vector instanceof RAbstractComplexVector) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * Implements {@code match} for two vectors of the same kind of keys (see
+     * {@link #haveSameKeys(Object, Object)}), integer and double vectors are also allowed to be
+     * mixed. Returns one-based positions in {@code table} or {@code nomatch}. The index over a
+     * table that is matched against repeatedly may be cached, see {@link HashIndexCache}.
+     */
+    @TruffleBoundary
+    public static int[] match(RAbstractContainer x, RAbstractContainer table, int nomatch) {
+        if (haveSameKeys(x, table)) {
+            HashIndex cached = RContext.getInstance().stateHashIndexCache.getIndex(table);
+            if (cached != null) {
+                return cached.lookup(keysOf(x), x.getLength(), nomatch);
+            }
+        }
+        if (x instanceof RAbstractDoubleVector || table instanceof RAbstractDoubleVector) {
+            double[] xKeys = doubleKeys(x);
+            double[] tableKeys = doubleKeys(table);
+            if (table.getLength() > x.getLength() * (long) TABLE_SIZE_FACTOR) {
+                return matchSmall(new Doubles(xKeys).build(false, false), tableKeys, table.getLength(), nomatch);
+            }
+            return new Doubles(tableKeys).build(false, false).lookup(xKeys, x.getLength(), nomatch);
+        }
+        if (table.getLength() > x.getLength() * (long) TABLE_SIZE_FACTOR) {
+            return matchSmall(create(x, false, false), keysOf(table), table.getLength(), nomatch);
+        }
+        return create(table, false, false).lookup(keysOf(x), x.getLength(), nomatch);
+    }
+
+    /**
+     * Like {@link #match}, but the index over the table is already built.
+     */
+    @TruffleBoundary
+    public final int[] match(RAbstractContainer x, int nomatch) {
+        Object keys = this instanceof Doubles ? doubleKeys(x) : keysOf(x);
+        return lookup(keys, x.getLength(), nomatch);
+    }
+
+    /**
+     * Matches a short vector against a long table by indexing the vector and scanning the table
+     * once, which does not need an index over the whole table.
+     */
+    private static int[] matchSmall(HashIndex xIndex, Object tableKeys, int tableLength, int nomatch) {
+        int[] firstInTable = new int[xIndex.length];
+        Arrays.fill(firstInTable, -1);
+        int remaining = xIndex.distinct;
+        for (int j = 0; j < tableLength && remaining > 0; j++) {
+            int representative = xIndex.find(tableKeys, j);
+            if (representative != EMPTY && firstInTable[representative] == -1) {
+                firstInTable[representative] = j;
+                remaining--;
+            }
+        }
+        int[] result = new int[xIndex.length];
+        for (int i = 0; i < result.length; i++) {
+            int pos = firstInTable[xIndex.find(xIndex.keys(), i)];
+            result[i] = pos == -1 ? nomatch : pos + 1;
+        }
+        return result;
+    }
+
+    private int[] lookup(Object keys, int count, int nomatch) {
+        int[] result = new int[count];
+        IntConsumer action = i -> {
+            int pos = find(keys, i);
+            result[i] = pos == EMPTY ? nomatch : pos + 1;
+        };
+        if (count >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, count).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < count; i++) {
+                action.accept(i);
+            }
+        }
+        return result;
+    }
+
+    final HashIndex build(boolean fromLast, boolean trackDuplicates) {
+        int n = length;
+        boolean parallel = n >= PARALLEL_THRESHOLD;
+        int[] hashes = new int[n];
+        if (parallel) {
+            IntStream.range(0, n).parallel().forEach(i -> hashes[i] = hashAt(i));
+            int partitions = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+            partitionBits = Math.min(MAX_PARTITION_BITS, Integer.numberOfTrailingZeros(partitions));
+        } else {
+            for (int i = 0; i < n; i++) {
+                hashes[i] = hashAt(i);
+            }
+            partitionBits = 0;
+        }
+        int partitions = 1 << partitionBits;
+
+        // group the elements by partition, keeping the scan order within every partition
+        int[] starts = new int[partitions + 1];
+        for (int i = 0; i < n; i++) {
+            starts[partition(hashes[i]) + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            starts[p + 1] += starts[p];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(starts, partitions);
+        for (int k = 0; k < n; k++) {
+            int i = fromLast ? n - 1 - k : k;
+            members[fill[partition(hashes[i])]++] = i;
+        }
+
+        int[][] newTables = new int[partitions][];
+        int[] distinctCounts = new int[partitions];
+        boolean[] dups = trackDuplicates ? new boolean[n] : null;
+        IntConsumer buildPartition = p -> {
+            int[] table = new int[tableSize(starts[p + 1] - starts[p])];
+            Arrays.fill(table, EMPTY);
+            int mask = table.length - 1;
+            int found = 0;
+            for (int k = starts[p]; k < starts[p + 1]; k++) {
+                int i = members[k];
+                int slot = hashes[i] & mask;
+                while (true) {
+                    int j = table[slot];
+                    if (j == EMPTY) {
+                        if (found == mask) {
+                            // the last empty slot must stay empty, or probing would not terminate
+                            distinctCounts[p] = -1;
+                            return;
+                        }
+                        table[slot] = i;
+                        found++;
+                        break;
+                    } else if (equalAt(j, i)) {
+                        if (dups != null) {
+                            dups[i] = true;
+                        }
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+            newTables[p] = table;
+            distinctCounts[p] = found;
+        };
+        if (parallel) {
+            IntStream.range(0, partitions).parallel().forEach(buildPartition);
+        } else {
+            buildPartition.accept(0);
+        }
+        distinct = 0;
+        for (int count : distinctCounts) {
+            if (count < 0) {
+                throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "too many distinct elements to hash");
+            }
+            distinct += count;
+        }
+        tables = newTables;
+        duplicates = dups;
+        if (dups != null) {
+            for (int k = 0; k < n; k++) {
+                int i = fromLast ? n - 1 - k : k;
+                if (dups[i]) {
+                    firstDuplicate = i;
+                    break;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * The table of a partition has at most {@code 1 << 30} slots and always keeps one of them
+     * empty, so a partition with more distinct keys than that (possible only in vectors longer
+     * than {@code 2^30} elements) is reported as an error by {@link #build}.
+     */
+    private static int tableSize(int count) {
+        // keep the load factor at or below 0.5
+        long size = Long.highestOneBit(Math.max(1, count) * 2L - 1) << 1;
+        return (int) Math.min(size, 1 << 30);
+    }
+
+    private int partition(int hash) {
+        return partitionBits == 0 ? 0 : hash >>> (32 - partitionBits);
+    }
+
+    /**
+     * Returns the position of the representative of the key at {@code index} in {@code keys}, or
+     * {@code -1} if there is no such element.
+     */
+    private int find(Object keys, int index) {
+        int hash = hashOf(keys, index);
+        int[] table = tables[partition(hash)];
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int j = table[slot];
+            if (j == EMPTY || equalTo(keys, index, j)) {
+                return j;
+            }
+        }
+    }
+
+    /**
+     * The number of distinct elements.
+     */
+    public final int getDistinctCount() {
+        return distinct;
+    }
+
+    /**
+     * Tells whether the element is equal to an element preceding it in the scan order, only
+     * available if the index was created with {@code trackDuplicates}.
+     */
+    public final boolean isDuplicate(int index) {
+        return duplicates[index];
+    }
+
+    /**
+     * The position of the first duplicate element in the scan order or {@code -1}, only available
+     * if the index was created with {@code trackDuplicates}.
+     */
+    public final int getFirstDuplicate() {
+        assert duplicates != null;
+        return firstDuplicate;
+    }
+
+    protected abstract Object keys();
+
+    protected abstract int hashAt(int index);
+
+    protected abstract boolean equalAt(int i, int j);
+
+    protected abstract int hashOf(Object keys, int index);
+
+    protected abstract boolean equalTo(Object keys, int index, int j);
+
+    private static Object keysOf(RAbstractContainer vector) {
+        if (vector instanceof RAbstractDoubleVector) {
+            return doubleKeys(vector);
+        } else if (vector instanceof RAbstractStringVector) {
+            return stringKeys((RAbstractStringVector) vector);
+        } else if (vector instanceof RAbstractComplexVector) {
+            return complexKeys((RAbstractComplexVector) vector);
+        } else {
+            return intKeys(vector);
+        }
+    }
+
+    private static int[] intKeys(RAbstractContainer vector) {
+        if (vector instanceof RIntVector) {
+            return ((RIntVector) vector).getReadonlyData();
+        }
+        int[] keys = new int[vector.getLength()];
+        if (vector instanceof RAbstractIntVector) {
+            RAbstractIntVector v = (RAbstractIntVector) vector;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = v.getDataAt(i);
+            }
+        } else if (vector instanceof RAbstractLogicalVector) {
+            RAbstractLogicalVector v = (RAbstractLogicalVector) vector;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RRuntime.logical2int(v.getDataAt(i));
+            }
+        } else if (vector instanceof RAbstractRawVector) {
+            RAbstractRawVector v = (RAbstractRawVector) vector;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = v.getRawDataAt(i) & 0xff;
+            }
+        } else {
+            throw RInternalError.shouldNotReachHere("unexpected vector type " + vector.getClass().getSimpleName());
+        }
+        return keys;
+    }
+
+    private static double[] doubleKeys(RAbstractContainer vector) {
+        if (vector instanceof RDoubleVector) {
+            return ((RDoubleVector) vector).getReadonlyData();
+        }
+        double[] keys = new double[vector.getLength()];
+        if (vector instanceof RAbstractDoubleVector) {
+            RAbstractDoubleVector v = (RAbstractDoubleVector) vector;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = v.getDataAt(i);
+            }
+        } else {
+            int[] ints = intKeys(vector);
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RRuntime.int2double(ints[i]);
+            }
+        }
+        return keys;
+    }
+
+    private static String[] stringKeys(RAbstractStringVector vector) {
+        if (vector instanceof RStringVector) {
+            return ((RStringVector) vector).getReadonlyStringData();
+        }
+        String[] keys = new String[vector.getLength()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = vector.getDataAt(i);
+        }
+        return keys;
+    }
+
+    private static double[] complexKeys(RAbstractComplexVector vector) {
+        if (vector instanceof RComplexVector) {
+            return ((RComplexVector) vector).getReadonlyData();
+        }
+        double[] keys = new double[vector.getLength() * 2];
+        for (int i = 0; i < vector.getLength(); i++) {
+            RComplex value = vector.getDataAt(i);
+            keys[2 * i] = value.getRealPart();
+            keys[2 * i + 1] = value.getImaginaryPart();
+        }
+        return keys;
+    }
+
+    private static int mix(int h) {
+        int x = h;
+        x ^= x >>> 16;
+        x *= 0x85ebca6b;
+        x ^= x >>> 13;
+        x *= 0xc2b2ae35;
+        x ^= x >>> 16;
+        return x;
+    }
+
+    private static long canonical(double value) {
+        if (Double.isNaN(value)) {
+            return RRuntime.isNA(value) ? NA_BITS : NAN_BITS;
+        }
+        // -0.0 == 0.0
+        return value == 0 ? 0 : Double.doubleToRawLongBits(value);
+    }
+
+    private static int hash(long bits) {
+        return mix((int) (bits ^ (bits >>> 32)));
+    }
+
+    private static final class Ints extends HashIndex {
+        private final int[] keys;
+
+        Ints(int[] keys) {
+            super(keys.length);
+            this.keys = keys;
+        }
+
+        @Override
+        protected Object keys() {
+            return keys;
+        }
+
+        @Override
+        protected int hashAt(int index) {
+            return mix(keys[index]);
+        }
+
+        @Override
+        protected boolean equalAt(int i, int j) {
+            return keys[i] == keys[j];
+        }
+
+        @Override
+        protected int hashOf(Object other, int index) {
+            return mix(((int[]) other)[index]);
+        }
+
+        @Override
+        protected boolean equalTo(Object other, int index, int j) {
+            return ((int[]) other)[index] == keys[j];
+        }
+    }
+
+    private static final class Doubles extends HashIndex {
+        private final double[] keys;
+
+        Doubles(double[] keys) {
+            super(keys.length);
+            this.keys = keys;
+        }
+
+        @Override
+        protected Object keys() {
+            return keys;
+        }
+
+        @Override
+        protected int hashAt(int index) {
+            return hash(canonical(keys[index]));
+        }
+
+        @Override
+        protected boolean equalAt(int i, int j) {
+            return canonical(keys[i]) == canonical(keys[j]);
+        }
+
+        @Override
+        protected int hashOf(Object other, int index) {
+            return hash(canonical(((double[]) other)[index]));
+        }
+
+        @Override
+        protected boolean equalTo(Object other, int index, int j) {
+            return canonical(((double[]) other)[index]) == canonical(keys[j]);
+        }
+    }
+
+    private static final class Strings extends HashIndex {
+        private static final int NA_HASH = mix(0x4e41);
+
+        private final String[] keys;
+
+        Strings(String[] keys) {
+            super(keys.length);
+            this.keys = keys;
+        }
+
+        @Override
+        protected Object keys() {
+            return keys;
+        }
+
+        private static int hash(String s) {
+            return RRuntime.isNA(s) ? NA_HASH : mix(s.hashCode());
+        }
+
+        private static boolean equal(String a, String b) {
+            // NA is a unique instance, so it is equal only to itself
+            return a == b || (!RRuntime.isNA(a) && !RRuntime.isNA(b) && a.equals(b));
+        }
+
+        @Override
+        protected int hashAt(int index) {
+            return hash(keys[index]);
+        }
+
+        @Override
+        protected boolean equalAt(int i, int j) {
+            return equal(keys[i], keys[j]);
+        }
+
+        @Override
+        protected int hashOf(Object other, int index) {
+            return hash(((String[]) other)[index]);
+        }
+
+        @Override
+        protected boolean equalTo(Object other, int index, int j) {
+            return equal(((String[]) other)[index], keys[j]);
+        }
+    }
+
+    private static final class Complexes extends HashIndex {
+        private final double[] keys;
+
+        Complexes(double[] keys) {
+            super(keys.length / 2);
+            this.keys = keys;
+        }
+
+        @Override
+        protected Object keys() {
+            return keys;
+        }
+
+        private static long canonicalReal(double[] data, int index) {
+            double re = data[2 * index];
+            double im = data[2 * index + 1];
+            // all complex numbers with an NA part are equal
+            return RRuntime.isNA(re, im) ? NA_BITS : canonical(re);
+        }
+
+        private static long canonicalImaginary(double[] data, int index) {
+            double re = data[2 * index];
+            double im = data[2 * index + 1];
+            return RRuntime.isNA(re, im) ? NA_BITS : canonical(im);
+        }
+
+        private static int hash(double[] data, int index) {
+            return mix(HashIndex.hash(canonicalReal(data, index)) * 31 + HashIndex.hash(canonicalImaginary(data, index)));
+        }
+
+        private static boolean equal(double[] a, int i, double[] b, int j) {
+            return canonicalReal(a, i) == canonicalReal(b, j) && canonicalImaginary(a, i) == canonicalImaginary(b, j);
+        }
+
+        @Override
+        protected int hashAt(int index) {
+            return hash(keys, index);
+        }
+
+        @Override
+        protected boolean equalAt(int i, int j) {
+            return equal(keys, i, keys, j);
+        }
+
+        @Override
+        protected int hashOf(Object other, int index) {
+            return hash((double[]) other, index);
+        }
+
+        @Override
+        protected boolean equalTo(Object other, int index, int j) {
+            return equal((double[]) other, index, keys, j);
+        }
+    }
+}
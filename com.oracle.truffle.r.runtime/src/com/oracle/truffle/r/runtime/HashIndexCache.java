@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+
+/**
+ * Per-context cache of the {@link HashIndex}es built for the {@code table} argument of
+ * {@code match} (and thus {@code %in%}), so that matching repeatedly against the same large
+ * vector does not rebuild the index every time.
+ *
+ * Only vectors that are shared (i.e., referenced from more than one place) and that are matched
+ * against at least twice are cached. When the index is created, the vector is made shared
+ * permanent, which means that it is never modified in place anymore: any update creates a copy
+ * and the copy is not cached. The vectors are referenced weakly and the total length of the
+ * cached vectors is bounded by {@link FastROptions#MatchTableCacheSize}, the least recently used
+ * entries are evicted first.
+ */
+public final class HashIndexCache {
+
+    /** Tables shorter than this are cheap enough to be indexed on every call. */
+    private static final int MIN_TABLE_LENGTH = 1000;
+
+    private static final class Key extends WeakReference<Object> {
+        private final int hash;
+
+        Key(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((Key) obj).get();
+        }
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        private final long capacity;
+        /** Values are {@code null} for tables seen only once so far. */
+        private final LinkedHashMap<Key, HashIndex> cache = new LinkedHashMap<>(16, 0.75f, true);
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+        private long cachedLength;
+        private long hits;
+        private long misses;
+
+        private ContextStateImpl(long capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the index for {@code table}, creating and caching it if appropriate, or
+         * {@code null} if the caller should index the table itself.
+         */
+        @TruffleBoundary
+        public synchronized HashIndex getIndex(RAbstractContainer table) {
+            int length = table.getLength();
+            if (length < MIN_TABLE_LENGTH || length > capacity || !(table instanceof RSharingAttributeStorage) || !((RSharingAttributeStorage) table).isShared()) {
+                return null;
+            }
+            expungeStaleEntries();
+            Key key = new Key(table, null);
+            HashIndex index = cache.get(key);
+            if (index != null) {
+                hits++;
+                return index;
+            }
+            misses++;
+            if (!cache.containsKey(key)) {
+                // only remember the table, it might never be matched against again
+                cache.put(new Key(table, queue), null);
+                return null;
+            }
+            ((RSharingAttributeStorage) table).makeSharedPermanent();
+            index = HashIndex.create(table, false, false);
+            cache.put(new Key(table, queue), index);
+            cachedLength += length;
+            evict();
+            return index;
+        }
+
+        private void evict() {
+            Iterator<Map.Entry<Key, HashIndex>> iter = cache.entrySet().iterator();
+            while (cachedLength > capacity && iter.hasNext()) {
+                HashIndex index = iter.next().getValue();
+                if (index != null) {
+                    cachedLength -= index.length;
+                    iter.remove();
+                }
+            }
+            // the number of tables that were seen only once is bounded as well
+            iter = cache.entrySet().iterator();
+            while (cache.size() > capacity / MIN_TABLE_LENGTH && iter.hasNext()) {
+                if (iter.next().getValue() == null) {
+                    iter.remove();
+                }
+            }
+        }
+
+        private void expungeStaleEntries() {
+            Reference<?> ref;
+            while ((ref = queue.poll()) != null) {
+                HashIndex index = cache.remove(ref);
+                if (index != null) {
+                    cachedLength -= index.length;
+                }
+            }
+        }
+
+        public synchronized int size() {
+            expungeStaleEntries();
+            int result = 0;
+            for (HashIndex index : cache.values()) {
+                if (index != null) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        public synchronized long getCachedLength() {
+            expungeStaleEntries();
+            return cachedLength;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public synchronized long getHits() {
+            return hits;
+        }
+
+        public synchronized long getMisses() {
+            return misses;
+        }
+
+        public static ContextStateImpl newContextState() {
+            return new ContextStateImpl(FastROptions.MatchTableCacheSize.getNonNegativeIntValue());
+        }
+    }
+}
@@ -23,39 +23,277 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
-public class LazyDBCache {
+/**
+ * Process wide access to the lazy loading DB files ({@code .rdb}) used by {@code lazyLoadDBfetch}.
+ * The files are memory mapped once and shared by all contexts, and the decompressed entries are
+ * kept in a bounded cache (see {@link FastROptions#LazyDBPayloadCacheSize}), so that contexts
+ * loading the same packages do not decompress the same data again. The size and modification time
+ * of a file are checked once per fetch, by {@link #getFile(String)}, and the file is mapped again,
+ * and its cached entries are dropped, when either of them changes, so that a file rewritten in
+ * place (e.g., by reinstalling a package) is not read through a stale or truncated mapping.
+ *
+ * The number of bytes read from and decompressed for every file is recorded, see
+ * {@link #getStatistics()}.
+ */
+public final class LazyDBCache {
+
+    private LazyDBCache() {
+        // no instances
+    }
+
+    private static final ConcurrentHashMap<String, MappedFile> files = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+    private static final class PayloadKey {
+        private final String dbPath;
+        private final int offset;
+
+        PayloadKey(String dbPath, int offset) {
+            this.dbPath = dbPath;
+            this.offset = offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return dbPath.hashCode() * 31 + offset;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PayloadKey)) {
+                return false;
+            }
+            PayloadKey other = (PayloadKey) obj;
+            return offset == other.offset && dbPath.equals(other.dbPath);
+        }
+    }
+
+    /**
+     * A mapping of a file that was current when {@link #getFile(String)} returned it.
+     */
+    public static final class MappedFile {
+        private final String dbPath;
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private final long lastModified;
+
+        private MappedFile(String dbPath, MappedByteBuffer buffer, long size, long lastModified) {
+            this.dbPath = dbPath;
+            this.buffer = buffer;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        boolean isCurrent(BasicFileAttributes attrs) {
+            return size == attrs.size() && lastModified == attrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    /** Guarded by itself. */
+    private static final LinkedHashMap<PayloadKey, byte[]> payloads = new LinkedHashMap<>(256, 0.75f, true);
+    private static long payloadBytes;
+
+    /**
+     * Per file counters, all sizes are in bytes.
+     */
+    public static final class Statistics {
+        private long fetches;
+        private long cacheHits;
+        private long bytesRead;
+        private long bytesDecompressed;
+
+        public synchronized long getFetches() {
+            return fetches;
+        }
+
+        public synchronized long getCacheHits() {
+            return cacheHits;
+        }
+
+        public synchronized long getBytesRead() {
+            return bytesRead;
+        }
+
+        public synchronized long getBytesDecompressed() {
+            return bytesDecompressed;
+        }
 
-    public static final class ContextStateImpl implements RContext.ContextState {
-        private final Map<String, byte[]> dbCache = new HashMap<>();
+        private synchronized void record(boolean hit, long read, long decompressed) {
+            fetches++;
+            if (hit) {
+                cacheHits++;
+            }
+            bytesRead += read;
+            bytesDecompressed += decompressed;
+        }
+    }
+
+    /**
+     * Returns the current mapping of the file, the file is mapped on first use and again whenever
+     * its size or modification time changes, which also drops the entries cached for the previous
+     * content. The file is checked on every call, so one fetch should call this once and pass the
+     * result to the other methods.
+     */
+    @TruffleBoundary
+    public static MappedFile getFile(String dbPath) {
+        Path path = FileSystems.getDefault().getPath(dbPath);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            remove(dbPath);
+            throw RError.error(RError.NO_CALLER, RError.Message.CANNOT_OPEN_FILE, dbPath, ex.getMessage());
+        }
+        MappedFile file = files.get(dbPath);
+        if (file != null && file.isCurrent(attrs)) {
+            return file;
+        }
+        MappedFile current = files.compute(dbPath, (p, previous) -> previous != null && previous.isCurrent(attrs) ? previous : map(dbPath, path, attrs));
+        if (file != null && current != file) {
+            // entries decompressed from the previous content must not be returned any more
+            removePayloads(dbPath);
+        }
+        return current;
+    }
+
+    /**
+     * Returns a read-only view of the whole file. The view is private to the caller, i.e., its
+     * position and limit can be changed freely.
+     */
+    @TruffleBoundary
+    public static ByteBuffer getData(String dbPath) {
+        return getFile(dbPath).buffer.duplicate();
+    }
+
+    /**
+     * Returns a copy of {@code length} bytes at {@code offset} in the file, raises an R error if
+     * the range is not within the file.
+     */
+    @TruffleBoundary
+    public static byte[] read(MappedFile file, int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + length > file.size) {
+            throw RError.error(RError.NO_CALLER, RError.Message.LAZY_LOAD_DB_CORRUPT, file.dbPath);
+        }
+        ByteBuffer data = file.buffer.duplicate();
+        byte[] result = new byte[length];
+        try {
+            data.position(offset);
+            data.get(result);
+        } catch (InternalError ex) {
+            // the file was truncated after it was checked, the JVM reports the fault this way
+            remove(file.dbPath);
+            throw RError.error(RError.NO_CALLER, RError.Message.LAZY_LOAD_DB_CORRUPT, file.dbPath);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached decompressed entry at {@code offset} in the file or {@code null}. Callers
+     * must not modify the returned array.
+     */
+    @TruffleBoundary
+    public static byte[] getPayload(MappedFile file, int offset) {
+        byte[] result;
+        synchronized (payloads) {
+            result = payloads.get(new PayloadKey(file.dbPath, offset));
+        }
+        if (result != null) {
+            getStatistics(file.dbPath).record(true, 0, 0);
+        }
+        return result;
+    }
+
+    /**
+     * Records that the entry at {@code offset} was read ({@code compressedLength} bytes) and
+     * decompressed into {@code payload}, and caches the payload if it fits into the cache. The
+     * caller must not modify the array afterwards.
+     */
+    @TruffleBoundary
+    public static void putPayload(MappedFile file, int offset, int compressedLength, byte[] payload) {
+        getStatistics(file.dbPath).record(false, compressedLength, payload.length);
+        long payloadCapacity = FastROptions.LazyDBPayloadCacheSize.getNonNegativeIntValue();
+        if (payload.length > payloadCapacity / 4 || files.get(file.dbPath) != file) {
+            // too large, or read from a mapping that has been replaced meanwhile
+            return;
+        }
+        synchronized (payloads) {
+            byte[] previous = payloads.put(new PayloadKey(file.dbPath, offset), payload);
+            payloadBytes += payload.length - (previous == null ? 0 : previous.length);
+            Iterator<byte[]> iter = payloads.values().iterator();
+            while (payloadBytes > payloadCapacity) {
+                payloadBytes -= iter.next().length;
+                iter.remove();
+            }
+        }
+    }
 
-        public byte[] getData(String dbPath) {
-            byte[] dbData = dbCache.get(dbPath);
-            if (dbData == null) {
-                try {
-                    dbData = Files.readAllBytes(FileSystems.getDefault().getPath(dbPath));
-                } catch (IOException ex) {
-                    // unexpected
-                    throw RInternalError.shouldNotReachHere(ex);
+    /**
+     * Forgets the mapping and the cached entries of the file, not an error if it is not known.
+     */
+    @TruffleBoundary
+    public static void remove(String dbPath) {
+        files.remove(dbPath);
+        removePayloads(dbPath);
+    }
+
+    private static void removePayloads(String dbPath) {
+        synchronized (payloads) {
+            Iterator<Map.Entry<PayloadKey, byte[]>> iter = payloads.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<PayloadKey, byte[]> entry = iter.next();
+                if (entry.getKey().dbPath.equals(dbPath)) {
+                    payloadBytes -= entry.getValue().length;
+                    iter.remove();
                 }
-                dbCache.put(dbPath, dbData);
             }
-            return dbData;
         }
+    }
 
-        public void remove(String dbPath) {
-            // no an error if missing
-            dbCache.remove(dbPath);
+    /**
+     * Returns the paths of all files fetched from so far and their counters.
+     */
+    @TruffleBoundary
+    public static Map<String, Statistics> getStatistics() {
+        ArrayList<String> paths = new ArrayList<>(statistics.keySet());
+        paths.sort(null);
+        LinkedHashMap<String, Statistics> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            result.put(path, statistics.get(path));
         }
+        return result;
+    }
 
-        public static ContextStateImpl newContextState() {
-            return new ContextStateImpl();
+    private static Statistics getStatistics(String dbPath) {
+        return statistics.computeIfAbsent(dbPath, p -> new Statistics());
+    }
+
+    private static MappedFile map(String dbPath, Path path, BasicFileAttributes attrs) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // map only what the attributes describe, so that the recorded size matches the mapping
+            long size = Math.min(attrs.size(), channel.size());
+            if (size > Integer.MAX_VALUE) {
+                // a single buffer cannot map more, and offsets into the file are int values anyway
+                throw RError.error(RError.NO_CALLER, RError.Message.CANNOT_OPEN_FILE, dbPath, "file is too large to be mapped");
+            }
+            return new MappedFile(dbPath, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), size, attrs.lastModifiedTime().toMillis());
+        } catch (IOException ex) {
+            throw RError.error(RError.NO_CALLER, RError.Message.CANNOT_OPEN_FILE, path.toString(), ex.getMessage());
         }
     }
 }
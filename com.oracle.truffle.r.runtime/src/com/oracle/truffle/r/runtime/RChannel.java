@@ -55,6 +55,11 @@ import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
 /**
  * Implementation of a channel abstraction used for communication between parallel contexts in
  * shared memory space.
+ *
+ * Atomic vectors (and lists consisting of them) are not serialized, they are handed over to the
+ * receiving context directly after having been made permanently shared, which means that any
+ * update on either side of the channel creates a private copy (copy-on-write). Only objects that
+ * cannot be shared this way (e.g. language objects or connections) go through {@link RSerialize}.
  */
 public class RChannel {
 
@@ -62,7 +67,6 @@ public class RChannel {
 
     private static final int INITIAL_CHANNEL_NUM = 4;
     private static final int CHANNEL_NUM_GROW_FACTOR = 2;
-    private static final int QUEUE_CAPACITY = 1;
 
     private static int[] keys = new int[INITIAL_CHANNEL_NUM];
     private static RChannel[] channels = new RChannel[INITIAL_CHANNEL_NUM];
@@ -74,13 +78,38 @@ public class RChannel {
      */
     private static final Semaphore create = new Semaphore(1, true);
 
-    private final ArrayBlockingQueue<Object> masterToClient = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
-    private final ArrayBlockingQueue<Object> clientToMaster = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    /*
+     * Each direction has its own queue so that a sender can enqueue up to "capacity" messages
+     * before it blocks, which allows it to pipeline work instead of waiting for every single
+     * message to be picked up by the receiver.
+     */
+    private final ArrayBlockingQueue<Object> masterToClient;
+    private final ArrayBlockingQueue<Object> clientToMaster;
+
+    private RChannel(int capacity) {
+        this.masterToClient = new ArrayBlockingQueue<>(capacity);
+        this.clientToMaster = new ArrayBlockingQueue<>(capacity);
+    }
 
+    /**
+     * Creates a channel whose queues have the default capacity as specified by the
+     * {@link FastROptions#ChannelQueueCapacity} option.
+     */
     public static int createChannel(int key) {
+        return createChannel(key, getDefaultCapacity());
+    }
+
+    public static int getDefaultCapacity() {
+        return Math.max(1, FastROptions.ChannelQueueCapacity.getNonNegativeIntValue());
+    }
+
+    public static int createChannel(int key, int capacity) {
         if (key <= 0) {
             throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel's key must be positive");
         }
+        if (capacity <= 0) {
+            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel's capacity must be positive");
+        }
         try {
             create.acquire();
             while (true) {
@@ -97,7 +126,7 @@ public class RChannel {
                 }
                 if (freeSlot != -1) {
                     keys[freeSlot] = key;
-                    channels[freeSlot] = new RChannel();
+                    channels[freeSlot] = new RChannel(capacity);
                     return freeSlot;
                 } else {
                     int[] keysTmp = new int[keys.length * CHANNEL_NUM_GROW_FACTOR];
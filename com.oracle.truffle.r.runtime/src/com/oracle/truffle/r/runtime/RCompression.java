@@ -23,16 +23,14 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ProcessBuilder.Redirect;
-import java.nio.file.Files;
-import java.nio.file.OpenOption;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
 
 import org.tukaani.xz.LZMA2InputStream;
@@ -200,55 +198,89 @@ public class RCompression {
         }
     }
 
-    public static byte[] bzipUncompressFromFile(String path) throws IOException {
+    /**
+     * Returns a stream of the uncompressed contents of the bzip2 file at {@code path}. The file is
+     * decompressed by a 'bzip2' subprocess while the stream is read, so only the pipe buffer is
+     * held in memory.
+     */
+    public static InputStream bzipUncompressFromFile(String path) throws IOException {
         String[] command = new String[]{"bzip2", "-dc", path};
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectError(Redirect.INHERIT);
         Process p = pb.start();
-        InputStream is = p.getInputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
-        try {
-            int rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                return Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-            } else {
-                throw new IOException("bzip2 error code: " + rc);
+        p.getOutputStream().close();
+        return new FilterInputStream(p.getInputStream()) {
+            private boolean eof;
+
+            @Override
+            public int read() throws IOException {
+                return checkEOF(super.read());
             }
-        } catch (InterruptedException ex) {
-            // fall through
-        }
-        throw new IOException();
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return checkEOF(super.read(b, off, len));
+            }
+
+            private int checkEOF(int result) throws IOException {
+                if (result < 0 && !eof) {
+                    eof = true;
+                    waitForBzip(p);
+                }
+                return result;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!eof) {
+                    // not read to the end, the exit code is of no interest
+                    p.destroy();
+                }
+            }
+        };
     }
 
-    public static void bzipCompressToFile(byte[] data, String path, boolean append) throws IOException {
+    /**
+     * Returns a stream that compresses the data written to it into the file at {@code path}. The
+     * data is piped to a 'bzip2' subprocess which writes directly to the file, closing the stream
+     * waits for the subprocess to finish.
+     */
+    public static OutputStream bzipCompressToFile(String path, boolean append) throws IOException {
         String[] command = new String[]{"bzip2", "-zc"};
-        int rc;
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectError(Redirect.INHERIT);
+        File file = new File(path);
+        pb.redirectOutput(append ? Redirect.appendTo(file) : Redirect.to(file));
         Process p = pb.start();
-        InputStream is = p.getInputStream();
-        OutputStream os = p.getOutputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
-        os.write(data);
-        os.close();
+        return new FilterOutputStream(p.getOutputStream()) {
+            private boolean closed;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    super.close();
+                    waitForBzip(p);
+                }
+            }
+        };
+    }
+
+    private static void waitForBzip(Process p) throws IOException {
         try {
-            rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                byte[] cData = Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-                OpenOption[] openOptions = append ? new OpenOption[]{StandardOpenOption.APPEND} : new OpenOption[0];
-                Files.write(Paths.get(path), cData, openOptions);
-                return;
-            } else {
+            int rc = p.waitFor();
+            if (rc != 0) {
                 throw new IOException("bzip2 error code: " + rc);
             }
         } catch (InterruptedException ex) {
-            // fall through
+            throw new IOException();
         }
-        throw new IOException();
     }
 
     public static String getBz2Version() throws IOException {
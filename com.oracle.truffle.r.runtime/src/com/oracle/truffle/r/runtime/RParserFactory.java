@@ -46,6 +46,13 @@ public abstract class RParserFactory {
         int line(Throwable t);
 
         int charPositionInLine(Throwable t);
+
+        /**
+         * Returns a string that identifies the exact implementation of this parser, i.e., one that
+         * changes whenever the parser could make different {@link RCodeBuilder} calls for the same
+         * source, or {@code null} if it cannot be determined.
+         */
+        String getIdentity();
     }
 
     static {
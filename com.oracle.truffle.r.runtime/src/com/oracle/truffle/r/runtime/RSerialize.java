@@ -19,13 +19,13 @@
  */
 package com.oracle.truffle.r.runtime;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -35,12 +35,14 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -80,6 +82,7 @@ import com.oracle.truffle.r.runtime.data.RSymbol;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 import com.oracle.truffle.r.runtime.data.RUnboundValue;
 import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractAtomicVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -187,24 +190,6 @@ public class RSerialize {
         }
     }
 
-    /**
-     * Provides access to the underlying byte array.
-     */
-    private static class PByteArrayInputStream extends ByteArrayInputStream {
-
-        public PByteArrayInputStream(byte[] buf) {
-            super(buf);
-        }
-
-        byte[] getData() {
-            return buf;
-        }
-
-        int pos() {
-            return pos;
-        }
-    }
-
     public interface CallHook {
         Object eval(Object arg);
 
@@ -234,11 +219,64 @@ public class RSerialize {
             return dotDotFindNamespace;
         }
 
+        /*
+         * Scratch storage that is lent to one serialization at a time and returned when it
+         * finishes, so that many small serializations in a row do not allocate it anew. A nested
+         * serialization, e.g., one started from a hook, finds the slot empty and allocates its own.
+         */
+        private final AtomicReference<Object[]> refTable = new AtomicReference<>();
+        private final AtomicReference<ByteBuffer> writeBuffer = new AtomicReference<>();
+        private final AtomicReference<byte[]> readBuffer = new AtomicReference<>();
+
+        Object[] takeRefTable() {
+            Object[] table = refTable.getAndSet(null);
+            return table != null ? table : new Object[RefCounter.INITIAL_REF_TABLE_SIZE];
+        }
+
+        void returnRefTable(Object[] table, int used) {
+            if (table.length <= MAX_POOLED_REF_TABLE_SIZE) {
+                Arrays.fill(table, 0, used, null);
+                refTable.set(table);
+            }
+        }
+
+        ByteBuffer takeWriteBuffer() {
+            ByteBuffer buf = writeBuffer.getAndSet(null);
+            if (buf == null) {
+                // ByteBuffer is big endian by default, as required by XDR
+                return ByteBuffer.allocate(XdrOutputFormat.WRITE_BUFFER_SIZE);
+            }
+            buf.clear();
+            return buf;
+        }
+
+        void returnWriteBuffer(ByteBuffer buf) {
+            if (buf.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                writeBuffer.set(buf);
+            }
+        }
+
+        byte[] takeReadBuffer() {
+            byte[] buf = readBuffer.getAndSet(null);
+            return buf != null ? buf : new byte[XdrInputFormat.READ_BUFFER_SIZE];
+        }
+
+        void returnReadBuffer(byte[] buf) {
+            readBuffer.set(buf);
+        }
+
         public static ContextStateImpl newContextState() {
             return new ContextStateImpl();
         }
     }
 
+    /**
+     * Upper bounds for the scratch storage retained by {@link ContextStateImpl} between
+     * serializations.
+     */
+    private static final int MAX_POOLED_REF_TABLE_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
     private static final int MAX_PACKED_INDEX = Integer.MAX_VALUE >> 8;
 
     private static int packRefIndex(int i) {
@@ -250,8 +288,24 @@ public class RSerialize {
     }
 
     public abstract static class RefCounter {
-        protected Object[] refTable = new Object[128];
+        static final int INITIAL_REF_TABLE_SIZE = 128;
+        /**
+         * Up to this many references {@link #getRefIndex} searches the table linearly, beyond it
+         * an identity map is maintained.
+         */
+        private static final int LINEAR_SEARCH_LIMIT = 32;
+
+        protected Object[] refTable;
         protected int refTableIndex;
+        private IdentityHashMap<Object, Integer> refIndexMap;
+
+        protected RefCounter() {
+            this(new Object[INITIAL_REF_TABLE_SIZE]);
+        }
+
+        protected RefCounter(Object[] refTable) {
+            this.refTable = refTable;
+        }
 
         protected Object addReadRef(Object item) {
             assert item != null;
@@ -259,6 +313,14 @@ public class RSerialize {
                 refTable = Arrays.copyOf(refTable, refTable.length * 2);
             }
             refTable[refTableIndex++] = item;
+            if (refIndexMap != null) {
+                refIndexMap.putIfAbsent(item, refTableIndex);
+            } else if (refTableIndex > LINEAR_SEARCH_LIMIT) {
+                refIndexMap = new IdentityHashMap<>();
+                for (int i = 0; i < refTableIndex; i++) {
+                    refIndexMap.putIfAbsent(refTable[i], i + 1);
+                }
+            }
             return item;
         }
 
@@ -268,6 +330,10 @@ public class RSerialize {
         }
 
         protected int getRefIndex(Object obj) {
+            if (refIndexMap != null) {
+                Integer index = refIndexMap.get(obj);
+                return index == null ? -1 : index;
+            }
             for (int i = 0; i < refTableIndex; i++) {
                 if (refTable[i] == obj) {
                     return i + 1;
@@ -282,14 +348,41 @@ public class RSerialize {
         protected final CallHook hook;
         protected final ContextStateImpl contextState;
 
-        protected Common(CallHook hook) {
+        protected Common(CallHook hook, ContextStateImpl contextState) {
+            super(contextState.takeRefTable());
             this.hook = hook;
-            this.contextState = getContextState();
+            this.contextState = contextState;
+        }
+
+        /**
+         * Hands the scratch storage back to {@link #contextState}, this instance must not be used
+         * afterwards.
+         */
+        protected void release() {
+            contextState.returnRefTable(refTable, refTableIndex);
         }
 
         protected static IOException formatError(byte format, boolean ok) throws IOException {
             throw new IOException("serialized stream format " + (ok ? "not implemented" : "not recognized") + ": " + format);
         }
+
+        /**
+         * Checks the first byte of the two byte format header. Only XDR is supported.
+         */
+        protected static void checkInputFormat(byte format) throws IOException {
+            switch (format) {
+                case 'A':
+                case 'B':
+                    throw formatError(format, true);
+                case 'X':
+                    break;
+                case '\n':
+                    // special case in 'A'
+                    throw formatError((byte) 'A', true);
+                default:
+                    throw formatError(format, false);
+            }
+        }
     }
 
     public static final int DEFAULT_VERSION = 2;
@@ -318,7 +411,17 @@ public class RSerialize {
 
     @TruffleBoundary
     public static Object unserialize(RConnection conn) throws IOException {
-        Input instance = trace() ? new TracingInput(conn) : new Input(conn);
+        return unserialize(conn.getChannel());
+    }
+
+    /**
+     * Reads a serialized object incrementally from {@code channel}. Only a fixed size window of the
+     * serialized data is buffered, so the memory needed does not depend on the size of the
+     * serialized form, only on the size of the resulting object.
+     */
+    @TruffleBoundary
+    public static Object unserialize(ReadableByteChannel channel) throws IOException {
+        Input instance = trace() ? new TracingInput(channel, null, null, null) : new Input(channel, null, null, null);
         Object result = instance.unserialize();
         return result;
     }
@@ -327,9 +430,9 @@ public class RSerialize {
     public static Object unserialize(RAbstractRawVector data) {
         byte[] buffer = data.materialize().getReadonlyData();
         try {
-            return new Input(new ByteArrayInputStream(buffer)).unserialize();
+            return new Input(buffer, null, null, null).unserialize();
         } catch (IOException e) {
-            throw RInternalError.shouldNotReachHere("ByteArrayInputStream should not throw IOExceptiopn");
+            throw RInternalError.shouldNotReachHere("reading from a byte array should not throw IOException");
         }
     }
 
@@ -342,8 +445,7 @@ public class RSerialize {
      */
     @TruffleBoundary
     public static Object unserialize(byte[] data, CallHook hook, String packageName, String functionName) throws IOException {
-        InputStream is = new PByteArrayInputStream(data);
-        Input instance = trace() ? new TracingInput(is, hook, packageName, functionName) : new Input(is, hook, packageName, functionName);
+        Input instance = trace() ? new TracingInput(data, hook, packageName, functionName) : new Input(data, hook, packageName, functionName);
         Object result = instance.unserialize();
         return result;
     }
@@ -370,35 +472,42 @@ public class RSerialize {
          */
         private int langDepth;
 
-        private Input(RConnection conn) throws IOException {
-            this(conn.getInputStream(), null, null, null);
-        }
-
-        private Input(InputStream input) throws IOException {
-            this(input, null, null, null);
+        private Input(ReadableByteChannel channel, CallHook hook, String packageName, String functionName) throws IOException {
+            super(hook, getContextState());
+            this.packageName = packageName;
+            this.functionName = functionName;
+            XdrInputFormat xdr = new XdrInputFormat(channel, contextState.takeReadBuffer());
+            stream = xdr;
+            try {
+                checkInputFormat(xdr.readFormatHeader());
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
         }
 
-        private Input(InputStream is, CallHook hook, String packageName, String functionName) throws IOException {
-            super(hook);
+        private Input(byte[] data, CallHook hook, String packageName, String functionName) throws IOException {
+            super(hook, getContextState());
             this.packageName = packageName;
             this.functionName = functionName;
-            byte[] buf = new byte[2];
-            is.read(buf);
-            switch (buf[0]) {
-                case 'A':
-                case 'B':
-                    throw formatError(buf[0], true);
-                case 'X':
-                    stream = new XdrInputFormat(is);
-                    break;
-                case '\n':
-                    // special case in 'A'
-                    throw formatError((byte) 'A', true);
-                default:
-                    throw formatError(buf[0], false);
+            stream = new XdrInputFormat(data, 2);
+            try {
+                if (data.length < 2) {
+                    throw new IOException("Premature EOF");
+                }
+                checkInputFormat(data[0]);
+            } catch (IOException e) {
+                release();
+                throw e;
             }
         }
 
+        @Override
+        protected void release() {
+            super.release();
+            stream.release(contextState);
+        }
+
         private int inRefIndex(int flags) throws IOException {
             int i = unpackRefIndex(flags);
             if (i == 0) {
@@ -409,14 +518,18 @@ public class RSerialize {
         }
 
         private Object unserialize() throws IOException {
-            int version = stream.readInt();
-            @SuppressWarnings("unused")
-            int writerVersion = stream.readInt();
-            @SuppressWarnings("unused")
-            int releaseVersion = stream.readInt();
-            assert version == DEFAULT_VERSION; // TODO proper error message
-            Object result = readItem();
-            return result;
+            try {
+                int version = stream.readInt();
+                @SuppressWarnings("unused")
+                int writerVersion = stream.readInt();
+                @SuppressWarnings("unused")
+                int releaseVersion = stream.readInt();
+                assert version == DEFAULT_VERSION; // TODO proper error message
+                Object result = readItem();
+                return result;
+            } finally {
+                release();
+            }
         }
 
         protected Object readItem() throws IOException {
@@ -1044,10 +1157,14 @@ public class RSerialize {
     }
 
     private abstract static class PInputStream {
-        protected InputStream is;
+        /**
+         * The channel the data is read from, or {@code null} if the complete serialized form was
+         * supplied as a byte array.
+         */
+        protected final ReadableByteChannel channel;
 
-        PInputStream(InputStream is) {
-            this.is = is;
+        PInputStream(ReadableByteChannel channel) {
+            this.channel = channel;
         }
 
         abstract int readInt() throws IOException;
@@ -1058,176 +1175,180 @@ public class RSerialize {
 
         abstract void readRaw(byte[] data) throws IOException;
 
+        /**
+         * Returns pooled buffers to {@code state}.
+         */
+        void release(@SuppressWarnings("unused") ContextStateImpl state) {
+        }
     }
 
     @SuppressWarnings("unused")
     private abstract static class AsciiInputFormat extends PInputStream {
-        AsciiInputFormat(InputStream is) {
-            super(is);
+        AsciiInputFormat(ReadableByteChannel channel) {
+            super(channel);
         }
     }
 
     @SuppressWarnings("unused")
     private abstract static class BinaryInputFormat extends PInputStream {
-        BinaryInputFormat(InputStream is) {
-            super(is);
+        BinaryInputFormat(ReadableByteChannel channel) {
+            super(channel);
         }
     }
 
+    /**
+     * Reads the XDR format incrementally through a fixed size window. Strings and raw vectors that
+     * do not fit into the window are read directly into their final array.
+     */
     private static final class XdrInputFormat extends PInputStream {
 
-        private static final int READ_BUFFER_SIZE = 32 * 1024;
-
-        private final class Buffer {
-            private final byte[] buf;
-            private int size;
-            private int offset;
-
-            Buffer(byte[] buf) {
-                this.buf = buf;
-            }
-
-            int readInt() {
-                return ((buf[offset++] & 0xff) << 24 | (buf[offset++] & 0xff) << 16 | (buf[offset++] & 0xff) << 8 | (buf[offset++] & 0xff));
-            }
-
-            double readDouble() {
-                long val = ((long) (buf[offset++] & 0xff) << 56 | (long) (buf[offset++] & 0xff) << 48 | (long) (buf[offset++] & 0xff) << 40 | (long) (buf[offset++] & 0xff) << 32 |
-                                (long) (buf[offset++] & 0xff) << 24 | (long) (buf[offset++] & 0xff) << 16 | (long) (buf[offset++] & 0xff) << 8 | buf[offset++] & 0xff);
-                return Double.longBitsToDouble(val);
-            }
+        static final int READ_BUFFER_SIZE = 32 * 1024;
 
-            @SuppressWarnings("deprecation")
-            String readString(int len) {
-                /*
-                 * This fast path uses a cheaper String constructor if all incoming bytes are in the
-                 * 0-127 range.
-                 */
-                boolean fastEncode = true;
-                for (int i = 0; i < len; i++) {
-                    byte b = buf[offset + i];
-                    if (b < 0) {
-                        fastEncode = false;
-                        break;
-                    }
-                }
-                String result;
-                if (fastEncode) {
-                    result = new String(buf, 0, offset, len);
-                } else {
-                    result = new String(buf, offset, len, StandardCharsets.UTF_8);
-                }
-                offset += len;
-                WeakReference<String> entry;
-                if ((entry = strings.get(result)) != null) {
-                    String string = entry.get();
-                    if (string != null) {
-                        return string;
-                    }
-                }
-                strings.put(result, new WeakReference<>(result));
-                return result;
-            }
+        private final byte[] buf;
+        private int size;
+        private int offset;
 
-            void readRaw(byte[] data) {
-                System.arraycopy(buf, offset, data, 0, data.length);
-                offset += data.length;
-            }
+        private final WeakHashMap<String, WeakReference<String>> strings = RContext.getInstance().stringMap;
 
-            void readData(int n) throws IOException {
-                if (offset + n > size) {
-                    if (offset != size) {
-                        // copy end piece to beginning
-                        System.arraycopy(buf, offset, buf, 0, size - offset);
-                    }
-                    size -= offset;
-                    offset = 0;
-                    while (size < n) {
-                        // read some more data
-                        int nread = is.read(buf, size, buf.length - size);
-                        if (nread <= 0) {
-                            throw RInternalError.unimplemented("handle unexpected eof");
-                        }
-                        size += nread;
-                    }
-                }
-            }
+        XdrInputFormat(ReadableByteChannel channel, byte[] buf) {
+            super(channel);
+            assert buf.length == READ_BUFFER_SIZE;
+            this.buf = buf;
         }
 
         /**
-         * This buffer is used under normal circumstances, i.e. when the read data blocks are
-         * smaller than the initial buffer. The ensureData method creates a special buffer for
-         * reading big chunks of data exceeding the default buffer.
+         * Creates a reader over data that is already in memory, starting at {@code offset}.
          */
-        private final Buffer defaultBuffer;
-
-        private final WeakHashMap<String, WeakReference<String>> strings = RContext.getInstance().stringMap;
+        XdrInputFormat(byte[] data, int offset) {
+            super(null);
+            this.buf = data;
+            this.size = data.length;
+            this.offset = offset;
+        }
 
-        XdrInputFormat(InputStream is) {
-            super(is);
-            if (is instanceof PByteArrayInputStream) {
-                // we already have the data and we have read the beginning
-                PByteArrayInputStream pbis = (PByteArrayInputStream) is;
-                defaultBuffer = new Buffer(pbis.getData());
-                defaultBuffer.size = pbis.getData().length;
-                defaultBuffer.offset = pbis.pos();
-            } else {
-                defaultBuffer = new Buffer(new byte[READ_BUFFER_SIZE]);
-                defaultBuffer.size = 0;
-                defaultBuffer.offset = 0;
-            }
+        /**
+         * Consumes the two byte format header and returns its first byte.
+         */
+        byte readFormatHeader() throws IOException {
+            ensureData(2);
+            byte format = buf[offset];
+            offset += 2;
+            return format;
         }
 
         @Override
         int readInt() throws IOException {
-            return ensureData(4).readInt();
+            ensureData(4);
+            return ((buf[offset++] & 0xff) << 24 | (buf[offset++] & 0xff) << 16 | (buf[offset++] & 0xff) << 8 | (buf[offset++] & 0xff));
         }
 
         @Override
         double readDouble() throws IOException {
-            return ensureData(8).readDouble();
+            ensureData(8);
+            long val = ((long) (buf[offset++] & 0xff) << 56 | (long) (buf[offset++] & 0xff) << 48 | (long) (buf[offset++] & 0xff) << 40 | (long) (buf[offset++] & 0xff) << 32 |
+                            (long) (buf[offset++] & 0xff) << 24 | (long) (buf[offset++] & 0xff) << 16 | (long) (buf[offset++] & 0xff) << 8 | buf[offset++] & 0xff);
+            return Double.longBitsToDouble(val);
         }
 
         @Override
         String readString(int len) throws IOException {
-            return ensureData(len).readString(len);
+            String result;
+            if (len <= buf.length) {
+                ensureData(len);
+                result = decode(buf, offset, len);
+                offset += len;
+            } else {
+                byte[] data = new byte[len];
+                readLarge(data);
+                result = decode(data, 0, len);
+            }
+            WeakReference<String> entry;
+            if ((entry = strings.get(result)) != null) {
+                String string = entry.get();
+                if (string != null) {
+                    return string;
+                }
+            }
+            strings.put(result, new WeakReference<>(result));
+            return result;
+        }
+
+        @SuppressWarnings("deprecation")
+        private static String decode(byte[] data, int start, int len) {
+            /*
+             * This fast path uses a cheaper String constructor if all incoming bytes are in the
+             * 0-127 range.
+             */
+            for (int i = 0; i < len; i++) {
+                if (data[start + i] < 0) {
+                    return new String(data, start, len, StandardCharsets.UTF_8);
+                }
+            }
+            return new String(data, 0, start, len);
         }
 
         @Override
         void readRaw(byte[] data) throws IOException {
-            ensureData(data.length).readRaw(data);
+            if (data.length <= buf.length) {
+                ensureData(data.length);
+                System.arraycopy(buf, offset, data, 0, data.length);
+                offset += data.length;
+            } else {
+                readLarge(data);
+            }
         }
 
-        private Buffer ensureData(int n) throws IOException {
-            Buffer usedBuffer;
-            if (n > defaultBuffer.buf.length) {
-                if (is instanceof PByteArrayInputStream) {
-                    // If the input stream is instance of PByteArrayInputStream, the buffer is
-                    // preloaded and thus no more data can be read beyond the current buffer.
-                    throw new IOException("Premature EOF");
+        /**
+         * Fills {@code data}, which is larger than the window, with the buffered bytes followed by
+         * bytes read straight from the channel.
+         */
+        private void readLarge(byte[] data) throws IOException {
+            if (channel == null) {
+                throw prematureEOF();
+            }
+            int buffered = size - offset;
+            System.arraycopy(buf, offset, data, 0, buffered);
+            offset = size = 0;
+            ByteBuffer dst = ByteBuffer.wrap(data, buffered, data.length - buffered);
+            while (dst.hasRemaining()) {
+                if (channel.read(dst) <= 0) {
+                    throw prematureEOF();
                 }
+            }
+        }
 
-                // create an enlarged copy of the default buffer
-                byte[] enlargedBuf = new byte[n];
-                System.arraycopy(defaultBuffer.buf, defaultBuffer.offset, enlargedBuf, defaultBuffer.offset, defaultBuffer.size - defaultBuffer.offset);
-                usedBuffer = new Buffer(enlargedBuf);
-                usedBuffer.offset = defaultBuffer.offset;
-                usedBuffer.size = defaultBuffer.size;
+        private void ensureData(int n) throws IOException {
+            if (offset + n > size) {
+                if (channel == null) {
+                    throw prematureEOF();
+                }
+                if (offset != size) {
+                    // copy end piece to beginning
+                    System.arraycopy(buf, offset, buf, 0, size - offset);
+                }
+                size -= offset;
+                offset = 0;
+                while (size < n) {
+                    // read some more data
+                    int nread = channel.read(ByteBuffer.wrap(buf, size, buf.length - size));
+                    if (nread <= 0) {
+                        throw prematureEOF();
+                    }
+                    size += nread;
+                }
+            }
+        }
 
-                // reset the default buffer
-                defaultBuffer.offset = defaultBuffer.size = 0;
+        private static IOException prematureEOF() {
+            return new IOException("Premature EOF");
+        }
 
-                usedBuffer.readData(n);
-                // The previous statement should entirely fill the temporary buffer.
-                // It is assumed that the caller will read n bytes, making the temporary buffer
-                // disposable. Next time, the default buffer will be used again, unless
-                // n > defaultBuffer.buf.length.
-                assert usedBuffer.size == n;
-            } else {
-                usedBuffer = defaultBuffer;
-                usedBuffer.readData(n);
+        @Override
+        void release(ContextStateImpl state) {
+            if (channel != null) {
+                // otherwise buf is the caller's data
+                state.returnReadBuffer(buf);
             }
-            return usedBuffer;
         }
     }
 
@@ -1237,12 +1358,12 @@ public class RSerialize {
     private static final class TracingInput extends Input {
         private int nesting;
 
-        private TracingInput(RConnection conn) throws IOException {
-            this(conn.getInputStream(), null, null, null);
+        private TracingInput(ReadableByteChannel channel, CallHook hook, String packageName, String functionName) throws IOException {
+            super(channel, hook, packageName, functionName);
         }
 
-        private TracingInput(InputStream is, CallHook hook, String packageName, String functionName) throws IOException {
-            super(is, hook, packageName, functionName);
+        private TracingInput(byte[] data, CallHook hook, String packageName, String functionName) throws IOException {
+            super(data, hook, packageName, functionName);
         }
 
         @Override
@@ -1270,10 +1391,10 @@ public class RSerialize {
 
     private abstract static class POutputStream {
 
-        protected OutputStream os;
+        protected final WritableByteChannel channel;
 
-        POutputStream(OutputStream os) {
-            this.os = os;
+        POutputStream(WritableByteChannel channel) {
+            this.channel = channel;
         }
 
         abstract void writeInt(int value) throws IOException;
@@ -1286,26 +1407,41 @@ public class RSerialize {
 
         abstract void flush() throws IOException;
 
+        /**
+         * Returns the data written so far if there is no channel to write to, {@code null}
+         * otherwise.
+         */
+        abstract byte[] toByteArray();
+
+        /**
+         * Returns pooled buffers to {@code state}.
+         */
+        void release(@SuppressWarnings("unused") ContextStateImpl state) {
+        }
     }
 
+    /**
+     * Writes the XDR format in fixed size chunks straight to the channel, i.e., the serialized form
+     * is never held in memory as a whole. Without a channel, the buffer grows to hold all the data,
+     * which is then retrieved with {@link #toByteArray()}.
+     */
     private static class XdrOutputFormat extends POutputStream {
-        private final byte[] buf;
-        private int offset;
+        static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+        private ByteBuffer buf;
 
-        XdrOutputFormat(OutputStream os) {
-            super(os);
-            buf = new byte[8192];
-            buf[offset++] = 'X';
-            buf[offset++] = '\n';
+        XdrOutputFormat(WritableByteChannel channel, ByteBuffer buf) {
+            super(channel);
+            assert buf.order() == ByteOrder.BIG_ENDIAN && buf.position() == 0;
+            this.buf = buf;
+            buf.put((byte) 'X');
+            buf.put((byte) '\n');
         }
 
         @Override
         void writeInt(int value) throws IOException {
             ensureSpace(4);
-            buf[offset++] = (byte) (value >>> 24);
-            buf[offset++] = (byte) (value >> 16);
-            buf[offset++] = (byte) (value >> 8);
-            buf[offset++] = (byte) value;
+            buf.putInt(value);
         }
 
         @Override
@@ -1317,27 +1453,22 @@ public class RSerialize {
                     break;
                 }
             }
-            if (simple && value.length() <= buf.length) {
+            if (simple && (value.length() <= buf.capacity() || channel == null)) {
                 writeInt(value.length());
                 ensureSpace(value.length());
                 for (int i = 0; i < value.length(); i++) {
-                    buf[offset++] = (byte) value.charAt(i);
+                    buf.put((byte) value.charAt(i));
                 }
             } else {
-                byte[] bytes = value.getBytes();
-                int bytesLen = bytes.length;
-                int totalLen = bytesLen + 4;
-                if (totalLen > buf.length) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeInt(bytes.length);
+                if (bytes.length > buf.capacity() && channel != null) {
                     // too large to fit buffer
-                    ensureSpace(4);
-                    writeInt(bytesLen);
                     flushBuffer();
-                    os.write(bytes);
+                    writeFully(ByteBuffer.wrap(bytes));
                 } else {
-                    ensureSpace(totalLen);
-                    writeInt(bytesLen);
-                    System.arraycopy(bytes, 0, buf, offset, bytesLen);
-                    offset += bytesLen;
+                    ensureSpace(bytes.length);
+                    buf.put(bytes);
                 }
             }
         }
@@ -1345,40 +1476,55 @@ public class RSerialize {
         @Override
         void writeRaw(byte value) throws IOException {
             ensureSpace(1);
-            buf[offset++] = value;
+            buf.put(value);
         }
 
         @Override
         void writeDouble(double value) throws IOException {
             ensureSpace(8);
-            long valueBits = Double.doubleToRawLongBits(value);
-            buf[offset++] = (byte) (valueBits >>> 56);
-            buf[offset++] = (byte) ((valueBits >> 48) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 40) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 32) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 24) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 16) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 8) & 0xff);
-            buf[offset++] = (byte) (valueBits & 0xff);
+            buf.putLong(Double.doubleToRawLongBits(value));
         }
 
         private void ensureSpace(int n) throws IOException {
-            if (offset + n > buf.length) {
-                flushBuffer();
+            if (buf.remaining() < n) {
+                if (channel == null) {
+                    ByteBuffer enlarged = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+                    buf.flip();
+                    enlarged.put(buf);
+                    buf = enlarged;
+                } else {
+                    flushBuffer();
+                }
             }
         }
 
-        void flushBuffer() throws IOException {
-            if (offset > 0) {
-                os.write(buf, 0, offset);
-                offset = 0;
+        private void flushBuffer() throws IOException {
+            if (channel != null && buf.position() > 0) {
+                buf.flip();
+                writeFully(buf);
+                buf.clear();
+            }
+        }
+
+        private void writeFully(ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                channel.write(src);
             }
         }
 
         @Override
         void flush() throws IOException {
             flushBuffer();
-            os.flush();
+        }
+
+        @Override
+        byte[] toByteArray() {
+            return channel == null ? Arrays.copyOf(buf.array(), buf.position()) : null;
+        }
+
+        @Override
+        void release(ContextStateImpl state) {
+            state.returnWriteBuffer(buf);
         }
     }
 
@@ -1389,38 +1535,67 @@ public class RSerialize {
 
     private static final class Output extends Common {
 
-        private final State state;
+        /**
+         * Created on demand, only language objects and srcrefs need it.
+         */
+        private State state;
         private final POutputStream stream;
         private final int version;
 
-        private Output(OutputStream os, int format, int version, CallHook hook) throws IOException {
-            super(hook);
-            this.state = new PLState(hook != null ? hook.getSessionRef() : null);
+        /**
+         * @param channel the channel to write to or {@code null} to collect the data in memory.
+         */
+        private Output(WritableByteChannel channel, int format, int version, CallHook hook) throws IOException {
+            super(hook, getContextState());
             this.version = version;
             switch (format) {
                 case ASCII:
                 case ASCII_HEX:
                 case BINARY:
+                    release();
                     throw formatError((byte) format, true);
                 default:
-                    stream = new XdrOutputFormat(os);
+                    stream = new XdrOutputFormat(channel, contextState.takeWriteBuffer());
                     break;
             }
         }
 
-        private void serialize(Object obj) throws IOException {
-            switch (version) {
-                case DEFAULT_VERSION:
-                    stream.writeInt(version);
-                    stream.writeInt(RVersionNumber.R_VERSION);
-                    stream.writeInt(RVersionInfo.SERIALIZE_VERSION);
-                    break;
+        private State getState() {
+            if (state == null) {
+                state = new PLState(hook != null ? hook.getSessionRef() : null);
+            }
+            return state;
+        }
 
-                default:
-                    throw RInternalError.unimplemented();
+        /**
+         * Writes {@code obj} and returns the serialized form if there is no channel.
+         */
+        private byte[] serialize(Object obj) throws IOException {
+            try {
+                switch (version) {
+                    case DEFAULT_VERSION:
+                        stream.writeInt(version);
+                        stream.writeInt(RVersionNumber.R_VERSION);
+                        stream.writeInt(RVersionInfo.SERIALIZE_VERSION);
+                        break;
+
+                    default:
+                        throw RInternalError.unimplemented();
+                }
+                writeItem(obj);
+                stream.flush();
+                return stream.toByteArray();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        protected void release() {
+            super.release();
+            if (stream != null) {
+                stream.release(contextState);
             }
-            writeItem(obj);
-            stream.flush();
         }
 
         private static SEXPTYPE saveSpecialHook(Object item) {
@@ -1662,7 +1837,7 @@ public class RSerialize {
                                 switch (type) {
                                     case FUNSXP: {
                                         RFunction fun = (RFunction) obj;
-                                        RPairList pl = (RPairList) serializeLanguageObject(state, fun);
+                                        RPairList pl = (RPairList) serializeLanguageObject(getState(), fun);
                                         assert pl != null;
                                         if (FastROptions.debugMatches("printWclosure")) {
                                             Debug.printClosure(pl);
@@ -1674,7 +1849,7 @@ public class RSerialize {
                                     }
 
                                     case PROMSXP: {
-                                        RPairList pl = (RPairList) serializeLanguageObject(state, obj);
+                                        RPairList pl = (RPairList) serializeLanguageObject(getState(), obj);
                                         assert pl != null;
                                         if (pl.getTag() != RNull.instance) {
                                             writeItem(pl.getTag());
@@ -1695,7 +1870,7 @@ public class RSerialize {
                                     }
 
                                     case LANGSXP: {
-                                        RPairList pl = (RPairList) serializeLanguageObject(state, obj);
+                                        RPairList pl = (RPairList) serializeLanguageObject(getState(), obj);
                                         writeItem(pl.car());
                                         obj = pl.cdr();
                                         break;
@@ -1809,7 +1984,7 @@ public class RSerialize {
                         // do this only for packages
                         Path relPath = relativizeLibPath(Paths.get(path));
                         if (relPath != null) {
-                            REnvironment createSrcfile = RSrcref.createSrcfile(relPath, state.envRefHolder);
+                            REnvironment createSrcfile = RSrcref.createSrcfile(relPath, getState().envRefHolder);
                             Object createLloc = RSrcref.createLloc(ss, createSrcfile);
                             writePairListEntry(RRuntime.R_SRCREF, createLloc);
                             writePairListEntry(RRuntime.R_SRCFILE, createSrcfile);
@@ -1837,7 +2012,7 @@ public class RSerialize {
         private void writePairListEntry(String name, Object value) throws IOException {
             boolean isActiveBinding = ActiveBinding.isActiveBinding(value);
             stream.writeInt(Flags.packFlags(SEXPTYPE.LISTSXP, isActiveBinding ? Flags.IS_ACTIVE_BINDING_MASK : 0, false, false, true));
-            RSymbol sym = state.findSymbol(name);
+            RSymbol sym = getState().findSymbol(name);
             int refIndex;
             if ((refIndex = getRefIndex(sym)) != -1) {
                 outRefIndex(refIndex);
@@ -2214,19 +2389,147 @@ public class RSerialize {
      */
     @TruffleBoundary
     public static byte[] serialize(Object obj, int type, int version, Object refhook) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (refhook == null && version == DEFAULT_VERSION && type != ASCII && type != ASCII_HEX && type != BINARY) {
+            byte[] result = serializeSmallAtomic(RRuntime.asAbstractVector(obj));
+            if (result != null) {
+                return result;
+            }
+        }
         try {
-            Output output = new Output(out, type, version, (CallHook) refhook);
-            output.serialize(obj);
-            return out.toByteArray();
+            Output output = new Output(null, type, version, (CallHook) refhook);
+            return output.serialize(obj);
         } catch (IOException ex) {
             throw RInternalError.shouldNotReachHere();
         }
     }
 
+    /**
+     * Attribute free atomic vectors up to this length are written by
+     * {@link #serializeSmallAtomic(Object)}.
+     */
+    private static final int SMALL_ATOMIC_MAX_LENGTH = 4096;
+
+    /**
+     * Fast path for the common case of serializing a short atomic vector without attributes into
+     * a byte array: the exact size is computed up front and the data is written without setting up
+     * an {@link Output}. The result is identical to the one of {@link Output#serialize(Object)}.
+     *
+     * @return the serialized form or {@code null} if {@code obj} does not qualify
+     */
+    private static byte[] serializeSmallAtomic(Object obj) {
+        if (!(obj instanceof RAbstractAtomicVector)) {
+            return null;
+        }
+        RAbstractAtomicVector vector = (RAbstractAtomicVector) obj;
+        int length = vector.getLength();
+        DynamicObject attributes = vector.getAttributes();
+        if (length > SMALL_ATOMIC_MAX_LENGTH || (attributes != null && !attributes.isEmpty())) {
+            return null;
+        }
+        SEXPTYPE type = SEXPTYPE.typeForClass(vector);
+        SEXPTYPE gnuRType = SEXPTYPE.gnuRType(type, vector);
+        int size = 2 + 3 * 4 + 4 + 4;
+        switch (type) {
+            case INTSXP:
+            case LGLSXP:
+                size += 4 * length;
+                break;
+            case REALSXP:
+                size += 8 * length;
+                break;
+            case CPLXSXP:
+                size += 16 * length;
+                break;
+            case RAWSXP:
+                size += length;
+                break;
+            case STRSXP:
+                RAbstractStringVector strings = (RAbstractStringVector) vector;
+                for (int i = 0; i < length; i++) {
+                    String s = strings.getDataAt(i);
+                    size += 8;
+                    if (s != RRuntime.STRING_NA) {
+                        for (int j = 0; j < s.length(); j++) {
+                            if (s.charAt(j) >= 0x80) {
+                                // the general path takes care of the encoding
+                                return null;
+                            }
+                        }
+                        size += s.length();
+                    }
+                }
+                break;
+            default:
+                return null;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put((byte) 'X');
+        buf.put((byte) '\n');
+        buf.putInt(DEFAULT_VERSION);
+        buf.putInt(RVersionNumber.R_VERSION);
+        buf.putInt(RVersionInfo.SERIALIZE_VERSION);
+        buf.putInt(Flags.packFlags(gnuRType, Output.getGPBits(vector), false, false, false));
+        buf.putInt(length);
+        if (type == SEXPTYPE.STRSXP) {
+            RAbstractStringVector strings = (RAbstractStringVector) vector;
+            for (int i = 0; i < length; i++) {
+                String s = strings.getDataAt(i);
+                if (s == RRuntime.STRING_NA) {
+                    buf.putInt(Flags.packFlags(SEXPTYPE.CHARSXP, 0, false, false, false));
+                    buf.putInt(-1);
+                } else {
+                    buf.putInt(Flags.packFlags(SEXPTYPE.CHARSXP, Output.ASCII_MASK, false, false, false));
+                    buf.putInt(s.length());
+                    for (int j = 0; j < s.length(); j++) {
+                        buf.put((byte) s.charAt(j));
+                    }
+                }
+            }
+        } else {
+            VectorAccess access = vector.slowPathAccess();
+            try (SequentialIterator iter = access.access(vector)) {
+                while (access.next(iter)) {
+                    switch (type) {
+                        case INTSXP:
+                        case LGLSXP:
+                            buf.putInt(access.getInt(iter));
+                            break;
+                        case REALSXP:
+                            buf.putLong(Double.doubleToRawLongBits(access.getDouble(iter)));
+                            break;
+                        case CPLXSXP:
+                            if (access.isNA(iter)) {
+                                buf.putLong(Double.doubleToRawLongBits(RRuntime.DOUBLE_NA));
+                                buf.putLong(Double.doubleToRawLongBits(RRuntime.DOUBLE_NA));
+                            } else {
+                                buf.putLong(Double.doubleToRawLongBits(access.getComplexR(iter)));
+                                buf.putLong(Double.doubleToRawLongBits(access.getComplexI(iter)));
+                            }
+                            break;
+                        default:
+                            buf.put(access.getRaw(iter));
+                            break;
+                    }
+                }
+            }
+        }
+        assert !buf.hasRemaining();
+        return buf.array();
+    }
+
     @TruffleBoundary
     public static void serialize(RConnection conn, Object obj, int type, int version, Object refhook) throws IOException {
-        Output output = new Output(conn.getOutputStream(), type, version, (CallHook) refhook);
+        serialize(conn.getChannel(), obj, type, version, refhook);
+    }
+
+    /**
+     * Writes the serialized form of {@code obj} to {@code channel} in fixed size chunks as it is
+     * produced, so the memory needed does not grow with the size of the serialized form.
+     */
+    @TruffleBoundary
+    public static void serialize(WritableByteChannel channel, Object obj, int type, int version, Object refhook) throws IOException {
+        Output output = new Output(channel, type, version, (CallHook) refhook);
         output.serialize(obj);
     }
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.ffi.PCRERFFI;
+
+/**
+ * Per-context cache of compiled regular expressions used by {@code grep}, {@code sub},
+ * {@code regexpr} and friends. The cache is bounded (see {@link FastROptions#RegExpCacheSize}) and
+ * evicts the least recently used entry. Evicted PCRE patterns are handed back to the caller, which
+ * is responsible for releasing the native memory (see {@link ContextStateImpl#put}).
+ */
+public final class RegExpCache {
+
+    public static final int PERL = 1;
+    public static final int FIXED = 2;
+    public static final int IGNORE_CASE = 4;
+
+    private static final class Key {
+        private final String pattern;
+        private final int flags;
+
+        Key(String pattern, int flags) {
+            this.pattern = pattern;
+            this.flags = flags;
+        }
+
+        @Override
+        public int hashCode() {
+            return pattern.hashCode() * 31 + flags;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return flags == other.flags && pattern.equals(other.pattern);
+        }
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        private final int capacity;
+        private final LinkedHashMap<Key, Object> cache = new LinkedHashMap<>(16, 0.75f, true);
+        private long pcreTables;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        private ContextStateImpl(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the compiled pattern ({@link Pattern} or {@link PCRERFFI.Result}) or {@code null}
+         * if it is not cached.
+         */
+        @TruffleBoundary
+        public synchronized Object get(String pattern, int flags) {
+            Object result = cache.get(new Key(pattern, flags));
+            if (result == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return result;
+        }
+
+        /**
+         * Adds a compiled pattern to the cache. Returns the PCRE patterns evicted to make space for
+         * the new entry (or {@code null} if there are none), these must be freed by the caller once
+         * they are no longer used. The new entry itself is never evicted.
+         */
+        @TruffleBoundary
+        public synchronized PCRERFFI.Result[] put(String pattern, int flags, Object compiled) {
+            cache.put(new Key(pattern, flags), compiled);
+            ArrayList<PCRERFFI.Result> evicted = null;
+            Iterator<Map.Entry<Key, Object>> iter = cache.entrySet().iterator();
+            while (cache.size() > capacity) {
+                Object value = iter.next().getValue();
+                iter.remove();
+                evictions++;
+                if (value instanceof PCRERFFI.Result) {
+                    if (evicted == null) {
+                        evicted = new ArrayList<>();
+                    }
+                    evicted.add((PCRERFFI.Result) value);
+                }
+            }
+            return evicted == null ? null : evicted.toArray(new PCRERFFI.Result[evicted.size()]);
+        }
+
+        /**
+         * The character tables used when compiling PCRE patterns, {@code 0} if not created yet.
+         */
+        public long getPCRETables() {
+            return pcreTables;
+        }
+
+        public void setPCRETables(long tables) {
+            this.pcreTables = tables;
+        }
+
+        public synchronized int size() {
+            return cache.size();
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public synchronized long getHits() {
+            return hits;
+        }
+
+        public synchronized long getMisses() {
+            return misses;
+        }
+
+        public synchronized long getEvictions() {
+            return evictions;
+        }
+
+        @Override
+        public synchronized void beforeDispose(RContext context) {
+            RootCallTarget freeCallTarget = null;
+            for (Object value : cache.values()) {
+                if (value instanceof PCRERFFI.Result) {
+                    if (freeCallTarget == null) {
+                        freeCallTarget = PCRERFFI.FreeRootNode.create(context);
+                    }
+                    freeCallTarget.call(((PCRERFFI.Result) value).result);
+                }
+            }
+            cache.clear();
+        }
+
+        public static ContextStateImpl newContextState() {
+            return new ContextStateImpl(Math.max(1, FastROptions.RegExpCacheSize.getNonNegativeIntValue()));
+        }
+    }
+
+    /**
+     * Compiles (or retrieves from the cache of the current context) a Java pattern. If
+     * {@code fixed} is {@code true}, the pattern is treated as a literal string.
+     */
+    @TruffleBoundary
+    public static Pattern compileJavaPattern(String pattern, boolean fixed, boolean ignoreCase) {
+        ContextStateImpl state = RContext.getInstance().stateRegExpCache;
+        int flags = (fixed ? FIXED : 0) | (ignoreCase ? IGNORE_CASE : 0);
+        Pattern result = (Pattern) state.get(pattern, flags);
+        if (result == null) {
+            result = Pattern.compile(pattern, (fixed ? Pattern.LITERAL : Pattern.DOTALL) | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0));
+            state.put(pattern, flags, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+
+/**
+ * Sorting and ordering of strings according to the collation locale. Instead of comparing strings
+ * pairwise through the {@link Collator}, the sort keys are computed once per element (in parallel,
+ * every worker with its own copy of the collator) and then the primitive index array is sorted by
+ * these keys with a parallel merge sort, which avoids boxing the indices. In the C locale
+ * ({@link Locale#ROOT}) the strings themselves are the keys.
+ *
+ * Equal keys are ordered by their index, in both directions, which gives the same result as the
+ * shell sort in GNU R's {@code orderVector1}.
+ */
+public final class StringSort {
+
+    /** Number of keys computed by a single task. */
+    private static final int KEY_CHUNK = 1 << 14;
+
+    /** Ranges up to this length are sorted by a single task. */
+    private static final int SORT_CHUNK = 1 << 13;
+
+    /** Ranges up to this length are sorted by insertion sort. */
+    private static final int INSERTION_SORT_LENGTH = 32;
+
+    private StringSort() {
+        // no instances
+    }
+
+    /**
+     * Computes the keys of the elements {@code indices[lo..hi]} of {@code values}; the other entries
+     * of the result stay {@code null}.
+     */
+    private static Comparable<?>[] createKeys(RAbstractStringVector values, int[] indices, int lo, int hi, Locale locale) {
+        int length = values.getLength();
+        if (locale == Locale.ROOT) {
+            String[] keys = new String[length];
+            for (int i = lo; i <= hi; i++) {
+                keys[indices[i]] = values.getDataAt(indices[i]);
+            }
+            return keys;
+        }
+        Collator collator = RLocale.getOrderCollator(locale);
+        CollationKey[] keys = new CollationKey[length];
+        int count = hi - lo + 1;
+        int chunks = (count + KEY_CHUNK - 1) / KEY_CHUNK;
+        IntStream stream = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            stream = stream.parallel();
+        }
+        stream.forEach(chunk -> {
+            // RuleBasedCollator synchronizes key creation, so each task uses its own copy
+            Collator local = (Collator) collator.clone();
+            int end = Math.min(hi, lo + (chunk + 1) * KEY_CHUNK - 1);
+            for (int i = lo + chunk * KEY_CHUNK; i <= end; i++) {
+                keys[indices[i]] = local.getCollationKey(values.getDataAt(indices[i]));
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Merge sort of the range {@code [from, to)} of an index array by the keys of the indices, ties
+     * are broken by the index itself.
+     */
+    @SuppressWarnings("serial")
+    private static final class IndexSort extends RecursiveAction {
+        private final int[] indices;
+        private final int[] tmp;
+        private final int from;
+        private final int to;
+        @SuppressWarnings("rawtypes") private final Comparable[] keys;
+        private final boolean decreasing;
+
+        IndexSort(int[] indices, int[] tmp, int from, int to, Comparable<?>[] keys, boolean decreasing) {
+            this.indices = indices;
+            this.tmp = tmp;
+            this.from = from;
+            this.to = to;
+            this.keys = keys;
+            this.decreasing = decreasing;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_CHUNK) {
+                sort(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new IndexSort(indices, tmp, from, mid, keys, decreasing), new IndexSort(indices, tmp, mid, to, keys, decreasing));
+                merge(from, mid, to);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(int a, int b) {
+            int c = decreasing ? keys[b].compareTo(keys[a]) : keys[a].compareTo(keys[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        }
+
+        private void sort(int lo, int hi) {
+            if (hi - lo <= INSERTION_SORT_LENGTH) {
+                for (int i = lo + 1; i < hi; i++) {
+                    int value = indices[i];
+                    int j = i - 1;
+                    while (j >= lo && compare(indices[j], value) > 0) {
+                        indices[j + 1] = indices[j];
+                        j--;
+                    }
+                    indices[j + 1] = value;
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            sort(lo, mid);
+            sort(mid, hi);
+            merge(lo, mid, hi);
+        }
+
+        private void merge(int lo, int mid, int hi) {
+            if (compare(indices[mid - 1], indices[mid]) <= 0) {
+                // already in order
+                return;
+            }
+            System.arraycopy(indices, lo, tmp, lo, hi - lo);
+            int i = lo;
+            int j = mid;
+            for (int k = lo; k < hi; k++) {
+                if (j >= hi || (i < mid && compare(tmp[i], tmp[j]) <= 0)) {
+                    indices[k] = tmp[i++];
+                } else {
+                    indices[k] = tmp[j++];
+                }
+            }
+        }
+    }
+
+    /**
+     * Orders the indices {@code indices[lo..hi]} (inclusive) by the corresponding elements of
+     * {@code values} in the given collation {@code locale}.
+     */
+    @TruffleBoundary
+    public static void order(int[] indices, RAbstractStringVector values, int lo, int hi, Locale locale, boolean decreasing) {
+        if (hi - lo < 1) {
+            return;
+        }
+        Comparable<?>[] keys = createKeys(values, indices, lo, hi, locale);
+        IndexSort sort = new IndexSort(indices, new int[indices.length], lo, hi + 1, keys, decreasing);
+        if (hi - lo < SORT_CHUNK) {
+            sort.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(sort);
+        }
+    }
+
+    /**
+     * Sorts {@code values}, which must not contain {@code NA}, in the given collation
+     * {@code locale}.
+     */
+    @TruffleBoundary
+    public static String[] sort(RAbstractStringVector values, Locale locale, boolean decreasing) {
+        int length = values.getLength();
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        order(indices, values, 0, length - 1, locale, decreasing);
+        String[] result = new String[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = values.getDataAt(indices[i]);
+        }
+        return result;
+    }
+}
@@ -22,16 +22,14 @@
  */
 package com.oracle.truffle.r.runtime.conn;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Paths;
@@ -39,7 +37,7 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 import org.tukaani.xz.LZMA2Options;
@@ -172,30 +170,51 @@ public class FileConnections {
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                return new CompressedInputRConnection(base, new GZIPInputStream(new FileInputStream(base.path), GZIP_BUFFER_SIZE));
+                return new GZIPInputRConnection(base, new GZIPFileChannel(base.path));
             case Append:
             case AppendBinary:
-                return new CompressedOutputRConnection(base, new GZIPOutputStream(new FileOutputStream(base.path, true), GZIP_BUFFER_SIZE), true);
+                return new CompressedOutputRConnection(base, createGZIPOutputStream(openOutputStream(base.path, true)), true);
             case Write:
             case WriteBinary:
-                return new CompressedOutputRConnection(base, new GZIPOutputStream(new FileOutputStream(base.path, false), GZIP_BUFFER_SIZE), true);
+                return new CompressedOutputRConnection(base, createGZIPOutputStream(openOutputStream(base.path, false)), true);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
     }
 
+    /**
+     * Opens a stream writing to a {@link FileChannel}, the compressing streams on top of it do
+     * their own buffering.
+     */
+    private static OutputStream openOutputStream(String path, boolean append) throws IOException {
+        OpenOption[] options = append ? new OpenOption[]{StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND}
+                        : new OpenOption[]{StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING};
+        return Channels.newOutputStream(FileChannel.open(Paths.get(path), options));
+    }
+
+    private static InputStream openInputStream(String path) throws IOException {
+        return new BufferedInputStream(Channels.newInputStream(FileChannel.open(Paths.get(path), StandardOpenOption.READ)), GZIP_BUFFER_SIZE);
+    }
+
+    private static OutputStream createGZIPOutputStream(OutputStream os) throws IOException {
+        if (ParallelGZIP.isRequested()) {
+            return new ParallelGZIP.Output(os, Deflater.DEFAULT_COMPRESSION);
+        }
+        return new GZIPOutputStream(os, GZIP_BUFFER_SIZE);
+    }
+
     private static DelegateRConnection createXZDelegateConnection(BasePathRConnection base) throws IOException {
 
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                return new CompressedInputRConnection(base, new XZInputStream(new FileInputStream(base.path)));
+                return new CompressedInputRConnection(base, new XZInputStream(openInputStream(base.path)));
             case Append:
             case AppendBinary:
-                return new CompressedOutputRConnection(base, new XZOutputStream(new FileOutputStream(base.path, true), new LZMA2Options(), XZ.CHECK_CRC32), false);
+                return new CompressedOutputRConnection(base, new XZOutputStream(openOutputStream(base.path, true), new LZMA2Options(), XZ.CHECK_CRC32), false);
             case Write:
             case WriteBinary:
-                return new CompressedOutputRConnection(base, new XZOutputStream(new FileOutputStream(base.path, false), new LZMA2Options(), XZ.CHECK_CRC32), false);
+                return new CompressedOutputRConnection(base, new XZOutputStream(openOutputStream(base.path, false), new LZMA2Options(), XZ.CHECK_CRC32), false);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
@@ -206,14 +225,13 @@ public class FileConnections {
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                byte[] bzipUdata = RCompression.bzipUncompressFromFile(base.path);
-                return new ByteStreamCompressedInputRConnection(base, new ByteArrayInputStream(bzipUdata));
+                return new CompressedInputRConnection(base, RCompression.bzipUncompressFromFile(base.path));
             case Append:
             case AppendBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), true);
+                return new CompressedOutputRConnection(base, RCompression.bzipCompressToFile(base.path, true), false);
             case Write:
             case WriteBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), false);
+                return new CompressedOutputRConnection(base, RCompression.bzipCompressToFile(base.path, false), false);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
@@ -687,8 +705,12 @@ public class FileConnections {
         private final ByteChannel channel;
 
         protected CompressedInputRConnection(BasePathRConnection base, InputStream is) {
+            this(base, ConnectionSupport.newChannel(is));
+        }
+
+        protected CompressedInputRConnection(BasePathRConnection base, ByteChannel channel) {
             super(base);
-            channel = ConnectionSupport.newChannel(is);
+            this.channel = channel;
         }
 
         @Override
@@ -702,9 +724,37 @@ public class FileConnections {
         }
     }
 
-    private static class ByteStreamCompressedInputRConnection extends CompressedInputRConnection {
-        ByteStreamCompressedInputRConnection(BasePathRConnection base, ByteArrayInputStream is) {
-            super(base, is);
+    private static class GZIPInputRConnection extends CompressedInputRConnection {
+        private final GZIPFileChannel gzipChannel;
+
+        GZIPInputRConnection(BasePathRConnection base, GZIPFileChannel channel) {
+            super(base, channel);
+            this.gzipChannel = channel;
+        }
+
+        @Override
+        public boolean isSeekable() {
+            return true;
+        }
+
+        @Override
+        protected long seekInternal(long offset, SeekMode seekMode, SeekRWMode seekRWMode) throws IOException {
+            long position = gzipChannel.position() - bytesInCache();
+            switch (seekMode) {
+                case ENQUIRE:
+                    break;
+                case CURRENT:
+                    if (offset != 0) {
+                        gzipChannel.seek(position + offset);
+                    }
+                    break;
+                case START:
+                    gzipChannel.seek(offset);
+                    break;
+                case END:
+                    throw RError.error(RError.SHOW_CALLER, RError.Message.GENERIC, "whence = \"end\" is not implemented for gzfile connections");
+            }
+            return position;
         }
     }
 
@@ -752,23 +802,4 @@ public class FileConnections {
             throw RError.nyi(RError.SHOW_CALLER, "truncating compressed file not");
         }
     }
-
-    private static class BZip2OutputRConnection extends CompressedOutputRConnection {
-        private final ByteArrayOutputStream bos;
-        private final boolean append;
-
-        BZip2OutputRConnection(BasePathRConnection base, ByteArrayOutputStream os, boolean append) {
-            super(base, os, false);
-            this.bos = os;
-            this.append = append;
-        }
-
-        @Override
-        public void close() throws IOException {
-            flush();
-            // Now actually do the compression using sub-process
-            byte[] data = bos.toByteArray();
-            RCompression.bzipCompressToFile(data, ((BasePathRConnection) base).path, append);
-        }
-    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a gzip file as a channel of its decompressed contents and supports seeking to an
+ * uncompressed position. Block compressed files (see {@link ParallelGZIP}) are indexed by their
+ * members, so a seek only inflates from the start of the member containing the target. For
+ * ordinary gzip files a seek forward skips the data in between, a seek backwards restarts from the
+ * beginning of the file.
+ */
+final class GZIPFileChannel implements ByteChannel {
+    private final FileChannel file;
+    private final boolean blockCompressed;
+    private ParallelGZIP.Index index;
+    private InputStream in;
+    private long position;
+    private byte[] transfer;
+
+    GZIPFileChannel(String path) throws IOException {
+        this.blockCompressed = ParallelGZIP.isBlockCompressed(path);
+        this.file = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        open(0, 0);
+    }
+
+    private void open(long compressedOffset, long uncompressedOffset) throws IOException {
+        if (in != null) {
+            in.close();
+        }
+        file.position(compressedOffset);
+        // the file channel is shared by all the decompressing streams opened on it
+        InputStream raw = new FilterInputStream(Channels.newInputStream(file)) {
+            @Override
+            public void close() {
+                // the channel is closed by GZIPFileChannel#close
+            }
+        };
+        in = blockCompressed ? new ParallelGZIP.Input(raw) : new GZIPInputStream(raw, FileConnections.GZIP_BUFFER_SIZE);
+        position = uncompressedOffset;
+    }
+
+    /**
+     * The current position in the decompressed data.
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Moves to the given position in the decompressed data, or to its end if it is shorter.
+     */
+    void seek(long target) throws IOException {
+        if (target == position) {
+            return;
+        }
+        if (blockCompressed) {
+            if (index == null) {
+                index = ParallelGZIP.buildIndex(file);
+            }
+            int entry = index.find(target);
+            if (entry < 0) {
+                open(0, 0);
+            } else if (target < position || index.getUncompressedOffset(entry) > position) {
+                open(index.getCompressedOffset(entry), index.getUncompressedOffset(entry));
+            }
+        } else if (target < position) {
+            open(0, 0);
+        }
+        long remaining = target - position;
+        while (remaining > 0) {
+            long n = in.skip(remaining);
+            if (n <= 0) {
+                break;
+            }
+            position += n;
+            remaining -= n;
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int n;
+        if (dst.hasArray()) {
+            n = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (n > 0) {
+                dst.position(dst.position() + n);
+            }
+        } else {
+            if (transfer == null) {
+                transfer = new byte[8192];
+            }
+            n = in.read(transfer, 0, Math.min(transfer.length, dst.remaining()));
+            if (n > 0) {
+                dst.put(transfer, 0, n);
+            }
+        }
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new IOException("This channel is read-only.");
+    }
+
+    @Override
+    public boolean isOpen() {
+        return file.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.RContext;
+
+/**
+ * Block compressed gzip files, used by {@code gzfile} connections and therefore by
+ * {@code saveRDS}/{@code readRDS} and {@code save}/{@code load}.
+ *
+ * The data is split into blocks of {@link #BLOCK_SIZE} bytes and every block is written as a
+ * separate gzip member, so the result is an ordinary multi-member gzip file that GNU R and any
+ * other gzip reader can decompress. The header of every member carries an extra field (subfield
+ * id {@code "FR"}) with the total size of the member. These sizes form the index that lets the
+ * reader split the file into members without inflating it, so both compression and decompression
+ * of the blocks run in parallel.
+ *
+ * Writing block compressed files is opt-in via {@code options(fastr.gzfile.parallel = TRUE)},
+ * otherwise {@code gzfile} writes plain gzip. Reading detects the format from the first member.
+ */
+public final class ParallelGZIP {
+
+    /**
+     * The R option that enables writing block compressed files.
+     */
+    public static final String OPTION = "fastr.gzfile.parallel";
+
+    /**
+     * Uncompressed size of one block.
+     */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    private static final int GZIP_MAGIC1 = GZIPInputStream.GZIP_MAGIC & 0xFF;
+    private static final int GZIP_MAGIC2 = (GZIPInputStream.GZIP_MAGIC >> 8) & 0xFF;
+    private static final int FLAG_EXTRA = 4;
+    private static final int OS_UNKNOWN = 255;
+    private static final byte SUBFIELD_ID1 = 'F';
+    private static final byte SUBFIELD_ID2 = 'R';
+
+    /**
+     * Fixed gzip header (10 bytes), extra field length (2 bytes) and the extra field holding the
+     * member size (2 bytes id, 2 bytes length, 4 bytes data).
+     */
+    private static final int HEADER_SIZE = 20;
+    /**
+     * CRC32 and uncompressed size.
+     */
+    private static final int TRAILER_SIZE = 8;
+
+    private ParallelGZIP() {
+        // no instances
+    }
+
+    /**
+     * Number of blocks that may be in flight, which bounds the memory used on top of the
+     * serialized form's consumer or producer.
+     */
+    private static int maxPending() {
+        return 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+    }
+
+    @TruffleBoundary
+    public static boolean isRequested() {
+        return RRuntime.asLogicalObject(RContext.getInstance().stateROptions.getValue(OPTION)) == RRuntime.LOGICAL_TRUE;
+    }
+
+    /**
+     * Checks whether the first member of the file at {@code path} is a block compressed one.
+     */
+    public static boolean isBlockCompressed(String path) throws IOException {
+        try (InputStream is = new FileInputStream(path)) {
+            byte[] header = new byte[HEADER_SIZE];
+            return readFully(is, header, 0, HEADER_SIZE) == HEADER_SIZE && isBlockHeader(header);
+        }
+    }
+
+    private static boolean isBlockHeader(byte[] h) {
+        return (h[0] & 0xFF) == GZIP_MAGIC1 && (h[1] & 0xFF) == GZIP_MAGIC2 && h[2] == Deflater.DEFLATED && (h[3] & FLAG_EXTRA) != 0 && getShort(h, 10) == 8 && h[12] == SUBFIELD_ID1 &&
+                        h[13] == SUBFIELD_ID2 && getShort(h, 14) == 4;
+    }
+
+    private static int readFully(InputStream is, byte[] buf, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int n = is.read(buf, off + total, len - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private static int getShort(byte[] buf, int off) {
+        return (buf[off] & 0xFF) | (buf[off + 1] & 0xFF) << 8;
+    }
+
+    private static int getInt(byte[] buf, int off) {
+        return getShort(buf, off) | getShort(buf, off + 2) << 16;
+    }
+
+    private static void putShort(byte[] buf, int off, int value) {
+        buf[off] = (byte) value;
+        buf[off + 1] = (byte) (value >> 8);
+    }
+
+    private static void putInt(byte[] buf, int off, int value) {
+        putShort(buf, off, value);
+        putShort(buf, off + 2, value >>> 16);
+    }
+
+    /**
+     * Start offsets of the members of a block compressed file. Member {@code i} starts at
+     * {@code compressed[i]} in the file and its data at {@code uncompressed[i]} in the
+     * decompressed stream. If the file continues with ordinary gzip members, the last entry points
+     * to the first of them.
+     */
+    static final class Index {
+        private final long[] compressed;
+        private final long[] uncompressed;
+        private final int size;
+
+        private Index(long[] compressed, long[] uncompressed, int size) {
+            this.compressed = compressed;
+            this.uncompressed = uncompressed;
+            this.size = size;
+        }
+
+        /**
+         * Returns the last entry starting at or before the uncompressed {@code offset}, or
+         * {@code -1} if there is none.
+         */
+        int find(long offset) {
+            int i = Arrays.binarySearch(uncompressed, 0, size, offset);
+            if (i < 0) {
+                return -i - 2;
+            }
+            // empty members share their start with the next one
+            while (i + 1 < size && uncompressed[i + 1] == offset) {
+                i++;
+            }
+            return i;
+        }
+
+        long getCompressedOffset(int entry) {
+            return compressed[entry];
+        }
+
+        long getUncompressedOffset(int entry) {
+            return uncompressed[entry];
+        }
+    }
+
+    /**
+     * Builds the {@link Index} of a block compressed file from the member headers and trailers,
+     * without inflating any data.
+     */
+    static Index buildIndex(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long[] compressed = new long[16];
+        long[] uncompressed = new long[16];
+        int size = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer isize = ByteBuffer.allocate(4);
+        long compressedOffset = 0;
+        long uncompressedOffset = 0;
+        while (compressedOffset < fileSize) {
+            if (size == compressed.length) {
+                compressed = Arrays.copyOf(compressed, size * 2);
+                uncompressed = Arrays.copyOf(uncompressed, size * 2);
+            }
+            compressed[size] = compressedOffset;
+            uncompressed[size] = uncompressedOffset;
+            size++;
+            header.clear();
+            readFully(channel, header, compressedOffset);
+            if (header.hasRemaining() || !isBlockHeader(header.array())) {
+                break;
+            }
+            int memberSize = getInt(header.array(), 16);
+            if (memberSize < HEADER_SIZE + TRAILER_SIZE || compressedOffset + memberSize > fileSize) {
+                throw new IOException("corrupt gzip block header");
+            }
+            isize.clear();
+            readFully(channel, isize, compressedOffset + memberSize - 4);
+            compressedOffset += memberSize;
+            uncompressedOffset += getInt(isize.array(), 0) & 0xFFFFFFFFL;
+        }
+        return new Index(compressed, uncompressed, size);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Compresses {@code len} bytes of {@code data} into one complete gzip member.
+     */
+    private static byte[] compressBlock(byte[] data, int len, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, len);
+            deflater.finish();
+            byte[] member = new byte[HEADER_SIZE + len + (len >> 3) + 64];
+            int size = HEADER_SIZE;
+            while (!deflater.finished()) {
+                if (size == member.length - TRAILER_SIZE) {
+                    member = Arrays.copyOf(member, member.length * 2);
+                }
+                size += deflater.deflate(member, size, member.length - TRAILER_SIZE - size);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, len);
+            putInt(member, size, (int) crc.getValue());
+            putInt(member, size + 4, len);
+            size += TRAILER_SIZE;
+
+            member[0] = (byte) GZIP_MAGIC1;
+            member[1] = (byte) GZIP_MAGIC2;
+            member[2] = Deflater.DEFLATED;
+            member[3] = FLAG_EXTRA;
+            // bytes 4-8 (mtime and extra flags) stay zero
+            member[9] = (byte) OS_UNKNOWN;
+            putShort(member, 10, 8);
+            member[12] = SUBFIELD_ID1;
+            member[13] = SUBFIELD_ID2;
+            putShort(member, 14, 4);
+            putInt(member, 16, size);
+            return size == member.length ? member : Arrays.copyOf(member, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates one complete gzip member as read by {@link Input#readMember()}.
+     */
+    private static byte[] inflateMember(byte[] member) throws IOException {
+        int dataLength = member.length - HEADER_SIZE - TRAILER_SIZE;
+        int resultLength = getInt(member, member.length - 4);
+        if (resultLength < 0) {
+            throw new IOException("corrupt gzip block: invalid size");
+        }
+        byte[] result = new byte[resultLength];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, HEADER_SIZE, dataLength);
+            int size = 0;
+            while (size < result.length) {
+                int n = inflater.inflate(result, size, result.length - size);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += n;
+            }
+            if (size != result.length) {
+                throw new IOException("corrupt gzip block: unexpected end of data");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt gzip block: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(result, 0, result.length);
+        if ((int) crc.getValue() != getInt(member, member.length - TRAILER_SIZE)) {
+            throw new IOException("corrupt gzip block: CRC error");
+        }
+        return result;
+    }
+
+    /**
+     * Collects the written data into blocks, compresses full blocks asynchronously and writes the
+     * resulting members in order. At most {@link #maxPending()} blocks are in flight.
+     */
+    static final class Output extends OutputStream {
+        private final OutputStream out;
+        private final int level;
+        private final int maxPending = maxPending();
+        private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        private byte[] block = new byte[BLOCK_SIZE];
+        private int count;
+        private boolean submitted;
+        private boolean closed;
+
+        Output(OutputStream out, int level) {
+            this.out = out;
+            this.level = level;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == block.length) {
+                submitBlock();
+            }
+            block[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (count == block.length) {
+                    submitBlock();
+                }
+                int n = Math.min(remaining, block.length - count);
+                System.arraycopy(b, offset, block, count, n);
+                count += n;
+                offset += n;
+                remaining -= n;
+            }
+        }
+
+        private void submitBlock() throws IOException {
+            byte[] data = block;
+            int len = count;
+            pending.add(CompletableFuture.supplyAsync(() -> compressBlock(data, len, level)));
+            block = new byte[BLOCK_SIZE];
+            count = 0;
+            submitted = true;
+            while (pending.size() > maxPending) {
+                out.write(join(pending.poll()));
+            }
+        }
+
+        /**
+         * Only flushes the members that have already been written, a partial block is not
+         * compressed before {@link #close()} to keep the blocks large.
+         */
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (count > 0 || !submitted) {
+                    // an empty file still gets one (empty) member to be valid gzip
+                    submitBlock();
+                }
+                while (!pending.isEmpty()) {
+                    out.write(join(pending.poll()));
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads whole members ahead using the sizes stored in their headers, inflates them
+     * asynchronously and returns their data in order. Should the file continue with an ordinary
+     * gzip member, e.g., because plain gzip data was appended, the rest of the file is read
+     * sequentially.
+     */
+    static final class Input extends InputStream {
+        private final InputStream in;
+        private final int maxPending = maxPending();
+        private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        private byte[] current = new byte[0];
+        private int pos;
+        private boolean membersDone;
+        private InputStream sequential;
+
+        Input(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads the next block compressed member, returns {@code null} at the end of the file or
+         * when an ordinary gzip member follows.
+         */
+        private byte[] readMember() throws IOException {
+            byte[] header = new byte[HEADER_SIZE];
+            int n = readFully(in, header, 0, HEADER_SIZE);
+            if (n == 0) {
+                return null;
+            }
+            if (n < HEADER_SIZE || !isBlockHeader(header)) {
+                sequential = new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(header, 0, n), in));
+                return null;
+            }
+            int size = getInt(header, 16);
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("corrupt gzip block header");
+            }
+            byte[] member = Arrays.copyOf(header, size);
+            if (readFully(in, member, HEADER_SIZE, size - HEADER_SIZE) != size - HEADER_SIZE) {
+                throw new IOException("unexpected end of gzip file");
+            }
+            return member;
+        }
+
+        private void fill() throws IOException {
+            while (!membersDone && pending.size() < maxPending) {
+                byte[] member = readMember();
+                if (member == null) {
+                    membersDone = true;
+                } else {
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return inflateMember(member);
+                        } catch (IOException e) {
+                            throw new CompletionException(e);
+                        }
+                    }));
+                }
+            }
+        }
+
+        /**
+         * Makes sure {@link #current} has data, returns {@code false} if the pending blocks are
+         * exhausted.
+         */
+        private boolean ensureCurrent() throws IOException {
+            while (pos == current.length) {
+                fill();
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                current = join(pending.poll());
+                pos = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (ensureCurrent()) {
+                return current[pos++] & 0xFF;
+            }
+            return sequential == null ? -1 : sequential.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (ensureCurrent()) {
+                int n = Math.min(len, current.length - pos);
+                System.arraycopy(current, pos, b, off, n);
+                pos += n;
+                return n;
+            }
+            return sequential == null ? -1 : sequential.read(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            pending.clear();
+            if (sequential != null) {
+                sequential.close();
+            }
+            in.close();
+        }
+    }
+}
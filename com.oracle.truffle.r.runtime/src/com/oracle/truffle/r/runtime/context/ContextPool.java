@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.context;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.launcher.RCmdOptions.Client;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.context.RContext.ConsoleIO;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
+
+/**
+ * A fixed-size pool of initialized child contexts for workloads that evaluate many small
+ * independent requests, e.g. a service embedding FastR. Creating a child context for each request
+ * pays for the initialization of the base packages, the pooled contexts are initialized once, up
+ * front and in parallel, and are reused afterwards. The pooled contexts are of kind
+ * {@link ContextKind#SHARE_NOTHING}, which is the only kind that may run concurrently with its
+ * parent and siblings.
+ *
+ * Between two evaluations, only the global environment of the pooled context is cleared, any other
+ * state, e.g. attached packages or options, is retained. A context whose global environment cannot
+ * be cleared is closed and not reused.
+ *
+ * The pools are accessible from R code (and thus also from the polyglot embedding) via the
+ * {@code .fastr.context.pool.*} builtins and are registered in {@link RContext#contextPools} of the
+ * context that created them, which closes them when it is disposed.
+ */
+public final class ContextPool {
+
+    private static final AtomicInteger poolIds = new AtomicInteger();
+
+    private static final class PooledContext {
+        private final ChildContextInfo info;
+        private final TruffleContext truffleContext;
+        private boolean broken;
+
+        PooledContext(ChildContextInfo info, TruffleContext truffleContext) {
+            this.info = info;
+            this.truffleContext = truffleContext;
+        }
+    }
+
+    private final int id;
+    private final BlockingQueue<PooledContext> idle = new LinkedBlockingQueue<>();
+    /** Number of contexts that are not closed, whether idle or in use. */
+    private final AtomicInteger live;
+    private volatile boolean closed;
+
+    private ContextPool(PooledContext[] contexts) {
+        this.id = poolIds.incrementAndGet();
+        this.live = new AtomicInteger(contexts.length);
+        for (PooledContext context : contexts) {
+            idle.add(context);
+        }
+    }
+
+    /**
+     * Creates a pool of {@code size} contexts as children of the current context, which must be
+     * entered by the calling thread, and waits until all of them are initialized.
+     */
+    @TruffleBoundary
+    public static ContextPool create(int size) {
+        RContext parent = RContext.getInstance();
+        ConsoleIO console = parent.getConsole();
+        PooledContext[] contexts = new PooledContext[size];
+        for (int i = 0; i < size; i++) {
+            ChildContextInfo info = ChildContextInfo.createNoRestore(Client.RSCRIPT, null, ContextKind.SHARE_NOTHING, parent, console.getStdin(), console.getStdout(), console.getStderr());
+            contexts[i] = new PooledContext(info, info.createTruffleContext());
+        }
+
+        Thread[] threads = new Thread[size];
+        Throwable[] failures = new Throwable[size];
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    initialize(contexts[index]);
+                } catch (Throwable t) {
+                    failures[index] = t;
+                }
+            });
+            threads[i].start();
+        }
+        try {
+            for (int i = 0; i < size; i++) {
+                threads[i].join();
+            }
+        } catch (InterruptedException e) {
+            throw new RInternalError(e, "error initializing context pool");
+        }
+        for (int i = 0; i < size; i++) {
+            if (failures[i] != null) {
+                for (PooledContext context : contexts) {
+                    context.truffleContext.close();
+                }
+                throw new RInternalError(failures[i], "error initializing context pool");
+            }
+        }
+
+        ContextPool pool = new ContextPool(contexts);
+        parent.contextPools.put(pool.id, pool);
+        return pool;
+    }
+
+    private static void initialize(PooledContext context) {
+        Object prev = context.truffleContext.enter();
+        try {
+            // the first access to the R context in the child initializes it
+            RContext.getEngine();
+        } finally {
+            context.truffleContext.leave(prev);
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Evaluates {@code source} in one of the pooled contexts, waiting for one to become available
+     * if all of them are in use. The result has the same format as the result of
+     * {@link EvalThread#run(TruffleContext, ChildContextInfo, Source)}, including the case when the
+     * pool is closed while waiting. This method may be invoked from any thread.
+     */
+    @TruffleBoundary
+    public RList eval(Source source) {
+        PooledContext context;
+        try {
+            context = acquire();
+        } catch (InterruptedException e) {
+            return EvalThread.createErrorResult("interrupted while waiting for a pooled context");
+        }
+        if (context == null) {
+            return EvalThread.createErrorResult("the context pool has been closed");
+        }
+        try {
+            return EvalThread.eval(context.truffleContext, context.info, source, () -> resetGlobalEnv(context));
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Returns an idle context or {@code null} if the pool is closed.
+     */
+    private PooledContext acquire() throws InterruptedException {
+        while (!closed && live.get() > 0) {
+            PooledContext context = idle.poll(100, TimeUnit.MILLISECONDS);
+            if (context != null) {
+                return context;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void release(PooledContext context) {
+        if (closed || context.broken) {
+            context.truffleContext.close();
+            live.decrementAndGet();
+        } else {
+            idle.add(context);
+        }
+    }
+
+    /**
+     * Removes all bindings from the global environment of the currently entered pooled context.
+     */
+    private static void resetGlobalEnv(PooledContext context) {
+        REnvironment globalEnv = REnvironment.globalEnv();
+        RStringVector names = globalEnv.ls(true, null, false);
+        try {
+            for (int i = 0; i < names.getLength(); i++) {
+                globalEnv.rm(names.getDataAt(i));
+            }
+        } catch (PutException e) {
+            context.broken = true;
+        }
+    }
+
+    /**
+     * Closes the idle contexts immediately and the contexts in use once their evaluation finishes.
+     */
+    @TruffleBoundary
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            PooledContext context;
+            while ((context = idle.poll()) != null) {
+                context.truffleContext.close();
+                live.decrementAndGet();
+            }
+        }
+    }
+}
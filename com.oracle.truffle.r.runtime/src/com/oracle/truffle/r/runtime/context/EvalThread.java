@@ -95,6 +95,19 @@ public class EvalThread extends Thread {
      * Convenience method for {@code .fastr.context.eval} in same thread.
      */
     public static RList run(TruffleContext truffleContext, ChildContextInfo info, Source source) {
+        try {
+            return eval(truffleContext, info, source, null);
+        } finally {
+            truffleContext.close();
+        }
+    }
+
+    /**
+     * Evaluates {@code source} in the given child context without closing it. If
+     * {@code afterEval} is not {@code null}, it is run while the child context is still entered,
+     * regardless of the outcome of the evaluation.
+     */
+    static RList eval(TruffleContext truffleContext, ChildContextInfo info, Source source, Runnable afterEval) {
         RList result = null;
         Object parent = null;
         try {
@@ -118,8 +131,13 @@ public class EvalThread extends Thread {
             RInternalError.reportErrorAndConsoleLog(t, info.getId());
             result = createErrorResult(t.getClass().getSimpleName());
         } finally {
-            truffleContext.leave(parent);
-            truffleContext.close();
+            try {
+                if (afterEval != null) {
+                    afterEval.run();
+                }
+            } finally {
+                truffleContext.leave(parent);
+            }
         }
         return result;
     }
@@ -69,7 +69,7 @@ import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.r.launcher.RCmdOptions;
 import com.oracle.truffle.r.launcher.RCmdOptions.Client;
 import com.oracle.truffle.r.launcher.RStartParams;
-import com.oracle.truffle.r.runtime.LazyDBCache;
+import com.oracle.truffle.r.runtime.HashIndexCache;
 import com.oracle.truffle.r.runtime.PrimitiveMethodsInfo;
 import com.oracle.truffle.r.runtime.REnvVars;
 import com.oracle.truffle.r.runtime.RError;
@@ -82,6 +82,7 @@ import com.oracle.truffle.r.runtime.RProfile;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RRuntimeASTAccess;
 import com.oracle.truffle.r.runtime.RSerialize;
+import com.oracle.truffle.r.runtime.RegExpCache;
 import com.oracle.truffle.r.runtime.TempPathName;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.builtins.RBuiltinDescriptor;
@@ -90,6 +91,7 @@ import com.oracle.truffle.r.runtime.builtins.RBuiltinLookup;
 import com.oracle.truffle.r.runtime.conn.ConnectionSupport;
 import com.oracle.truffle.r.runtime.conn.StdConnections;
 import com.oracle.truffle.r.runtime.data.LanguageClosureCache;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RStringVector;
@@ -345,7 +347,8 @@ public final class RContext {
     public final ConnectionSupport.ContextStateImpl stateRConnection;
     public final RRNG.ContextStateImpl stateRNG;
     public final RSerialize.ContextStateImpl stateRSerialize;
-    public final LazyDBCache.ContextStateImpl stateLazyDBCache;
+    public final RegExpCache.ContextStateImpl stateRegExpCache;
+    public final HashIndexCache.ContextStateImpl stateHashIndexCache;
     public final InstrumentationState stateInstrumentation;
     public final ContextStateImpl stateInternalCode;
     public final DLL.ContextStateImpl stateDLL;
@@ -363,15 +366,17 @@ public final class RContext {
     public final WeakHashMap<Path, REnvironment> srcfileEnvironments = new WeakHashMap<>();
     public final List<String> libraryPaths = new ArrayList<>(1);
     public final Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+    public final Map<Integer, ContextPool> contextPools = new ConcurrentHashMap<>();
     public final LanguageClosureCache languageClosureCache = new LanguageClosureCache();
     public final Map<String, Source> sourceCache = new ConcurrentHashMap<>();
+    public final NativeDataAccess.MirrorStatistics nativeMirrorStatistics = new NativeDataAccess.MirrorStatistics();
 
     private final AllocationReporter allocationReporter;
 
     private ContextState[] contextStates() {
         return new ContextState[]{stateREnvVars, stateRLocale, stateRProfile, stateTempPath, stateROptions, stateREnvironment, stateRErrorHandling, stateRConnection, stateStdConnections, stateRNG,
                         stateRFFI,
-                        stateRSerialize, stateLazyDBCache, stateInstrumentation, stateDLL, stateRNullMR};
+                        stateRSerialize, stateRegExpCache, stateHashIndexCache, stateInstrumentation, stateDLL, stateRNullMR};
     }
 
     public static void setEmbedded() {
@@ -451,7 +456,8 @@ public final class RContext {
         this.stateRConnection = ConnectionSupport.ContextStateImpl.newContextState();
         this.stateRNG = RRNG.ContextStateImpl.newContextState();
         this.stateRSerialize = RSerialize.ContextStateImpl.newContextState();
-        this.stateLazyDBCache = LazyDBCache.ContextStateImpl.newContextState();
+        this.stateRegExpCache = RegExpCache.ContextStateImpl.newContextState();
+        this.stateHashIndexCache = HashIndexCache.ContextStateImpl.newContextState();
         this.stateInstrumentation = InstrumentationState.newContextState(instrumenter);
         this.stateInternalCode = ContextStateImpl.newContextState();
         this.stateDLL = DLL.ContextStateImpl.newContextState();
@@ -526,7 +532,8 @@ public final class RContext {
         stateStdConnections.initialize(this);
         stateRNG.initialize(this);
         stateRSerialize.initialize(this);
-        stateLazyDBCache.initialize(this);
+        stateRegExpCache.initialize(this);
+        stateHashIndexCache.initialize(this);
         stateInstrumentation.initialize(this);
         stateInternalCode.initialize(this);
         stateRNullMR.initialize(this);
@@ -598,6 +605,10 @@ public final class RContext {
      */
     public synchronized void dispose() {
         if (!state.contains(State.DISPOSED)) {
+            for (ContextPool pool : contextPools.values()) {
+                pool.close();
+            }
+            contextPools.clear();
             if (state.contains(State.INITIALIZED)) {
                 for (ContextState contextState : contextStates()) {
                     contextState.beforeDispose(this);
@@ -55,6 +55,13 @@ public final class MemoryCopyTracer {
         listeners.addLast(listener);
     }
 
+    /**
+     * Removes a listener added by {@link #addListener(Listener)}.
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * After calling this method memory related events will be reported to the listener. This
      * invalidates global assumption and should be used with caution.
@@ -22,11 +22,14 @@
  */
 package com.oracle.truffle.r.runtime.data;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CallTarget;
@@ -84,7 +87,10 @@ class UnsafeAdapter {
  * using e.g. {@link #allocateNativeContents(RIntVector, int[], int)} .
  *
  * There is a registry of weak references to all native mirrors ever assigned to some vector object.
- * We use the finalizer to free the native memory (if allocated).
+ * The registry is a {@link HandleTable handle table}: the ID of a mirror (the SEXP value seen by
+ * native code) encodes the index of its slot, so that {@link #lookup(long)} is a couple of array
+ * reads. Slots of collected objects are reclaimed in bulk via a reference queue. We use the
+ * finalizer to free the native memory (if allocated).
  */
 public final class NativeDataAccess {
     private NativeDataAccess() {
@@ -139,8 +145,8 @@ public final class NativeDataAccess {
          */
         private Object nativeWrapper;
 
-        NativeMirror() {
-            this.id = counter.addAndGet(2);
+        NativeMirror(RObject owner) {
+            this.id = handles.register(owner);
         }
 
         /**
@@ -188,11 +194,14 @@ public final class NativeDataAccess {
             }
         }
 
-        // TODO: turn this into reference queues
+        // the handle table slot is reclaimed via its reference queue, only the native memory is
+        // freed here
         @Override
         protected void finalize() throws Throwable {
             super.finalize();
-            nativeMirrors.remove(id);
+            if (!HandleTable.isHandle(id)) {
+                customMirrors.remove(id);
+            }
             // System.out.println(String.format("gc'ing %16x", id));
             if (dataAddress == EMPTY_DATA_ADDRESS) {
                 assert (dataAddress = 0xbadbad) != 0;
@@ -209,10 +218,163 @@ public final class NativeDataAccess {
         }
     }
 
-    // The counter is initialized to invalid address and incremented by 2 to always get invalid
-    // address value
-    private static final AtomicLong counter = new AtomicLong(0xdef000000000001L);
-    private static final ConcurrentHashMap<Long, WeakReference<RObject>> nativeMirrors = new ConcurrentHashMap<>(512);
+    /**
+     * Counts the native mirrors created on behalf of one context, see
+     * {@link RContext#nativeMirrorStatistics}.
+     */
+    public static final class MirrorStatistics {
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong reclaimed = new AtomicLong();
+
+        public long getCreated() {
+            return created.get();
+        }
+
+        public long getReclaimed() {
+            return reclaimed.get();
+        }
+
+        public long getLive() {
+            return created.get() - reclaimed.get();
+        }
+    }
+
+    /**
+     * Entry of the {@link HandleTable}, it remembers the ID it was registered under so that the
+     * slot can be found once the reference is enqueued.
+     */
+    private static final class MirrorReference extends WeakReference<RObject> {
+        private final long id;
+        private final MirrorStatistics statistics;
+
+        MirrorReference(RObject referent, long id, ReferenceQueue<RObject> queue, MirrorStatistics statistics) {
+            super(referent, queue);
+            this.id = id;
+            this.statistics = statistics;
+        }
+    }
+
+    /**
+     * Maps native mirror IDs to the objects owning the mirrors. The table is a directory of
+     * fixed-size slabs and an ID has the form {@code 0x0def_gggg_iiii_iiii} where {@code g} is the
+     * generation of the slot and {@code i} is the slot index shifted left by one. The lowest bit is
+     * always set, so that an ID is never a valid address, and the generation changes every time a
+     * slot is reused so that stale IDs are not resolved to unrelated objects (unless the 16-bit
+     * generation wraps around).
+     *
+     * Lookups do not lock and do not allocate, registration of new mirrors is synchronized and
+     * first drains the reference queue to put the slots of all collected objects on the free list.
+     */
+    private static final class HandleTable {
+        private static final long TAG = 0x0def000000000001L;
+        private static final long TAG_MASK = 0xffff000000000001L;
+        private static final int GENERATION_SHIFT = 32;
+        private static final int GENERATION_MASK = 0xffff;
+        private static final int SLAB_BITS = 12;
+        private static final int SLAB_SIZE = 1 << SLAB_BITS;
+        private static final int SLAB_MASK = SLAB_SIZE - 1;
+        private static final int MAX_SLABS = 1 << (31 - SLAB_BITS);
+
+        private static final class Slab {
+            private final AtomicReferenceArray<MirrorReference> entries = new AtomicReferenceArray<>(SLAB_SIZE);
+            /** Guarded by the table. */
+            private final char[] generations = new char[SLAB_SIZE];
+        }
+
+        private final ReferenceQueue<RObject> queue = new ReferenceQueue<>();
+        private volatile Slab[] slabs = new Slab[]{new Slab()};
+
+        // guarded by this
+        private int nextIndex;
+        private int[] freeList = new int[SLAB_SIZE];
+        private int freeCount;
+        private int live;
+
+        static boolean isHandle(long id) {
+            return (id & TAG_MASK) == TAG;
+        }
+
+        RObject get(long id) {
+            if (!isHandle(id)) {
+                return null;
+            }
+            int index = (int) (id >>> 1) & Integer.MAX_VALUE;
+            Slab[] currentSlabs = slabs;
+            int slabIndex = index >>> SLAB_BITS;
+            if (slabIndex >= currentSlabs.length) {
+                return null;
+            }
+            MirrorReference reference = currentSlabs[slabIndex].entries.get(index & SLAB_MASK);
+            return reference == null || reference.id != id ? null : reference.get();
+        }
+
+        @TruffleBoundary
+        synchronized long register(RObject owner) {
+            expungeStaleEntries();
+            int index;
+            if (freeCount > 0) {
+                index = freeList[--freeCount];
+            } else {
+                index = nextIndex++;
+                if ((index >>> SLAB_BITS) == slabs.length) {
+                    growSlabs();
+                }
+            }
+            Slab slab = slabs[index >>> SLAB_BITS];
+            int offset = index & SLAB_MASK;
+            long id = TAG | ((long) slab.generations[offset] << GENERATION_SHIFT) | ((long) index << 1);
+            MirrorStatistics statistics = RContext.getInstance().nativeMirrorStatistics;
+            slab.entries.set(offset, new MirrorReference(owner, id, queue, statistics));
+            statistics.created.incrementAndGet();
+            live++;
+            return id;
+        }
+
+        private void growSlabs() {
+            Slab[] currentSlabs = slabs;
+            if (currentSlabs.length == MAX_SLABS) {
+                throw RInternalError.shouldNotReachHere("native mirror handle table is full");
+            }
+            Slab[] newSlabs = Arrays.copyOf(currentSlabs, currentSlabs.length + 1);
+            newSlabs[currentSlabs.length] = new Slab();
+            slabs = newSlabs;
+        }
+
+        private void expungeStaleEntries() {
+            MirrorReference reference;
+            while ((reference = (MirrorReference) queue.poll()) != null) {
+                int index = (int) (reference.id >>> 1) & Integer.MAX_VALUE;
+                Slab slab = slabs[index >>> SLAB_BITS];
+                int offset = index & SLAB_MASK;
+                if (slab.entries.get(offset) == reference) {
+                    slab.entries.set(offset, null);
+                    slab.generations[offset] = (char) ((slab.generations[offset] + 1) & GENERATION_MASK);
+                    if (freeCount == freeList.length) {
+                        freeList = Arrays.copyOf(freeList, freeList.length * 2);
+                    }
+                    freeList[freeCount++] = index;
+                    live--;
+                    reference.statistics.reclaimed.incrementAndGet();
+                }
+            }
+        }
+
+        synchronized int getLive() {
+            expungeStaleEntries();
+            return live;
+        }
+
+        int getCapacity() {
+            return slabs.length * SLAB_SIZE;
+        }
+    }
+
+    private static final HandleTable handles = new HandleTable();
+    /**
+     * Mirrors of {@link CustomNativeMirror} objects use the native address as their ID, which
+     * cannot be encoded in the {@link HandleTable}.
+     */
+    private static final ConcurrentHashMap<Long, WeakReference<RObject>> customMirrors = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<Long, RuntimeException> nativeMirrorInfo = TRACE_MIRROR_ALLOCATION_SITES ? new ConcurrentHashMap<>() : null;
 
     public static CallTarget createIsPointer() {
@@ -255,13 +417,18 @@ public final class NativeDataAccess {
     @TruffleBoundary
     private static NativeMirror putMirrorObject(Object arg, RObject obj, NativeMirror oldMirror) {
         NativeMirror newMirror;
-        obj.setNativeMirror(newMirror = arg instanceof CustomNativeMirror ? new NativeMirror(((CustomNativeMirror) arg).getCustomMirrorAddress()) : new NativeMirror());
+        if (arg instanceof CustomNativeMirror) {
+            newMirror = new NativeMirror(((CustomNativeMirror) arg).getCustomMirrorAddress());
+            customMirrors.put(newMirror.id, new WeakReference<>(obj));
+        } else {
+            newMirror = new NativeMirror(obj);
+        }
+        obj.setNativeMirror(newMirror);
         if (oldMirror != null) {
             newMirror.nativeWrapper = oldMirror.nativeWrapper;
         }
         // System.out.println(String.format("adding %16x = %s", mirror.id,
         // obj.getClass().getSimpleName()));
-        nativeMirrors.put(newMirror.id, new WeakReference<>(obj));
         if (TRACE_MIRROR_ALLOCATION_SITES) {
             registerAllocationSite(arg, newMirror);
         }
@@ -290,31 +457,44 @@ public final class NativeDataAccess {
     }
 
     /**
-     * For given native mirror ID returns the Java side object (vector). TruffleBoundary because it
-     * calls into HashMap.
+     * For given native mirror ID returns the Java side object (vector). Only the IDs of
+     * {@link CustomNativeMirror} objects need to go through a HashMap.
      */
     @TruffleBoundary
     public static Object lookup(long address) {
-        WeakReference<RObject> reference = nativeMirrors.get(address);
-        if (reference == null) {
-            CompilerDirectives.transferToInterpreter();
-            throw reportDataAccessError(address);
-        }
-        RObject result = reference.get();
+        RObject result = handles.get(address);
         if (result == null) {
-            CompilerDirectives.transferToInterpreter();
-            throw reportDataAccessError(address);
+            WeakReference<RObject> reference = customMirrors.get(address);
+            result = reference == null ? null : reference.get();
+            if (result == null) {
+                CompilerDirectives.transferToInterpreter();
+                throw reportDataAccessError(address);
+            }
         }
         return result;
     }
 
+    /**
+     * Returns the number of native mirrors whose owners were not collected yet, in all contexts.
+     */
+    public static int getLiveMirrorCount() {
+        return handles.getLive() + customMirrors.size();
+    }
+
+    /**
+     * Returns the number of slots currently allocated by the native mirror handle table.
+     */
+    public static int getHandleTableCapacity() {
+        return handles.getCapacity();
+    }
+
     private static RuntimeException reportDataAccessError(long address) {
         RuntimeException location = TRACE_MIRROR_ALLOCATION_SITES ? nativeMirrorInfo.get(address) : null;
         if (location != null) {
             System.out.println("Location at which the native mirror was allocated:");
             location.printStackTrace();
         }
-        throw RInternalError.shouldNotReachHere("unknown native reference " + address + "L / 0x" + Long.toHexString(address) + " (current id count: " + Long.toHexString(counter.get()) + ")");
+        throw RInternalError.shouldNotReachHere("unknown native reference " + address + "L / 0x" + Long.toHexString(address) + " (handle table capacity: " + handles.getCapacity() + ")");
     }
 
     // methods operating on the native mirror object directly:
@@ -24,6 +24,7 @@ package com.oracle.truffle.r.runtime.data;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.closures.RClosures;
 import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
@@ -59,6 +60,19 @@ public final class RDoubleSequence extends RSequence implements RAbstractDoubleV
         return stride;
     }
 
+    @Override
+    public int getSortedness() {
+        if (!RRuntime.isFinite(start) || !RRuntime.isFinite(stride)) {
+            return SORTEDNESS_UNKNOWN;
+        } else if (getLength() <= 1) {
+            return SORTED_STRICTLY_INCREASING;
+        } else if (stride > 0) {
+            // rounding may produce ties if the stride is tiny compared to the elements
+            return stride >= 4 * Math.ulp(Math.max(Math.abs(start), Math.abs(getEnd()))) ? SORTED_STRICTLY_INCREASING : SORTED_INCREASING;
+        }
+        return stride == 0 ? SORTED_INCREASING : SORTEDNESS_UNKNOWN;
+    }
+
     @Override
     public Object getStartObject() {
         return getStart();
@@ -100,6 +100,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
     @Override
     public void setDataAt(Object store, int index, double value) {
         assert data == store;
+        resetSortedness();
         NativeDataAccess.setData(this, (double[]) store, index, value);
     }
 
@@ -134,6 +135,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
         } finally {
             data = null;
             complete = false;
+            resetSortedness();
         }
     }
 
@@ -149,6 +151,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
         } finally {
             data = null;
             complete = false;
+            resetSortedness();
         }
     }
 
@@ -182,6 +185,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
 
     private RDoubleVector updateDataAt(int index, double value, NACheck valueNACheck) {
         assert !this.isShared();
+        resetSortedness();
         NativeDataAccess.setData(this, data, index, value);
         if (valueNACheck.check(value)) {
             complete = false;
@@ -236,6 +240,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
 
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
+        resetSortedness();
         NativeDataAccess.setData(this, data, toIndex, ((RAbstractDoubleVector) fromVector).getDataAt(fromIndex));
     }
 
@@ -250,6 +255,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
         } finally {
             data = null;
             complete = false;
+            resetSortedness();
         }
     }
 
@@ -289,6 +295,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
         @Override
         protected void setDouble(Object store, int index, double value) {
             RDoubleVector vector = (RDoubleVector) store;
+            vector.resetSortedness();
             NativeDataAccess.setData(vector, vector.data, index, value);
         }
     };
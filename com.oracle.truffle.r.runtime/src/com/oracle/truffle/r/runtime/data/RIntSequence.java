@@ -69,6 +69,14 @@ public final class RIntSequence extends RSequence implements RAbstractIntVector
         }
     }
 
+    @Override
+    public int getSortedness() {
+        if (stride > 0 || getLength() <= 1) {
+            return SORTED_STRICTLY_INCREASING;
+        }
+        return stride == 0 ? SORTED_INCREASING : SORTEDNESS_UNKNOWN;
+    }
+
     @Override
     public Object getStartObject() {
         return getStart();
@@ -100,6 +100,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
     @Override
     public void setDataAt(Object store, int index, int value) {
         assert data == store;
+        resetSortedness();
         NativeDataAccess.setData(this, (int[]) store, index, value);
     }
 
@@ -137,6 +138,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
         } finally {
             data = null;
             complete = false;
+            resetSortedness();
         }
     }
 
@@ -152,6 +154,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
         } finally {
             data = null;
             complete = false;
+            resetSortedness();
         }
     }
 
@@ -185,7 +188,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
 
     private RIntVector updateDataAt(int index, int value, NACheck valueNACheck) {
         assert !this.isShared();
-
+        resetSortedness();
         NativeDataAccess.setData(this, data, index, value);
         if (valueNACheck.check(value)) {
             setComplete(false);
@@ -239,6 +242,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
 
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
+        resetSortedness();
         NativeDataAccess.setData(this, data, toIndex, ((RAbstractIntVector) fromVector).getDataAt(fromIndex));
     }
 
@@ -249,6 +253,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
 
     @Override
     public void setElement(int index, Object value) {
+        resetSortedness();
         NativeDataAccess.setData(this, data, index, (int) value);
     }
 
@@ -258,6 +263,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
         } finally {
             data = null;
             complete = false;
+            resetSortedness();
         }
     }
 
@@ -297,6 +303,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
         @Override
         protected void setInt(Object store, int index, int value) {
             RIntVector vector = (RIntVector) store;
+            vector.resetSortedness();
             NativeDataAccess.setData(vector, vector.data, index, value);
         }
     };
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.nio.MappedByteBuffer;
+
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.closures.RClosures;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.nodes.FastPathVectorAccess.FastPathFromIntAccess;
+import com.oracle.truffle.r.runtime.data.nodes.SlowPathVectorAccess.SlowPathFromIntAccess;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
+
+public final class RMappedIntVector extends RMappedVector implements RAbstractIntVector {
+
+    RMappedIntVector(String path, long end, MappedByteBuffer[] buffers, int length) {
+        super(path, end, buffers, length, 2);
+    }
+
+    @Override
+    public int getDataAt(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public RAbstractVector castSafe(RType type, ConditionProfile isNAProfile, boolean keepAttributes) {
+        switch (type) {
+            case Integer:
+                return this;
+            case Double:
+                return RClosures.createToDoubleVector(this, keepAttributes);
+            case Complex:
+                return RClosures.createToComplexVector(this, keepAttributes);
+            case Character:
+                return RClosures.createToStringVector(this, keepAttributes);
+            case List:
+                return RClosures.createToListVector(this, keepAttributes);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public RIntVector materialize() {
+        checkFileSize();
+        int[] data = new int[getLength()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = getDataAt(i);
+        }
+        return RDataFactory.createIntVector(data, RDataFactory.INCOMPLETE_VECTOR);
+    }
+
+    @Override
+    public RIntVector createEmptySameType(int newLength, boolean newIsComplete) {
+        return RDataFactory.createIntVector(new int[newLength], newIsComplete);
+    }
+
+    private static final class FastPathAccess extends FastPathFromIntAccess {
+
+        FastPathAccess(RAbstractContainer value) {
+            super(value);
+        }
+
+        @Override
+        protected int getInt(Object store, int index) {
+            return ((RMappedIntVector) store).getDataAt(index);
+        }
+    }
+
+    @Override
+    public VectorAccess access() {
+        return new FastPathAccess(this);
+    }
+
+    private static final SlowPathFromIntAccess SLOW_PATH_ACCESS = new SlowPathFromIntAccess() {
+        @Override
+        protected int getInt(Object store, int index) {
+            return ((RMappedIntVector) store).getDataAt(index);
+        }
+    };
+
+    @Override
+    public VectorAccess slowPathAccess() {
+        return SLOW_PATH_ACCESS;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * An atomic vector whose elements live in a read-only memory mapped region of a file, so that the
+ * data is held by the OS page cache rather than the Java heap. The elements are stored in the
+ * native byte order (as written by {@code writeBin} with the default {@code endian}).
+ *
+ * Like {@link RSequence}, a mapped vector has no attributes and is never modified: anything that
+ * needs to update it or to attach attributes works on {@link #materialize()}, i.e., on a heap copy
+ * (see {@link #getNonShared()}).
+ *
+ * A file is mapped in segments of 1GB, the element size always divides the segment size, so no
+ * element spans two segments. The elements are read through the {@link MappedByteBuffer}s of the
+ * segments.
+ *
+ * The file must not be truncated while it is mapped. The OS reports an access to a page beyond the
+ * new end of the file as a fault, which the JVM turns into an {@link InternalError} that is
+ * reported as an R error here, and {@link #materialize()} checks the current size of the file
+ * before copying it.
+ */
+public abstract class RMappedVector implements RAbstractVector {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final String path;
+    private final long end;
+    private final int length;
+    private final int elementShift;
+    private final ByteBuffer[] buffers;
+
+    protected RMappedVector(String path, long end, MappedByteBuffer[] buffers, int length, int elementShift) {
+        this.path = path;
+        this.end = end;
+        this.length = length;
+        this.elementShift = elementShift;
+        this.buffers = new ByteBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            this.buffers[i] = buffers[i].order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Maps {@code length} elements of the given {@code type} (double, integer or raw) starting at
+     * byte {@code offset} of the file. A negative {@code length} maps everything up to the end of
+     * the file.
+     */
+    public static RMappedVector map(String path, RType type, long offset, long length) throws IOException {
+        int shift;
+        switch (type) {
+            case Double:
+                shift = 3;
+                break;
+            case Integer:
+                shift = 2;
+                break;
+            case Raw:
+                shift = 0;
+                break;
+            default:
+                throw new IllegalArgumentException("only double, integer and raw vectors can be mapped");
+        }
+        if (offset < 0 || (offset & ((1 << shift) - 1)) != 0) {
+            throw new IllegalArgumentException("'offset' must be a non-negative multiple of the element size");
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long count = length < 0 ? Math.max(0, size - offset) >> shift : length;
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("too many elements to map");
+            }
+            long bytes = count << shift;
+            if (offset + bytes > size) {
+                throw new IllegalArgumentException("the file is too short");
+            }
+            MappedByteBuffer[] buffers = new MappedByteBuffer[(int) ((bytes + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < buffers.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                buffers[i] = channel.map(MapMode.READ_ONLY, offset + start, Math.min(SEGMENT_SIZE, bytes - start));
+            }
+            switch (type) {
+                case Double:
+                    return new RMappedDoubleVector(path, offset + bytes, buffers, (int) count);
+                case Integer:
+                    return new RMappedIntVector(path, offset + bytes, buffers, (int) count);
+                default:
+                    return new RMappedRawVector(path, offset + bytes, buffers, (int) count);
+            }
+        }
+    }
+
+    private ByteBuffer getBuffer(int index) {
+        assert index >= 0 && index < length;
+        return buffers[(int) (((long) index << elementShift) >>> SEGMENT_SHIFT)];
+    }
+
+    private int getBufferIndex(int index) {
+        return (int) (((long) index << elementShift) & SEGMENT_MASK);
+    }
+
+    protected final double getDouble(int index) {
+        try {
+            return getBuffer(index).getDouble(getBufferIndex(index));
+        } catch (InternalError e) {
+            throw truncated();
+        }
+    }
+
+    protected final int getInt(int index) {
+        try {
+            return getBuffer(index).getInt(getBufferIndex(index));
+        } catch (InternalError e) {
+            throw truncated();
+        }
+    }
+
+    protected final byte getByte(int index) {
+        try {
+            return getBuffer(index).get(getBufferIndex(index));
+        } catch (InternalError e) {
+            throw truncated();
+        }
+    }
+
+    /**
+     * Raises an R error if the file is now shorter than the mapped region, called before the whole
+     * vector is copied.
+     */
+    @TruffleBoundary
+    protected final void checkFileSize() {
+        long size;
+        try {
+            size = Files.size(Paths.get(path));
+        } catch (IOException e) {
+            throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "cannot access mapped file '" + path + "': " + e.getMessage());
+        }
+        if (size < end) {
+            throw truncated();
+        }
+    }
+
+    @TruffleBoundary
+    private RError truncated() {
+        return RError.error(RError.NO_CALLER, RError.Message.GENERIC, "mapped file '" + path + "' was truncated");
+    }
+
+    public final String getPath() {
+        return path;
+    }
+
+    @Override
+    public Object getInternalStore() {
+        return this;
+    }
+
+    @Override
+    public final int getLength() {
+        return length;
+    }
+
+    @Override
+    public void setLength(int l) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public int getTrueLength() {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public void setTrueLength(int l) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public RAbstractContainer resize(int size) {
+        return materialize().resize(size);
+    }
+
+    @Override
+    public boolean isComplete() {
+        // the file contents are not scanned for NA values
+        return false;
+    }
+
+    @Override
+    public void setComplete(boolean complete) {
+        // the completeness of the file contents is not known
+    }
+
+    @Override
+    public final boolean hasDimensions() {
+        return false;
+    }
+
+    @Override
+    public final int[] getDimensions() {
+        return null;
+    }
+
+    @Override
+    public void setDimensions(int[] newDimensions) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final RStringVector getNames() {
+        return null;
+    }
+
+    @Override
+    public void setNames(RStringVector newNames) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final RList getDimNames() {
+        return null;
+    }
+
+    @Override
+    public void setDimNames(RList newDimNames) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final Object getRowNames() {
+        return RNull.instance;
+    }
+
+    @Override
+    public void setRowNames(RAbstractVector rowNames) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final DynamicObject initAttributes() {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final void initAttributes(DynamicObject newAttributes) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final DynamicObject getAttributes() {
+        return null;
+    }
+
+    @Override
+    public final boolean isMatrix() {
+        return false;
+    }
+
+    @Override
+    public final boolean isArray() {
+        return false;
+    }
+
+    @Override
+    public final boolean isObject() {
+        return false;
+    }
+
+    /**
+     * Mapped vectors are read-only, every update works on a heap copy.
+     */
+    @Override
+    public final RTypedValue getNonShared() {
+        return materialize().getNonShared();
+    }
+
+    @Override
+    public int getTypedValueInfo() {
+        return 0;
+    }
+
+    @Override
+    public void setTypedValueInfo(int value) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public boolean isS4() {
+        return false;
+    }
+
+    private RVector<?> createVector() {
+        RVector<?> result = materialize();
+        MemoryCopyTracer.reportCopying(this, result);
+        return result;
+    }
+
+    @Override
+    public final RAbstractVector copy() {
+        return createVector();
+    }
+
+    @Override
+    public final RAbstractVector copyDropAttributes() {
+        return createVector();
+    }
+
+    @Override
+    public final RAbstractVector copyWithNewDimensions(int[] newDimensions) {
+        return createVector().copyWithNewDimensions(newDimensions);
+    }
+
+    @Override
+    public final RVector<?> copyResized(int size, boolean fillNA) {
+        return materialize().copyResized(size, fillNA);
+    }
+
+    @Override
+    public final RVector<?> copyResizedWithDimensions(int[] newDimensions, boolean fillNA) {
+        return materialize().copyResizedWithDimensions(newDimensions, fillNA);
+    }
+
+    @Override
+    public abstract RVector<?> materialize();
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        return "mapped(" + getRType().getName() + ", " + path + ", " + length + ")";
+    }
+}
@@ -66,6 +66,8 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
 
     protected boolean complete; // "complete" means: does not contain NAs
 
+    private byte sortedness; // see RAbstractVector#getSortedness()
+
     protected RVector(boolean complete) {
         this.complete = complete;
     }
@@ -124,7 +126,11 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
      * @return vector data
      */
     public final ArrayT getDataNonShared() {
-        return !isShared() ? getReadonlyData() : getDataCopy();
+        if (!isShared()) {
+            resetSortedness();
+            return getReadonlyData();
+        }
+        return getDataCopy();
     }
 
     /**
@@ -136,7 +142,11 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
      * @return vector data
      */
     public final ArrayT getDataTemp() {
-        return isTemporary() ? getReadonlyData() : getDataCopy();
+        if (isTemporary()) {
+            resetSortedness();
+            return getReadonlyData();
+        }
+        return getDataCopy();
     }
 
     @Override
@@ -145,6 +155,29 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
         assert RAbstractVector.verify(this);
     }
 
+    @Override
+    public final int getSortedness() {
+        // native code can update the data behind our back
+        return getNativeMirror() == null ? sortedness : SORTEDNESS_UNKNOWN;
+    }
+
+    /**
+     * Records what is known about the order of the elements (see
+     * {@link RAbstractVector#getSortedness()}), only integer and double vectors can be marked.
+     */
+    public final void setSortedness(int sortedness) {
+        this.sortedness = (byte) sortedness;
+        assert RAbstractVector.verifySortedness(this, sortedness);
+    }
+
+    /**
+     * Drops the sortedness hint, must be called whenever the data may change, e.g. by the setters
+     * of {@link VectorAccess}.
+     */
+    public final void resetSortedness() {
+        sortedness = SORTEDNESS_UNKNOWN;
+    }
+
     private void removeAttributeMapping(String key) {
         if (this.attributes != null) {
             this.attributes.delete(key);
@@ -0,0 +1,544 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data.closures;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.MemoryCopyTracer;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.RShareable;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.RTypedValue;
+import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.nodes.FastPathVectorAccess.FastPathFromDoubleAccess;
+import com.oracle.truffle.r.runtime.data.nodes.SlowPathVectorAccess.SlowPathFromDoubleAccess;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
+import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
+import com.oracle.truffle.r.runtime.ops.UnaryArithmetic;
+
+/**
+ * A deferred element-wise double expression, e.g. {@code a * 2 + b / c - 1}. Instead of allocating
+ * one temporary vector per operator, the arithmetic nodes build a tree of
+ * {@link RFusedDoubleVector}s (enabled with {@link FastROptions#FusedArithmetic}) whose leaves are
+ * ordinary attribute-free double vectors. The tree is evaluated in a single chunked loop when the
+ * value is consumed by anything that is not itself a fusable operation, and at the latest when it is
+ * assigned to a variable or stored in a list. An evaluated vector keeps its elements, so it is still
+ * a valid double vector, e.g. for serialization, and it is materialized when passed to native code.
+ *
+ * Only operands without attributes take part, so the result never has attributes either, and the
+ * recycling is restricted to equal lengths and scalars, i.e., no warnings can be lost. The NA
+ * handling mirrors {@code BinaryMapArithmeticFunctionNode.applyDouble}.
+ */
+public final class RFusedDoubleVector implements RAbstractDoubleVector {
+
+    /** Vectors shorter than this are cheaper to compute eagerly. */
+    public static final int MIN_LENGTH = 1024;
+
+    /** Deeper operands are evaluated and used as leaves to keep the recursion bounded. */
+    private static final int MAX_DEPTH = 16;
+
+    private static final int CHUNK_SIZE = 4096;
+
+    public enum Kind {
+        ADD,
+        SUBTRACT,
+        MULTIPLY,
+        DIV,
+        NEGATE
+    }
+
+    private final Kind kind;
+    /** The operands, released once {@link #data} is computed. */
+    private RAbstractDoubleVector left;
+    private RAbstractDoubleVector right;
+    private final int length;
+    private int depth;
+    private final boolean complete;
+
+    /** The evaluated elements, filled on the first indexed read. */
+    private double[] data;
+
+    private RFusedDoubleVector(Kind kind, RAbstractDoubleVector left, RAbstractDoubleVector right, int length) {
+        this.kind = kind;
+        this.left = left;
+        this.right = right;
+        this.length = length;
+        this.depth = 1 + Math.max(depthOf(left), right == null ? 0 : depthOf(right));
+        this.complete = left.isComplete() && (right == null || right.isComplete());
+    }
+
+    /**
+     * Consulted when an arithmetic node is created, so that the option can be changed at runtime,
+     * e.g. in tests.
+     */
+    public static boolean isEnabled() {
+        return FastROptions.FusedArithmetic.getBooleanValue();
+    }
+
+    public static Kind getKind(BinaryArithmetic arithmetic) {
+        if (arithmetic instanceof BinaryArithmetic.Add) {
+            return Kind.ADD;
+        } else if (arithmetic instanceof BinaryArithmetic.Subtract) {
+            return Kind.SUBTRACT;
+        } else if (arithmetic instanceof BinaryArithmetic.Multiply) {
+            return Kind.MULTIPLY;
+        } else if (arithmetic instanceof BinaryArithmetic.Div) {
+            return Kind.DIV;
+        }
+        return null;
+    }
+
+    public static Kind getKind(UnaryArithmetic arithmetic) {
+        return arithmetic instanceof UnaryArithmetic.Negate ? Kind.NEGATE : null;
+    }
+
+    private static boolean isFusableOperand(Object value) {
+        return value instanceof RAbstractDoubleVector && ((RAbstractDoubleVector) value).getAttributes() == null;
+    }
+
+    /**
+     * Determines whether {@code left op right} can be deferred: both operands must be double vectors
+     * without attributes, with equal lengths or one of them a scalar, and the result long enough.
+     */
+    public static boolean isFusable(Object left, Object right) {
+        if (!isFusableOperand(left) || !isFusableOperand(right)) {
+            return false;
+        }
+        int leftLength = ((RAbstractDoubleVector) left).getLength();
+        int rightLength = ((RAbstractDoubleVector) right).getLength();
+        if (leftLength == rightLength) {
+            return leftLength >= MIN_LENGTH;
+        }
+        return (leftLength == 1 && rightLength >= MIN_LENGTH) || (rightLength == 1 && leftLength >= MIN_LENGTH);
+    }
+
+    public static boolean isFusable(Object operand) {
+        return isFusableOperand(operand) && ((RAbstractDoubleVector) operand).getLength() >= MIN_LENGTH;
+    }
+
+    @TruffleBoundary
+    public static RFusedDoubleVector createBinary(Kind kind, RAbstractDoubleVector left, RAbstractDoubleVector right) {
+        assert kind != Kind.NEGATE && isFusable(left, right);
+        return new RFusedDoubleVector(kind, leaf(left), leaf(right), Math.max(left.getLength(), right.getLength()));
+    }
+
+    @TruffleBoundary
+    public static RFusedDoubleVector createNegate(RAbstractDoubleVector operand) {
+        assert isFusable(operand);
+        return new RFusedDoubleVector(Kind.NEGATE, leaf(operand), null, operand.getLength());
+    }
+
+    private static int depthOf(RAbstractDoubleVector operand) {
+        return operand instanceof RFusedDoubleVector ? ((RFusedDoubleVector) operand).depth : 0;
+    }
+
+    /**
+     * Prepares an operand to be captured by the tree. Shareable vectors get their reference count
+     * incremented, so that any later update of the variable they are bound to copies them instead
+     * of changing the deferred result. The increment is undone by {@link #release} once the tree
+     * does not need the operand anymore, i.e. when it is evaluated, which happens at the latest
+     * when the result is assigned or shared (see {@link #evaluateNow()}).
+     */
+    private static RAbstractDoubleVector leaf(RAbstractDoubleVector operand) {
+        if (operand instanceof RFusedDoubleVector) {
+            RFusedDoubleVector fused = (RFusedDoubleVector) operand;
+            if (fused.depth >= MAX_DEPTH) {
+                fused.getData();
+            }
+        } else if (operand instanceof RShareable && !((RShareable) operand).isSharedPermanent()) {
+            ((RShareable) operand).incRefCount();
+        }
+        return operand;
+    }
+
+    private static void release(RAbstractDoubleVector operand) {
+        if (operand != null && !(operand instanceof RFusedDoubleVector) && operand instanceof RShareable && !((RShareable) operand).isSharedPermanent()) {
+            ((RShareable) operand).decRefCount();
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isEvaluated() {
+        return data != null;
+    }
+
+    /**
+     * Evaluates the tree unless already done, which releases the operands. Called whenever the
+     * value is stored, so that no operand stays shared for as long as the result is alive.
+     */
+    public void evaluateNow() {
+        getData();
+    }
+
+    private double[] getData() {
+        double[] result = data;
+        if (result == null) {
+            data = result = evaluate();
+            /*
+             * Drop the operands so that the evaluated node does not keep the whole chain alive
+             * (e.g. "x <- x * 0.5 + 1" in a loop) and so that the leaves can be updated in place
+             * again.
+             */
+            release(left);
+            release(right);
+            left = null;
+            right = null;
+            depth = 0;
+        }
+        return result;
+    }
+
+    @TruffleBoundary
+    private double[] evaluate() {
+        double[] result = new double[length];
+        double[][] scratch = new double[depth][];
+        double[] chunk = new double[Math.min(CHUNK_SIZE, length)];
+        for (int from = 0; from < length; from += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, length - from);
+            evaluateChunk(from, count, chunk, scratch, 0);
+            System.arraycopy(chunk, 0, result, from, count);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the elements {@code [from, from + count)} into {@code dst}. Each level of the tree
+     * uses its own scratch buffer for the right operand, the left one is computed in place.
+     */
+    private void evaluateChunk(int from, int count, double[] dst, double[][] scratch, int level) {
+        load(left, from, count, dst, scratch, level + 1);
+        if (kind == Kind.NEGATE) {
+            for (int i = 0; i < count; i++) {
+                double x = dst[i];
+                dst[i] = RRuntime.isNA(x) ? RRuntime.DOUBLE_NA : -x;
+            }
+            return;
+        }
+        double[] rightValues = scratch[level];
+        if (rightValues == null) {
+            scratch[level] = rightValues = new double[dst.length];
+        }
+        load(right, from, count, rightValues, scratch, level + 1);
+        switch (kind) {
+            case ADD:
+                for (int i = 0; i < count; i++) {
+                    double l = dst[i];
+                    double r = rightValues[i];
+                    dst[i] = isNA(l, r) ? na(l) : l + r;
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < count; i++) {
+                    double l = dst[i];
+                    double r = rightValues[i];
+                    dst[i] = isNA(l, r) ? na(l) : l - r;
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < count; i++) {
+                    double l = dst[i];
+                    double r = rightValues[i];
+                    dst[i] = isNA(l, r) ? na(l) : l * r;
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < count; i++) {
+                    double l = dst[i];
+                    double r = rightValues[i];
+                    dst[i] = isNA(l, r) ? na(l) : l / r;
+                }
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+    }
+
+    private static boolean isNA(double l, double r) {
+        return RRuntime.isNA(l) || RRuntime.isNA(r);
+    }
+
+    /**
+     * The result for an NA operand: NA, unless the left operand is NaN (NaN op NA == NaN).
+     */
+    private static double na(double l) {
+        return !RRuntime.isNA(l) && Double.isNaN(l) ? l : RRuntime.DOUBLE_NA;
+    }
+
+    private static void load(RAbstractDoubleVector operand, int from, int count, double[] dst, double[][] scratch, int level) {
+        if (operand.getLength() == 1) {
+            Arrays.fill(dst, 0, count, operand.getDataAt(0));
+        } else if (operand instanceof RFusedDoubleVector && !((RFusedDoubleVector) operand).isEvaluated()) {
+            ((RFusedDoubleVector) operand).evaluateChunk(from, count, dst, scratch, level);
+        } else if (operand instanceof RFusedDoubleVector) {
+            System.arraycopy(((RFusedDoubleVector) operand).data, from, dst, 0, count);
+        } else if (operand instanceof RDoubleVector && ((RDoubleVector) operand).getInternalManagedData() != null) {
+            System.arraycopy(((RDoubleVector) operand).getInternalManagedData(), from, dst, 0, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                dst[i] = operand.getDataAt(from + i);
+            }
+        }
+    }
+
+    @Override
+    public double getDataAt(int index) {
+        assert index >= 0 && index < length;
+        return getData()[index];
+    }
+
+    @Override
+    public RDoubleVector materialize() {
+        RDoubleVector vector = RDataFactory.createDoubleVector(Arrays.copyOf(getData(), length), complete);
+        MemoryCopyTracer.reportCopying(this, vector);
+        return vector;
+    }
+
+    @Override
+    public RAbstractVector castSafe(RType type, ConditionProfile isNAProfile, boolean keepAttributes) {
+        if (type == RType.Double) {
+            return this;
+        }
+        return materialize().castSafe(type, isNAProfile, keepAttributes);
+    }
+
+    @Override
+    public Object getInternalStore() {
+        return this;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public void setLength(int l) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public int getTrueLength() {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public void setTrueLength(int l) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public RAbstractContainer resize(int size) {
+        return materialize().resize(size);
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public void setComplete(boolean c) {
+        // the completeness is derived from the operands
+    }
+
+    @Override
+    public boolean hasDimensions() {
+        return false;
+    }
+
+    @Override
+    public int[] getDimensions() {
+        return null;
+    }
+
+    @Override
+    public void setDimensions(int[] newDimensions) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public RStringVector getNames() {
+        return null;
+    }
+
+    @Override
+    public void setNames(RStringVector newNames) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public RList getDimNames() {
+        return null;
+    }
+
+    @Override
+    public void setDimNames(RList newDimNames) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public Object getRowNames() {
+        return RNull.instance;
+    }
+
+    @Override
+    public void setRowNames(RAbstractVector rowNames) {
+        // should only be used on materialized vector
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public DynamicObject initAttributes() {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public void initAttributes(DynamicObject newAttributes) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public DynamicObject getAttributes() {
+        return null;
+    }
+
+    @Override
+    public boolean isMatrix() {
+        return false;
+    }
+
+    @Override
+    public boolean isArray() {
+        return false;
+    }
+
+    @Override
+    public boolean isObject() {
+        return false;
+    }
+
+    @Override
+    public RTypedValue getNonShared() {
+        return materialize().getNonShared();
+    }
+
+    @Override
+    public int getTypedValueInfo() {
+        return 0;
+    }
+
+    @Override
+    public void setTypedValueInfo(int value) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public boolean isS4() {
+        return false;
+    }
+
+    @Override
+    public RAbstractVector copy() {
+        return materialize();
+    }
+
+    @Override
+    public RAbstractVector copyDropAttributes() {
+        return materialize();
+    }
+
+    @Override
+    public RAbstractVector copyWithNewDimensions(int[] newDimensions) {
+        return materialize().copyWithNewDimensions(newDimensions);
+    }
+
+    @Override
+    public RVector<?> copyResized(int size, boolean fillNA) {
+        return materialize().copyResized(size, fillNA);
+    }
+
+    @Override
+    public RVector<?> copyResizedWithDimensions(int[] newDimensions, boolean fillNA) {
+        return materialize().copyResizedWithDimensions(newDimensions, fillNA);
+    }
+
+    @Override
+    public RDoubleVector createEmptySameType(int newLength, boolean newIsComplete) {
+        return RDataFactory.createDoubleVector(new double[newLength], newIsComplete);
+    }
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        return "fused(" + kind + ", " + length + ")";
+    }
+
+    private static final class FastPathAccess extends FastPathFromDoubleAccess {
+
+        FastPathAccess(RAbstractContainer value) {
+            super(value);
+        }
+
+        @Override
+        protected double getDouble(Object store, int index) {
+            return ((RFusedDoubleVector) store).getDataAt(index);
+        }
+    }
+
+    @Override
+    public VectorAccess access() {
+        return new FastPathAccess(this);
+    }
+
+    private static final SlowPathFromDoubleAccess SLOW_PATH_ACCESS = new SlowPathFromDoubleAccess() {
+        @Override
+        protected double getDouble(Object store, int index) {
+            return ((RFusedDoubleVector) store).getDataAt(index);
+        }
+    };
+
+    @Override
+    public VectorAccess slowPathAccess() {
+        return SLOW_PATH_ACCESS;
+    }
+}
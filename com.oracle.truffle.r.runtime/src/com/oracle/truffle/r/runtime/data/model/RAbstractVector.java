@@ -101,6 +101,56 @@ public interface RAbstractVector extends RAbstractContainer {
 
     void setComplete(boolean complete);
 
+    /**
+     * Nothing is known about the order of the elements, see {@link #getSortedness()}.
+     */
+    int SORTEDNESS_UNKNOWN = 0;
+
+    /**
+     * The elements are non-decreasing and there are no {@code NA} or {@code NaN} values.
+     */
+    int SORTED_INCREASING = 1;
+
+    /**
+     * The elements are strictly increasing (and hence unique) and there are no {@code NA} or
+     * {@code NaN} values.
+     */
+    int SORTED_STRICTLY_INCREASING = 2;
+
+    /**
+     * Returns what is known about the order of the elements of an integer or double vector, similar
+     * to the {@code is_sorted} and {@code no_na} hints of ALTREP vectors in GnuR. The hint is
+     * conservative: {@link #SORTEDNESS_UNKNOWN} does not imply that the vector is unsorted and
+     * vectors drop their hint whenever their data may change.
+     */
+    default int getSortedness() {
+        return SORTEDNESS_UNKNOWN;
+    }
+
+    /**
+     * Verifies that the elements of the given vector are in the order claimed by the sortedness
+     * hint.
+     */
+    static boolean verifySortedness(RAbstractVector vector, int sortedness) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (sortedness == SORTEDNESS_UNKNOWN) {
+            return true;
+        }
+        VectorAccess access = vector.slowPathAccess();
+        assert access.getType() == RType.Integer || access.getType() == RType.Double : "sortedness hint on " + access.getType() + " vector";
+        access.na.enable(true);
+        try (SequentialIterator iter = access.access(vector)) {
+            double last = Double.NEGATIVE_INFINITY;
+            while (access.next(iter)) {
+                double current = access.getDouble(iter);
+                assert !access.isNA(iter) && !Double.isNaN(current) : "element " + iter.getIndex() + " of vector " + vector + " is NA";
+                assert iter.getIndex() == 0 || (sortedness == SORTED_STRICTLY_INCREASING ? last < current : last <= current) : "element " + iter.getIndex() + " of vector " + vector + " is out of order";
+                last = current;
+            }
+        }
+        return true;
+    }
+
     /**
      * Verifies the integrity of the vector, mainly whether a vector that claims to be
      * {@link #isComplete()} contains NA values.
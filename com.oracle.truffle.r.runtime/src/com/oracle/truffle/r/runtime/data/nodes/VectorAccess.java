@@ -39,6 +39,7 @@ import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.RRawVector;
 import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
@@ -83,11 +84,13 @@ public abstract class VectorAccess extends Node {
 
         protected final Object store; // internal store, native mirror or vector
         protected final int length;
+        protected final RVector<?> vector; // the vector whose elements are written, if any
         protected int index;
 
-        private SequentialIterator(Object store, int length) {
+        private SequentialIterator(Object store, int length, RVector<?> vector) {
             this.store = store;
             this.length = length;
+            this.vector = vector;
             this.index = -1;
         }
 
@@ -114,10 +117,12 @@ public abstract class VectorAccess extends Node {
 
         protected final Object store; // internal store, native mirror or vector
         protected final int length;
+        protected final RVector<?> vector; // the vector whose elements are written, if any
 
-        private RandomIterator(Object store, int length) {
+        private RandomIterator(Object store, int length, RVector<?> vector) {
             this.store = store;
             this.length = length;
+            this.vector = vector;
         }
 
         @Override
@@ -205,6 +210,16 @@ public abstract class VectorAccess extends Node {
 
     protected abstract boolean isNA(Object store, int index);
 
+    /**
+     * Drops the hints derived from the elements of the vector, e.g. its sortedness, which a write
+     * may invalidate. Reading the store does not drop them.
+     */
+    private static void dataChanged(RVector<?> vector) {
+        if (vector != null) {
+            vector.resetSortedness();
+        }
+    }
+
     public final Object cast(Object value) {
         return clazz.cast(value);
     }
@@ -239,10 +254,10 @@ public abstract class VectorAccess extends Node {
             int length = getLength(container);
             RBaseNode.reportWork(this, length);
             na.enable(container);
-            return new SequentialIterator(getStore(container), length);
+            return new SequentialIterator(getStore(container), length, container instanceof RVector ? (RVector<?>) container : null);
         } else {
             na.enable(true);
-            return new SequentialIterator(castVector, getLength(castVector));
+            return new SequentialIterator(castVector, getLength(castVector), null);
         }
     }
 
@@ -312,42 +327,52 @@ public abstract class VectorAccess extends Node {
     }
 
     public final void setInt(SequentialIterator iter, int value) {
+        dataChanged(iter.vector);
         setInt(iter.store, iter.index, value);
     }
 
     public final void setDouble(SequentialIterator iter, double value) {
+        dataChanged(iter.vector);
         setDouble(iter.store, iter.index, value);
     }
 
     public final void setComplex(SequentialIterator iter, double real, double imaginary) {
+        dataChanged(iter.vector);
         setComplex(iter.store, iter.index, real, imaginary);
     }
 
     public final void setRaw(SequentialIterator iter, byte value) {
+        dataChanged(iter.vector);
         setRaw(iter.store, iter.index, value);
     }
 
     public final void setLogical(SequentialIterator iter, byte value) {
+        dataChanged(iter.vector);
         setLogical(iter.store, iter.index, value);
     }
 
     public final void setString(SequentialIterator iter, String value) {
+        dataChanged(iter.vector);
         setString(iter.store, iter.index, value);
     }
 
     public final void setListElement(SequentialIterator iter, Object value) {
+        dataChanged(iter.vector);
         setListElement(iter.store, iter.index, value);
     }
 
     public final void setFromSameType(SequentialIterator iter, VectorAccess sourceAccess, SequentialIterator sourceIter) {
+        dataChanged(iter.vector);
         setFromSameType(iter.store, iter.index, sourceAccess, sourceIter);
     }
 
     public final void setFromSameType(SequentialIterator iter, VectorAccess sourceAccess, RandomIterator sourceIter, int sourceIndex) {
+        dataChanged(iter.vector);
         setFromSameType(iter.store, iter.index, sourceAccess, sourceIter, sourceIndex);
     }
 
     public final void setNA(SequentialIterator iter) {
+        dataChanged(iter.vector);
         setNA(iter.store, iter.index);
     }
 
@@ -364,10 +389,10 @@ public abstract class VectorAccess extends Node {
             RAbstractContainer container = (RAbstractContainer) castVector;
             int length = getLength(container);
             na.enable(container);
-            return new RandomIterator(getStore(container), length);
+            return new RandomIterator(getStore(container), length, container instanceof RVector ? (RVector<?>) container : null);
         } else {
             na.enable(true);
-            return new RandomIterator(castVector, getLength(castVector));
+            return new RandomIterator(castVector, getLength(castVector), null);
         }
     }
 
@@ -413,42 +438,52 @@ public abstract class VectorAccess extends Node {
     }
 
     public final void setInt(RandomIterator iter, int index, int value) {
+        dataChanged(iter.vector);
         setInt(iter.store, index, value);
     }
 
     public final void setDouble(RandomIterator iter, int index, double value) {
+        dataChanged(iter.vector);
         setDouble(iter.store, index, value);
     }
 
     public final void setComplex(RandomIterator iter, int index, double real, double imaginary) {
+        dataChanged(iter.vector);
         setComplex(iter.store, index, real, imaginary);
     }
 
     public final void setRaw(RandomIterator iter, int index, byte value) {
+        dataChanged(iter.vector);
         setRaw(iter.store, index, value);
     }
 
     public final void setLogical(RandomIterator iter, int index, byte value) {
+        dataChanged(iter.vector);
         setLogical(iter.store, index, value);
     }
 
     public final void setString(RandomIterator iter, int index, String value) {
+        dataChanged(iter.vector);
         setString(iter.store, index, value);
     }
 
     public final void setListElement(RandomIterator iter, int index, Object value) {
+        dataChanged(iter.vector);
         setListElement(iter.store, index, value);
     }
 
     public final void setFromSameType(RandomIterator iter, int index, VectorAccess sourceAccess, SequentialIterator sourceIter) {
+        dataChanged(iter.vector);
         setFromSameType(iter.store, index, sourceAccess, sourceIter);
     }
 
     public final void setFromSameType(RandomIterator iter, int index, VectorAccess sourceAccess, RandomIterator sourceIter, int sourceIndex) {
+        dataChanged(iter.vector);
         setFromSameType(iter.store, index, sourceAccess, sourceIter, sourceIndex);
     }
 
     public final void setNA(RandomIterator iter, int index) {
+        dataChanged(iter.vector);
         setNA(iter.store, index);
     }
 
@@ -38,6 +38,7 @@ import com.oracle.truffle.r.runtime.data.RScalarList;
 import com.oracle.truffle.r.runtime.data.RScalarVector;
 import com.oracle.truffle.r.runtime.data.RSequence;
 import com.oracle.truffle.r.runtime.data.RString;
+import com.oracle.truffle.r.runtime.data.closures.RFusedDoubleVector;
 
 public abstract class FFIWrapNode extends Node {
 
@@ -117,6 +118,11 @@ public abstract class FFIWrapNode extends Node {
         return seq.createVector();
     }
 
+    @Specialization
+    protected static Object wrap(RFusedDoubleVector value) {
+        return value.materialize();
+    }
+
     @Fallback
     protected static Object wrap(Object value) {
         CompilerDirectives.transferToInterpreter();
@@ -52,6 +52,7 @@ public enum NativeFunction {
     getcapturenames("((sint32, string): void, uint64, uint64): sint32", "call_pcre_"),
     study("(uint64, sint32): void", "call_pcre_"),
     exec("(uint64, uint64, [uint8], sint32, sint32, sint32, [sint32], sint32): sint32", "call_pcre_"),
+    free("(uint64): void", "call_pcre_"),
     // zip
     compress("([uint8], uint64, [uint8], uint64): sint32", "call_zip_"),
     uncompress("([uint8], uint64, [uint8], uint64): sint32", "call_zip_"),
@@ -75,6 +76,8 @@ public enum NativeFunction {
     zunmqr("(string, string, sint32, sint32, sint32, [double], sint32, [double], [double], sint32, [double], sint32) : sint32", "call_lapack_"),
     ztrtrs("(string, string, string, sint32, sint32, [double], sint32, [double], sint32) : sint32", "call_lapack_"),
     dtrsm("(string, string, string, string, sint32, sint32, double, [double], sint32, [double], sint32) : void", "call_lapack_"),
+    dgemm("(string, string, sint32, sint32, sint32, double, [double], sint32, [double], sint32, double, [double], sint32) : void", "call_lapack_"),
+    dsyrk("(string, string, sint32, sint32, double, [double], sint32, double, [double], sint32) : void", "call_lapack_"),
     // misc
     exactSumFunc("([double], sint32, sint32, sint32): double", "call_misc_"),
     dqrls("([double], sint32, sint32, [double], sint32, double, [double], [double], [double], [sint32], [sint32], [double], [double]): void", "call_misc_"),
@@ -26,6 +26,8 @@ import java.nio.charset.StandardCharsets;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.interop.ForeignAccess;
 import com.oracle.truffle.api.interop.Message;
 import com.oracle.truffle.api.interop.TruffleObject;
@@ -33,6 +35,7 @@ import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.ffi.interop.NativeCharArray;
 import com.oracle.truffle.r.runtime.ffi.interop.pcre.CaptureNamesResult;
 import com.oracle.truffle.r.runtime.ffi.interop.pcre.CompileResult;
@@ -184,6 +187,40 @@ public final class PCRERFFI {
         }
     }
 
+    /**
+     * Releases a pattern previously compiled by {@link CompileNode}.
+     */
+    public static final class FreeNode extends NativeCallNode {
+        private FreeNode(DownCallNodeFactory factory) {
+            super(factory.createDownCallNode(NativeFunction.free));
+        }
+
+        public void execute(long code) {
+            call(code);
+        }
+
+        public static FreeNode create() {
+            return RFFIFactory.getPCRERFFI().createFreeNode();
+        }
+    }
+
+    public static final class FreeRootNode extends RFFIRootNode<FreeNode> {
+        protected FreeRootNode(FreeNode wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            Object[] args = frame.getArguments();
+            rffiNode.execute((long) args[0]);
+            return null;
+        }
+
+        public static RootCallTarget create(RContext context) {
+            return context.getOrCreateCachedCallTarget(FreeRootNode.class, () -> new FreeRootNode(context.getRFFI().pcreRFFI.createFreeNode()).getCallTarget());
+        }
+    }
+
     public MaketablesNode createMaketablesNode() {
         return new MaketablesNode(downCallNodeFactory);
     }
@@ -208,4 +245,8 @@ public final class PCRERFFI {
     public ExecNode createExecNode() {
         return new ExecNode(downCallNodeFactory);
     }
+
+    public FreeNode createFreeNode() {
+        return new FreeNode(downCallNodeFactory);
+    }
 }
@@ -34,6 +34,9 @@ import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.RMappedDoubleVector;
+import com.oracle.truffle.r.runtime.data.RMappedIntVector;
+import com.oracle.truffle.r.runtime.data.RMappedRawVector;
 import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RPromise;
@@ -45,6 +48,7 @@ import com.oracle.truffle.r.runtime.data.RStringSequence;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.RSymbol;
 import com.oracle.truffle.r.runtime.data.RUnboundValue;
+import com.oracle.truffle.r.runtime.data.closures.RFusedDoubleVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
 
 // Transcribed from GnuR src/include/Rinternals.h and src/main/serialize.c
@@ -62,8 +66,8 @@ public enum SEXPTYPE {
     BUILTINSXP(8), /* builtin non-special forms */
     CHARSXP(9), /* "scalar" string type (GnuR internal only) */
     LGLSXP(10, RLogicalVector.class, Byte.class), /* logical vectors */
-    INTSXP(13, RIntVector.class, RIntSequence.class, Integer.class), /* integer vectors */
-    REALSXP(14, RDoubleVector.class, RDoubleSequence.class, Double.class), /* real variables */
+    INTSXP(13, RIntVector.class, RIntSequence.class, RMappedIntVector.class, Integer.class), /* integer vectors */
+    REALSXP(14, RDoubleVector.class, RDoubleSequence.class, RMappedDoubleVector.class, RFusedDoubleVector.class, Double.class), /* real variables */
     CPLXSXP(15, RComplexVector.class, RComplex.class), /* complex variables */
     STRSXP(16, RStringVector.class, RStringSequence.class, String.class), /* string vectors */
     DOTSXP(17, RArgsValuesAndNames.class), /* dot-dot-dot object */
@@ -73,7 +77,7 @@ public enum SEXPTYPE {
     BCODESXP(21), /* byte code */
     EXTPTRSXP(22, RExternalPtr.class), /* external pointer */
     WEAKREFSXP(23), /* weak reference */
-    RAWSXP(24, RRawVector.class, RRaw.class), /* raw bytes */
+    RAWSXP(24, RRawVector.class, RMappedRawVector.class, RRaw.class), /* raw bytes */
     S4SXP(25, RS4Object.class), /* S4 non-vector */
 
     NEWSXP(30), /* fresh node created in new page */
@@ -36,6 +36,18 @@ import com.oracle.truffle.r.runtime.rng.RandomNumberGenerator;
 public class RandomFunctions {
     public abstract static class RandFunction3_Double extends RBaseNode {
         public abstract double execute(double a, double b, double c, RandomNumberProvider rand);
+
+        /**
+         * Fills the whole {@code result} array with random values for the given scalar parameters.
+         * The values must be the same as those produced by the same number of calls to
+         * {@link #execute(double, double, double, RandomNumberProvider)}, none of them may be
+         * {@code NaN}. Functions that can draw the underlying uniform values in bulk override this,
+         * the default and the implementations for unsupported parameters return {@code false}
+         * without drawing any values.
+         */
+        public boolean executeBulk(double[] result, double a, double b, double c, RandomNumberProvider rand) {
+            return false;
+        }
     }
 
     public abstract static class RandFunction2_Double extends RandFunction3_Double {
@@ -45,6 +57,16 @@ public class RandomFunctions {
         public final double execute(double a, double b, double c, RandomNumberProvider rand) {
             return execute(a, b, rand);
         }
+
+        @SuppressWarnings("unused")
+        public boolean executeBulk(double[] result, double a, double b, RandomNumberProvider rand) {
+            return false;
+        }
+
+        @Override
+        public final boolean executeBulk(double[] result, double a, double b, double c, RandomNumberProvider rand) {
+            return executeBulk(result, a, b, rand);
+        }
     }
 
     public abstract static class RandFunction1_Double extends RandFunction3_Double {
@@ -80,6 +102,22 @@ public class RandomFunctions {
             return generator.genrandDouble();
         }
 
+        public void unifRand(double[] result, int offset, int length) {
+            generator.genrandDoubles(result, offset, length);
+        }
+
+        /**
+         * Fills {@code result} with values from N(0,1) if the current "norm kind" supports bulk
+         * generation, otherwise returns {@code false} without drawing any values.
+         */
+        public boolean normRand(double[] result) {
+            if (normKind != NormKind.INVERSION) {
+                return false;
+            }
+            SNorm.normRandInversion(generator, result);
+            return true;
+        }
+
         public double normRand() {
             return SNorm.normRand(generator, normKind);
         }
@@ -46,4 +46,15 @@ public final class Rnorm extends RandFunction2_Double {
             return mu + sigma * rand.normRand();
         }
     }
+
+    @Override
+    public boolean executeBulk(double[] result, double mu, double sigma, RandomNumberProvider rand) {
+        if (!Double.isFinite(mu) || !Double.isFinite(sigma) || sigma <= 0. || !rand.normRand(result)) {
+            return false;
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mu + sigma * result[i];
+        }
+        return true;
+    }
 }
@@ -113,12 +113,33 @@ public final class SNorm {
 
     private static final double BIG = 134217728; /* 2^27 */
 
+    /* number of normal values generated from one buffer of uniform values */
+    private static final int INVERSION_CHUNK = 4096;
+
     static double BMNormKeep = 0.0;
 
     private SNorm() {
         // only static members
     }
 
+    /**
+     * Bulk version of {@link #normRand(RandomNumberGenerator, NormKind)} for
+     * {@link NormKind#INVERSION}, the uniform values are drawn in chunks using
+     * {@link RandomNumberGenerator#genrandDoubles(double[], int, int)}. The results are the same as
+     * those of {@code result.length} calls to {@code normRand}.
+     */
+    public static void normRandInversion(RandomNumberGenerator rand, double[] result) {
+        double[] unif = new double[2 * Math.min(result.length, INVERSION_CHUNK)];
+        for (int start = 0; start < result.length; start += INVERSION_CHUNK) {
+            int count = Math.min(INVERSION_CHUNK, result.length - start);
+            rand.genrandDoubles(unif, 0, 2 * count);
+            for (int i = 0; i < count; i++) {
+                double u1 = (int) (BIG * unif[2 * i]) + unif[2 * i + 1];
+                result[start + i] = Qnorm.qnorm(u1 / BIG, 0.0, 1.0, true, false);
+            }
+        }
+    }
+
     @SuppressWarnings("unused")
     public static double normRand(RandomNumberGenerator rand, NormKind normKind) {
         double s;
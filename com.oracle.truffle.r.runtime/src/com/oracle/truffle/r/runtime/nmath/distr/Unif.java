@@ -55,6 +55,18 @@ public final class Unif {
             }
             return min + rand.unifRand() * (max - min);
         }
+
+        @Override
+        public boolean executeBulk(double[] result, double min, double max, RandomNumberProvider rand) {
+            if (!RRuntime.isFinite(min) || !RRuntime.isFinite(max) || max <= min) {
+                return false;
+            }
+            rand.unifRand(result, 0, result.length);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = min + result[i] * (max - min);
+            }
+            return true;
+        }
     }
 
     public static final class PUnif implements Function3_2 {
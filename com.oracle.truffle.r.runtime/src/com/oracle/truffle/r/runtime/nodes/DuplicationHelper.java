@@ -23,23 +23,34 @@ package com.oracle.truffle.r.runtime.nodes;
 import java.util.HashSet;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.HashIndex;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
 
 /**
  * Code sharing vehicle for the slight differences in behavior between {@code duplicated} and
  * {@code anyDuplicated} (both internal and native versions) and whether {@code fromLast} is
- * {@code TRUE/FALSE}.
+ * {@code TRUE/FALSE}. Atomic vectors are analyzed using {@link HashIndex}, the generic
+ * implementation is used for lists.
  */
 public class DuplicationHelper {
     private final RAbstractContainer x;
-    private final HashSet<Object> vectorContents = new HashSet<>();
+    private final HashSet<Object> vectorContents;
     private final HashSet<Object> incompContents;
     private final byte[] dupVec;
     private int index;
 
+    private DuplicationHelper(byte[] dupVec, int index) {
+        this.x = null;
+        this.vectorContents = null;
+        this.incompContents = null;
+        this.dupVec = dupVec;
+        this.index = index;
+    }
+
     public DuplicationHelper(RAbstractContainer x, RAbstractContainer incomparables, boolean justIndex, boolean fromLast) {
         this.x = x;
+        vectorContents = new HashSet<>();
         vectorContents.add(x.getDataAtAsObject(fromLast ? x.getLength() - 1 : 0));
 
         if (incomparables != null) {
@@ -83,6 +94,9 @@ public class DuplicationHelper {
 
     @TruffleBoundary
     public static DuplicationHelper analyze(RAbstractContainer x, RAbstractContainer incomparables, boolean justIndex, boolean fromLast) {
+        if (HashIndex.isSupported(x) && (incomparables == null || HashIndex.haveSameKeys(x, incomparables))) {
+            return analyzeHashed(x, incomparables, justIndex, fromLast);
+        }
         DuplicationHelper ds = new DuplicationHelper(x, incomparables, justIndex, fromLast);
         if (fromLast) {
             for (int i = x.getLength() - 2; i >= 0; i--) {
@@ -99,4 +113,30 @@ public class DuplicationHelper {
         }
         return ds;
     }
+
+    private static DuplicationHelper analyzeHashed(RAbstractContainer x, RAbstractContainer incomparables, boolean justIndex, boolean fromLast) {
+        HashIndex index = HashIndex.create(x, fromLast, true);
+        // positions of the incomparable values, zero for the others
+        int[] incomp = incomparables == null || incomparables.getLength() == 0 ? null : HashIndex.create(incomparables, false, false).match(x, 0);
+        int length = x.getLength();
+        if (justIndex) {
+            if (incomp == null) {
+                return new DuplicationHelper(null, index.getFirstDuplicate() + 1);
+            }
+            for (int k = 0; k < length; k++) {
+                int i = fromLast ? length - 1 - k : k;
+                if (index.isDuplicate(i) && incomp[i] == 0) {
+                    return new DuplicationHelper(null, i + 1);
+                }
+            }
+            return new DuplicationHelper(null, 0);
+        }
+        byte[] dupVec = new byte[length];
+        for (int i = 0; i < length; i++) {
+            if (index.isDuplicate(i) && (incomp == null || incomp[i] == 0)) {
+                dupVec[i] = RRuntime.LOGICAL_TRUE;
+            }
+        }
+        return new DuplicationHelper(dupVec, 0);
+    }
 }
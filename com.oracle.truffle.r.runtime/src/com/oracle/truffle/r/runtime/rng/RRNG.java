@@ -40,14 +40,18 @@ import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.frame.ActiveBinding;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.ffi.BaseRFFI;
+import com.oracle.truffle.r.runtime.rng.kt.KnuthTAOCP;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LEcuyerCMRG;
 import com.oracle.truffle.r.runtime.rng.mm.MarsagliaMulticarry;
 import com.oracle.truffle.r.runtime.rng.mt.MersenneTwister;
+import com.oracle.truffle.r.runtime.rng.sd.SuperDuper;
 import com.oracle.truffle.r.runtime.rng.user.UserRNG;
+import com.oracle.truffle.r.runtime.rng.wh.WichmannHill;
 
 /**
  * Facade class to the R random number generators, (see src/main/RNG.c in GnuR). The individual
- * generators are implemented in their own class. Currently there are only two implemented, the
- * default, {@link MersenneTwister} and {@link MarsagliaMulticarry}.
+ * generators are implemented in their own class, the default is {@link MersenneTwister}. All the
+ * kinds of GnuR are available, see {@link Kind}.
  *
  * The fact that the R programmer can set {@code .Random.seed} explicitly, as opposed to the
  * recommended approach of calling {@code set.seed}, is something of a pain as it changes the
@@ -63,14 +67,14 @@ public class RRNG {
      * {@link RRNG#doSetSeed}.
      */
     public enum Kind {
-        WICHMANN_HILL(),
+        WICHMANN_HILL(WichmannHill::new),
         MARSAGLIA_MULTICARRY(MarsagliaMulticarry::new),
-        SUPER_DUPER(),
+        SUPER_DUPER(SuperDuper::new),
         MERSENNE_TWISTER(MersenneTwister::new),
-        KNUTH_TAOCP(),
+        KNUTH_TAOCP(KnuthTAOCP::createTAOCP1997),
         USER_UNIF(UserRNG::new),
-        KNUTH_TAOCP2(),
-        LECUYER_CMRG();
+        KNUTH_TAOCP2(KnuthTAOCP::createTAOCP2002),
+        LECUYER_CMRG(LEcuyerCMRG::new);
 
         @CompilationFinal(dimensions = 1) static final Kind[] VALUES = values();
 
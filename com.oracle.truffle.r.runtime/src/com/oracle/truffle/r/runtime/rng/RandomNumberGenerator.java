@@ -37,6 +37,18 @@ public interface RandomNumberGenerator {
 
     double genrandDouble();
 
+    /**
+     * Fills {@code length} elements of {@code result} starting at {@code offset} with the values
+     * that the same number of consecutive {@link #genrandDouble()} calls would produce.
+     * Implementations override this to keep the generator state in local variables for the whole
+     * loop.
+     */
+    default void genrandDoubles(double[] result, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            result[offset + i] = genrandDouble();
+        }
+    }
+
     Kind getKind();
 
     /**
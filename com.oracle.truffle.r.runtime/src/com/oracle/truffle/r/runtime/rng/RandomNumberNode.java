@@ -32,14 +32,16 @@ public final class RandomNumberNode extends RBaseNode {
 
     public double[] executeDouble(int count) {
         double[] result = new double[count];
-        for (int i = 0; i < count; i++) {
-            result[i] = executeSingleDouble();
-        }
+        getGenerator().genrandDoubles(result, 0, count);
         return result;
     }
 
     public double executeSingleDouble() {
-        return generatorClassProfile.profile(generatorProfile.profile(RRNG.currentGenerator())).genrandDouble();
+        return getGenerator().genrandDouble();
+    }
+
+    private RandomNumberGenerator getGenerator() {
+        return generatorClassProfile.profile(generatorProfile.profile(RRNG.currentGenerator()));
     }
 
     public static RandomNumberNode create() {
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 1995-2012, The R Core Team
+ * Copyright (c) 2003, The R Foundation
+ * Copyright (c) 2018, Oracle and/or its affiliates
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.R-project.org/Licenses/
+ */
+package com.oracle.truffle.r.runtime.rng.kt;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.rng.RNGInitAdapter;
+import com.oracle.truffle.r.runtime.rng.RRNG;
+import com.oracle.truffle.r.runtime.rng.RRNG.Kind;
+
+/**
+ * "Knuth-TAOCP" and "Knuth-TAOCP-2002" RNGs, i.e. Knuth's lagged Fibonacci generator
+ * {@code ran_array} from TAOCP Vol. 2, 3rd edition. Transcribed from GnuR RNG.c. The two kinds
+ * differ only in the initialization: "Knuth-TAOCP" uses the 1997 version of {@code ran_start} (GnuR
+ * evaluates it in R code, see {@code .TAOCP1997init}), "Knuth-TAOCP-2002" the 2002 version.
+ *
+ * The first 100 seeds hold {@code ran_x}, the state of the generator, the last seed is the position
+ * ({@code KT_pos}) of the next value to be returned from {@code ran_x}.
+ */
+public final class KnuthTAOCP extends RNGInitAdapter {
+
+    private static final int KK = 100; /* the long lag */
+    private static final int LL = 37; /* the short lag */
+    private static final int MM = 1 << 30; /* the modulus */
+    private static final int TT = 70; /* guaranteed separation between streams */
+    private static final int QUALITY = 1009; /* recommended quality level for high-res use */
+    private static final double KT = 9.31322574615479e-10; /* = 2^-30 */
+    private static final int POS = KK;
+
+    private final boolean version2002;
+    private final int[] ranArrBuf = new int[QUALITY];
+
+    private KnuthTAOCP(boolean version2002) {
+        this.version2002 = version2002;
+    }
+
+    public static KnuthTAOCP createTAOCP1997() {
+        return new KnuthTAOCP(false);
+    }
+
+    public static KnuthTAOCP createTAOCP2002() {
+        return new KnuthTAOCP(true);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void init(int seed) {
+        int ranStartSeed = Integer.remainderUnsigned(seed, 1073741821);
+        if (version2002) {
+            ranStart2002(ranStartSeed);
+        } else {
+            ranStart1997(ranStartSeed);
+        }
+        setISeedItem(POS, KK);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void fixupSeeds(boolean initial) {
+        if (getISeedItem(POS) <= 0) {
+            setISeedItem(POS, KK);
+        }
+        /* check for all zeroes */
+        boolean notAllZero = false;
+        for (int j = 0; j < KK; j++) {
+            if (getISeedItem(j) != 0) {
+                notAllZero = true;
+                break;
+            }
+        }
+        if (!notAllZero) {
+            init(RRNG.timeToSeed());
+        }
+    }
+
+    @Override
+    public double genrandDouble() {
+        int pos = getISeedItem(POS);
+        if (pos >= KK) {
+            ranArray(ranArrBuf, QUALITY);
+            pos = 0;
+        }
+        setISeedItem(POS, pos + 1);
+        return fixup(getISeedItem(pos) * KT);
+    }
+
+    @Override
+    public void genrandDoubles(double[] result, int offset, int length) {
+        int pos = getISeedItem(POS);
+        int i = 0;
+        while (i < length) {
+            if (pos >= KK) {
+                ranArray(ranArrBuf, QUALITY);
+                pos = 0;
+            }
+            int count = Math.min(KK - pos, length - i);
+            for (int j = 0; j < count; j++) {
+                result[offset + i + j] = fixup(getISeedItem(pos + j) * KT);
+            }
+            pos += count;
+            i += count;
+        }
+        setISeedItem(POS, pos);
+    }
+
+    private static int modDiff(int x, int y) {
+        return (x - y) & (MM - 1);
+    }
+
+    private static boolean isOdd(long x) {
+        return (x & 1) != 0;
+    }
+
+    /**
+     * Puts n new random numbers into {@code aa} and advances the state {@code ran_x}.
+     */
+    private void ranArray(int[] aa, int n) {
+        int i;
+        int j;
+        for (j = 0; j < KK; j++) {
+            aa[j] = getISeedItem(j);
+        }
+        for (; j < n; j++) {
+            aa[j] = modDiff(aa[j - KK], aa[j - LL]);
+        }
+        for (i = 0; i < LL; i++, j++) {
+            setISeedItem(i, modDiff(aa[j - KK], aa[j - LL]));
+        }
+        for (; i < KK; i++, j++) {
+            setISeedItem(i, modDiff(aa[j - KK], getISeedItem(i - LL)));
+        }
+    }
+
+    private void ranStart1997(int seed) {
+        long[] x = new long[KK + KK - 1];
+        long ss = (seed + 2) & (MM - 2); /* evenize(seed + 2) */
+        for (int j = 0; j < KK; j++) {
+            x[j] = ss;
+            ss <<= 1;
+            if (ss >= MM) {
+                ss -= MM - 2;
+            }
+        }
+        x[1]++;
+        ss = seed & (MM - 1);
+        int t = TT - 1;
+        while (t != 0) {
+            for (int j = KK - 1; j > 0; j--) {
+                x[j + j] = x[j];
+            }
+            for (int j = KK + KK - 2; j > KK - LL; j -= 2) {
+                x[KK + KK - 1 - j] = x[j] & (MM - 2);
+            }
+            for (int j = KK + KK - 2; j >= KK; j--) {
+                if (isOdd(x[j])) {
+                    x[j - (KK - LL)] = modDiff((int) x[j - (KK - LL)], (int) x[j]);
+                    x[j - KK] = modDiff((int) x[j - KK], (int) x[j]);
+                }
+            }
+            if (isOdd(ss)) {
+                for (int j = KK; j > 0; j--) {
+                    x[j] = x[j - 1];
+                }
+                x[0] = x[KK];
+                if (isOdd(x[KK])) {
+                    x[LL] = modDiff((int) x[LL], (int) x[KK]);
+                }
+            }
+            if (ss != 0) {
+                ss >>= 1;
+            } else {
+                t--;
+            }
+        }
+        storeRanX(x);
+    }
+
+    private void ranStart2002(int seed) {
+        long[] x = new long[KK + KK - 1]; /* the preparation buffer */
+        long ss = (seed + 2) & (MM - 2);
+        for (int j = 0; j < KK; j++) {
+            x[j] = ss; /* bootstrap the buffer */
+            ss <<= 1;
+            if (ss >= MM) {
+                ss -= MM - 2; /* cyclic shift 29 bits */
+            }
+        }
+        x[1]++; /* make x[1] (and only x[1]) odd */
+        ss = seed & (MM - 1);
+        int t = TT - 1;
+        while (t != 0) {
+            for (int j = KK - 1; j > 0; j--) { /* "square" */
+                x[j + j] = x[j];
+                x[j + j - 1] = 0;
+            }
+            for (int j = KK + KK - 2; j >= KK; j--) {
+                x[j - (KK - LL)] = modDiff((int) x[j - (KK - LL)], (int) x[j]);
+                x[j - KK] = modDiff((int) x[j - KK], (int) x[j]);
+            }
+            if (isOdd(ss)) { /* "multiply by z" */
+                for (int j = KK; j > 0; j--) {
+                    x[j] = x[j - 1];
+                }
+                x[0] = x[KK]; /* shift the buffer cyclically */
+                x[LL] = modDiff((int) x[LL], (int) x[KK]);
+            }
+            if (ss != 0) {
+                ss >>= 1;
+            } else {
+                t--;
+            }
+        }
+        storeRanX(x);
+        int[] warmUp = new int[KK + KK - 1];
+        for (int j = 0; j < 10; j++) {
+            ranArray(warmUp, KK + KK - 1); /* warm things up */
+        }
+    }
+
+    private void storeRanX(long[] x) {
+        for (int j = 0; j < LL; j++) {
+            setISeedItem(j + KK - LL, (int) x[j]);
+        }
+        for (int j = LL; j < KK; j++) {
+            setISeedItem(j - LL, (int) x[j]);
+        }
+    }
+
+    @Override
+    public Kind getKind() {
+        return version2002 ? Kind.KNUTH_TAOCP2 : Kind.KNUTH_TAOCP;
+    }
+
+    @Override
+    public int getNSeed() {
+        return KK + 1;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 1995-2012, The R Core Team
+ * Copyright (c) 2003, The R Foundation
+ * Copyright (c) 2018, Oracle and/or its affiliates
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.R-project.org/Licenses/
+ */
+package com.oracle.truffle.r.runtime.rng.lecuyer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.rng.RNGInitAdapter;
+import com.oracle.truffle.r.runtime.rng.RRNG;
+import com.oracle.truffle.r.runtime.rng.RRNG.Kind;
+
+/**
+ * "L'Ecuyer-CMRG" combined multiple-recursive RNG. The generator is transcribed from GnuR RNG.c,
+ * the stream and sub-stream jump-ahead from {@code rngstream.c} in the parallel package: advancing
+ * by 2^127 resp. 2^76 steps is a multiplication of each half of the state by a precomputed 3x3
+ * matrix modulo {@code m1} resp. {@code m2}.
+ */
+public final class LEcuyerCMRG extends RNGInitAdapter {
+
+    private static final long M1 = 4294967087L;
+    private static final long M2 = 4294944443L;
+    private static final double NORMC = 2.328306549295727688e-10;
+    private static final long A12 = 1403580L;
+    private static final long A13N = 810728L;
+    private static final long A21 = 527612L;
+    private static final long A23N = 1370589L;
+
+    private static final long[][] A1P76 = {
+                    {82758667L, 1871391091L, 4127413238L},
+                    {3672831523L, 69195019L, 1871391091L},
+                    {3672091415L, 3528743235L, 69195019L}
+    };
+
+    private static final long[][] A2P76 = {
+                    {1511326704L, 3759209742L, 1610795712L},
+                    {4292754251L, 1511326704L, 3889917532L},
+                    {3859662829L, 4292754251L, 3708466080L}
+    };
+
+    private static final long[][] A1P127 = {
+                    {2427906178L, 3580155704L, 949770784L},
+                    {226153695L, 1230515664L, 3580155704L},
+                    {1988835001L, 986791581L, 1230515664L}
+    };
+
+    private static final long[][] A2P127 = {
+                    {1464411153L, 277697599L, 1610723613L},
+                    {32183930L, 1464411153L, 1022607788L},
+                    {2824425944L, 32183930L, 2093834863L}
+    };
+
+    @Override
+    @TruffleBoundary
+    public void init(int seedParam) {
+        int seed = seedParam;
+        for (int i = 0; i < getNSeed(); i++) {
+            seed = (69069 * seed + 1);
+            while (unsigned(seed) >= M2) {
+                seed = (69069 * seed + 1);
+            }
+            setISeedItem(i, seed);
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void fixupSeeds(boolean initial) {
+        /*
+         * first set: not all zero, in [0, m1); second set: in [0, m2). Note: as in GnuR, the
+         * "not all zero" flag is not reset for the second set.
+         */
+        boolean notAllZero = false;
+        boolean allOK = true;
+        for (int i = 0; i < 6; i++) {
+            long tmp = unsigned(getISeedItem(i));
+            notAllZero |= tmp != 0;
+            allOK &= tmp < (i < 3 ? M1 : M2);
+        }
+        if (!notAllZero || !allOK) {
+            init(RRNG.timeToSeed());
+        }
+    }
+
+    @Override
+    public double genrandDouble() {
+        long p1 = nextP1(getISeedItem(0), getISeedItem(1));
+        setISeedItem(0, getISeedItem(1));
+        setISeedItem(1, getISeedItem(2));
+        setISeedItem(2, (int) p1);
+
+        long p2 = nextP2(getISeedItem(3), getISeedItem(5));
+        setISeedItem(3, getISeedItem(4));
+        setISeedItem(4, getISeedItem(5));
+        setISeedItem(5, (int) p2);
+
+        return combine(p1, p2);
+    }
+
+    @Override
+    public void genrandDoubles(double[] result, int offset, int length) {
+        int s0 = getISeedItem(0);
+        int s1 = getISeedItem(1);
+        int s2 = getISeedItem(2);
+        int s3 = getISeedItem(3);
+        int s4 = getISeedItem(4);
+        int s5 = getISeedItem(5);
+        for (int i = 0; i < length; i++) {
+            long p1 = nextP1(s0, s1);
+            s0 = s1;
+            s1 = s2;
+            s2 = (int) p1;
+            long p2 = nextP2(s3, s5);
+            s3 = s4;
+            s4 = s5;
+            s5 = (int) p2;
+            result[offset + i] = combine(p1, p2);
+        }
+        setISeedItem(0, s0);
+        setISeedItem(1, s1);
+        setISeedItem(2, s2);
+        setISeedItem(3, s3);
+        setISeedItem(4, s4);
+        setISeedItem(5, s5);
+    }
+
+    private static long nextP1(int s0, int s1) {
+        long p1 = (A12 * unsigned(s1) - A13N * unsigned(s0)) % M1;
+        return p1 < 0 ? p1 + M1 : p1;
+    }
+
+    private static long nextP2(int s3, int s5) {
+        long p2 = (A21 * unsigned(s5) - A23N * unsigned(s3)) % M2;
+        return p2 < 0 ? p2 + M2 : p2;
+    }
+
+    private static double combine(long p1, long p2) {
+        return ((p1 > p2) ? (p1 - p2) : (p1 - p2 + M1)) * NORMC;
+    }
+
+    private static long unsigned(int value) {
+        return value & 0xffffffffL;
+    }
+
+    /**
+     * Returns the seed of the next stream, i.e. {@code seeds} advanced by 2^127 steps. Both the
+     * argument and the result are in the format of {@code .Random.seed}, i.e. the kind is under
+     * index 0 and is copied as is.
+     */
+    public static int[] nextStream(int[] seeds) {
+        return advance(seeds, A1P127, A2P127);
+    }
+
+    /**
+     * Returns the seed of the next sub-stream, i.e. {@code seeds} advanced by 2^76 steps. The format
+     * is the same as in {@link #nextStream(int[])}.
+     */
+    public static int[] nextSubStream(int[] seeds) {
+        return advance(seeds, A1P76, A2P76);
+    }
+
+    private static int[] advance(int[] seeds, long[][] a1, long[][] a2) {
+        int[] result = new int[7];
+        result[0] = seeds[0];
+        for (int i = 0; i < 3; i++) {
+            result[i + 1] = (int) multiplyRow(a1[i], seeds, 1, M1);
+            result[i + 4] = (int) multiplyRow(a2[i], seeds, 4, M2);
+        }
+        return result;
+    }
+
+    private static long multiplyRow(long[] row, int[] seeds, int from, long m) {
+        long tmp = 0;
+        for (int j = 0; j < 3; j++) {
+            // both factors are below 2^32, so the product fits into 64 bits as an unsigned value
+            tmp = (tmp + Long.remainderUnsigned(row[j] * unsigned(seeds[from + j]), m)) % m;
+        }
+        return tmp;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.LECUYER_CMRG;
+    }
+
+    @Override
+    public int getNSeed() {
+        return 6;
+    }
+}
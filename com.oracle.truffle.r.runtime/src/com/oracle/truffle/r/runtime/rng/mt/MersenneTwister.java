@@ -136,60 +136,78 @@ public final class MersenneTwister extends RNGInitAdapter {
         }
     }
 
-    /**
-     * The actual generating method, essentially transcribed from MT_genrand in GnuR RNG.c.
-     */
     @Override
     public double genrandDouble() {
         if (bufferIndex == BUFFER_SIZE) {
-            int localDummy0 = getISeedItem(0);
-            int localMti = localDummy0;
-            // It appears that this never happens
-            // sgenrand(4357);
-            assert localMti != N + 1;
-            int pos = 0;
-            while (true) {
-                int loopCount = Math.min(BUFFER_SIZE - pos, N - localMti);
-                for (int i = 0; i < loopCount; i++) {
-                    int y = getMt(localMti + i);
-                    /* Tempering */
-                    y ^= (y >>> 11);
-                    y ^= (y << 7) & TEMPERING_MASK_B;
-                    y ^= (y << 15) & TEMPERING_MASK_C;
-                    y ^= (y >>> 18);
-                    buffer[pos + i] = ((y + Integer.MIN_VALUE) - (double) Integer.MIN_VALUE) * I2_32M1;
-                }
-                for (int i = 0; i < loopCount; i++) {
-                    buffer[pos + i] = fixup(buffer[pos + i]);
-                }
-                localMti += loopCount;
-                pos += loopCount;
-
-                if (pos == BUFFER_SIZE) {
-                    break;
-                }
-                /* generate N words at one time */
-                int kk;
-                for (kk = 0; kk < N - M; kk++) {
-                    int y2y = (getMt(kk) & UPPERMASK) | (getMt(kk + 1) & LOWERMASK);
-                    setMt(kk, getMt(kk + M) ^ (y2y >>> 1) ^ mag01(y2y & 0x1));
-                }
-                for (; kk < N - 1; kk++) {
-                    int y2y = (getMt(kk) & UPPERMASK) | (getMt(kk + 1) & LOWERMASK);
-                    setMt(kk, getMt(kk + (M - N)) ^ (y2y >>> 1) ^ mag01(y2y & 0x1));
-                }
-                int y2y = (getMt(N - 1) & UPPERMASK) | (getMt(0) & LOWERMASK);
-                setMt(N - 1, getMt(M - 1) ^ (y2y >>> 1) ^ mag01(y2y & 0x1));
-
-                localMti = 0;
-            }
-            localDummy0 = localMti;
-            setISeedItem(0, localDummy0);
-            bufferIndex = 0;
+            fillBuffer();
         }
         return buffer[bufferIndex++];
     }
 
+    @Override
+    public void genrandDoubles(double[] result, int offset, int length) {
+        int pos = 0;
+        while (pos < length) {
+            if (bufferIndex == BUFFER_SIZE) {
+                fillBuffer();
+            }
+            int count = Math.min(BUFFER_SIZE - bufferIndex, length - pos);
+            System.arraycopy(buffer, bufferIndex, result, offset + pos, count);
+            bufferIndex += count;
+            pos += count;
+        }
+    }
+
+    /**
+     * The actual generating method, essentially transcribed from MT_genrand in GnuR RNG.c.
+     */
+    private void fillBuffer() {
+        int localDummy0 = getISeedItem(0);
+        int localMti = localDummy0;
+        // It appears that this never happens
+        // sgenrand(4357);
+        assert localMti != N + 1;
+        int pos = 0;
+        while (true) {
+            int loopCount = Math.min(BUFFER_SIZE - pos, N - localMti);
+            for (int i = 0; i < loopCount; i++) {
+                int y = getMt(localMti + i);
+                /* Tempering */
+                y ^= (y >>> 11);
+                y ^= (y << 7) & TEMPERING_MASK_B;
+                y ^= (y << 15) & TEMPERING_MASK_C;
+                y ^= (y >>> 18);
+                buffer[pos + i] = ((y + Integer.MIN_VALUE) - (double) Integer.MIN_VALUE) * I2_32M1;
+            }
+            for (int i = 0; i < loopCount; i++) {
+                buffer[pos + i] = fixup(buffer[pos + i]);
+            }
+            localMti += loopCount;
+            pos += loopCount;
+
+            if (pos == BUFFER_SIZE) {
+                break;
+            }
+            /* generate N words at one time */
+            int kk;
+            for (kk = 0; kk < N - M; kk++) {
+                int y2y = (getMt(kk) & UPPERMASK) | (getMt(kk + 1) & LOWERMASK);
+                setMt(kk, getMt(kk + M) ^ (y2y >>> 1) ^ mag01(y2y & 0x1));
+            }
+            for (; kk < N - 1; kk++) {
+                int y2y = (getMt(kk) & UPPERMASK) | (getMt(kk + 1) & LOWERMASK);
+                setMt(kk, getMt(kk + (M - N)) ^ (y2y >>> 1) ^ mag01(y2y & 0x1));
+            }
+            int y2y = (getMt(N - 1) & UPPERMASK) | (getMt(0) & LOWERMASK);
+            setMt(N - 1, getMt(M - 1) ^ (y2y >>> 1) ^ mag01(y2y & 0x1));
+
+            localMti = 0;
+        }
+        localDummy0 = localMti;
+        setISeedItem(0, localDummy0);
+        bufferIndex = 0;
+    }
+
     private static int mag01(int v) {
         return (v & 1) != 0 ? MATRIXA : 0;
     }
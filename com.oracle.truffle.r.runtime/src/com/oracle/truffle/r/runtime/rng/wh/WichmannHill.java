@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 1995-2012, The R Core Team
+ * Copyright (c) 2003, The R Foundation
+ * Copyright (c) 2018, Oracle and/or its affiliates
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.R-project.org/Licenses/
+ */
+package com.oracle.truffle.r.runtime.rng.wh;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.rng.RNGInitAdapter;
+import com.oracle.truffle.r.runtime.rng.RRNG.Kind;
+
+/**
+ * "Wichmann-Hill" RNG. Transcribed from GnuR RNG.c.
+ */
+public final class WichmannHill extends RNGInitAdapter {
+
+    private static final int M1 = 30269;
+    private static final int M2 = 30307;
+    private static final int M3 = 30323;
+
+    @Override
+    @TruffleBoundary
+    public void init(int seedParam) {
+        int seed = seedParam;
+        for (int i = 0; i < getNSeed(); i++) {
+            seed = (69069 * seed + 1);
+            setISeedItem(i, seed);
+        }
+        fixupSeeds(true);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void fixupSeeds(boolean initial) {
+        // the seeds are unsigned in GnuR
+        setISeedItem(0, Integer.remainderUnsigned(getISeedItem(0), M1));
+        setISeedItem(1, Integer.remainderUnsigned(getISeedItem(1), M2));
+        setISeedItem(2, Integer.remainderUnsigned(getISeedItem(2), M3));
+        /* map values equal to 0 mod modulus to 1. */
+        for (int i = 0; i < 3; i++) {
+            if (getISeedItem(i) == 0) {
+                setISeedItem(i, 1);
+            }
+        }
+    }
+
+    @Override
+    public double genrandDouble() {
+        int i1 = getISeedItem(0) * 171 % M1;
+        int i2 = getISeedItem(1) * 172 % M2;
+        int i3 = getISeedItem(2) * 170 % M3;
+        setISeedItem(0, i1);
+        setISeedItem(1, i2);
+        setISeedItem(2, i3);
+        return next(i1, i2, i3);
+    }
+
+    @Override
+    public void genrandDoubles(double[] result, int offset, int length) {
+        int i1 = getISeedItem(0);
+        int i2 = getISeedItem(1);
+        int i3 = getISeedItem(2);
+        for (int i = 0; i < length; i++) {
+            i1 = i1 * 171 % M1;
+            i2 = i2 * 172 % M2;
+            i3 = i3 * 170 % M3;
+            result[offset + i] = next(i1, i2, i3);
+        }
+        setISeedItem(0, i1);
+        setISeedItem(1, i2);
+        setISeedItem(2, i3);
+    }
+
+    private static double next(int i1, int i2, int i3) {
+        double value = i1 / 30269.0 + i2 / 30307.0 + i3 / 30323.0;
+        return fixup(value - (int) value); /* in [0,1) */
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.WICHMANN_HILL;
+    }
+
+    @Override
+    public int getNSeed() {
+        return 3;
+    }
+}
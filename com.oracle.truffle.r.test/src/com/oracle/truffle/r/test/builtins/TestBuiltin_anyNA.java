@@ -61,5 +61,6 @@ public class TestBuiltin_anyNA extends TestBase {
         assertEval("anyNA(list(a = c(1, 2, 3), b = 'a'), recursive = TRUE)");
         assertEval("anyNA(list(a = c(1, NA, 3), b = 'a'), recursive = TRUE)");
         assertEval("anyNA(list(a = c(1, 2, 3), b = list(NA, 'a')), recursive = TRUE)");
+        assertEval("{ x <- sort(c(3, NA, NaN, 1)); y <- x; y[1] <- NaN; c(anyNA(x), anyNA(y)) }");
     }
 }
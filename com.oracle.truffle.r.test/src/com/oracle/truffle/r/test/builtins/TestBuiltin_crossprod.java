@@ -90,4 +90,12 @@ public class TestBuiltin_crossprod extends TestBase {
     public void testCrossprodDimnames() {
         assertEval("{ crossprod(structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('a', 'b', 'c'), c('A', 'B', 'C'))), structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('d', 'e', 'f'), c('D', 'E', 'F')))) }");
     }
+
+    @Test
+    public void testCrossprodLarge() {
+        assertEval("{ x <- matrix((1:15000) %% 11, 150); r <- crossprod(x); c(dim(r), isSymmetric(r), sum(r), r[2,90]) }");
+        assertEval("{ x <- matrix((1:15000) %% 11, 150); y <- matrix((1:12000) %% 3, 150); r <- crossprod(x, y); c(dim(r), sum(r), r[100,80]) }");
+        assertEval("{ x <- matrix((1:4900) %% 9, 70); r <- crossprod(x); c(dim(r), isSymmetric(r), sum(r), r[70,1]) }");
+        assertEval("{ x <- matrix((1:15000) %% 11, 150); x[4,6] <- NaN; r <- crossprod(x); c(sum(is.nan(r)), sum(r[-6,-6])) }");
+    }
 }
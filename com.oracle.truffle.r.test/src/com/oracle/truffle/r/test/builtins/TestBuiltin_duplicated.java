@@ -146,4 +146,14 @@ public class TestBuiltin_duplicated extends TestBase {
         assertEval(Output.IgnoreErrorContext, "{ duplicated(c(1,2,1), incomparables=function() 42) }");
 
     }
+
+    @Test
+    public void testDuplicatedHashed() {
+        assertEval("duplicated(c(NaN, NA, NaN, NA, 0, -0))");
+        assertEval("duplicated(c('a', NA, 'NA', NA, 'a'), fromLast = TRUE)");
+        assertEval("duplicated(c(1, 2, 1, NA, NA), incomparables = NA)");
+        assertEval("anyDuplicated(c(1, 2, 3, 2, 1), fromLast = TRUE)");
+        assertEval("anyDuplicated(c(1, NA, 3, NA), incomparables = NA)");
+        assertEval("x <- c(1:70000, 5L); anyDuplicated(x); which(duplicated(x))");
+    }
 }
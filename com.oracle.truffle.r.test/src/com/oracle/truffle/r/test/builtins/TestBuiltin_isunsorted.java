@@ -121,4 +121,11 @@ public class TestBuiltin_isunsorted extends TestBase {
         assertEval("{ is.unsorted(c(1+1i,2+1i,2+1i), strictly=TRUE) }");
         assertEval("{ is.unsorted(c(1,2,2), strictly=NA) }");
     }
+
+    @Test
+    public void testIsUnsortedKnownOrder() {
+        assertEval("{ x <- sort(c(3, 1, 2, 2)); r <- c(is.unsorted(x), is.unsorted(x, strictly=TRUE)); x[2] <- 10; c(r, is.unsorted(x)) }");
+        assertEval("{ x <- c(1L, 5L, 7L); r <- c(is.unsorted(x), is.unsorted(x, strictly=TRUE), is.unsorted(x)); x[1] <- 10L; c(r, is.unsorted(x)) }");
+        assertEval("{ x <- unique(sort(c(4, 2, 2, 9))); y <- x; y[3] <- 1; c(is.unsorted(x, strictly=TRUE), is.unsorted(y)) }");
+    }
 }
@@ -433,4 +433,24 @@ public class TestBuiltin_match extends TestBase {
         table = String.format("paste('%1$s', seq(from=1, to=10, by=4), '%2$s', sep='')", preffix, suffix);
         assertEval("{ match(" + x + "," + table + ")}");
     }
+
+    @Test
+    public void testMatchHashed() {
+        assertEval("match(c(0, NaN, NA, 2), c(NA, -0, NaN, 2, 2))");
+        assertEval("match(c(1L, NA, 3L), c(3, NA, 1))");
+        assertEval("match(c(1, NA, 3.5), c(3L, NA, 1L))");
+        assertEval("match(c('a', NA, 'NA'), c('NA', NA, 'a'))");
+        assertEval("match(as.raw(c(1, 200)), as.raw(c(200, 1, 200)))");
+        assertEval("match(complex(real = c(NA, 1), imaginary = c(1, NA)), complex(real = c(1, 2), imaginary = c(NA, 0)))");
+        assertEval("match(c(5, 99), rep(1:10, 10))");
+        assertEval("x <- 1:100000; sum(match(x, rev(x))); sum(c(5L, 100001L) %in% x)");
+    }
+
+    @Test
+    public void testMatchCachedTable() {
+        assertEval("lookup <- as.character(1:5000); keys <- c('10', '4999', 'x'); for (i in 1:3) r <- match(keys, lookup); r; lookup[10] <- 'x'; match(keys, lookup); keys %in% lookup");
+        assertEval("f <- function(t) { r <- NULL; for (i in 1:3) r <- c(r, match(c(7, 2500.5, 3000), t)); t[3000] <- 0; c(r, match(c(7, 3000), t)) }; f(as.double(1:3000))");
+        assertEval("tab <- 1:2000 * 2L; res <- sapply(1:5, function(i) sum(c(i, 4000L) %in% tab)); tab[[1]] <- 1L; c(res, sum(1:2 %in% tab))");
+        assertEval("{ t <- sort(c(10, 3, 7, 3, 1:200)); invisible(is.unsorted(t)); list(match(c(3, 7, 500, NA), t), match(7L, t), match(NA, t), c(3L, 8L) %in% t) }");
+    }
 }
@@ -34,4 +34,15 @@ public class TestBuiltin_matmul extends TestBase {
         assertEval("m1 <- matrix(1:6,3,2,dimnames=list(c('a','b','c'),c('c1','c2')));m2 <- matrix(c(3,4),2,1,dimnames=list(c('a2','b2'),c('col'))); m1 %*% m2; ");
         assertEval("vec <- c(1,2); names(vec) <- c('a','b'); mat <- matrix(c(8,3),1,2,dimnames=list('row',c('c1','c2'))); vec %*% mat; ");
     }
+
+    @Test
+    public void testMatmulLarge() {
+        // large enough for the native BLAS
+        assertEval("{ a <- matrix((1:12000) %% 7, 100); b <- matrix((1:14400) %% 5, 120); r <- a %*% b; c(dim(r), sum(r), r[3,7], r[100,120]) }");
+        assertEval("{ a <- matrix((1:12000) %% 7, 100); b <- matrix((1:14400) %% 5, 120); a[5,5] <- NaN; b[7,9] <- NA; r <- a %*% b; c(sum(is.nan(r)), sum(is.na(r)), sum(r[-5,-9])) }");
+        assertEval("{ a <- matrix((1:12000) %% 7, 100); r <- a %*% 1:120; c(dim(r), sum(r), r[42]) }");
+        // handled by the Java kernel
+        assertEval("{ a <- matrix((1:4900) %% 9, 70); b <- matrix((1:5600) %% 4, 70); r <- a %*% b; c(dim(r), sum(r), r[70,1], r[1,80]) }");
+        assertEval("{ a <- matrix((1:4900) %% 9, 70); a[3,2] <- NaN; b <- matrix((1:5600) %% 4, 70); r <- a %*% b; c(sum(is.nan(r)), sum(r[-3,])) }");
+    }
 }
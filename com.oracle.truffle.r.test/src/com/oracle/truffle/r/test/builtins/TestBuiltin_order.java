@@ -180,4 +180,19 @@ public class TestBuiltin_order extends TestBase {
         assertEval("order(NULL)");
         assertEval("order(c(NULL, c(1,2,0)))");
     }
+
+    @Test
+    public void testOrderStrings() {
+        assertEval("{ x <- c('b', NA, 'a', 'c', 'a', NA, 'b'); list(order(x), order(x, decreasing=TRUE), order(x, na.last=FALSE), order(x, na.last=NA)) }");
+        assertEval("invisible(Sys.setlocale('LC_COLLATE', 'EN_us')); x <- c('b', 'A', 'a', 'B', 'a', '_x', ' y'); r <- list(order(x), order(x, decreasing=TRUE), sort(x), sort(x, decreasing=TRUE)); invisible(Sys.setlocale('LC_COLLATE', 'C')); r");
+        assertEval("{ x <- c('b', 'A', 'a', 'B'); invisible(Sys.setlocale('LC_COLLATE', 'C')); list(order(x), sort(x)) }");
+        assertEval("{ set.seed(1); x <- paste0('id', sample(50000)); o <- order(x); c(x[o[c(1, 2, 50000)]], !is.unsorted(x[o])) }");
+    }
+
+    @Test
+    public void testOrderKnownOrder() {
+        assertEval("{ x <- sort(c(3, 1, 2)); list(order(x), order(x, decreasing=TRUE), order(x, method='radix', decreasing=TRUE), sort(x)[2:3]) }");
+        assertEval("{ x <- sort(c(2L, 1L, 2L)); list(order(x, decreasing=TRUE), order(x, method='radix', decreasing=TRUE), sort(x, decreasing=TRUE)) }");
+        assertEval("{ x <- sort(c(5, 3, 9)); y <- x[c(3, 1, 2)]; list(order(y), sort(y), x[2:3]) }");
+    }
 }
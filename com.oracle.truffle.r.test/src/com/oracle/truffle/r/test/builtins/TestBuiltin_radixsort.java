@@ -64,4 +64,21 @@ public class TestBuiltin_radixsort extends TestBase {
         // at InternalNode$InternalCallWrapNode.prepareArgs(InternalNode.java:309)
         assertEval(Ignored.ImplementationError, "argv <- list(structure(integer(0), .Label = character(0), class = 'factor'), TRUE, FALSE); .Internal(radixsort(argv[[1]], argv[[2]], argv[[3]]))");
     }
+
+    @Test
+    public void testradixsortKeys() {
+        assertEval("order(c(2L, 1L, 2L, NA, 1L), c(5, 3, 1, 2, 4), decreasing = c(TRUE, FALSE), method = 'radix')");
+        assertEval("order(c('b', 'a', 'b', 'a'), c(1, 2, 3, NaN), decreasing = c(FALSE, TRUE), method = 'radix')");
+        assertEval("order(c(3, NA, 1, -0, 0), na.last = FALSE, method = 'radix')");
+        assertEval("order(c(3, NA, 1, NA), c(TRUE, FALSE, NA, TRUE), na.last = NA, method = 'radix')");
+        assertEval("order(c('B', 'a', 'A', 'b'), method = 'radix')");
+        assertEval("order(1:3, 1:2, method = 'radix')");
+    }
+
+    @Test
+    public void testradixsortRetgrp() {
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, TRUE, c(3L, 1L, 3L, 2L, 1L)))");
+        assertEval(".Internal(radixsort(TRUE, c(FALSE, TRUE), TRUE, TRUE, c(1, 1, 2, 2), c('x', 'y', 'x', 'x')))");
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, FALSE, c('b', 'a', 'b', 'c')))");
+    }
 }
@@ -99,6 +99,22 @@ public class TestBuiltin_scan extends TestBase {
         assertEval("{ con<-textConnection(c(\"1.5 2.89 3\", \"4 5 6\")); .Internal(scan(con, 1.2, 2, ' ', NULL, '\"', 0, 3, \"NA\", F, F, F, T, T, '', '#', T, 'utf8', F)) }");
     }
 
+    @Test
+    public void testBlockReading() {
+        // lines read ahead from a file connection must be available to the next reader
+        assertEval("{ writeLines(c('1 2', '3 4', '5 6', 'x y'), '" + TEST_CVS_FILE + "'); con <- file('" + TEST_CVS_FILE + "', 'r'); a <- scan(con, nlines=2, quiet=TRUE); b <- scan(con, what=list(0L, 0L), nmax=1, quiet=TRUE); c <- readLines(con); close(con); list(a, b, c) }");
+        assertEval("{ writeLines(as.character(1:100000), '" + TEST_CVS_FILE + "'); x <- scan('" + TEST_CVS_FILE + "', integer(0), quiet=TRUE); c(length(x), sum(as.numeric(x)), x[[99999]]) }");
+        assertEval("{ writeLines(paste(1:50000, c('a', 'NA', '\"b c\"'), c(1.5, NA, 3), c(TRUE, NA, FALSE)), '" + TEST_CVS_FILE + "'); x <- scan('" + TEST_CVS_FILE +
+                        "', list(0L, '', 0, NA), quiet=TRUE); list(lapply(x, function(col) col[c(1:4, 49999:50000)]), sapply(x, function(col) sum(is.na(col)))) }");
+        assertEval("{ writeLines(c(as.character(1:20000), 'x'), '" + TEST_CVS_FILE + "'); scan('" + TEST_CVS_FILE + "', integer(0), quiet=TRUE) }");
+        // an open connection read with a limit must not be read ahead of what scan consumes
+        assertEval("{ writeLines(c('1 2', '3 4', '5 6'), '" + TEST_CVS_FILE + "'); con <- file('" + TEST_CVS_FILE + "', 'r'); a <- scan(con, nlines=1, quiet=TRUE); p <- seek(con); b <- readLines(con); close(con); list(a, p, b) }");
+        assertEval("{ writeLines(c('1 2', '3 4', '5 6'), '" + TEST_CVS_FILE + "'); con <- file('" + TEST_CVS_FILE + "', 'r'); a <- scan(con, nmax=2, quiet=TRUE); b <- readChar(con, 3); close(con); list(a, b) }");
+        assertEval("{ con <- gzfile('" + TEST_CVS_FILE + "', 'w'); writeLines(c('1 2', '3 4', '5 6'), con); close(con); con <- gzfile('" + TEST_CVS_FILE + "', 'r'); a <- scan(con, nlines=2, quiet=TRUE); seek(con); b <- readLines(con); close(con); list(a, b) }");
+        // the lines read ahead are returned to the connection if scan fails
+        assertEval("{ writeLines(c('1', '2', 'x', '3', '4'), '" + TEST_CVS_FILE + "'); con <- file('" + TEST_CVS_FILE + "', 'r'); a <- tryCatch(scan(con, integer(0), quiet=TRUE), error=function(e) 'error'); b <- tail(readLines(con), 2); close(con); list(a, b) }");
+    }
+
     @Test
     public void testPooling() {
         assertEvalFastR("s <- scan(textConnection(paste0(rep('asdf\\n', 1000))), character(0), quiet=T); all(sapply(s, function(x) .fastr.identity(x) == .fastr.identity(s[[1]])))", "TRUE");
@@ -71,4 +71,11 @@ public class TestBuiltin_tcrossprod extends TestBase {
     public void testTCrossprodDimnames() {
         assertEval("{ tcrossprod(structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('a', 'b', 'c'), c('A', 'B', 'C'))), structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('d', 'e', 'f'), c('D', 'E', 'F')))) }");
     }
+
+    @Test
+    public void testTCrossprodLarge() {
+        assertEval("{ x <- matrix((1:15000) %% 11, 100); r <- tcrossprod(x); c(dim(r), isSymmetric(r), sum(r), r[2,90]) }");
+        assertEval("{ x <- matrix((1:15000) %% 11, 100); y <- matrix((1:12000) %% 3, 80); r <- tcrossprod(x, y); c(dim(r), sum(r), r[100,80]) }");
+        assertEval("{ x <- matrix((1:4900) %% 9, 70); r <- tcrossprod(x); c(dim(r), isSymmetric(r), sum(r), r[70,1]) }");
+    }
 }
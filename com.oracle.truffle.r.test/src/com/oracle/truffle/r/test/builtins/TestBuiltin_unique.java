@@ -208,4 +208,18 @@ public class TestBuiltin_unique extends TestBase {
         assertEval("unique(c(1+1i, NA, NA))");
 
     }
+
+    @Test
+    public void testUniqueHashed() {
+        assertEval("unique(c(1, 2, 1, 3, 2), fromLast = TRUE)");
+        assertEval("unique(c('b', NA, 'a', 'NA', 'b', NA), fromLast = TRUE)");
+        assertEval("unique(c(0, -0, NaN, NA, NaN, NA_real_, 1))");
+        assertEval("unique(as.raw(c(1, 255, 128, 1, 255)))");
+        assertEval("unique(c(TRUE, NA, FALSE, TRUE, NA))");
+        assertEval("unique(complex(real = c(1, NA, NaN, NaN, 1), imaginary = c(1, 1, 1, 2, 1)))");
+        assertEval("length(unique(rep(1:1000, 100)))");
+        assertEval("x <- c(1:70000, 70000:1); sum(unique(x)); length(unique(as.character(x)))");
+        assertEval("{ x <- sort(c(3, 1, 2, 2, -0, 0)); invisible(is.unsorted(x)); list(unique(x), unique(x, fromLast=TRUE), 1/unique(x, fromLast=TRUE)) }");
+        assertEval("{ x <- sort(c(5L, 1L, 5L, 3L)); invisible(is.unsorted(x)); u <- unique(x); u[1] <- 7L; list(unique(x), u, unique(u)) }");
+    }
 }
@@ -40,4 +40,22 @@ public class TestBuiltin_zzfile extends TestBase {
                         "{ f <- tempfile(); c <- %0zfile(f); writeLines(as.character(1:50), c); close(c); c <- %0zfile(f, \"a\"); writeLines(as.character(51:70), c); close(c); readLines(f) }",
                         CTYPES));
     }
+
+    @Test
+    public void testParallelGzip() {
+        // the option is FastR specific, GNU R ignores it and writes plain gzip
+        assertEval("{ op <- options(fastr.gzfile.parallel = TRUE); f <- tempfile(); x <- list(a = 1:3e6, b = rep(c('x', 'y'), 2e5)); saveRDS(x, f); options(op); identical(readRDS(f), x) }");
+        assertEval("{ op <- options(fastr.gzfile.parallel = TRUE); f <- tempfile(); c <- gzfile(f); writeLines(as.character(1:50), c); close(c); options(op); c <- gzfile(f, \"a\"); writeLines(as.character(51:70), c); close(c); readLines(f) }");
+    }
+
+    @Test
+    public void testLargeRoundTrip() {
+        assertEval(TestBase.template("{ f <- tempfile(); c <- %0zfile(f, \"w\"); for (i in 1:20) writeLines(as.character(1:5e4), c); close(c); x <- readLines(f); c(length(x), x[[1e6]]) }", CTYPES));
+    }
+
+    @Test
+    public void testGzipSeek() {
+        assertEval("{ f <- tempfile(); c <- gzfile(f, \"wb\"); writeBin(as.raw(0:255), c); close(c); c <- gzfile(f, \"rb\"); a <- readBin(c, 'raw', 10); p <- seek(c, 100); b <- readBin(c, 'raw', 3); seek(c, 5); d <- readBin(c, 'raw', 2); seek(c, 10, 'current'); e <- readBin(c, 'raw', 1); close(c); list(a, p, b, d, e) }");
+        assertEval("{ op <- options(fastr.gzfile.parallel = TRUE); f <- tempfile(); c <- gzfile(f, \"w\"); writeLines(as.character(1:5e5), c); close(c); options(op); c <- gzfile(f, \"rb\"); seek(c, 3e6); x <- readLines(c, 2); seek(c, 0); y <- readLines(c, 1); close(c); c(x, y) }");
+    }
 }
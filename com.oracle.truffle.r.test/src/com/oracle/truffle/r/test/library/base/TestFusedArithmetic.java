@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.base;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+/**
+ * Runs long vector arithmetic with {@link FastROptions#FusedArithmetic} enabled, so that the results
+ * are deferred expressions that reach assignments, builtins and native code.
+ */
+public class TestFusedArithmetic extends TestBase {
+
+    private static boolean origFused;
+
+    @BeforeClass
+    public static void setup() {
+        origFused = FastROptions.FusedArithmetic.getBooleanValue();
+        FastROptions.setValue(FastROptions.FusedArithmetic.name(), true);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        FastROptions.setValue(FastROptions.FusedArithmetic.name(), origFused);
+    }
+
+    @Test
+    public void testChains() {
+        assertEval("{ a <- as.double(1:5000); b <- a / 7; r <- a * 2 + b / a - 1; c(length(r), sum(r), r[c(1, 2500, 5000)]) }");
+        assertEval("{ a <- as.double(1:5000); a[c(3, 10)] <- c(NA, NaN); r <- -(a * 2 - 1) / 3; c(r[1:12], anyNA(r), sum(is.nan(r))) }");
+        assertEval("{ a <- as.double(1:5000); r <- NaN + c(NA, a) * 2; c(is.nan(r[1]), is.na(r[1]), r[2]) }");
+        assertEval("{ a <- as.double(1:5000); r <- a + 1; a[1] <- 100; c(r[1], a[1]) }");
+        assertEval("{ a <- as.double(1:5000); names(a) <- paste0('n', 1:5000); r <- a * 2 + 1; names(r)[1:3] }");
+        assertEval("{ a <- as.double(1:5000); r <- a / 2; r[2] <- 0; c(r[1:3], typeof(r)) }");
+        assertEval("{ a <- as.double(1:5000); l <- list(a * 2, -a); a[1] <- 0; c(l[[1]][1], l[[2]][2], a[1]) }");
+    }
+
+    @Test
+    public void testOperandsReleased() {
+        // the result is still deferred, but assigning it has evaluated it and released its operand
+        assertEvalFastR("{ a <- as.double(1:5000); r <- a * 2; c(.fastr.refcountinfo(r), .fastr.refcountinfo(a)) }", "c(-1L, 1L)");
+        assertEvalFastR("{ a <- as.double(1:5000); l <- list(a - 1); c(.fastr.refcountinfo(l[[1]]), .fastr.refcountinfo(a)) }", "c(-1L, 1L)");
+        assertEvalFastR("{ a <- as.double(1:5000); r <- a * 2; r[1] <- 0; c(.fastr.refcountinfo(r), r[1:2]) }", "c(1, 0, 4)");
+    }
+
+    @Test
+    public void testSerialize() {
+        assertEval("{ a <- as.double(1:5000); x <- unserialize(serialize(a * 2 + 1, NULL)); c(typeof(x), length(x), x[c(1, 5000)]) }");
+        assertEval("{ a <- as.double(1:5000); r <- a / 4; identical(unserialize(serialize(r, NULL)), as.double(1:5000) / 4) }");
+        assertEval("{ a <- as.double(1:5000); f <- tempfile(); saveRDS(-(a - 1) * 3, f); x <- readRDS(f); unlink(f); c(length(x), x[c(1, 2, 5000)], sum(x)) }");
+        assertEval("{ a <- as.double(1:5000); r <- a + 0.5; f <- tempfile(); saveRDS(list(r, a * r), f); x <- readRDS(f); unlink(f); c(x[[1]][1:2], x[[2]][1:2]) }");
+    }
+
+    @Test
+    public void testNativeCall() {
+        assertEval("{ a <- as.double(1:5000); r <- .Call(stats:::C_cfilter, a * 2 + 1, c(0.5, 0.5), 1L, FALSE); c(is.na(r[1]), r[2:4], sum(r, na.rm=TRUE)) }");
+        assertEval("{ a <- as.double(1:5000); x <- a / 2; r <- .Call(stats:::C_cfilter, x, 1, 1L, FALSE); c(r[1:3], identical(r, x)) }");
+    }
+}
@@ -41,4 +41,25 @@ public class TestSharedCluster extends TestBase {
                         "library(parallel); fun <- function(data) { cl <- makeCluster(%0, ifelse(exists('engine', where=R.version),'SHARED','PSOCK')); parLapply(cl, data, function(x) x+1); stopCluster(cl) }; fun(1:100)",
                         "123456789".split("")));
     }
+
+    @Test
+    public void testMclapply() {
+        assertEval("library(parallel); unlist(mclapply(1:20, function(x) x * 2, mc.cores = 3))");
+        assertEval("library(parallel); mclapply(list(a = 1, b = 2, c = 3), function(x) x + 1, mc.cores = 2)");
+        assertEval("library(parallel); unlist(mclapply(1:5, function(x) x * 2, mc.cores = 2, mc.preschedule = FALSE))");
+        assertEval("library(parallel); r <- suppressWarnings(mclapply(list(a = 1, b = 'x', c = 3), function(x) x + 1, mc.cores = 2, mc.silent = TRUE)); list(names(r), sapply(r, inherits, 'try-error'), r$c)");
+        assertEval("library(parallel); r <- suppressWarnings(mclapply(list(1, 'x', 3), function(x) x + 1, mc.cores = 2, mc.silent = TRUE, mc.preschedule = FALSE)); list(length(r), sapply(r, inherits, 'try-error'))");
+    }
+
+    @Test
+    public void testMcparallel() {
+        assertEval("library(parallel); x <- 42; j <- mcparallel(x + 1, name = 'job'); mccollect(j)");
+        assertEval("library(parallel); mccollect(mcparallel(NULL, name = 'job'))");
+        assertEval("library(parallel); mccollect(mcparallel({ cat('hidden\\n'); 1 }, name = 'job', silent = TRUE))");
+        assertEval("library(parallel); mccollect(list(mcparallel(1, name = 'a'), mcparallel(2, name = 'b')), intermediate = function(r) print(names(r)))");
+        assertEval("library(parallel); mccollect(mcparallel({ Sys.sleep(0.2); 3 }, name = 'job'), wait = FALSE, timeout = 30)");
+        // a detached job stops its worker after the call and is joined by the next mcparallel/mccollect
+        assertEvalFastR("library(parallel); f <- tempfile(); j <- mcparallel(writeLines('done', f), detached = TRUE); for (i in 1:500) { mccollect(); if (!length(ls(parallel:::mc.detached.jobs))) break; Sys.sleep(0.01) }; r <- c(readLines(f), length(ls(parallel:::mc.detached.jobs)), is.null(mccollect())); unlink(f); r",
+                        "c('done', '0', 'TRUE')");
+    }
 }
@@ -766,4 +766,18 @@ public class TestSimpleArithmetic extends TestBase {
         assertEval("{ xor(0:2, 2:4) }");
         assertEval("{ xor(0:2, 2:7) }");
     }
+
+    @Test
+    public void testVeryLongVectors() {
+        // long enough to take the parallel path
+        assertEval("{ x <- as.double(1:2000000); y <- x * 2 + 1; c(sum(y), y[c(1, 1000000, 2000000)]) }");
+        assertEval("{ x <- as.double(1:2000000); x[c(5, 1500000)] <- c(NA, NaN); y <- x / 2; c(y[4:6], is.nan(y[1500000]), sum(is.na(y)), sum(x > 1000000, na.rm=TRUE)) }");
+        assertEval("{ x <- 1:2000000; y <- x / 4L; c(y[1:4], sum(x >= 10L)) }");
+        assertEval("{ x <- as.double(1:2000000); c(all(sqrt(x * x) == x), exp(-x)[1], typeof(sqrt(x))) }");
+        assertEval("{ x <- matrix(as.double(1:2000000), 1000); y <- x - 1; c(dim(y), y[1, 1], y[1000, 2000]) }");
+        // the results must not be marked complete when an operand contains NA or NaN
+        assertEval("{ f <- function(x) list(anyNA(x + 1), anyNA(-x), anyNA(x > 5), is.unsorted(x * 2)); x <- as.double(1:2000000); r <- f(x); x[1999999] <- NA; c(r, f(x)) }");
+        assertEval("{ f <- function(x) c(anyNA(x + 1), anyNA(-x), anyNA(x >= 5)); x <- as.double(1:2000000); r <- f(x); x[3] <- NaN; c(r, f(x)) }");
+        assertEval("{ f <- function(x) c(anyNA(x / 2L), anyNA(x == 1L)); x <- 1:2000000; r <- f(x); x[7] <- NA; c(r, f(x)) }");
+    }
 }
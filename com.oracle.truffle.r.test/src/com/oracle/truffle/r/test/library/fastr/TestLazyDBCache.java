@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestLazyDBCache extends TestBase {
+
+    /**
+     * Writes {@code value} as the only entry of a lazy loading DB in the compression 2/3 format,
+     * i.e., the length of the uncompressed data, the type byte at offset 4 ('0' is no compression)
+     * and the data at offset 5, and returns the key of the entry.
+     */
+    private static final String WRITE_DB = "writeDB <- function(f, value) { d <- serialize(value, NULL); con <- file(f, 'wb'); writeBin(length(d), con, endian='big'); writeBin(charToRaw('0'), con); writeBin(d, con); close(con); c(0L, length(d) + 5L) }; ";
+    private static final String FETCH = "fetch <- function(key, f, compressed) lazyLoadDBfetch(key, f, compressed, function(x) x); ";
+    private static final String STATS = "stats <- function(f) { s <- .fastr.lazydb.stats(); i <- match(f, s$path); c(s$fetches[i], s$cacheHits[i], s$bytesRead[i], s$bytesDecompressed[i]) }; ";
+
+    @Test
+    public void testFetchCounts() {
+        assertEvalFastR("{ " + WRITE_DB + FETCH + STATS +
+                        "f <- tempfile(fileext='.rdb'); key <- writeDB(f, 1:10); r <- list(fetch(key, f, 2L), fetch(key, f, 2L), fetch(key, f, 2L)); s <- stats(f); unlink(f); c(identical(r[[1]], 1:10), identical(r[[3]], 1:10), s[1:2], s[3] == key[2], s[4] == key[2] - 5) }",
+                        "c(1, 1, 3, 2, 1, 1)");
+        assertEvalFastR("{ " + WRITE_DB + FETCH + STATS +
+                        "f <- tempfile(fileext='.rdb'); key <- writeDB(f, letters); r <- list(fetch(key, f, 3L), fetch(key, f, 3L)); s <- stats(f); unlink(f); c(identical(r[[2]], letters), s[1:2], s[3] == key[2]) }",
+                        "c(1, 2, 1, 1)");
+    }
+
+    @Test
+    public void testFlush() {
+        assertEvalFastR("{ " + WRITE_DB + FETCH + STATS +
+                        "f <- tempfile(fileext='.rdb'); key <- writeDB(f, 1:10); fetch(key, f, 2L); .Internal(lazyLoadDBflush(f)); fetch(key, f, 2L); s <- stats(f); unlink(f); s[1:2] }",
+                        "c(2, 0)");
+    }
+
+    @Test
+    public void testFileChanged() {
+        // a rewritten file is mapped again and the entries cached for the old content are dropped
+        assertEvalFastR("{ " + WRITE_DB + FETCH + STATS +
+                        "f <- tempfile(fileext='.rdb'); key <- writeDB(f, 1:10); a <- fetch(key, f, 2L); key2 <- writeDB(f, c(letters, LETTERS)); b <- fetch(key2, f, 2L); s <- stats(f); unlink(f); list(a, identical(b, c(letters, LETTERS)), s[1:2]) }",
+                        "list(1:10, TRUE, c(2, 0))");
+        assertEvalFastR("{ " + WRITE_DB + FETCH + STATS +
+                        "f <- tempfile(fileext='.rdb'); key <- writeDB(f, 1:10); a <- fetch(key, f, 2L); writeDB(f, 11:20); Sys.setFileTime(f, Sys.time() + 100); b <- fetch(key, f, 2L); s <- stats(f); unlink(f); list(a, b, s[1:2]) }",
+                        "list(1:10, 11:20, c(2, 0))");
+        // a truncated file is reported as an R error
+        assertEvalFastR("{ " + WRITE_DB + FETCH +
+                        "f <- tempfile(fileext='.rdb'); key <- writeDB(f, 1:10); fetch(key, f, 2L); con <- file(f, 'wb'); writeBin(as.raw(1:3), con); close(con); r <- tryCatch(fetch(key, f, 2L), error = function(e) 'error'); unlink(f); r }",
+                        "'error'");
+    }
+}
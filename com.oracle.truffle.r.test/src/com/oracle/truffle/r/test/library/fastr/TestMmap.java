@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestMmap extends TestBase {
+
+    @Test
+    public void testMappedVectors() {
+        assertEvalFastR("{ f <- tempfile(); writeBin(c(1.5, NA, 3), f); x <- .fastr.mmap(f); unlink(f); list(typeof(x), length(x), x, sum(x, na.rm=TRUE)) }", "list('double', 3L, c(1.5, NA, 3), 4.5)");
+        assertEvalFastR("{ f <- tempfile(); writeBin(1:10, f); x <- .fastr.mmap(f, 'integer', 4, 8); unlink(f); x }", "3:6");
+        assertEvalFastR("{ f <- tempfile(); writeBin(as.raw(1:5), f); x <- .fastr.mmap(f, 'raw'); unlink(f); as.integer(x) }", "1:5");
+        assertEvalFastR("{ f <- tempfile(); writeBin(c(1, 2, 3), f); x <- .fastr.mmap(f); y <- x; y[2] <- 10; names(y) <- c('a', 'b', 'c'); r <- list(x, y, .fastr.mmap(f)); unlink(f); r }",
+                        "list(c(1, 2, 3), c(a=1, b=10, c=3), c(1, 2, 3))");
+        assertEvalFastR("{ f <- tempfile(); writeBin(1:2, f); r <- tryCatch(.fastr.mmap(f, 'double', 10), error=function(e) 'error'); unlink(f); r }", "'error'");
+    }
+
+    @Test
+    public void testTruncatedFile() {
+        assertEvalFastR("{ f <- tempfile(); writeBin(as.double(1:1000), f); x <- .fastr.mmap(f); writeBin(1, f); r <- tryCatch(sum(x), error=function(e) 'error'); unlink(f); r }", "'error'");
+        assertEvalFastR("{ f <- tempfile(); writeBin(1:1000, f); x <- .fastr.mmap(f, 'integer'); writeBin(1L, f); r <- tryCatch({ x[1] <- 0L; x }, error=function(e) 'error'); unlink(f); r }", "'error'");
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestNativeMirrors extends TestBase {
+
+    /**
+     * Passes fresh vectors to native code ({@code C_cfilter} of the stats package), which gives
+     * every one of them a native mirror, and then forces Java GCs until the mirrors of the dropped
+     * vectors are reclaimed.
+     */
+    private static final String CREATE_AND_COLLECT = "before <- .fastr.native.mirrors(); for (i in 1:100) stats::filter(as.double(1:10) + i, c(1, 1, 1)); mid <- .fastr.native.mirrors(); " +
+                    "sys <- java.type('java.lang.System'); for (i in 1:50) { sys$gc(); after <- .fastr.native.mirrors(); if (after$reclaimed > mid$reclaimed) break }; ";
+
+    @Test
+    public void testMirrorCounts() {
+        assertEvalFastR("{ s <- .fastr.native.mirrors(); list(names(s), s$created - s$reclaimed == s$live, s$live <= s$totalLive, s$totalLive <= s$tableCapacity) }",
+                        "list(c('created', 'reclaimed', 'live', 'totalLive', 'tableCapacity'), TRUE, TRUE, TRUE)");
+        assertEvalFastR("{ " + CREATE_AND_COLLECT + "c(mid$created - before$created >= 100, mid$live > before$live, mid$totalLive <= mid$tableCapacity) }", "c(TRUE, TRUE, TRUE)");
+    }
+
+    @Test
+    public void testMirrorsReclaimed() {
+        assertEvalFastR("{ " + CREATE_AND_COLLECT + "c(after$reclaimed > mid$reclaimed, after$live < mid$live, after$created - after$reclaimed == after$live, after$totalLive < mid$totalLive) }",
+                        "c(TRUE, TRUE, TRUE, TRUE)");
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestSortedness extends TestBase {
+
+    @Test
+    public void testHintSurvivesReads() {
+        assertEvalFastR("{ x <- c(1, 2, 3); is.unsorted(x); s <- sum(x); y <- x + 1; z <- x[2]; f <- format(x); c(.fastr.sortedness(x), anyNA(x), s) }", "c(1, 0, 6)");
+        assertEvalFastR("{ x <- c(1L, 5L, 9L); is.unsorted(x, strictly=TRUE); y <- x * 2L; z <- rev(x); c(.fastr.sortedness(x), sum(x)) }", "c(2L, 15L)");
+        assertEvalFastR("{ f <- function(v) { is.unsorted(v); mean(v); v }; x <- f(c(1.5, 2.5, 2.5)); .fastr.sortedness(x) }", "1L");
+    }
+
+    @Test
+    public void testHintClearedByWrites() {
+        assertEvalFastR("{ x <- c(1, 2, 3); is.unsorted(x); x[2] <- 5; c(.fastr.sortedness(x), is.unsorted(x)) }", "c(0L, 1L)");
+        assertEvalFastR("{ x <- c(1L, 2L, 3L); is.unsorted(x); x[2:3] <- c(0L, 7L); c(.fastr.sortedness(x), is.unsorted(x)) }", "c(0L, 1L)");
+        assertEvalFastR("{ x <- c(1, 2, 3); is.unsorted(x); x[[3]] <- 0; c(.fastr.sortedness(x), is.unsorted(x)) }", "c(0L, 1L)");
+        assertEvalFastR("{ x <- c(1, 2, 3); is.unsorted(x); length(x) <- 4; c(.fastr.sortedness(x), anyNA(x)) }", "c(0L, 1L)");
+        assertEvalFastR("{ x <- c(1, 2, 3); is.unsorted(x); y <- x; y[1] <- 10; c(.fastr.sortedness(x), .fastr.sortedness(y)) }", "c(1L, 0L)");
+    }
+}
@@ -50,4 +50,10 @@ public class TestUtils extends TestBase {
     public void testOctSize() {
         assertEval(template(".Call(utils:::C_octsize, %0)", TEST_OCTSIZE_PARAMS));
     }
+
+    @Test
+    public void testRprof() {
+        assertEval("{ f <- tempfile(); Rprof(f, interval = 0.001); g <- function(n) { s <- 0; for (i in 1:n) s <- s + sqrt(i); s }; g(1e5); Rprof(NULL); lines <- readLines(f); c(lines[[1]], length(lines) > 1) }");
+        assertEval("{ f <- tempfile(); Rprof(f, interval = 0.001, memory.profiling = TRUE, line.profiling = TRUE); Rprof(NULL); readLines(f) }");
+    }
 }
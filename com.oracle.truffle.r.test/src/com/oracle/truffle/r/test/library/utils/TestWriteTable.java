@@ -38,4 +38,16 @@ public class TestWriteTable extends TestBase {
     public void testTable() {
         assertEval("write.table(data.frame(col=c(1,2,3,4), col2=c(T, F, T, F)))");
     }
+
+    @Test
+    public void testNumbers() {
+        assertEval("write.csv(data.frame(x=c(0, -0, 1, -7, 10, 100, 1000, 1e5, -1e5, 123000, 1e14 + 1, 1e15, 0.5, NA, NaN, Inf, -Inf)))");
+        assertEval("write.table(matrix(c(1:6, NA), 7, 2), na='-', quote=FALSE)");
+    }
+
+    @Test
+    public void testLargeTable() {
+        assertEval("{ f <- tempfile(); n <- 20000L; d <- data.frame(i=1:n, x=(1:n) / 4, s=paste0('r', 1:n), f=factor(c('a', 'b')[1 + 1:n %% 2]), stringsAsFactors=FALSE); " +
+                        "write.csv(d, f, row.names=FALSE); r <- read.csv(f, stringsAsFactors=FALSE); unlink(f); c(nrow(r), identical(r$x, d$x), identical(r$s, d$s), r[c(1, 9000, 20000), 'f']) }");
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+/**
+ * Tests the cache enabled by {@link FastROptions#ParseCacheDir}: each test parses a file, which
+ * stores the cache entry, optionally tampers with the entry, parses the file again and compares the
+ * results, including the source sections.
+ */
+public class TestParseCache extends TestBase {
+
+    private static Path testDir;
+    private static Path cacheDir;
+    private static String plainFile;
+    private static String includedFile;
+    private static String linedFile;
+    private static String origCacheDir;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        testDir = TestBase.createTestDir("com.oracle.truffle.r.test.parser.parsecache").toAbsolutePath();
+        cacheDir = Files.createDirectories(testDir.resolve("cache"));
+        plainFile = write("plain.R", functions("f", 40));
+        includedFile = write("included.R", functions("g", 40));
+        // the part after the marker is a copy of included.R, its source sections point into that file
+        linedFile = write("lined.R", functions("h", 20) + "#line 1 \"" + includedFile + "\"\n" + functions("g", 40));
+        origCacheDir = FastROptions.ParseCacheDir.getStringValue();
+        FastROptions.setValue(FastROptions.ParseCacheDir.name(), cacheDir.toString());
+    }
+
+    @AfterClass
+    public static void teardown() {
+        FastROptions.setValue(FastROptions.ParseCacheDir.name(), origCacheDir);
+        if (!deleteDir(testDir)) {
+            System.err.println("WARNING: error deleting : " + testDir);
+        }
+    }
+
+    private static String write(String name, String content) throws IOException {
+        Path file = testDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    /**
+     * Creates well over {@code 4096} characters of code, so that the file is cached.
+     */
+    private static String functions(String prefix, int count) {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            str.append("# function ").append(i).append('\n');
+            str.append(prefix).append(i).append(" <- function(x, y = ").append(i).append("L, ...) {\n");
+            str.append("    z <- c(x, y, ").append(i).append(".5, ").append(i).append("i, NA, NULL, TRUE, 'str\\u00e9', NA_character_)\n");
+            str.append("    if (length(z) > 2 && !is.null(x$a)) z[[1]] <- -z[2] else z <- list(a = ~ x + y, b = function(w) w %in% z)\n");
+            str.append("    for (k in seq_along(z)) while (FALSE) repeat break\n");
+            str.append("    z\n}\n");
+        }
+        return str.toString();
+    }
+
+    /**
+     * Parses {@code file} twice, evaluating {@code between} after the first parse has created the
+     * cache entry, which is then available as {@code entry} and its contents as {@code bytes}.
+     * Yields {@code TRUE} for each of the comparisons and for {@code check}.
+     */
+    private static String parseTwice(String file, String between, String check) {
+        return "{ cache <- '" + cacheDir + "'; f <- '" + file + "'; unlink(list.files(cache, full.names = TRUE)); " +
+                        "p1 <- parse(f, keep.source = TRUE); entry <- list.files(cache, pattern = '[.]ast$', full.names = TRUE); bytes <- readBin(entry, 'raw', file.size(entry)); " +
+                        between + "; p2 <- parse(f, keep.source = TRUE); " +
+                        "e1 <- new.env(); e2 <- new.env(); for (e in p1) eval(e, e1); for (e in p2) eval(e, e2); " +
+                        "c(length(entry) == 1, identical(deparse(p1), deparse(p2)), identical(lapply(attr(p1, 'srcref'), as.integer), lapply(attr(p2, 'srcref'), as.integer)), " +
+                        "identical(attr(p1, 'srcfile')$parseData, attr(p2, 'srcfile')$parseData), identical(lapply(mget(ls(e1), e1), deparse), lapply(mget(ls(e2), e2), deparse)), " +
+                        check + ") }";
+    }
+
+    @Test
+    public void testReplay() {
+        // an entry that is replayed is not written again
+        String between = "Sys.setFileTime(entry, '2000-01-01')";
+        String check = "format(file.mtime(entry), '%Y') == '2000'";
+        assertEvalFastR(parseTwice(plainFile, between, check), "rep(TRUE, 6)");
+        assertEvalFastR(parseTwice(linedFile, between, check), "rep(TRUE, 6)");
+    }
+
+    @Test
+    public void testTruncatedEntry() {
+        String between = "writeBin(bytes[seq_len(length(bytes) %/% 2)], entry)";
+        String check = "identical(readBin(entry, 'raw', file.size(entry)), bytes)";
+        assertEvalFastR(parseTwice(plainFile, between, check), "rep(TRUE, 6)");
+        assertEvalFastR(parseTwice(linedFile, between, check), "rep(TRUE, 6)");
+    }
+
+    @Test
+    public void testCorruptEntry() {
+        String between = "corrupt <- bytes; i <- length(bytes) %/% 2; corrupt[i] <- as.raw(255L - as.integer(bytes[i])); writeBin(corrupt, entry)";
+        String check = "identical(readBin(entry, 'raw', file.size(entry)), bytes)";
+        assertEvalFastR(parseTwice(plainFile, between, check), "rep(TRUE, 6)");
+        assertEvalFastR(parseTwice(linedFile, between, check), "rep(TRUE, 6)");
+    }
+
+    @Test
+    public void testChangedIncludedFile() {
+        // the parser reads the file named by the #line marker, so the entry must not be replayed
+        String between = "inc <- '" + includedFile + "'; lines <- readLines(inc); writeLines(sub('# function 0', '# Function 0', lines), inc)";
+        String check = "!identical(readBin(entry, 'raw', file.size(entry)), bytes) && { writeLines(lines, inc); TRUE }";
+        assertEvalFastR(parseTwice(linedFile, between, check), "rep(TRUE, 6)");
+    }
+}
@@ -43,6 +43,21 @@ public class TestRRNG extends TestBase {
         assertEval("RNGkind('Marsaglia-Multicarry'); RNGkind('Mersenne-Twister'); set.seed(2); runif(5);");
     }
 
+    @Test
+    public void testOtherGenerators() {
+        assertEval("for (kind in c('Wichmann-Hill', 'Super-Duper', 'Knuth-TAOCP', 'Knuth-TAOCP-2002', \"L'Ecuyer-CMRG\")) { RNGkind(kind); set.seed(42); print(runif(5)); print(.Random.seed[1:4]) }");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(1); x <- runif(1000); set.seed(1); y <- c(runif(1), runif(999)); identical(x, y)");
+        assertEval("RNGkind('Knuth-TAOCP-2002'); set.seed(3); invisible(runif(50)); x <- .Random.seed; a <- rnorm(200); .Random.seed <- x; identical(a, rnorm(200))");
+        assertEval(".Random.seed <- c(10407L, 1L, 2L, 3L, 4L, 5L, 6L); runif(3)");
+    }
+
+    @Test
+    public void testStreams() {
+        assertEval("set.seed(123, kind = \"L'Ecuyer-CMRG\"); s <- .Random.seed; parallel::nextRNGStream(s)");
+        assertEval("set.seed(123, kind = \"L'Ecuyer-CMRG\"); s <- .Random.seed; parallel::nextRNGSubStream(s)");
+        assertEval("set.seed(123, kind = \"L'Ecuyer-CMRG\"); .Random.seed <- parallel::nextRNGStream(.Random.seed); runif(3)");
+    }
+
     @Test
     public void testDirectReadingSeed() {
         assertEval("invisible(runif(1)); length(.Random.seed)");
@@ -22,6 +22,12 @@
  */
 package com.oracle.truffle.r.test.runtime;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Arrays;
 
 import org.junit.Assert;
@@ -29,7 +35,10 @@ import org.junit.Test;
 
 import com.oracle.truffle.r.runtime.RSerialize;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RRawVector;
 import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.test.TestBase;
 
 public class TestRSerialize extends TestBase {
@@ -112,4 +121,82 @@ public class TestRSerialize extends TestBase {
         Assert.assertEquals("abc", ((RStringVector) unserialized).getDataAt(2));
         Assert.assertEquals(longString, ((RStringVector) unserialized).getDataAt(3));
     }
+
+    // Streaming tests
+
+    @Test
+    public void testStreamingRoundTrip() throws IOException {
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'y');
+        String longString = new String(chars);
+        byte[] rawData = new byte[200000];
+        for (int i = 0; i < rawData.length; i++) {
+            rawData[i] = (byte) i;
+        }
+        RList list = RDataFactory.createList(new Object[]{RDataFactory.createStringVector(new String[]{"abc", longString, "\u00e4"}, true), RDataFactory.createRawVector(rawData)});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RSerialize.serialize(Channels.newChannel(out), list, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null);
+        byte[] serialized = out.toByteArray();
+        Assert.assertArrayEquals(RSerialize.serialize(list, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null), serialized);
+
+        // deliver the data in small pieces to exercise the incremental reader
+        ReadableByteChannel in = new ReadableByteChannel() {
+            private final ReadableByteChannel delegate = Channels.newChannel(new ByteArrayInputStream(serialized));
+
+            @Override
+            public boolean isOpen() {
+                return delegate.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                ByteBuffer slice = dst.duplicate();
+                slice.limit(Math.min(dst.limit(), dst.position() + 1000));
+                int n = delegate.read(slice);
+                if (n > 0) {
+                    dst.position(dst.position() + n);
+                }
+                return n;
+            }
+        };
+        Object unserialized = RSerialize.unserialize(in);
+
+        Assert.assertTrue(unserialized instanceof RList);
+        RList result = (RList) unserialized;
+        RStringVector strings = (RStringVector) result.getDataAt(0);
+        Assert.assertEquals("abc", strings.getDataAt(0));
+        Assert.assertEquals(longString, strings.getDataAt(1));
+        Assert.assertEquals("\u00e4", strings.getDataAt(2));
+        RRawVector raw = (RRawVector) result.getDataAt(1);
+        Assert.assertEquals(rawData.length, raw.getLength());
+        for (int i = 0; i < rawData.length; i += 997) {
+            Assert.assertEquals(rawData[i], raw.getRawDataAt(i));
+        }
+    }
+
+    @Test
+    public void testRepeatedSerialization() {
+        // consecutive calls reuse the pooled buffers, the results must not be affected
+        RStringVector small = RDataFactory.createStringVector(new String[]{"a", "b"}, true);
+        double[] data = new double[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i / 3.0;
+        }
+        RList large = RDataFactory.createList(new Object[]{RDataFactory.createDoubleVector(data, true), small});
+        byte[] first = RSerialize.serialize(small, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null);
+        byte[] largeSerialized = RSerialize.serialize(large, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertArrayEquals(first, RSerialize.serialize(small, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null));
+            Assert.assertArrayEquals(largeSerialized, RSerialize.serialize(large, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null));
+        }
+        RList unserialized = (RList) RSerialize.unserialize(RDataFactory.createRawVector(largeSerialized));
+        Assert.assertEquals(data[99999], ((RAbstractDoubleVector) unserialized.getDataAt(0)).getDataAt(99999), 0);
+        Assert.assertEquals("b", ((RStringVector) unserialized.getDataAt(1)).getDataAt(1));
+    }
 }